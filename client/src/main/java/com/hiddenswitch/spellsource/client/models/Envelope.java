@@ -25,6 +25,7 @@ import com.hiddenswitch.spellsource.client.models.EnvelopeRequest;
 import com.hiddenswitch.spellsource.client.models.EnvelopeResponse;
 import com.hiddenswitch.spellsource.client.models.EnvelopeResult;
 import com.hiddenswitch.spellsource.client.models.EnvelopeSub;
+import com.hiddenswitch.spellsource.client.models.EnvelopeUnsub;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import java.io.Serializable;
@@ -49,6 +50,9 @@ public class Envelope implements Serializable {
   @JsonProperty("sub")
   private EnvelopeSub sub = null;
 
+  @JsonProperty("unsub")
+  private EnvelopeUnsub unsub = null;
+
   @JsonProperty("request")
   private EnvelopeRequest request = null;
 
@@ -133,6 +137,24 @@ public class Envelope implements Serializable {
     this.sub = sub;
   }
 
+  public Envelope unsub(EnvelopeUnsub unsub) {
+    this.unsub = unsub;
+    return this;
+  }
+
+   /**
+   * Get unsub
+   * @return unsub
+  **/
+  @ApiModelProperty(value = "")
+  public EnvelopeUnsub getUnsub() {
+    return unsub;
+  }
+
+  public void setUnsub(EnvelopeUnsub unsub) {
+    this.unsub = unsub;
+  }
+
   public Envelope request(EnvelopeRequest request) {
     this.request = request;
     return this;
@@ -219,6 +241,7 @@ public class Envelope implements Serializable {
         Objects.equals(this.changed, envelope.changed) &&
         Objects.equals(this.removed, envelope.removed) &&
         Objects.equals(this.sub, envelope.sub) &&
+        Objects.equals(this.unsub, envelope.unsub) &&
         Objects.equals(this.request, envelope.request) &&
         Objects.equals(this.response, envelope.response) &&
         Objects.equals(this.method, envelope.method) &&
@@ -227,7 +250,7 @@ public class Envelope implements Serializable {
 
   @Override
   public int hashCode() {
-    return Objects.hash(added, changed, removed, sub, request, response, method, result);
+    return Objects.hash(added, changed, removed, sub, unsub, request, response, method, result);
   }
 
 
@@ -240,6 +263,7 @@ public class Envelope implements Serializable {
     sb.append("    changed: ").append(toIndentedString(changed)).append("\n");
     sb.append("    removed: ").append(toIndentedString(removed)).append("\n");
     sb.append("    sub: ").append(toIndentedString(sub)).append("\n");
+    sb.append("    unsub: ").append(toIndentedString(unsub)).append("\n");
     sb.append("    request: ").append(toIndentedString(request)).append("\n");
     sb.append("    response: ").append(toIndentedString(response)).append("\n");
     sb.append("    method: ").append(toIndentedString(method)).append("\n");
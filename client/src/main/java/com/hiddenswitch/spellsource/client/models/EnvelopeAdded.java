@@ -45,6 +45,9 @@ public class EnvelopeAdded implements Serializable {
   @JsonProperty("match")
   private Match match = null;
 
+  @JsonProperty("liveQuery")
+  private LiveQueryDelta liveQuery = null;
+
   public EnvelopeAdded chatMessage(ChatMessage chatMessage) {
     this.chatMessage = chatMessage;
     return this;
@@ -117,6 +120,24 @@ public class EnvelopeAdded implements Serializable {
     this.match = match;
   }
 
+  public EnvelopeAdded liveQuery(LiveQueryDelta liveQuery) {
+    this.liveQuery = liveQuery;
+    return this;
+  }
+
+   /**
+   * Get liveQuery
+   * @return liveQuery
+  **/
+  @ApiModelProperty(value = "")
+  public LiveQueryDelta getLiveQuery() {
+    return liveQuery;
+  }
+
+  public void setLiveQuery(LiveQueryDelta liveQuery) {
+    this.liveQuery = liveQuery;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -130,12 +151,13 @@ public class EnvelopeAdded implements Serializable {
     return Objects.equals(this.chatMessage, envelopeAdded.chatMessage) &&
         Objects.equals(this.friend, envelopeAdded.friend) &&
         Objects.equals(this.invite, envelopeAdded.invite) &&
-        Objects.equals(this.match, envelopeAdded.match);
+        Objects.equals(this.match, envelopeAdded.match) &&
+        Objects.equals(this.liveQuery, envelopeAdded.liveQuery);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(chatMessage, friend, invite, match);
+    return Objects.hash(chatMessage, friend, invite, match, liveQuery);
   }
 
 
@@ -148,6 +170,7 @@ public class EnvelopeAdded implements Serializable {
     sb.append("    friend: ").append(toIndentedString(friend)).append("\n");
     sb.append("    invite: ").append(toIndentedString(invite)).append("\n");
     sb.append("    match: ").append(toIndentedString(match)).append("\n");
+    sb.append("    liveQuery: ").append(toIndentedString(liveQuery)).append("\n");
     sb.append("}");
     return sb.toString();
   }
@@ -33,6 +33,9 @@ public class EnvelopeChanged implements Serializable {
   @JsonProperty("friend")
   private Friend friend = null;
 
+  @JsonProperty("liveQuery")
+  private LiveQueryDelta liveQuery = null;
+
   public EnvelopeChanged friend(Friend friend) {
     this.friend = friend;
     return this;
@@ -51,6 +54,24 @@ public class EnvelopeChanged implements Serializable {
     this.friend = friend;
   }
 
+  public EnvelopeChanged liveQuery(LiveQueryDelta liveQuery) {
+    this.liveQuery = liveQuery;
+    return this;
+  }
+
+   /**
+   * Get liveQuery
+   * @return liveQuery
+  **/
+  @ApiModelProperty(value = "")
+  public LiveQueryDelta getLiveQuery() {
+    return liveQuery;
+  }
+
+  public void setLiveQuery(LiveQueryDelta liveQuery) {
+    this.liveQuery = liveQuery;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -61,12 +82,13 @@ public class EnvelopeChanged implements Serializable {
       return false;
     }
     EnvelopeChanged envelopeChanged = (EnvelopeChanged) o;
-    return Objects.equals(this.friend, envelopeChanged.friend);
+    return Objects.equals(this.friend, envelopeChanged.friend) &&
+        Objects.equals(this.liveQuery, envelopeChanged.liveQuery);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(friend);
+    return Objects.hash(friend, liveQuery);
   }
 
 
@@ -76,6 +98,7 @@ public class EnvelopeChanged implements Serializable {
     sb.append("class EnvelopeChanged {\n");
     
     sb.append("    friend: ").append(toIndentedString(friend)).append("\n");
+    sb.append("    liveQuery: ").append(toIndentedString(liveQuery)).append("\n");
     sb.append("}");
     return sb.toString();
   }
@@ -35,6 +35,9 @@ public class EnvelopeRemoved implements Serializable {
   @JsonProperty("matchId")
   private String matchId = null;
 
+  @JsonProperty("liveQuery")
+  private LiveQueryDelta liveQuery = null;
+
   public EnvelopeRemoved inviteId(String inviteId) {
     this.inviteId = inviteId;
     return this;
@@ -71,6 +74,24 @@ public class EnvelopeRemoved implements Serializable {
     this.matchId = matchId;
   }
 
+  public EnvelopeRemoved liveQuery(LiveQueryDelta liveQuery) {
+    this.liveQuery = liveQuery;
+    return this;
+  }
+
+   /**
+   * Get liveQuery
+   * @return liveQuery
+  **/
+  @ApiModelProperty(value = "")
+  public LiveQueryDelta getLiveQuery() {
+    return liveQuery;
+  }
+
+  public void setLiveQuery(LiveQueryDelta liveQuery) {
+    this.liveQuery = liveQuery;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -82,12 +103,13 @@ public class EnvelopeRemoved implements Serializable {
     }
     EnvelopeRemoved envelopeRemoved = (EnvelopeRemoved) o;
     return Objects.equals(this.inviteId, envelopeRemoved.inviteId) &&
-        Objects.equals(this.matchId, envelopeRemoved.matchId);
+        Objects.equals(this.matchId, envelopeRemoved.matchId) &&
+        Objects.equals(this.liveQuery, envelopeRemoved.liveQuery);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(inviteId, matchId);
+    return Objects.hash(inviteId, matchId, liveQuery);
   }
 
 
@@ -98,6 +120,7 @@ public class EnvelopeRemoved implements Serializable {
     
     sb.append("    inviteId: ").append(toIndentedString(inviteId)).append("\n");
     sb.append("    matchId: ").append(toIndentedString(matchId)).append("\n");
+    sb.append("    liveQuery: ").append(toIndentedString(liveQuery)).append("\n");
     sb.append("}");
     return sb.toString();
   }
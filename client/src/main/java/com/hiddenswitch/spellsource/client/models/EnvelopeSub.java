@@ -33,6 +33,9 @@ public class EnvelopeSub implements Serializable {
   @JsonProperty("conversation")
   private EnvelopeSubConversation conversation = null;
 
+  @JsonProperty("liveQuery")
+  private String liveQuery = null;
+
   public EnvelopeSub conversation(EnvelopeSubConversation conversation) {
     this.conversation = conversation;
     return this;
@@ -51,6 +54,24 @@ public class EnvelopeSub implements Serializable {
     this.conversation = conversation;
   }
 
+  public EnvelopeSub liveQuery(String liveQuery) {
+    this.liveQuery = liveQuery;
+    return this;
+  }
+
+   /**
+   * Subscribe to a live query of the user&#39;s own data: decks, collection, invites or friends. Receives an added delta for every document in the query, followed by added, changed and removed deltas as the query&#39;s results change. 
+   * @return liveQuery
+  **/
+  @ApiModelProperty(value = "Subscribe to a live query of the user's own data: decks, collection, invites or friends. Receives an added delta for every document in the query, followed by added, changed and removed deltas as the query's results change. ")
+  public String getLiveQuery() {
+    return liveQuery;
+  }
+
+  public void setLiveQuery(String liveQuery) {
+    this.liveQuery = liveQuery;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -61,12 +82,13 @@ public class EnvelopeSub implements Serializable {
       return false;
     }
     EnvelopeSub envelopeSub = (EnvelopeSub) o;
-    return Objects.equals(this.conversation, envelopeSub.conversation);
+    return Objects.equals(this.conversation, envelopeSub.conversation) &&
+        Objects.equals(this.liveQuery, envelopeSub.liveQuery);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(conversation);
+    return Objects.hash(conversation, liveQuery);
   }
 
 
@@ -76,6 +98,7 @@ public class EnvelopeSub implements Serializable {
     sb.append("class EnvelopeSub {\n");
     
     sb.append("    conversation: ").append(toIndentedString(conversation)).append("\n");
+    sb.append("    liveQuery: ").append(toIndentedString(liveQuery)).append("\n");
     sb.append("}");
     return sb.toString();
   }
@@ -22,9 +22,9 @@ import io.swagger.annotations.ApiModelProperty;
 import java.io.Serializable;
 
 /**
- * Subscribe to messages in a specific conversation. Receives all past messages, followed by any new ones. 
+ * Subscribe to messages in a specific conversation. Receives the latest page of past messages, oldest first, followed by any new ones. Specify a beforeMessageId to receive an older page of messages instead, without subscribing again. 
  */
-@ApiModel(description = "Subscribe to messages in a specific conversation. Receives all past messages, followed by any new ones. ")
+@ApiModel(description = "Subscribe to messages in a specific conversation. Receives the latest page of past messages, oldest first, followed by any new ones. Specify a beforeMessageId to receive an older page of messages instead, without subscribing again. ")
 
 public class EnvelopeSubConversation implements Serializable {
   private static final long serialVersionUID = 1L;
@@ -32,6 +32,12 @@ public class EnvelopeSubConversation implements Serializable {
   @JsonProperty("conversationId")
   private String conversationId = null;
 
+  @JsonProperty("beforeMessageId")
+  private String beforeMessageId = null;
+
+  @JsonProperty("limit")
+  private Integer limit = null;
+
   public EnvelopeSubConversation conversationId(String conversationId) {
     this.conversationId = conversationId;
     return this;
@@ -50,6 +56,42 @@ public class EnvelopeSubConversation implements Serializable {
     this.conversationId = conversationId;
   }
 
+  public EnvelopeSubConversation beforeMessageId(String beforeMessageId) {
+    this.beforeMessageId = beforeMessageId;
+    return this;
+  }
+
+   /**
+   * When specified, only the page of messages sent before this message is sent. 
+   * @return beforeMessageId
+  **/
+  @ApiModelProperty(value = "When specified, only the page of messages sent before this message is sent. ")
+  public String getBeforeMessageId() {
+    return beforeMessageId;
+  }
+
+  public void setBeforeMessageId(String beforeMessageId) {
+    this.beforeMessageId = beforeMessageId;
+  }
+
+  public EnvelopeSubConversation limit(Integer limit) {
+    this.limit = limit;
+    return this;
+  }
+
+   /**
+   * The maximum number of messages in the page. Defaults to 50. 
+   * @return limit
+  **/
+  @ApiModelProperty(value = "The maximum number of messages in the page. Defaults to 50. ")
+  public Integer getLimit() {
+    return limit;
+  }
+
+  public void setLimit(Integer limit) {
+    this.limit = limit;
+  }
+
 
   @Override
   public boolean equals(java.lang.Object o) {
@@ -60,12 +102,14 @@ public class EnvelopeSubConversation implements Serializable {
       return false;
     }
     EnvelopeSubConversation envelopeSubConversation = (EnvelopeSubConversation) o;
-    return Objects.equals(this.conversationId, envelopeSubConversation.conversationId);
+    return Objects.equals(this.conversationId, envelopeSubConversation.conversationId) &&
+        Objects.equals(this.beforeMessageId, envelopeSubConversation.beforeMessageId) &&
+        Objects.equals(this.limit, envelopeSubConversation.limit);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(conversationId);
+    return Objects.hash(conversationId, beforeMessageId, limit);
   }
 
 
@@ -75,6 +119,8 @@ public class EnvelopeSubConversation implements Serializable {
     sb.append("class EnvelopeSubConversation {\n");
     
     sb.append("    conversationId: ").append(toIndentedString(conversationId)).append("\n");
+    sb.append("    beforeMessageId: ").append(toIndentedString(beforeMessageId)).append("\n");
+    sb.append("    limit: ").append(toIndentedString(limit)).append("\n");
     sb.append("}");
     return sb.toString();
   }
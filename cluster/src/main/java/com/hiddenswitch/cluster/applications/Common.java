@@ -8,7 +8,8 @@ import com.hiddenswitch.cluster.functions.MergeSimulationResults;
 import com.hiddenswitch.cluster.functions.Simulator;
 import com.hiddenswitch.cluster.models.TestConfig;
 import net.demilich.metastone.game.GameContext;
-import net.demilich.metastone.game.cards.CardParseException;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
 import net.demilich.metastone.game.statistics.SimulationResult;
 import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -19,13 +20,11 @@ import org.apache.log4j.SimpleLayout;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
-import org.apache.spark.storage.StorageLevel;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.net.URISyntaxException;
 import java.sql.Date;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
@@ -36,6 +35,10 @@ import java.util.Optional;
 import static com.amazonaws.util.EC2MetadataUtils.getIAMSecurityCredentials;
 
 public class Common {
+	/**
+	 * The number of partitions to create per core when distributing batches of games.
+	 */
+	public static final int PARTITIONS_PER_CORE = 4;
 	private static Optional<Boolean> isEC2Environment = Optional.empty();
 
 	public static boolean isEC2Environment() {
@@ -75,20 +78,47 @@ public class Common {
 		}
 	}
 
+	/**
+	 * Simulates every batch of games and merges the results per test config.
+	 * <p>
+	 * The batches are spread over {@link #PARTITIONS_PER_CORE} partitions per core, so that executors stay busy when
+	 * batches take different amounts of time. Each partition is simulated by a {@link Simulator}, which merges its
+	 * results per config before the shuffle.
+	 *
+	 * @param configs Test configs valued with the number of games in each batch, like those returned by {@link
+	 *                #getConfigsForDecks(JavaSparkContext, List, int, int)}.
+	 * @return The merged results.
+	 */
 	public static JavaPairRDD<TestConfig, SimulationResult> simulate(JavaPairRDD<TestConfig, Object> configs) {
-		final StorageLevel storageLevel = StorageLevel.apply(true, false, false, false, 1);
-		JavaPairRDD<TestConfig, SimulationResult> simulations = configs.repartition((int) configs.count() / 10 + 1).persist(storageLevel).mapValues(new Simulator()).persist(storageLevel);
-		return simulations.reduceByKey(new MergeSimulationResults());
+		int partitions = configs.context().defaultParallelism() * PARTITIONS_PER_CORE;
+		return configs
+				.repartition(partitions)
+				.mapPartitionsToPair(new Simulator())
+				.reduceByKey(new MergeSimulationResults());
 	}
 
-	public static JavaPairRDD<TestConfig, Object> getConfigsForDecks(JavaSparkContext sc, List<String> decks, int gamesPerBatch, int batches) throws IOException, URISyntaxException, CardParseException {
-		List<String[]> deckPairs = GameContext.getDeckCombinations(decks);
+	public static JavaPairRDD<TestConfig, Object> getConfigsForDecks(JavaSparkContext sc, List<String> decks, int gamesPerBatch, int batches) {
+		return getConfigsForDecks(sc, decks, gamesPerBatch, batches, PlayRandomBehaviour.class, PlayRandomBehaviour.class);
+	}
 
+	/**
+	 * Creates the test configs for every pair of decks, including mirror matchups.
+	 *
+	 * @param sc            The Spark context.
+	 * @param decks         Community deck lists.
+	 * @param gamesPerBatch The number of games each batch plays sequentially.
+	 * @param batches       The number of batches per pair of decks.
+	 * @param behaviour1    The behaviour of the first player.
+	 * @param behaviour2    The behaviour of the second player.
+	 * @return Test configs valued with the number of games in each batch.
+	 */
+	public static JavaPairRDD<TestConfig, Object> getConfigsForDecks(JavaSparkContext sc, List<String> decks, int gamesPerBatch, int batches, Class<? extends Behaviour> behaviour1, Class<? extends Behaviour> behaviour2) {
+		List<String[]> deckPairs = GameContext.getDeckCombinations(decks);
 
 		JavaRDD<String[]> pairs = sc.parallelize(deckPairs);
 
 		// Create game configs to simulate
-		return pairs.flatMapToPair(null);
+		return pairs.flatMapToPair(new DecksToGameConfigs(batches, gamesPerBatch, behaviour1, behaviour2));
 	}
 
 	public static List<String> getDefaultDecks() throws IOException {
@@ -3,6 +3,7 @@ package com.hiddenswitch.cluster.applications;
 import ch.qos.logback.classic.Level;
 import com.hiddenswitch.spellsource.Spellsource;
 import com.hiddenswitch.spellsource.common.DeckCreateRequest;
+import com.hiddenswitch.spellsource.util.ComputeBudget;
 import com.hiddenswitch.spellsource.util.Logging;
 import com.hiddenswitch.spellsource.util.Simulation;
 import io.jenetics.*;
@@ -126,6 +127,9 @@ public class Cuckoo {
 				.populationSize(populationSize)
 				.selector(new EliteSelector<>(1, new LinearRankSelector<DoubleGene, Double>((int) (populationSize * discoveryRate))))
 				.alterers(new GaussianMutator<>(mutatorProbability), new MultiPointCrossover<>(crossoverCount))
+				// Fitness evaluations are the outermost parallel level, so the simulations and searches inside them only
+				// parallelize with the workers the population leaves idle
+				.executor(ComputeBudget.executor(populationSize))
 				.build();
 
 		AtomicReference<Phenotype<DoubleGene, Double>> best = new AtomicReference<>();
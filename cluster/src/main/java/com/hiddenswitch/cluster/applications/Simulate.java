@@ -2,24 +2,31 @@ package com.hiddenswitch.cluster.applications;
 
 import ch.qos.logback.classic.Level;
 import com.hiddenswitch.cluster.models.SimulationConfig;
+import com.hiddenswitch.cluster.models.TestConfig;
+import com.hiddenswitch.spellsource.common.DeckCreateRequest;
+import com.hiddenswitch.spellsource.common.DeckListParsingException;
 import com.hiddenswitch.spellsource.util.Simulation;
-import net.demilich.metastone.game.behaviour.Behaviour;
 import net.demilich.metastone.game.cards.CardCatalogue;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.statistics.SimulationResult;
 import org.apache.commons.io.FileUtils;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.slf4j.LoggerFactory;
+import scala.Tuple2;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class Simulate {
+	/**
+	 * The number of games of a matchup played sequentially by a single task.
+	 */
+	public static final int GAMES_PER_BATCH = 10;
 
 	/**
 	 * Sets the default logging level to ERROR to prevent slow log printing.
@@ -41,10 +48,6 @@ public class Simulate {
 			return;
 		}
 
-		// Get the behaviours. A supplier is a function (lambda) that takes no arguments and returns a new instance of
-		// an object. In this case, this returns new Behaviour objects.
-		final Supplier<Behaviour> behaviourSupplier1 = simulationConfig.getBehaviourSupplier1();
-		final Supplier<Behaviour> behaviourSupplier2 = simulationConfig.getBehaviourSupplier2();
 		// Gets a reference to the print stream used to write the output.
 		final PrintStream out = simulationConfig.getOutput() == null ? System.out : simulationConfig.getOutput();
 		// The list of filepaths to decks to test.
@@ -77,7 +80,17 @@ public class Simulate {
 				// Return null if for some reason we couldn't read the files, and filter the unread ones out
 				.filter(Objects::nonNull);
 
-		final Map<String, Deck> decks = Simulation.getDecks(decklists.collect(Collectors.toList()));
+		final List<String> deckListTexts = decklists.collect(Collectors.toList());
+		final Map<String, Deck> decks = Simulation.getDecks(deckListTexts);
+		// The executors build the decks from their deck lists
+		final Map<String, String> deckLists = new HashMap<>();
+		for (String deckList : deckListTexts) {
+			try {
+				deckLists.put(DeckCreateRequest.fromDeckList(deckList).getName(), deckList);
+			} catch (DeckListParsingException ignored) {
+				// Already reported by getDecks
+			}
+		}
 
 		if (decks.size() < 2) {
 			System.err.println("Simulate: Too few decks were specified. You need at least two decks to generate pairs.");
@@ -92,24 +105,41 @@ public class Simulate {
 
 		combinations = Simulation.getCombinations(mirrors, decks, twoDifferentBehaviours);
 
-		// Store the progress
-		AtomicInteger matchesComplete = new AtomicInteger(0);
-		final int totalMatches = number * combinations.size();
-
-		Thread progressThread = null;
-
-		// Printing progress thread
-		if (!quiet) {
-			progressThread = Simulation.getMonitor(matchesComplete, totalMatches);
-			progressThread.start();
+		// Split each matchup into batches, which are distributed by Spark. Runs on all the local cores unless a master
+		// is specified by spark-submit
+		SparkConf conf = new SparkConf()
+				.setAppName("Simulate")
+				.setIfMissing("spark.master", "local[*]")
+				.set("spark.ui.showConsoleProgress", Boolean.toString(!quiet));
+		JavaSparkContext sc = new JavaSparkContext(conf);
+
+		List<Tuple2<TestConfig, Object>> batches = new ArrayList<>();
+		for (String[] combination : combinations) {
+			TestConfig config = new TestConfig();
+			config.setDeckId1(combination[0]);
+			config.setDeckId2(combination[1]);
+			config.setDeckList1(deckLists.get(combination[0]));
+			config.setDeckList2(deckLists.get(combination[1]));
+			config.setBehaviour1(simulationConfig.getBehaviourClass1().getName());
+			config.setBehaviour2(simulationConfig.getBehaviourClass2().getName());
+			for (int games = 0; games < number; games += GAMES_PER_BATCH) {
+				batches.add(new Tuple2<>(config, Math.min(GAMES_PER_BATCH, number - games)));
+			}
 		}
 
-		final Map<String[], SimulationResult> results = Simulation.getResults(behaviourSupplier1, behaviourSupplier2, number, decks, combinations, matchesComplete);
+		final Map<String[], SimulationResult> results = new LinkedHashMap<>();
+		for (Map.Entry<TestConfig, SimulationResult> result : Common.simulate(sc.parallelizePairs(batches)).collectAsMap().entrySet()) {
+			results.put(new String[]{result.getKey().getDeckId1(), result.getKey().getDeckId2()}, result.getValue());
+		}
+		sc.stop();
 
 		Simulation.writeResults(out, results);
 
-		if (progressThread != null) {
-			progressThread.interrupt();
+		// Per-card results are folded into the same results, so they don't require another simulation
+		final PrintStream cardsOut = simulationConfig.getCardOutput();
+		if (cardsOut != null) {
+			Simulation.writeCardResults(cardsOut, results);
+			cardsOut.close();
 		}
 	}
 }
@@ -1,29 +1,56 @@
 package com.hiddenswitch.cluster.functions;
 
 import com.hiddenswitch.cluster.models.TestConfig;
-import net.demilich.metastone.game.cards.CardParseException;
+import com.hiddenswitch.spellsource.common.DeckCreateRequest;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 import scala.Tuple2;
 
-import java.io.IOException;
-import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
+/**
+ * Turns a pair of community deck lists into {@code batches} test configs, each valued with the number of games to play
+ * in that batch. Batches are the unit of work {@link Simulator} distributes.
+ */
 public class DecksToGameConfigs implements PairFlatMapFunction<String[], TestConfig, Object> {
 	private int batches;
 	private int gamesPerBatch;
+	private String behaviour1 = PlayRandomBehaviour.class.getName();
+	private String behaviour2 = PlayRandomBehaviour.class.getName();
 
-	public DecksToGameConfigs() throws CardParseException, IOException, URISyntaxException {
+	public DecksToGameConfigs() {
 	}
 
-	public DecksToGameConfigs(int batches, int gamesPerBatch) throws IOException, URISyntaxException, CardParseException {
+	public DecksToGameConfigs(int batches, int gamesPerBatch) {
 		this();
 		this.batches = batches;
 		this.gamesPerBatch = gamesPerBatch;
 	}
 
+	public DecksToGameConfigs(int batches, int gamesPerBatch, Class<? extends Behaviour> behaviour1, Class<? extends Behaviour> behaviour2) {
+		this(batches, gamesPerBatch);
+		this.behaviour1 = behaviour1.getName();
+		this.behaviour2 = behaviour2.getName();
+	}
+
 	@Override
 	public Iterator<Tuple2<TestConfig, Object>> call(String[] decklists) throws Exception {
-		throw new UnsupportedOperationException();
+		Simulator.loadCatalogue();
+		TestConfig config = new TestConfig();
+		config.setDeckId1(DeckCreateRequest.fromDeckList(decklists[0]).getName());
+		config.setDeckId2(DeckCreateRequest.fromDeckList(decklists[1]).getName());
+		config.setDeckList1(decklists[0]);
+		config.setDeckList2(decklists[1]);
+		config.setBehaviour1(behaviour1);
+		config.setBehaviour2(behaviour2);
+
+		List<Tuple2<TestConfig, Object>> configs = new ArrayList<>(batches);
+		for (int i = 0; i < batches; i++) {
+			configs.add(new Tuple2<>(config, gamesPerBatch));
+		}
+		return configs.iterator();
 	}
 }
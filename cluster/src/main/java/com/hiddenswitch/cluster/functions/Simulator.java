@@ -1,13 +1,104 @@
 package com.hiddenswitch.cluster.functions;
 
+import com.hiddenswitch.cluster.models.TestConfig;
+import com.hiddenswitch.spellsource.common.DeckCreateRequest;
+import com.hiddenswitch.spellsource.common.DeckListParsingException;
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.cards.CardCatalogue;
+import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.statistics.SimulationResult;
-import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import scala.Tuple2;
 
+import java.lang.reflect.Constructor;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Plays every batch of games in a partition of test configs, valued with the number of games in each batch.
+ * <p>
+ * Use with {@link org.apache.spark.api.java.JavaPairRDD#mapPartitionsToPair(PairFlatMapFunction)}. The card catalogue
+ * is loaded once per executor JVM. Each partition gets a single {@link Worker}, which parses each deck list and looks
+ * up each behaviour's constructor only once, and the partition's results are merged per test config before they're
+ * shuffled, so the shuffle carries one {@link SimulationResult} per config per partition instead of one per batch.
+ */
+public class Simulator implements PairFlatMapFunction<Iterator<Tuple2<TestConfig, Object>>, TestConfig, SimulationResult> {
+	private static volatile boolean catalogueLoaded;
+
+	/**
+	 * Loads the card catalogue if this JVM hasn't yet.
+	 */
+	public static void loadCatalogue() {
+		if (catalogueLoaded) {
+			return;
+		}
+		synchronized (Simulator.class) {
+			if (!catalogueLoaded) {
+				CardCatalogue.loadCardsFromPackage();
+				catalogueLoaded = true;
+			}
+		}
+	}
 
-public class Simulator implements Function<Object, SimulationResult> {
 	@Override
-	public SimulationResult call(Object gameConfig) {
-		// TODO: Rewrite
-		throw new UnsupportedOperationException();
+	public Iterator<Tuple2<TestConfig, SimulationResult>> call(Iterator<Tuple2<TestConfig, Object>> configs) throws Exception {
+		loadCatalogue();
+		Worker worker = new Worker();
+		Map<TestConfig, SimulationResult> results = new LinkedHashMap<>();
+		while (configs.hasNext()) {
+			Tuple2<TestConfig, Object> config = configs.next();
+			SimulationResult result = worker.simulate(config._1(), ((Number) config._2()).intValue());
+			results.merge(config._1(), result, SimulationResult::merge);
+		}
+
+		List<Tuple2<TestConfig, SimulationResult>> merged = new ArrayList<>(results.size());
+		for (Map.Entry<TestConfig, SimulationResult> entry : results.entrySet()) {
+			merged.add(new Tuple2<>(entry.getKey(), entry.getValue()));
+		}
+		return merged.iterator();
+	}
+
+	/**
+	 * Plays batches of games for a single partition, caching the decks and behaviour constructors it has seen.
+	 */
+	static class Worker {
+		private final Map<String, Deck> decks = new HashMap<>();
+		private final Map<String, Constructor<? extends Behaviour>> behaviours = new HashMap<>();
+
+		SimulationResult simulate(TestConfig config, int games) throws DeckListParsingException, ReflectiveOperationException {
+			List<Deck> deckPair = Arrays.asList(deck(config.getDeckList1()), deck(config.getDeckList2()));
+			Supplier<Behaviour> behaviour1 = behaviour(config.getBehaviour1());
+			Supplier<Behaviour> behaviour2 = behaviour(config.getBehaviour2());
+			// Spark parallelizes across partitions, so the games in a batch and their behaviours' searches are played
+			// sequentially
+			return GameContext.simulate(deckPair, behaviour1, behaviour2, games, false, null, null);
+		}
+
+		private Deck deck(String deckList) throws DeckListParsingException {
+			Deck deck = decks.get(deckList);
+			if (deck == null) {
+				deck = DeckCreateRequest.fromDeckList(deckList).toGameDeck();
+				decks.put(deckList, deck);
+			}
+			return deck;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Supplier<Behaviour> behaviour(String className) throws ReflectiveOperationException {
+			Constructor<? extends Behaviour> constructor = behaviours.get(className);
+			if (constructor == null) {
+				constructor = ((Class<? extends Behaviour>) Class.forName(className)).getConstructor();
+				behaviours.put(className, constructor);
+			}
+			Constructor<? extends Behaviour> finalConstructor = constructor;
+			return () -> {
+				try {
+					return finalConstructor.newInstance();
+				} catch (ReflectiveOperationException ex) {
+					throw new RuntimeException(ex);
+				}
+			};
+		}
 	}
 }
@@ -21,11 +21,15 @@ public class SimulationConfig implements Serializable {
 	private static final String BEHAVIOUR = "behaviour";
 	private static final String QUIET = "quiet";
 	private static final String MIRRORS = "mirrors";
+	private static final String CARDS = "cards";
 
 	private boolean invalid;
 	private Supplier<Behaviour> behaviourSupplier1;
 	private Supplier<Behaviour> behaviourSupplier2;
+	private Class<? extends Behaviour> behaviourClass1 = PlayRandomBehaviour.class;
+	private Class<? extends Behaviour> behaviourClass2 = PlayRandomBehaviour.class;
 	private PrintStream out;
+	private PrintStream cardsOut;
 	private List<String> deckPaths;
 	private int number;
 	private boolean quiet;
@@ -47,10 +51,27 @@ public class SimulationConfig implements Serializable {
 		return behaviourSupplier2;
 	}
 
+	public Class<? extends Behaviour> getBehaviourClass1() {
+		return behaviourClass1;
+	}
+
+	public Class<? extends Behaviour> getBehaviourClass2() {
+		return behaviourClass2;
+	}
+
 	public PrintStream getOutput() {
 		return out;
 	}
 
+	/**
+	 * Gets the stream to write the per-card results of each matchup to.
+	 *
+	 * @return The stream, or {@code null} if the user didn't ask for card results.
+	 */
+	public PrintStream getCardOutput() {
+		return cardsOut;
+	}
+
 	public List<String> getDeckPaths() {
 		return deckPaths;
 	}
@@ -89,6 +110,7 @@ public class SimulationConfig implements Serializable {
 						availableBehaviours.keySet().toString()));
 		Option quietOption = new Option(Character.toString(QUIET.charAt(0)), QUIET, false, "When set, does not print progress to the standard error stream.");
 		Option mirrorOption = new Option(Character.toString(MIRRORS.charAt(0)), MIRRORS, false, "When set, include the mirror matchups for decks.");
+		Option cardsOption = new Option(Character.toString(CARDS.charAt(0)), CARDS, true, "The file path to write the per-card play, game and win counts of each player in each matchup to. When unspecified, card results aren't written.");
 
 		decksOption.setRequired(true);
 		decksOption.setArgs(Option.UNLIMITED_VALUES);
@@ -96,6 +118,7 @@ public class SimulationConfig implements Serializable {
 		behaviourOption.setArgs(Option.UNLIMITED_VALUES);
 		behaviourOption.setValueSeparator(',');
 		outputOption.setArgs(1);
+		cardsOption.setArgs(1);
 		numberOption.setRequired(true);
 
 		options.addOption(decksOption);
@@ -104,6 +127,7 @@ public class SimulationConfig implements Serializable {
 		options.addOption(behaviourOption);
 		options.addOption(quietOption);
 		options.addOption(mirrorOption);
+		options.addOption(cardsOption);
 
 		CommandLineParser parser = new DefaultParser();
 		CommandLine cmd = null;
@@ -140,6 +164,18 @@ public class SimulationConfig implements Serializable {
 			out = System.out;
 		}
 
+		if (cmd.hasOption(cardsOption.getOpt())) {
+			String filePath = cmd.getOptionValue(cardsOption.getOpt());
+			try {
+				cardsOut = new PrintStream(FileUtils.openOutputStream(new File(filePath)));
+			} catch (Exception ex) {
+				System.err.println(
+						String.format("An error occurred while attempting to open the file path %s for writing card results: %s", filePath, ex.getMessage()));
+				invalid = true;
+				return this;
+			}
+		}
+
 		if (cmd.hasOption(behaviourOption.getOpt())) {
 			List<String> behaviours = Arrays.asList(cmd.getOptionValues(behaviourOption.getOpt()));
 
@@ -158,10 +194,13 @@ public class SimulationConfig implements Serializable {
 			}
 
 			behaviourSupplier1 = suppliers.get(0);
+			behaviourClass1 = availableBehaviours.get(behaviours.get(0));
 			if (suppliers.size() == 1) {
 				behaviourSupplier2 = suppliers.get(0);
+				behaviourClass2 = behaviourClass1;
 			} else if (suppliers.size() == 2) {
 				behaviourSupplier2 = suppliers.get(1);
+				behaviourClass2 = availableBehaviours.get(behaviours.get(1));
 			} else {
 				System.err.println("Using more than 2 behaviours in this matchup is currently not supported. We're seeking contributors to improve this functionality.");
 				invalid = true;
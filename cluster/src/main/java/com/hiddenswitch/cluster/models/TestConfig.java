@@ -5,9 +5,19 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import java.io.Serializable;
 
+/**
+ * A matchup to simulate: two decks, identified by their names and carried as community deck lists so that executors
+ * can build them, and the class names of the {@link net.demilich.metastone.game.behaviour.Behaviour} each player uses.
+ * <p>
+ * Results are merged per test config.
+ */
 public class TestConfig implements Serializable {
 	private String deckId1;
 	private String deckId2;
+	private String deckList1;
+	private String deckList2;
+	private String behaviour1;
+	private String behaviour2;
 
 	public String getDeckId1() {
 		return deckId1;
@@ -25,9 +35,41 @@ public class TestConfig implements Serializable {
 		this.deckId2 = deckId2;
 	}
 
+	public String getDeckList1() {
+		return deckList1;
+	}
+
+	public void setDeckList1(String deckList1) {
+		this.deckList1 = deckList1;
+	}
+
+	public String getDeckList2() {
+		return deckList2;
+	}
+
+	public void setDeckList2(String deckList2) {
+		this.deckList2 = deckList2;
+	}
+
+	public String getBehaviour1() {
+		return behaviour1;
+	}
+
+	public void setBehaviour1(String behaviour1) {
+		this.behaviour1 = behaviour1;
+	}
+
+	public String getBehaviour2() {
+		return behaviour2;
+	}
+
+	public void setBehaviour2(String behaviour2) {
+		this.behaviour2 = behaviour2;
+	}
+
 	@Override
 	public String toString() {
-		return String.format("[TestConfig deckIdToTest = %s, deckId2 = %s]\n", deckId1, deckId2);
+		return String.format("[TestConfig deckIdToTest = %s, deckId2 = %s, behaviour1 = %s, behaviour2 = %s]\n", deckId1, deckId2, behaviour1, behaviour2);
 	}
 
 	@Override
@@ -35,6 +77,10 @@ public class TestConfig implements Serializable {
 		HashCodeBuilder builder = new HashCodeBuilder();
 		builder.append(deckId1);
 		builder.append(deckId2);
+		builder.append(deckList1);
+		builder.append(deckList2);
+		builder.append(behaviour1);
+		builder.append(behaviour2);
 		return builder.toHashCode();
 	}
 
@@ -54,6 +100,10 @@ public class TestConfig implements Serializable {
 		return builder
 				.append(deckId1, rhs.deckId1)
 				.append(deckId2, rhs.deckId2)
+				.append(deckList1, rhs.deckList1)
+				.append(deckList2, rhs.deckList2)
+				.append(behaviour1, rhs.behaviour1)
+				.append(behaviour2, rhs.behaviour2)
 				.isEquals();
 	}
 }
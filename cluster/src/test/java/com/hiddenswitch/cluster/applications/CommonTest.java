@@ -0,0 +1,38 @@
+package com.hiddenswitch.cluster.applications;
+
+import com.hiddenswitch.cluster.models.TestConfig;
+import net.demilich.metastone.game.statistics.SimulationResult;
+import net.demilich.metastone.game.statistics.Statistic;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class CommonTest {
+	private static final String RAPTORS = "Name: Raptors\nClass: Mage\nFormat: Standard\n30x Bloodfen Raptor";
+	private static final String YETIS = "Name: Yetis\nClass: Warrior\nFormat: Standard\n30x Chillwind Yeti";
+
+	@Test
+	public void testSimulateLocally() {
+		SparkConf conf = new SparkConf().setAppName("CommonTest").setMaster("local[*]");
+		JavaSparkContext sc = new JavaSparkContext(conf);
+		try {
+			JavaPairRDD<TestConfig, Object> configs = Common.getConfigsForDecks(sc, Arrays.asList(RAPTORS, YETIS), 2, 3);
+			Map<TestConfig, SimulationResult> results = Common.simulate(configs).collectAsMap();
+
+			// The matchup and both mirrors
+			Assert.assertEquals(results.size(), 3);
+			for (SimulationResult result : results.values()) {
+				Assert.assertEquals(result.getNumberOfGames(), 6);
+				Assert.assertEquals(result.getPlayer1Stats().getLong(Statistic.GAMES_WON)
+						+ result.getPlayer1Stats().getLong(Statistic.GAMES_LOST), 6L);
+			}
+		} finally {
+			sc.stop();
+		}
+	}
+}
@@ -4,6 +4,7 @@ import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
 import net.demilich.metastone.game.decks.DeckFormat;
 import net.demilich.metastone.game.environment.Environment;
+import net.demilich.metastone.game.environment.EnvironmentStacks;
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.targeting.IdFactoryImpl;
@@ -56,6 +57,12 @@ public class GameState implements Serializable, Cloneable {
 	 * @see Environment for more about the environment variables.
 	 */
 	public final Map<Environment, Object> environment;
+	/**
+	 * The damage, value and entity reference stacks the game context keeps outside of its {@link #environment}.
+	 *
+	 * @see GameContext#getEnvironmentStacks() for more about the stacks.
+	 */
+	public final EnvironmentStacks environmentStacks;
 	/**
 	 * An instance of the class that manages and stores the state for {@link Trigger} objects.
 	 *
@@ -112,6 +119,7 @@ public class GameState implements Serializable, Cloneable {
 		player2 = clone.getPlayer2();
 		tempCards = clone.getTempCards();
 		environment = clone.getEnvironment();
+		environmentStacks = clone.getEnvironmentStacks();
 		currentId = clone.getLogic().getInternalId();
 		triggerManager = clone.getTriggerManager();
 		activePlayerId = clone.getActivePlayerId();
@@ -125,6 +133,7 @@ public class GameState implements Serializable, Cloneable {
 	                  Player player2,
 	                  CardList tempCards,
 	                  Map<Environment, Object> environment,
+	                  EnvironmentStacks environmentStacks,
 	                  TriggerManager triggerManager,
 	                  int currentId, int activePlayerId,
 	                  TurnState turnState,
@@ -136,6 +145,7 @@ public class GameState implements Serializable, Cloneable {
 		this.player2 = player2;
 		this.tempCards = tempCards;
 		this.environment = environment;
+		this.environmentStacks = environmentStacks;
 		this.triggerManager = triggerManager;
 		this.currentId = currentId;
 		this.activePlayerId = activePlayerId;
@@ -188,6 +198,7 @@ public class GameState implements Serializable, Cloneable {
 				player2,
 				tempCards,
 				environment,
+				environmentStacks,
 				triggerManager,
 				currentId,
 				activePlayerId,
@@ -0,0 +1,108 @@
+package com.hiddenswitch.spellsource.draft;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Samples items with replacement in proportion to their weights, in constant time per sample, using Vose's alias
+ * method.
+ * <p>
+ * Building the table takes time linear in the number of items. Each sample then costs one random integer and one
+ * random double, no matter how many items there are or how their weights are distributed.
+ *
+ * @param <T> The type of the items.
+ */
+public class AliasTable<T> {
+	private final List<T> items;
+	private final double[] probability;
+	private final int[] alias;
+
+	/**
+	 * Builds a table.
+	 *
+	 * @param items   The items.
+	 * @param weights The non-negative weight of each item. They don't need to sum to one.
+	 */
+	public AliasTable(List<T> items, double[] weights) {
+		if (items.size() != weights.length) {
+			throw new IllegalArgumentException("items and weights must have the same length");
+		}
+
+		int n = items.size();
+		this.items = new ArrayList<>(items);
+		this.probability = new double[n];
+		this.alias = new int[n];
+		if (n == 0) {
+			return;
+		}
+
+		double total = 0;
+		for (double weight : weights) {
+			total += weight;
+		}
+
+		// Scale the weights so that the average is one, then pair every underfull column with an overfull one
+		double[] scaled = new double[n];
+		Deque<Integer> small = new ArrayDeque<>();
+		Deque<Integer> large = new ArrayDeque<>();
+		for (int i = 0; i < n; i++) {
+			scaled[i] = weights[i] * n / total;
+			if (scaled[i] < 1.0) {
+				small.push(i);
+			} else {
+				large.push(i);
+			}
+		}
+
+		while (!small.isEmpty() && !large.isEmpty()) {
+			int less = small.pop();
+			int more = large.pop();
+			probability[less] = scaled[less];
+			alias[less] = more;
+			scaled[more] = scaled[more] + scaled[less] - 1.0;
+			if (scaled[more] < 1.0) {
+				small.push(more);
+			} else {
+				large.push(more);
+			}
+		}
+
+		// Whatever remains is full, up to rounding error
+		while (!large.isEmpty()) {
+			probability[large.pop()] = 1.0;
+		}
+		while (!small.isEmpty()) {
+			probability[small.pop()] = 1.0;
+		}
+	}
+
+	/**
+	 * Samples an item.
+	 *
+	 * @param random The source of randomness.
+	 * @return An item, or {@code null} if the table is empty.
+	 */
+	public T sample(Random random) {
+		if (items.isEmpty()) {
+			return null;
+		}
+		int column = random.nextInt(items.size());
+		return random.nextDouble() < probability[column] ? items.get(column) : items.get(alias[column]);
+	}
+
+	/**
+	 * Gets the number of items, counting each item once regardless of its weight.
+	 *
+	 * @return The number of items.
+	 */
+	public int size() {
+		return items.size();
+	}
+
+	public boolean isEmpty() {
+		return items.isEmpty();
+	}
+}
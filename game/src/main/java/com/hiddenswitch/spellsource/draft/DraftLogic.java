@@ -8,8 +8,7 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.ref.WeakReference;
 import java.util.*;
-
-import static java.util.stream.Collectors.toList;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by bberman on 12/14/16.
@@ -23,6 +22,77 @@ public class DraftLogic {
 	private final WeakReference<DraftContext> context;
 	public static int DRAFTS = 30;
 	public static int CARDS_PER_DRAFT = 3;
+	private static final List<CardSet> EQUAL_SETS = Arrays.asList(
+			CardSet.BASIC,
+			CardSet.CLASSIC,
+			CardSet.BLACKROCK_MOUNTAIN,
+			CardSet.GOBLINS_VS_GNOMES,
+			CardSet.LEAGUE_OF_EXPLORERS,
+			CardSet.MEAN_STREETS_OF_GADGETZAN,
+			CardSet.NAXXRAMAS,
+			CardSet.ONE_NIGHT_IN_KARAZHAN,
+			CardSet.HALL_OF_FAME,
+			CardSet.THE_GRAND_TOURNAMENT,
+			CardSet.THE_OLD_GODS,
+			CardSet.JOURNEY_TO_UNGORO,
+			CardSet.KNIGHTS_OF_THE_FROZEN_THRONE,
+			CardSet.WITCHWOOD,
+			CardSet.KOBOLDS_AND_CATACOMBS,
+			CardSet.BATTLE_FOR_ASHENVALE,
+			CardSet.SANDS_OF_TIME
+	);
+	// Until we have enough mean streets cards, don't use it
+	private static final CardSet LATEST_EXPANSION = CardSet.CUSTOM;
+	private static final Set<String> BANNED_CARDS = new HashSet<>(Arrays.asList(
+			"spell_forgotten_torch",
+			"minion_snowchugger",
+			"minion_faceless_summoner",
+			"minion_goblin_auto-barber",
+			"minion_undercity_valiant",
+			"minion_vitality_totem",
+			"minion_dust_devil",
+			"spell_totemic_might",
+			"spell_ancestral_healing",
+			"minion_dunemaul_shaman",
+			"minion_windspeaker",
+			"minion_anima_golem",
+			"spell_sacrificial_pact",
+			"spell_curse_of_rafaam",
+			"spell_sense_demons",
+			"minion_void_crusher",
+			"minion_reliquary_seeker",
+			"minion_succubus",
+			"spell_savagery",
+			"spell_poison_seeds",
+			"spell_soul_of_the_forest",
+			"spell_mark_of_nature",
+			"spell_tree_of_life",
+			"spell_astral_communion",
+			"minion_warsong_commander",
+			"spell_bolster",
+			"spell_charge",
+			"spell_bouncing_blade",
+			"minion_axe_flinger",
+			"spell_rampage",
+			"minion_ogre_warmaul",
+			"minion_starving_buzzard",
+			"spell_call_pet",
+			"minion_timber_wolf",
+			"spell_cobra_shot",
+			"spell_lock_and_load",
+			"secret_dart_trap",
+			"secret_snipe",
+			"spell_mind_blast",
+			"minion_shadowbomber",
+			"minion_lightwell",
+			"spell_power_word_glory",
+			"spell_confuse",
+			"spell_convert",
+			"spell_inner_fire"
+	));
+	private static final double CLASS_CARD_WEIGHT = 5.0;
+	private static final Map<List<Object>, AliasTable<String>> TABLES = new ConcurrentHashMap<>();
+	private static volatile int tablesCatalogueSize = -1;
 
 	public DraftLogic(DraftContext context) {
 		this.context = new WeakReference<>(context);
@@ -75,85 +145,13 @@ public class DraftLogic {
 	}
 
 	private List<List<String>> createDraftCards(HeroClass hero) {
-		ArrayList<List<Card>> draftCards = new ArrayList<>(DRAFTS);
-
-		List<CardSet> equals = Arrays.asList(
-				CardSet.BASIC,
-				CardSet.CLASSIC,
-				CardSet.BLACKROCK_MOUNTAIN,
-				CardSet.GOBLINS_VS_GNOMES,
-				CardSet.LEAGUE_OF_EXPLORERS,
-				CardSet.MEAN_STREETS_OF_GADGETZAN,
-				CardSet.NAXXRAMAS,
-				CardSet.ONE_NIGHT_IN_KARAZHAN,
-				CardSet.HALL_OF_FAME,
-				CardSet.THE_GRAND_TOURNAMENT,
-				CardSet.THE_OLD_GODS,
-				CardSet.JOURNEY_TO_UNGORO,
-				CardSet.KNIGHTS_OF_THE_FROZEN_THRONE,
-				CardSet.WITCHWOOD,
-				CardSet.KOBOLDS_AND_CATACOMBS,
-				CardSet.BATTLE_FOR_ASHENVALE,
-				CardSet.SANDS_OF_TIME
-		);
-
-		// Until we have enough mean streets cards, don't use it
-		CardSet latestExpansion = CardSet.CUSTOM;
-
-		Set<CardType> validCardTypes = new HashSet<>(Arrays.asList(CardType.values()));
-
-		Set<String> bannedCards = new HashSet<>();
-		bannedCards.addAll(Arrays.asList(
-				"spell_forgotten_torch",
-				"minion_snowchugger",
-				"minion_faceless_summoner",
-				"minion_goblin_auto-barber",
-				"minion_undercity_valiant",
-				"minion_vitality_totem",
-				"minion_dust_devil",
-				"spell_totemic_might",
-				"spell_ancestral_healing",
-				"minion_dunemaul_shaman",
-				"minion_windspeaker",
-				"minion_anima_golem",
-				"spell_sacrificial_pact",
-				"spell_curse_of_rafaam",
-				"spell_sense_demons",
-				"minion_void_crusher",
-				"minion_reliquary_seeker",
-				"minion_succubus",
-				"spell_savagery",
-				"spell_poison_seeds",
-				"spell_soul_of_the_forest",
-				"spell_mark_of_nature",
-				"spell_tree_of_life",
-				"spell_astral_communion",
-				"minion_warsong_commander",
-				"spell_bolster",
-				"spell_charge",
-				"spell_bouncing_blade",
-				"minion_axe_flinger",
-				"spell_rampage",
-				"minion_ogre_warmaul",
-				"minion_starving_buzzard",
-				"spell_call_pet",
-				"minion_timber_wolf",
-				"spell_cobra_shot",
-				"spell_lock_and_load",
-				"secret_dart_trap",
-				"secret_snipe",
-				"spell_mind_blast",
-				"minion_shadowbomber",
-				"minion_lightwell",
-				"spell_power_word_glory",
-				"spell_confuse",
-				"spell_convert",
-				"spell_inner_fire"
-		));
+		List<List<String>> draftCards = new ArrayList<>(DRAFTS);
+		Random random = getRandom();
+		float latestExpansionOdds = EXPANSION_ODDS_FACTOR / (EQUAL_SETS.size() + EXPANSION_ODDS_FACTOR);
 
 		for (int draft = 0; draft < DRAFTS; draft++) {
 			// Select a rarity at the appropriate frequency
-			float rarityRoll = roll();
+			float rarityRoll = random.nextFloat();
 			Rarity rarity;
 			if (rarityRoll < COMMON_ROLL) {
 				rarity = Rarity.COMMON;
@@ -166,54 +164,21 @@ public class DraftLogic {
 			}
 
 			// Select the card set. The latest expansion gets a 50% bonus
-			List<Card> draftChoices = new ArrayList<>(CARDS_PER_DRAFT);
-
-			while (draftChoices.stream().map(Card::getCardId).distinct().count() < CARDS_PER_DRAFT) {
-				float cardSetRoll = roll();
-				DeckFormat format = new DeckFormat();
-				float latestExpansionOdds = EXPANSION_ODDS_FACTOR / (equals.size() + EXPANSION_ODDS_FACTOR);
-				if (cardSetRoll < latestExpansionOdds) {
-					format.withCardSets(latestExpansion);
-				} else {
-					format.withCardSets(equals);
-				}
+			List<String> draftChoices = new ArrayList<>(CARDS_PER_DRAFT);
 
-				// Get neutral and hero cards
-				CardList classCards = CardCatalogue.query(format, c -> {
-					return c.hasHeroClass(hero)
-							&& !bannedCards.contains(c.getCardId())
-							&& c.getRarity() == rarity
-							&& validCardTypes.contains(c.getCardType())
-							&& c.isCollectible();
-				});
+			while (draftChoices.size() < CARDS_PER_DRAFT) {
+				float cardSetRoll = random.nextFloat();
+				boolean latestExpansion = cardSetRoll < latestExpansionOdds;
+				AliasTable<String> cards = getTable(hero, rarity, latestExpansion);
 
-				CardList neutralCards = CardCatalogue.query(format, c -> {
-					return c.hasHeroClass(HeroClass.ANY)
-							&& !bannedCards.contains(c.getCardId())
-							&& c.getRarity() == rarity
-							&& validCardTypes.contains(c.getCardType())
-							&& c.isCollectible();
-				});
-
-				// Total five copies of the class cards and then the neutrals
-				CardList cards = classCards.clone()
-						.addAll(classCards)
-						.addAll(classCards)
-						.addAll(classCards)
-						.addAll(classCards)
-						.addAll(neutralCards);
-
-				if (cards.getCount() == 0) {
-					logger.info("Draft pulled no cards given parameters: draft={}, rarity={}, sets={}", draft, rarity, format.getCardSets());
+				if (cards.isEmpty()) {
+					logger.info("Draft pulled no cards given parameters: draft={}, rarity={}, sets={}", draft, rarity, latestExpansion ? LATEST_EXPANSION : EQUAL_SETS);
 					continue;
 				}
 
-				// Shuffle then choose until we're done
-				cards.shuffle(getRandom());
-
-				final Card nextCard = cards.removeFirst();
+				final String nextCard = cards.sample(random);
 
-				if (draftChoices.stream().anyMatch(c -> Objects.equals(c.getCardId(), nextCard.getCardId()))) {
+				if (draftChoices.contains(nextCard)) {
 					continue;
 				}
 
@@ -222,11 +187,54 @@ public class DraftLogic {
 
 			draftCards.add(draftChoices);
 		}
-		return draftCards.stream().map(d -> d.stream().map(Card::getCardId).collect(toList())).collect(toList());
+		return draftCards;
 	}
 
-	private float roll() {
-		return getRandom().nextFloat();
+	/**
+	 * Gets the table that samples the draftable cards of a class, rarity and set bucket.
+	 * <p>
+	 * Class cards are five times as likely as neutral cards, as if the class cards appeared five times in the pool.
+	 * Tables are built from the catalogue's cards without cloning them, once per key, and rebuilt if the catalogue
+	 * changes.
+	 *
+	 * @param hero            The hero class of the draft.
+	 * @param rarity          The rarity of the cards.
+	 * @param latestExpansion {@code true} for the latest expansion, {@code false} for the other sets.
+	 * @return The table, which may be empty.
+	 */
+	static AliasTable<String> getTable(HeroClass hero, Rarity rarity, boolean latestExpansion) {
+		int catalogueSize = CardCatalogue.getRecords().size();
+		if (catalogueSize != tablesCatalogueSize) {
+			TABLES.clear();
+			tablesCatalogueSize = catalogueSize;
+		}
+
+		return TABLES.computeIfAbsent(Arrays.asList(hero, rarity, latestExpansion), key -> {
+			DeckFormat format = new DeckFormat();
+			if (latestExpansion) {
+				format.withCardSets(LATEST_EXPANSION);
+			} else {
+				format.withCardSets(EQUAL_SETS);
+			}
+
+			List<String> cardIds = new ArrayList<>();
+			List<Double> weights = new ArrayList<>();
+			CardCatalogue.stream()
+					.filter(c -> format.isInFormat(c)
+							&& !BANNED_CARDS.contains(c.getCardId())
+							&& c.getRarity() == rarity
+							&& c.isCollectible())
+					.forEach(c -> {
+						// Get hero and neutral cards
+						double weight = (c.hasHeroClass(hero) ? CLASS_CARD_WEIGHT : 0.0) + (c.hasHeroClass(HeroClass.ANY) ? 1.0 : 0.0);
+						if (weight > 0.0) {
+							cardIds.add(c.getCardId());
+							weights.add(weight);
+						}
+					});
+
+			return new AliasTable<>(cardIds, weights.stream().mapToDouble(Double::doubleValue).toArray());
+		});
 	}
 
 	private Random getRandom() {
@@ -0,0 +1,184 @@
+package com.hiddenswitch.spellsource.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The compute scheduler shared by every level of nested parallelism: the weight tuner's fitness evaluations, {@link
+ * net.demilich.metastone.game.GameContext#simulate} and the search of AI behaviours.
+ * <p>
+ * All parallel work runs in a single pool of {@link #getParallelism()} workers, which defaults to the number of cores
+ * and can be set with {@code -Dspellsource.parallelism}. Each task inherits a <b>share</b> of the workers: code that
+ * isn't running in a parallel level may use all of them, and a level of {@code n} tasks divides its share evenly
+ * between them. A level runs in parallel only if it has at least two tasks and a share of at least two workers.
+ * Otherwise it runs sequentially on the calling thread. Parallelism is therefore placed at the outermost level that
+ * has enough work, and inner levels use only the workers the outer levels leave idle, so nested simulations never
+ * oversubscribe the machine.
+ * <p>
+ * Use {@link #sequentially(Supplier)} to run code that is already parallelized by something else, like a Spark task,
+ * without any further parallelism.
+ */
+public final class ComputeBudget {
+	private static final int PARALLELISM = Math.max(1, Integer.getInteger("spellsource.parallelism", Runtime.getRuntime().availableProcessors()));
+	private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM, pool -> {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("spellsource-compute-" + thread.getPoolIndex());
+		thread.setDaemon(true);
+		return thread;
+	}, null, false);
+	private static final ThreadLocal<Integer> share = new ThreadLocal<>();
+
+	private ComputeBudget() {
+	}
+
+	/**
+	 * Gets the number of workers in the pool.
+	 *
+	 * @return The parallelism.
+	 */
+	public static int getParallelism() {
+		return PARALLELISM;
+	}
+
+	/**
+	 * Gets the number of workers the current thread may use for its own parallel levels.
+	 *
+	 * @return The share, which is {@link #getParallelism()} outside of any parallel level.
+	 */
+	public static int getShare() {
+		Integer current = share.get();
+		return current == null ? PARALLELISM : current;
+	}
+
+	/**
+	 * Indicates whether a level with the specified number of tasks would run in parallel on the current thread.
+	 *
+	 * @param tasks The number of tasks.
+	 * @return {@code true} if the level has enough work and the current thread has workers to spare.
+	 */
+	public static boolean shouldParallelize(int tasks) {
+		return tasks >= 2 && getShare() >= 2;
+	}
+
+	/**
+	 * Applies a function to every item as a parallel level.
+	 *
+	 * @param items    The items.
+	 * @param function The function, which may itself use this class.
+	 * @param <T>      The type of the items.
+	 * @param <R>      The type of the results.
+	 * @return The results, in the order of the items.
+	 */
+	public static <T, R> List<R> map(Collection<T> items, Function<? super T, ? extends R> function) {
+		int tasks = items.size();
+		if (!shouldParallelize(tasks)) {
+			List<R> results = new ArrayList<>(tasks);
+			for (T item : items) {
+				results.add(function.apply(item));
+			}
+			return results;
+		}
+
+		int innerShare = Math.max(1, getShare() / tasks);
+		return POOL.submit(() -> items.parallelStream()
+				.map(item -> withShare(innerShare, () -> function.apply(item)))
+				.collect(Collectors.<R>toList())).join();
+	}
+
+	/**
+	 * Applies a function to every item as a parallel level and reduces the results as they are computed, so that only as
+	 * many results as there are workers are held at once.
+	 *
+	 * @param items    The items.
+	 * @param function The function, which may itself use this class. Items for which it returns {@code null} are
+	 *                 skipped.
+	 * @param reducer  An associative function that combines two results.
+	 * @param <T>      The type of the items.
+	 * @param <R>      The type of the results.
+	 * @return The reduced result, or an empty optional if there were no non-{@code null} results.
+	 */
+	public static <T, R> Optional<R> mapReduce(Collection<T> items, Function<? super T, ? extends R> function, BinaryOperator<R> reducer) {
+		int tasks = items.size();
+		if (!shouldParallelize(tasks)) {
+			R reduced = null;
+			for (T item : items) {
+				R result = function.apply(item);
+				if (result != null) {
+					reduced = reduced == null ? result : reducer.apply(reduced, result);
+				}
+			}
+			return Optional.ofNullable(reduced);
+		}
+
+		int innerShare = Math.max(1, getShare() / tasks);
+		return POOL.submit(() -> items.parallelStream()
+				.<R>map(item -> withShare(innerShare, () -> function.apply(item)))
+				.filter(Objects::nonNull)
+				.reduce(reducer)).join();
+	}
+
+	/**
+	 * Performs an action for every item as a parallel level.
+	 *
+	 * @param items  The items.
+	 * @param action The action, which may itself use this class.
+	 * @param <T>    The type of the items.
+	 */
+	public static <T> void forEach(Collection<T> items, Consumer<? super T> action) {
+		map(items, item -> {
+			action.accept(item);
+			return null;
+		});
+	}
+
+	/**
+	 * Gets an executor for a level of {@code tasks} tasks submitted by a library, like the fitness evaluations of a
+	 * genetic algorithm. Each task gets its share of the calling thread's workers.
+	 *
+	 * @param tasks The number of tasks the library will submit at once.
+	 * @return An executor backed by the shared pool.
+	 */
+	public static Executor executor(int tasks) {
+		int innerShare = Math.max(1, getShare() / Math.max(1, tasks));
+		return command -> POOL.execute(() -> withShare(innerShare, () -> {
+			command.run();
+			return null;
+		}));
+	}
+
+	/**
+	 * Runs code without any further parallelism.
+	 *
+	 * @param supplier The code.
+	 * @param <R>      The type of the result.
+	 * @return The result.
+	 */
+	public static <R> R sequentially(Supplier<R> supplier) {
+		return withShare(1, supplier);
+	}
+
+	private static <R> R withShare(int value, Supplier<R> supplier) {
+		Integer previous = share.get();
+		share.set(value);
+		try {
+			return supplier.get();
+		} finally {
+			if (previous == null) {
+				share.remove();
+			} else {
+				share.set(previous);
+			}
+		}
+	}
+}
@@ -13,6 +13,11 @@ public interface DiffSequence {
 	/**
 	 * Computes a correct sequence of added, changed, removed and moved commands against a context between two lists.
 	 * O(N log N).
+	 * <p>
+	 * Documents that keep their relative order are found as the longest increasing subsequence of their old indices,
+	 * using patience sorting with a binary search over primitive index arrays. Every other document that was already
+	 * present is moved, and only documents that aren't present are added. The commands are planned without holding the
+	 * context's lock, which is only held while they are sent.
 	 *
 	 * @param oldResults The original sequence.
 	 * @param newResults The new sequence.
@@ -21,93 +26,100 @@ public interface DiffSequence {
 	 * @param <K>        The key type.
 	 * @return The context.
 	 */
+	@SuppressWarnings("unchecked")
 	static <T, K extends Comparable<K>> DiffContext<T, K> diffQueryOrderedChanges(List<T> oldResults, List<T> newResults, DiffContext<T, K> context) {
-		// Only one context can be sent commands at a time
-		synchronized (context.lock()) {
-			Function<T, K> keyer = context.getKeyer();
-			Set<Comparable> newPresenceOfId = new HashSet<>();
-			for (T doc : newResults) {
-				final Comparable<?> key = keyer.apply(doc);
-				if (newPresenceOfId.contains(key)) {
-					logger.debug("diffQueryOrderedChanges: Duplicate id {} in new results", key);
-				}
-				newPresenceOfId.add(key);
+		Function<T, K> keyer = context.getKeyer();
+		int oldCount = oldResults.size();
+		int newCount = newResults.size();
+
+		Map<K, Integer> oldIndexOfId = new HashMap<>(oldCount * 2);
+		Object[] oldKeys = new Object[oldCount];
+		for (int i = 0; i < oldCount; i++) {
+			K key = keyer.apply(oldResults.get(i));
+			oldKeys[i] = key;
+			if (oldIndexOfId.put(key, i) != null) {
+				logger.debug("diffQueryOrderedChanges: Duplicate id {} in old results", key);
 			}
+		}
 
-			Map<Comparable, Integer> oldIndexOfId = new HashMap<>();
-			for (int i = 0; i < oldResults.size(); i++) {
-				T doc = oldResults.get(i);
-				final Comparable<?> key = keyer.apply(doc);
-				if (oldIndexOfId.containsKey(key)) {
-					logger.debug("diffQueryOrderedChanges: Duplicate id {} in old results", key);
-				}
-				oldIndexOfId.put(key, i);
+		// The old index of each new document, or -1 if it was added
+		Object[] newKeys = new Object[newCount];
+		int[] oldIndices = new int[newCount];
+		Set<K> newPresenceOfId = new HashSet<>(newCount * 2);
+		for (int i = 0; i < newCount; i++) {
+			K key = keyer.apply(newResults.get(i));
+			newKeys[i] = key;
+			if (!newPresenceOfId.add(key)) {
+				logger.debug("diffQueryOrderedChanges: Duplicate id {} in new results", key);
 			}
+			Integer oldIndex = oldIndexOfId.get(key);
+			oldIndices[i] = oldIndex == null ? -1 : oldIndex;
+		}
 
-			List<Integer> unmoved = new ArrayList<>();
-			int maxSeqLen = 0;
-			int N = newResults.size();
-			int[] seqEnds = new int[N];
-			int[] ptrs = new int[N];
-			Function<Integer, Integer> oldIdxSeq = (i) -> oldIndexOfId.get(keyer.apply(newResults.get(i)));
-			for (int i = 0; i < N; i++) {
-				if (oldIndexOfId.containsKey(keyer.apply(newResults.get(i)))) {
-					int j = maxSeqLen;
-					while (j > 0) {
-						if (oldIdxSeq.apply(seqEnds[j - 1]) < oldIdxSeq.apply(i)) {
-							break;
-						}
-						j--;
-					}
+		// seqEnds[j] is the new index of the smallest old index that ends an increasing subsequence of length j + 1
+		int[] seqEnds = new int[newCount];
+		int[] ptrs = new int[newCount];
+		int maxSeqLen = 0;
+		for (int i = 0; i < newCount; i++) {
+			int oldIndex = oldIndices[i];
+			if (oldIndex < 0) {
+				continue;
+			}
 
-					ptrs[i] = (j == 0 ? -1 : seqEnds[j - 1]);
-					seqEnds[j] = i;
-					if (j + 1 > maxSeqLen) {
-						maxSeqLen = j + 1;
-					}
+			int low = 0;
+			int high = maxSeqLen;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (oldIndices[seqEnds[mid]] < oldIndex) {
+					low = mid + 1;
+				} else {
+					high = mid;
 				}
 			}
 
-			int idx = maxSeqLen == 0 ? -1 : seqEnds[maxSeqLen - 1];
-			while (idx >= 0) {
-				unmoved.add(idx);
-				idx = ptrs[idx];
+			ptrs[i] = low == 0 ? -1 : seqEnds[low - 1];
+			seqEnds[low] = i;
+			if (low + 1 > maxSeqLen) {
+				maxSeqLen = low + 1;
 			}
+		}
 
-			Collections.reverse(unmoved);
-			unmoved.add(newResults.size());
+		// The unmoved documents, in order, followed by the end of the list
+		int[] unmoved = new int[maxSeqLen + 1];
+		int idx = maxSeqLen == 0 ? -1 : seqEnds[maxSeqLen - 1];
+		for (int j = maxSeqLen - 1; j >= 0; j--) {
+			unmoved[j] = idx;
+			idx = ptrs[idx];
+		}
+		unmoved[maxSeqLen] = newCount;
 
-			for (T doc : oldResults) {
-				final K key = keyer.apply(doc);
+		// Only one context can be sent commands at a time
+		synchronized (context.lock()) {
+			for (int i = 0; i < oldCount; i++) {
+				K key = (K) oldKeys[i];
 				if (!newPresenceOfId.contains(key)) {
 					context.removed(key);
 				}
 			}
 
 			int startOfGroup = 0;
-			for (Integer endOfGroup : unmoved) {
-				K groupId = (newResults.size() > endOfGroup && newResults.get(endOfGroup) != null)
-						? keyer.apply(newResults.get(endOfGroup)) : null;
-				T oldDoc;
-				T newDoc;
+			for (int endOfGroup : unmoved) {
+				K groupId = (newCount > endOfGroup && newResults.get(endOfGroup) != null)
+						? (K) newKeys[endOfGroup] : null;
 
 				for (int i = startOfGroup; i < endOfGroup; i++) {
-					newDoc = newResults.get(i);
-					final K newDocId = keyer.apply(newDoc);
-					if (!oldIndexOfId.containsKey(newDocId)) {
+					T newDoc = newResults.get(i);
+					K newDocId = (K) newKeys[i];
+					if (oldIndices[i] < 0) {
 						context.addedBefore(newDocId, newDoc, groupId);
 						context.added(newDocId, newDoc);
 					} else {
-						oldDoc = oldResults.get(oldIndexOfId.get(newDocId));
-						context.possiblyChanged(newDocId, oldDoc, newDoc);
+						context.possiblyChanged(newDocId, oldResults.get(oldIndices[i]), newDoc);
 						context.movedBefore(newDocId, groupId);
 					}
 				}
 				if (groupId != null) {
-					newDoc = newResults.get(endOfGroup);
-					final K newDocId = keyer.apply(newDoc);
-					oldDoc = oldResults.get(oldIndexOfId.get(newDocId));
-					context.possiblyChanged(newDocId, oldDoc, newDoc);
+					context.possiblyChanged(groupId, oldResults.get(oldIndices[endOfGroup]), newResults.get(endOfGroup));
 				}
 				startOfGroup = endOfGroup + 1;
 			}
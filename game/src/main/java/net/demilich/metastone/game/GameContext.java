@@ -6,6 +6,7 @@ import co.paralleluniverse.fibers.Suspendable;
 import co.paralleluniverse.strands.SuspendableCallable;
 import com.hiddenswitch.spellsource.common.GameState;
 import com.hiddenswitch.spellsource.common.NetworkBehaviour;
+import com.hiddenswitch.spellsource.util.ComputeBudget;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.ext.sync.Sync;
@@ -23,9 +24,11 @@ import net.demilich.metastone.game.entities.EntityZoneTable;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
 import net.demilich.metastone.game.entities.minions.Minion;
 import net.demilich.metastone.game.environment.Environment;
-import net.demilich.metastone.game.environment.EnvironmentDeque;
+import net.demilich.metastone.game.environment.EntityReferenceStack;
 import net.demilich.metastone.game.environment.EnvironmentMap;
+import net.demilich.metastone.game.environment.EnvironmentStacks;
 import net.demilich.metastone.game.environment.EnvironmentValue;
+import net.demilich.metastone.game.environment.IntStack;
 import net.demilich.metastone.game.events.GameEvent;
 import net.demilich.metastone.game.logic.GameLogic;
 import net.demilich.metastone.game.logic.GameStatus;
@@ -54,6 +57,7 @@ import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -155,6 +159,16 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	private TargetLogic targetLogic = new TargetLogic();
 	private TriggerManager triggerManager = new TriggerManager();
 	private Map<Environment, Object> environment = new HashMap<>();
+	private IntStack damageStack = new IntStack();
+	private EntityReferenceStack eventTargetStack = new EntityReferenceStack();
+	private EntityReferenceStack summonReferenceStack = new EntityReferenceStack();
+	private IntStack spellValueStack = new IntStack();
+	private IntStack eventValueStack = new IntStack();
+	private EntityReferenceStack spellTargetStack = new EntityReferenceStack();
+	private EntityReferenceStack outputStack = new EntityReferenceStack();
+	private EntityReferenceStack attackerReferenceStack = new EntityReferenceStack();
+	private EntityReferenceStack eventSourceStack = new EntityReferenceStack();
+	private EntityReferenceStack triggerHostStack = new EntityReferenceStack();
 	private int activePlayerId = -1;
 	private Player winner;
 	private GameStatus result;
@@ -323,6 +337,17 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 			}
 		}
 
+		clone.damageStack = damageStack.getCopy();
+		clone.eventTargetStack = eventTargetStack.getCopy();
+		clone.summonReferenceStack = summonReferenceStack.getCopy();
+		clone.spellValueStack = spellValueStack.getCopy();
+		clone.eventValueStack = eventValueStack.getCopy();
+		clone.spellTargetStack = spellTargetStack.getCopy();
+		clone.outputStack = outputStack.getCopy();
+		clone.attackerReferenceStack = attackerReferenceStack.getCopy();
+		clone.eventSourceStack = eventSourceStack.getCopy();
+		clone.triggerHostStack = triggerHostStack.getCopy();
+
 		clone.behaviours = new Behaviour[]{behaviours[0] == null ? null : behaviours[0].clone(), behaviours[1] == null ? null : behaviours[1].clone()};
 		return clone;
 	}
@@ -335,6 +360,16 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 		this.players = null;
 		getTriggerManager().dispose();
 		getEnvironment().clear();
+		damageStack.clear();
+		eventTargetStack.clear();
+		summonReferenceStack.clear();
+		spellValueStack.clear();
+		eventValueStack.clear();
+		spellTargetStack.clear();
+		outputStack.clear();
+		attackerReferenceStack.clear();
+		eventSourceStack.clear();
+		triggerHostStack.clear();
 	}
 
 	/**
@@ -542,12 +577,8 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 *
 	 * @return The stack.
 	 */
-	@SuppressWarnings("unchecked")
-	public Deque<Integer> getDamageStack() {
-		if (!getEnvironment().containsKey(Environment.DAMAGE_STACK)) {
-			getEnvironment().put(Environment.DAMAGE_STACK, new EnvironmentDeque<Integer>());
-		}
-		return (Deque<Integer>) getEnvironment().get(Environment.DAMAGE_STACK);
+	public IntStack getDamageStack() {
+		return damageStack;
 	}
 
 	/**
@@ -588,12 +619,8 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 * @return A stack of targets.
 	 * @see Environment#EVENT_TARGET_REFERENCE_STACK for more.
 	 */
-	@SuppressWarnings("unchecked")
-	public Deque<EntityReference> getEventTargetStack() {
-		if (!getEnvironment().containsKey(Environment.EVENT_TARGET_REFERENCE_STACK)) {
-			getEnvironment().put(Environment.EVENT_TARGET_REFERENCE_STACK, new EnvironmentDeque<EntityReference>());
-		}
-		return (Deque<EntityReference>) getEnvironment().get(Environment.EVENT_TARGET_REFERENCE_STACK);
+	public EntityReferenceStack getEventTargetStack() {
+		return eventTargetStack;
 	}
 
 	/**
@@ -766,12 +793,8 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 *
 	 * @return A stack of summons.
 	 */
-	@SuppressWarnings("unchecked")
-	public Deque<EntityReference> getSummonReferenceStack() {
-		if (!getEnvironment().containsKey(Environment.SUMMON_REFERENCE_STACK)) {
-			getEnvironment().put(Environment.SUMMON_REFERENCE_STACK, new EnvironmentDeque<EntityReference>());
-		}
-		return (Deque<EntityReference>) getEnvironment().get(Environment.SUMMON_REFERENCE_STACK);
+	public EntityReferenceStack getSummonReferenceStack() {
+		return summonReferenceStack;
 	}
 
 	/**
@@ -1037,13 +1060,8 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 		this.ignoreEvents = ignoreEvents;
 	}
 
-	@SuppressWarnings("unchecked")
 	public int getEventValue() {
-		if (getEnvironment().containsKey(Environment.EVENT_VALUE_STACK)) {
-			return ((Deque<Integer>) getEnvironment().get(Environment.EVENT_VALUE_STACK)).peek();
-		} else {
-			return 0;
-		}
+		return eventValueStack.isEmpty() ? 0 : eventValueStack.peek();
 	}
 
 	/**
@@ -1103,12 +1121,16 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 
 	/**
 	 * Starts the turn for a player.
+	 * <p>
+	 * Before the turn is started, the {@link Trace} records a checkpoint of the game so that it can be replayed from this
+	 * point.
 	 *
 	 * @param playerId The player whose turn should be started.
 	 */
 	@Suspendable
 	public void startTurn(int playerId) {
 		logger.debug("{} startTurn: Starting turn {} for playerId={}", getGameId(), getTurn() + 1, playerId);
+		trace.onTurnWillStart(this);
 		setTurn(getTurn() + 1);
 		getLogic().startTurn(playerId);
 		setActionsThisTurn(0);
@@ -1148,6 +1170,42 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 		this.environment = environment;
 	}
 
+	/**
+	 * Gets the damage, value and entity reference stacks this context keeps outside of its {@link #getEnvironment()}.
+	 *
+	 * @return The stacks, by reference.
+	 */
+	public EnvironmentStacks getEnvironmentStacks() {
+		return new EnvironmentStacks(damageStack,
+				eventTargetStack,
+				summonReferenceStack,
+				spellValueStack,
+				eventValueStack,
+				spellTargetStack,
+				outputStack,
+				attackerReferenceStack,
+				eventSourceStack,
+				triggerHostStack);
+	}
+
+	/**
+	 * Replaces this context's damage, value and entity reference stacks.
+	 *
+	 * @param stacks The stacks, which are used by reference.
+	 */
+	public void setEnvironmentStacks(EnvironmentStacks stacks) {
+		this.damageStack = stacks.damageStack;
+		this.eventTargetStack = stacks.eventTargetStack;
+		this.summonReferenceStack = stacks.summonReferenceStack;
+		this.spellValueStack = stacks.spellValueStack;
+		this.eventValueStack = stacks.eventValueStack;
+		this.spellTargetStack = stacks.spellTargetStack;
+		this.outputStack = stacks.outputStack;
+		this.attackerReferenceStack = stacks.attackerReferenceStack;
+		this.eventSourceStack = stacks.eventSourceStack;
+		this.triggerHostStack = stacks.triggerHostStack;
+	}
+
 	public Player getWinner() {
 		return winner;
 	}
@@ -1193,6 +1251,9 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 		this.setPlayer(GameContext.PLAYER_2, state.player2);
 		this.setTempCards(state.tempCards);
 		this.setEnvironment(state.environment);
+		if (state.environmentStacks != null) {
+			this.setEnvironmentStacks(state.environmentStacks);
+		}
 		this.setTriggerManager(state.triggerManager);
 		if (getLogic() == null) {
 			setLogic(new GameLogic());
@@ -1248,6 +1309,49 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 		return "local";
 	}
 
+	/**
+	 * Gets the {@link net.demilich.metastone.game.entities.EntityZone#getVersion()} of every zone in the game. When
+	 * these values haven't changed, no entity has entered, left or moved within any zone.
+	 *
+	 * @param versions An array to reuse, or {@code null}.
+	 * @return The versions, in the specified array if it has the right length or else in a new one.
+	 * @see #zonesVersionsEqual(long[]) to compare versions against the current ones.
+	 */
+	public long[] getZonesVersions(long[] versions) {
+		int length = getPlayers().size() * Player.VERSIONED_ZONES;
+		if (versions == null || versions.length != length) {
+			versions = new long[length];
+		}
+		int i = 0;
+		for (Player player : getPlayers()) {
+			for (int j = 0; j < Player.VERSIONED_ZONES; j++) {
+				versions[i++] = player.getZoneVersion(j);
+			}
+		}
+		return versions;
+	}
+
+	/**
+	 * Checks whether the versions of every zone in the game are still the specified ones.
+	 *
+	 * @param versions Versions previously retrieved with {@link #getZonesVersions(long[])}.
+	 * @return {@code true} if no zone has changed since the versions were retrieved.
+	 */
+	public boolean zonesVersionsEqual(long[] versions) {
+		if (versions == null || versions.length != getPlayers().size() * Player.VERSIONED_ZONES) {
+			return false;
+		}
+		int i = 0;
+		for (Player player : getPlayers()) {
+			for (int j = 0; j < Player.VERSIONED_ZONES; j++) {
+				if (versions[i++] != player.getZoneVersion(j)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Gets all the entities in the game, aside from hidden ones, as a {@link Stream}.
 	 *
@@ -1303,44 +1407,24 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 *
 	 * @return A stack of {@link Integer} spell values.
 	 */
-	@SuppressWarnings("unchecked")
-	public Deque<Integer> getSpellValueStack() {
-		if (!getEnvironment().containsKey(Environment.SPELL_VALUE_STACK)) {
-			getEnvironment().put(Environment.SPELL_VALUE_STACK, new EnvironmentDeque<Integer>());
-		}
-		return (Deque<Integer>) getEnvironment().get(Environment.SPELL_VALUE_STACK);
+	public IntStack getSpellValueStack() {
+		return spellValueStack;
 	}
 
-	@SuppressWarnings("unchecked")
-	public Deque<Integer> getEventValueStack() {
-		if (!getEnvironment().containsKey(Environment.EVENT_VALUE_STACK)) {
-			getEnvironment().put(Environment.EVENT_VALUE_STACK, new EnvironmentDeque<>());
-		}
-		return (Deque<Integer>) getEnvironment().get(Environment.EVENT_VALUE_STACK);
+	public IntStack getEventValueStack() {
+		return eventValueStack;
 	}
 
-	@SuppressWarnings("unchecked")
-	public Deque<EntityReference> getSpellTargetStack() {
-		if (!getEnvironment().containsKey(Environment.SPELL_TARGET)) {
-			getEnvironment().put(Environment.SPELL_TARGET, new EnvironmentDeque<>());
-		}
-		return (Deque<EntityReference>) getEnvironment().get(Environment.SPELL_TARGET);
+	public EntityReferenceStack getSpellTargetStack() {
+		return spellTargetStack;
 	}
 
-	@SuppressWarnings("unchecked")
-	public Deque<EntityReference> getOutputStack() {
-		if (!getEnvironment().containsKey(Environment.OUTPUTS)) {
-			getEnvironment().put(Environment.OUTPUTS, new EnvironmentDeque<>());
-		}
-		return (Deque<EntityReference>) getEnvironment().get(Environment.OUTPUTS);
+	public EntityReferenceStack getOutputStack() {
+		return outputStack;
 	}
 
-	@SuppressWarnings("unchecked")
-	public Deque<EntityReference> getAttackerReferenceStack() {
-		if (!getEnvironment().containsKey(Environment.ATTACKER_REFERENCE_STACK)) {
-			getEnvironment().put(Environment.ATTACKER_REFERENCE_STACK, new EnvironmentDeque<>());
-		}
-		return (Deque<EntityReference>) getEnvironment().get(Environment.ATTACKER_REFERENCE_STACK);
+	public EntityReferenceStack getAttackerReferenceStack() {
+		return attackerReferenceStack;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1387,12 +1471,8 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 *
 	 * @return A stack of event source {@link EntityReference} objects.
 	 */
-	@SuppressWarnings("unchecked")
-	public Deque<EntityReference> getEventSourceStack() {
-		if (!getEnvironment().containsKey(Environment.EVENT_SOURCE_REFERENCE_STACK)) {
-			getEnvironment().put(Environment.EVENT_SOURCE_REFERENCE_STACK, new EnvironmentDeque<EntityReference>());
-		}
-		return (Deque<EntityReference>) getEnvironment().get(Environment.EVENT_SOURCE_REFERENCE_STACK);
+	public EntityReferenceStack getEventSourceStack() {
+		return eventSourceStack;
 	}
 
 	/**
@@ -1408,8 +1488,8 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 *                        player's AI should be a game state value behaviour.
 	 * @param player2         A {@link Supplier} (function which returns a new instance) of a {@link Behaviour} that
 	 *                        corresponds to an AI to use for this player.
-	 * @param useJavaParallel When {@code true}, uses the Java Streams Parallel interface to parallelize this computation
-	 *                        on this JVM instance.
+	 * @param useJavaParallel When {@code true}, plays the games as a parallel level of the {@link ComputeBudget}.
+	 *                        Otherwise, plays them and their behaviours' searches sequentially.
 	 * @param matchCounter    When not {@code null}, the simulator will increment this counter each time a match is
 	 *                        completed. This can be used to implement progress on a different thread.
 	 */
@@ -1432,8 +1512,8 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 *                        player's AI should be a game state value behaviour.
 	 * @param player2         A {@link Supplier} (function which returns a new instance) of a {@link Behaviour} that
 	 *                        corresponds to an AI to use for this player.
-	 * @param useJavaParallel When {@code true}, uses the Java Streams Parallel interface to parallelize this computation
-	 *                        on this JVM instance.
+	 * @param useJavaParallel When {@code true}, plays the games as a parallel level of the {@link ComputeBudget}.
+	 *                        Otherwise, plays them and their behaviours' searches sequentially.
 	 * @param matchCounter    When not {@code null}, the simulator will increment this counter each time a match is
 	 * @param contextHandler  A handler that can modify the game context for customization after it was initialized with
 	 *                        the specified decks but before mulligans. For example, the {@link GameLogic#seed} can be
@@ -1442,25 +1522,25 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	public static SimulationResult simulate(List<Deck> decks, Supplier<Behaviour> player1, Supplier<Behaviour> player2, int numberOfGamesInBatch, boolean useJavaParallel, AtomicInteger matchCounter, Consumer<GameContext> contextHandler) {
 		// Actually run the computation
 		List<Deck[]> combinations = getDeckCombinations(decks, false);
-		Stream<Deck[]> deckStream = IntStream.range(0, numberOfGamesInBatch).boxed().flatMap(i -> combinations.stream());
-		if (useJavaParallel) {
-			deckStream = deckStream.parallel();
+		List<Deck[]> games = new ArrayList<>(numberOfGamesInBatch * combinations.size());
+		for (int i = 0; i < numberOfGamesInBatch; i++) {
+			games.addAll(combinations);
 		}
 
-		return deckStream.map(decksPair -> {
+		Function<Deck[], SimulationResult> simulation = decksPair -> {
 			GameContext newGame = GameContext.fromDecks(decks);
 			newGame.behaviours[0] = player1.get();
 			newGame.behaviours[1] = player2.get();
 			if (contextHandler != null) {
 				contextHandler.accept(newGame);
 			}
-			SimulationResult innerResult = new SimulationResult(1);
+			SimulationResult innerResult;
+			long startTimestamp = System.currentTimeMillis();
 
 			try {
 				newGame.play();
 
-				innerResult.getPlayer1Stats().merge(newGame.getPlayer1().getStatistics());
-				innerResult.getPlayer2Stats().merge(newGame.getPlayer2().getStatistics());
+				innerResult = new SimulationResult(newGame.getPlayer1().getStatistics(), newGame.getPlayer2().getStatistics(), startTimestamp);
 				innerResult.calculateMetaStatistics();
 			} finally {
 				newGame.dispose();
@@ -1471,7 +1551,14 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 			}
 
 			return innerResult;
-		}).reduce(SimulationResult::merge).orElseThrow(NullPointerException::new);
+		};
+
+		// The games are parallelized only if this isn't already running in a parallel level that has enough work. Results
+		// are merged as games finish instead of being held until all of them have been played
+		Optional<SimulationResult> result = useJavaParallel
+				? ComputeBudget.mapReduce(games, simulation, SimulationResult::merge)
+				: ComputeBudget.sequentially(() -> ComputeBudget.mapReduce(games, simulation, SimulationResult::merge));
+		return result.orElseThrow(NullPointerException::new);
 	}
 
 	/**
@@ -1486,9 +1573,9 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 */
 	public static void simulate(List<Deck> deckPair, List<Supplier<Behaviour>> behaviours, int numberOfGamesInBatch, boolean reduce, Consumer<SimulationResult> computed) throws InterruptedException {
 		// Actually run the computation
-		Stream<Integer> stream = IntStream.range(0, numberOfGamesInBatch).boxed().parallel().unordered();
+		List<Integer> games = IntStream.range(0, numberOfGamesInBatch).boxed().collect(toList());
 
-		Stream<SimulationResult> result = stream.map(i -> {
+		Function<Integer, SimulationResult> simulation = i -> {
 			GameContext newGame;
 			if (behaviours.size() == 0) {
 				newGame = fromDecks(deckPair);
@@ -1498,7 +1585,7 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 				newGame = fromDecks(deckPair, behaviours.get(0).get(), behaviours.get(1).get());
 			}
 
-			SimulationResult innerResult = new SimulationResult(1);
+			long startTimestamp = System.currentTimeMillis();
 
 			try {
 				newGame.play();
@@ -1507,17 +1594,21 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 				return null;
 			}
 
-			innerResult.getPlayer1Stats().merge(newGame.getPlayer1().getStatistics());
-			innerResult.getPlayer2Stats().merge(newGame.getPlayer2().getStatistics());
+			SimulationResult innerResult = new SimulationResult(newGame.getPlayer1().getStatistics(), newGame.getPlayer2().getStatistics(), startTimestamp);
 			innerResult.calculateMetaStatistics();
 
 			return innerResult;
-		}).filter(Objects::nonNull);
+		};
 
 		if (reduce) {
-			computed.accept(result.reduce(SimulationResult::merge).orElseThrow(NullPointerException::new));
+			computed.accept(ComputeBudget.mapReduce(games, simulation, SimulationResult::merge).orElseThrow(NullPointerException::new));
 		} else {
-			result.forEach(computed);
+			ComputeBudget.forEach(games, i -> {
+				SimulationResult result = simulation.apply(i);
+				if (result != null) {
+					computed.accept(result);
+				}
+			});
 		}
 	}
 
@@ -1661,12 +1752,8 @@ public class GameContext implements Cloneable, Serializable, NetworkDelegate, In
 	 *
 	 * @return A host reference, or null if the trigger didn't have a host.
 	 */
-	@SuppressWarnings("unchecked")
-	public Deque<EntityReference> getTriggerHostStack() {
-		if (!getEnvironment().containsKey(Environment.TRIGGER_HOST_STACK)) {
-			getEnvironment().put(Environment.TRIGGER_HOST_STACK, new EnvironmentDeque<>());
-		}
-		return (Deque<EntityReference>) getEnvironment().get(Environment.TRIGGER_HOST_STACK);
+	public EntityReferenceStack getTriggerHostStack() {
+		return triggerHostStack;
 	}
 
 	public void setTargetOverride(EntityReference reference) {
@@ -38,6 +38,11 @@ import java.util.stream.Collectors;
  */
 public class Player extends Entity implements Serializable {
 	private static final long serialVersionUID = 1L;
+	/**
+	 * The number of versions {@link #getZoneVersion(int)} returns: one for each zone and one for which of the player's
+	 * actors are {@link Attribute#PERMANENT}.
+	 */
+	public static final int VERSIONED_ZONES = 13;
 	protected CardZone deck = new CardZone(getId(), Zones.DECK);
 	private CardZone hand = new CardZone(getId(), Zones.HAND);
 	private CardZone discoverZone = new CardZone(getId(), Zones.DISCOVER);
@@ -50,7 +55,7 @@ public class Player extends Entity implements Serializable {
 	private EntityZone<Quest> quests = new EntityZone<>(getId(), Zones.QUEST);
 	private EntityZone<Player> playerZone = new EntityZone<>(getId(), Zones.PLAYER);
 
-	private final GameStatistics statistics = new GameStatistics();
+	private GameStatistics statistics = new GameStatistics();
 
 	/**
 	 * @see #getMana()
@@ -105,7 +110,7 @@ public class Player extends Entity implements Serializable {
 		this.mana = otherPlayer.mana;
 		this.maxMana = otherPlayer.maxMana;
 		this.lockedMana = otherPlayer.lockedMana;
-		this.getStatistics().merge(otherPlayer.getStatistics());
+		this.statistics = otherPlayer.getStatistics().clone();
 
 	}
 
@@ -508,6 +513,64 @@ public class Player extends Entity implements Serializable {
 		return quests;
 	}
 
+	/**
+	 * Gets the {@link EntityZone#getVersion()} of one of this player's zones, including the hero's weapon and hero power
+	 * zones.
+	 * <p>
+	 * Target references omit {@link Attribute#PERMANENT} minions and heroes, so the last index instead identifies a mask
+	 * of which of the player's minions and hero are permanent. Since the minions can't have moved while the version of
+	 * the battlefield is unchanged, the mask changes exactly when one of them gains or loses the attribute.
+	 *
+	 * @param index A number from {@code 0} to {@link #VERSIONED_ZONES}, exclusive, that identifies the zone.
+	 * @return The version, or {@code -1} if the player has no hero and the index refers to one of its zones.
+	 * @see GameContext#getZonesVersions(long[])
+	 */
+	public long getZoneVersion(int index) {
+		switch (index) {
+			case 0:
+				return deck.getVersion();
+			case 1:
+				return hand.getVersion();
+			case 2:
+				return discoverZone.getVersion();
+			case 3:
+				return setAsideZone.getVersion();
+			case 4:
+				return graveyard.getVersion();
+			case 5:
+				return removedFromPlay.getVersion();
+			case 6:
+				return minions.getVersion();
+			case 7:
+				return heroZone.getVersion();
+			case 8:
+				return secretZone.getVersion();
+			case 9:
+				return quests.getVersion();
+			case 10:
+				return heroZone.size() > 0 ? heroZone.get(0).getHeroPowerZone().getVersion() : -1L;
+			case 11:
+				return heroZone.size() > 0 ? heroZone.get(0).getWeaponZone().getVersion() : -1L;
+			case 12:
+				return getPermanentsMask();
+			default:
+				throw new IndexOutOfBoundsException();
+		}
+	}
+
+	private long getPermanentsMask() {
+		long mask = 0L;
+		for (int i = 0; i < minions.size(); i++) {
+			if (minions.get(i).hasAttribute(Attribute.PERMANENT)) {
+				mask |= 1L << Math.min(i, 62);
+			}
+		}
+		if (heroZone.size() > 0 && heroZone.get(0).hasAttribute(Attribute.PERMANENT)) {
+			mask |= 1L << 63;
+		}
+		return mask;
+	}
+
 	/**
 	 * For a player entity, its source card corresponds to the hero's source card.
 	 *
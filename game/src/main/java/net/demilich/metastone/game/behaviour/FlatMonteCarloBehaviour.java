@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.util.ComputeBudget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,15 +80,13 @@ public class FlatMonteCarloBehaviour extends IntelligentBehaviour {
 		}
 		final int playerId = player.getId();
 		final long startMillis = System.currentTimeMillis();
-		Map<GameAction, Double> actionScores = validActions
-				.parallelStream()
-				.map(gameAction -> {
-					double score = simulate(context, playerId, gameAction, startMillis);
-					ScoredAction scored = new ScoredAction();
-					scored.action = gameAction;
-					scored.score = score;
-					return scored;
-				}).collect(Collectors.toMap(scored -> scored.action, scored -> scored.score));
+		Map<GameAction, Double> actionScores = ComputeBudget.map(validActions, gameAction -> {
+			double score = simulate(context, playerId, gameAction, startMillis);
+			ScoredAction scored = new ScoredAction();
+			scored.action = gameAction;
+			scored.score = score;
+			return scored;
+		}).stream().collect(Collectors.toMap(scored -> scored.action, scored -> scored.score));
 
 		return getBestAction(actionScores);
 	}
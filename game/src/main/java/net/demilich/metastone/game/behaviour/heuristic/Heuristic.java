@@ -2,9 +2,24 @@ package net.demilich.metastone.game.behaviour.heuristic;
 
 import net.demilich.metastone.game.GameContext;
 
+import java.util.List;
+
 public interface Heuristic {
 
 	double getScore(GameContext context, int playerId);
 
+	/**
+	 * Scores many games for the same player, like the terminal nodes of a search.
+	 *
+	 * @param contexts The games.
+	 * @param playerId The player whose position is scored.
+	 * @param scores   The array the scores are written to, in the order of the games.
+	 */
+	default void getScores(List<GameContext> contexts, int playerId, double[] scores) {
+		for (int i = 0; i < contexts.size(); i++) {
+			scores[i] = getScore(contexts.get(i), playerId);
+		}
+	}
+
 	void onActionSelected(GameContext context, int playerId);
 }
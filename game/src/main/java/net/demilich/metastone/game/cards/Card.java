@@ -145,7 +145,8 @@ public class Card extends Entity implements HasChooseOneActions {
 
 		if (getDesc().getDeathrattle() != null) {
 			EnchantmentDesc deathrattleDesc = new EnchantmentDesc();
-			deathrattleDesc.spell = getDesc().getDeathrattle().clone();
+			SpellDesc deathrattle = getDesc().getDeathrattle();
+			deathrattleDesc.spell = deathrattle.isFrozen() ? deathrattle : deathrattle.clone();
 			deathrattleDesc.eventTrigger = MinionDeathTrigger.create();
 			deathrattleDesc.maxFires = 1;
 			enchantments.add(deathrattleDesc.create());
@@ -2,10 +2,15 @@ package net.demilich.metastone.game.cards;
 
 import net.demilich.metastone.game.utils.Attribute;
 import net.demilich.metastone.game.cards.desc.CardDesc;
+import net.demilich.metastone.game.cards.desc.Desc;
 import net.demilich.metastone.game.decks.DeckFormat;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
 import net.demilich.metastone.game.shared.utils.ResourceInputStream;
 import net.demilich.metastone.game.shared.utils.ResourceLoader;
+import net.demilich.metastone.game.spells.desc.BattlecryDesc;
+import net.demilich.metastone.game.spells.desc.SpellDesc;
+import net.demilich.metastone.game.spells.desc.aura.AuraDesc;
+import net.demilich.metastone.game.spells.desc.trigger.EnchantmentDesc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -193,6 +198,7 @@ public class CardCatalogue {
 		}
 
 		for (CardDesc desc : cardDesc.values()) {
+			intern(desc);
 			Card instance = desc.create();
 			CardCatalogue.add(instance);
 		}
@@ -200,6 +206,71 @@ public class CardCatalogue {
 		logger.debug("loadCards: {} cards loaded.", CardCatalogue.cards.size());
 	}
 
+	/**
+	 * Freezes and interns the spells, enchantments, auras and filters of a card, so that equal descs on different cards
+	 * are stored once and never have to be cloned by the entities created from them.
+	 *
+	 * @param desc The card desc to intern.
+	 * @see Desc#intern()
+	 */
+	private static void intern(CardDesc desc) {
+		desc.spell = intern(desc.spell);
+		desc.deathrattle = intern(desc.deathrattle);
+		desc.onEquip = intern(desc.onEquip);
+		desc.onUnequip = intern(desc.onUnequip);
+		if (desc.group != null) {
+			for (int i = 0; i < desc.group.length; i++) {
+				desc.group[i] = intern(desc.group[i]);
+			}
+		}
+		for (BattlecryDesc battlecry : concat(new BattlecryDesc[]{desc.battlecry, desc.chooseBothBattlecry}, desc.chooseOneBattlecries)) {
+			battlecry.spell = intern(battlecry.spell);
+		}
+		desc.trigger = intern(desc.trigger);
+		desc.passiveTrigger = intern(desc.passiveTrigger);
+		desc.deckTrigger = intern(desc.deckTrigger);
+		for (EnchantmentDesc[] enchantments : Arrays.asList(desc.triggers, desc.passiveTriggers, desc.deckTriggers, desc.gameTriggers)) {
+			if (enchantments == null) {
+				continue;
+			}
+			for (int i = 0; i < enchantments.length; i++) {
+				enchantments[i] = intern(enchantments[i]);
+			}
+		}
+		if (desc.aura != null) {
+			desc.aura = (AuraDesc) desc.aura.intern();
+		}
+		if (desc.auras != null) {
+			for (int i = 0; i < desc.auras.length; i++) {
+				desc.auras[i] = (AuraDesc) desc.auras[i].intern();
+			}
+		}
+	}
+
+	private static SpellDesc intern(SpellDesc spell) {
+		return spell == null ? null : spell.intern();
+	}
+
+	private static EnchantmentDesc intern(EnchantmentDesc enchantment) {
+		return enchantment == null ? null : enchantment.intern();
+	}
+
+	@SafeVarargs
+	private static <T> List<T> concat(T[]... arrays) {
+		List<T> list = new ArrayList<>();
+		for (T[] array : arrays) {
+			if (array == null) {
+				continue;
+			}
+			for (T item : array) {
+				if (item != null) {
+					list.add(item);
+				}
+			}
+		}
+		return list;
+	}
+
 	public static Stream<Card> stream() {
 		return cards.values().stream().filter(card -> card.getDesc().getFileFormatVersion() <= version);
 	}
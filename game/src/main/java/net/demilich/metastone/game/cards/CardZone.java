@@ -52,6 +52,7 @@ public class CardZone extends EntityZone<Card> implements CardList {
 		for (Card e : this) {
 			zone.uncheckedAdd(zone.size(), e.clone());
 		}
+		zone.version = version;
 		return zone;
 	}
 
@@ -115,6 +116,7 @@ public class CardZone extends EntityZone<Card> implements CardList {
 	@Override
 	public CardList shuffle(Random random) {
 		Collections.shuffle(internal, random);
+		version++;
 		for (int i = 0; i < internal.size(); i++) {
 			internal.get(i).setEntityLocation(new EntityLocation(getZone(), getPlayer(), i));
 		}
@@ -1,6 +1,8 @@
 package net.demilich.metastone.game.cards.desc;
 
 import co.paralleluniverse.fibers.Suspendable;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import net.demilich.metastone.game.GameContext;
@@ -16,7 +18,6 @@ import org.jetbrains.annotations.NotNull;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A map representing a complex type in Spellsource, like a {@link net.demilich.metastone.game.spells.Spell} or {@link
@@ -27,6 +28,11 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @JsonSerialize(using = DescSerializer.class)
 public abstract class Desc<T extends Enum<T>, V extends HasDesc<?>> extends EnumMap<T, Object> implements Serializable, Cloneable, HasDesc<Desc<T, V>> {
+	private static final Interner<Desc<?, ?>> interned = Interners.newWeakInterner();
+	private transient boolean frozen;
+	private transient Map<T, Object> frozenView;
+	private transient int hashCode;
+
 	protected Desc(Map<T, Object> arguments, Class<T> keyType) {
 		super(keyType);
 		if (arguments.isEmpty()) {
@@ -107,15 +113,128 @@ public abstract class Desc<T extends Enum<T>, V extends HasDesc<?>> extends Enum
 
 	@Override
 	public int hashCode() {
+		if (frozen && hashCode != 0) {
+			return hashCode;
+		}
 		HashCodeBuilder builder = new HashCodeBuilder(113, 71);
 		for (Map.Entry entry : this.entrySet()) {
 			builder.append(entry.hashCode());
 		}
-		return builder.toHashCode();
+		int hashCode = builder.toHashCode();
+		if (frozen) {
+			this.hashCode = hashCode;
+		}
+		return hashCode;
+	}
+
+	/**
+	 * Indicates whether this type of desc can be frozen and interned by {@link #intern()}.
+	 * <p>
+	 * Only descs that are never modified by the objects they create may be internable.
+	 *
+	 * @return {@code true} if this desc is internable.
+	 */
+	protected boolean isInternable() {
+		return false;
+	}
+
+	/**
+	 * Indicates whether this desc was frozen by {@link #intern()} and can no longer be modified, including through its
+	 * entry, key and value views. Frozen descs are shared by every card, enchantment and aura that uses them, so they
+	 * never need to be cloned.
+	 *
+	 * @return {@code true} if this desc is immutable.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * Freezes this desc and the internable descs it contains, then returns the canonical instance of an equal desc.
+	 * <p>
+	 * Called on card descs by the {@link net.demilich.metastone.game.cards.CardCatalogue} when cards are loaded, so that
+	 * equal descs that appear on many cards are stored once. Use {@link #clone()} to get a modifiable copy of a frozen
+	 * desc.
+	 *
+	 * @return The canonical, frozen desc, or this instance if this type of desc isn't internable.
+	 */
+	@SuppressWarnings("unchecked")
+	public Desc<T, V> intern() {
+		if (frozen || !isInternable()) {
+			return this;
+		}
+
+		for (Map.Entry<T, Object> entry : entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof Desc) {
+				entry.setValue(((Desc) value).intern());
+			} else if (value instanceof Desc[]) {
+				Desc[] descs = (Desc[]) value;
+				for (int i = 0; i < descs.length; i++) {
+					if (descs[i] != null) {
+						descs[i] = descs[i].intern();
+					}
+				}
+			} else if (value instanceof HasDesc
+					&& ((HasDesc) value).getDesc() instanceof Desc) {
+				// Objects like entity filters are not shared, but their descs should never change
+				((Desc) ((HasDesc) value).getDesc()).freeze();
+			}
+		}
+
+		freeze();
+		return (Desc<T, V>) interned.intern(this);
+	}
+
+	private void freeze() {
+		if (isInternable()) {
+			frozenView = Collections.unmodifiableMap(new EnumMap<>(this));
+			frozen = true;
+		}
+	}
+
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException("This desc is frozen. Clone it to modify it.");
+		}
+	}
+
+	@Override
+	public Set<Map.Entry<T, Object>> entrySet() {
+		return frozen ? frozenView.entrySet() : super.entrySet();
+	}
+
+	@Override
+	public Set<T> keySet() {
+		return frozen ? frozenView.keySet() : super.keySet();
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return frozen ? frozenView.values() : super.values();
+	}
+
+	@Override
+	public Object remove(Object key) {
+		checkNotFrozen();
+		return super.remove(key);
+	}
+
+	@Override
+	public void putAll(Map<? extends T, ?> m) {
+		checkNotFrozen();
+		super.putAll(m);
+	}
+
+	@Override
+	public void clear() {
+		checkNotFrozen();
+		super.clear();
 	}
 
 	@Override
 	public Object put(@NotNull T key, Object value) {
+		checkNotFrozen();
 		if (value == null && this.containsKey(key)) {
 			throw new IllegalStateException("Cannot clear a key with a null value");
 		}
@@ -22,6 +22,7 @@ public class EntityZone<E extends Entity> extends AbstractList<E> implements
 	protected final Zones zone;
 	protected int player = -1;
 	protected List<E> internal = new ArrayList<>();
+	protected long version;
 
 	public EntityZone(int player, Zones zone) {
 		this.zone = zone;
@@ -35,6 +36,7 @@ public class EntityZone<E extends Entity> extends AbstractList<E> implements
 		for (E e : this) {
 			zone.uncheckedAdd(zone.size(), (E) e.clone());
 		}
+		zone.version = version;
 		return zone;
 	}
 
@@ -61,6 +63,7 @@ public class EntityZone<E extends Entity> extends AbstractList<E> implements
 
 	protected E setUnchecked(int index, E element) {
 		internal.set(index, element);
+		version++;
 		element.setEntityLocation(new EntityLocation(zone, player, index));
 		return element;
 	}
@@ -76,6 +79,7 @@ public class EntityZone<E extends Entity> extends AbstractList<E> implements
 			throw new IndexOutOfBoundsException();
 		}
 		internal.add(index, element);
+		version++;
 		for (int i = index; i < internal.size(); i++) {
 			internal.get(i).setEntityLocation(new EntityLocation(zone, player, i));
 		}
@@ -84,6 +88,7 @@ public class EntityZone<E extends Entity> extends AbstractList<E> implements
 	@Override
 	public E remove(int index) {
 		E result = internal.remove(index);
+		version++;
 		result.setEntityLocation(EntityLocation.UNASSIGNED);
 		for (int i = index; i < internal.size(); i++) {
 			internal.get(i).setEntityLocation(new EntityLocation(zone, player, i));
@@ -122,6 +127,7 @@ public class EntityZone<E extends Entity> extends AbstractList<E> implements
 	@SuppressWarnings("unchecked")
 	public void move(int index, EntityZone destination, int destinationIndex) {
 		Entity result = internal.remove(index);
+		version++;
 		for (int i = index; i < internal.size(); i++) {
 			internal.get(i).setEntityLocation(new EntityLocation(zone, player, i));
 		}
@@ -157,6 +163,20 @@ public class EntityZone<E extends Entity> extends AbstractList<E> implements
 		}
 	}
 
+	/**
+	 * Gets the version of this zone, which changes whenever an entity is added to, removed from or moved within this
+	 * zone. Each zone counts its own changes, so versions are only meaningful when compared for equality with an earlier
+	 * version of the same zone. Cloned zones have the same version as their original.
+	 * <p>
+	 * Unlike {@link #modCount}, the version doesn't invalidate iterators.
+	 *
+	 * @return The version.
+	 * @see net.demilich.metastone.game.spells.aura.Aura for how auras use the versions of zones to skip evaluations.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
 	public Zones getZone() {
 		return zone;
 	}
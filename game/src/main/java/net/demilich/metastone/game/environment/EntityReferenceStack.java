@@ -0,0 +1,109 @@
+package net.demilich.metastone.game.environment;
+
+import net.demilich.metastone.game.targeting.EntityReference;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A stack of {@link EntityReference} objects backed by a preallocated array, used by the {@link
+ * net.demilich.metastone.game.GameContext} for its target, source, summon, attacker, output and trigger host stacks.
+ * <p>
+ * Like the {@link java.util.ArrayDeque} it replaces, {@link #peek()} returns {@code null} when the stack is empty and
+ * {@code null} references can't be pushed.
+ */
+public final class EntityReferenceStack implements EnvironmentValue, Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final int INITIAL_CAPACITY = 8;
+
+	private EntityReference[] references;
+	private int size;
+
+	public EntityReferenceStack() {
+		references = new EntityReference[INITIAL_CAPACITY];
+	}
+
+	private EntityReferenceStack(EntityReferenceStack other) {
+		references = Arrays.copyOf(other.references, Math.max(INITIAL_CAPACITY, other.size));
+		size = other.size;
+	}
+
+	/**
+	 * Pushes a reference onto the top of the stack.
+	 *
+	 * @param reference The reference.
+	 * @throws NullPointerException if the reference is {@code null}.
+	 */
+	public void push(EntityReference reference) {
+		if (reference == null) {
+			throw new NullPointerException();
+		}
+		if (size == references.length) {
+			references = Arrays.copyOf(references, size * 2);
+		}
+		references[size++] = reference;
+	}
+
+	/**
+	 * Removes the reference at the top of the stack.
+	 *
+	 * @return The reference.
+	 * @throws NoSuchElementException if the stack is empty.
+	 */
+	public EntityReference pop() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		EntityReference reference = references[--size];
+		references[size] = null;
+		return reference;
+	}
+
+	/**
+	 * Gets the reference at the top of the stack.
+	 *
+	 * @return The reference most recently pushed, or {@code null} if the stack is empty.
+	 */
+	public EntityReference peek() {
+		return size == 0 ? null : references[size - 1];
+	}
+
+	/**
+	 * Indicates whether the stack contains a reference to the same entity.
+	 *
+	 * @param reference The reference.
+	 * @return {@code true} if a reference that {@link EntityReference#equals(Object)} this one is on the stack.
+	 */
+	public boolean contains(EntityReference reference) {
+		for (int i = size - 1; i >= 0; i--) {
+			if (references[i].equals(reference)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(references, 0, size, null);
+		size = 0;
+	}
+
+	@Override
+	public EntityReferenceStack getCopy() {
+		return new EntityReferenceStack(this);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(Arrays.copyOf(references, size));
+	}
+}
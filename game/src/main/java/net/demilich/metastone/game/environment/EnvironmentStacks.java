@@ -0,0 +1,68 @@
+package net.demilich.metastone.game.environment;
+
+import net.demilich.metastone.game.GameContext;
+
+import java.io.Serializable;
+
+/**
+ * The typed stacks a {@link GameContext} keeps outside of its {@link GameContext#getEnvironment()} map, so that a
+ * {@link com.hiddenswitch.spellsource.common.GameState} can carry them and restore them into another context.
+ *
+ * @see GameContext#getEnvironmentStacks() to get a context's stacks.
+ * @see GameContext#setEnvironmentStacks(EnvironmentStacks) to restore them.
+ */
+public final class EnvironmentStacks implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	public final IntStack damageStack;
+	public final EntityReferenceStack eventTargetStack;
+	public final EntityReferenceStack summonReferenceStack;
+	public final IntStack spellValueStack;
+	public final IntStack eventValueStack;
+	public final EntityReferenceStack spellTargetStack;
+	public final EntityReferenceStack outputStack;
+	public final EntityReferenceStack attackerReferenceStack;
+	public final EntityReferenceStack eventSourceStack;
+	public final EntityReferenceStack triggerHostStack;
+
+	public EnvironmentStacks(IntStack damageStack,
+	                         EntityReferenceStack eventTargetStack,
+	                         EntityReferenceStack summonReferenceStack,
+	                         IntStack spellValueStack,
+	                         IntStack eventValueStack,
+	                         EntityReferenceStack spellTargetStack,
+	                         EntityReferenceStack outputStack,
+	                         EntityReferenceStack attackerReferenceStack,
+	                         EntityReferenceStack eventSourceStack,
+	                         EntityReferenceStack triggerHostStack) {
+		this.damageStack = damageStack;
+		this.eventTargetStack = eventTargetStack;
+		this.summonReferenceStack = summonReferenceStack;
+		this.spellValueStack = spellValueStack;
+		this.eventValueStack = eventValueStack;
+		this.spellTargetStack = spellTargetStack;
+		this.outputStack = outputStack;
+		this.attackerReferenceStack = attackerReferenceStack;
+		this.eventSourceStack = eventSourceStack;
+		this.triggerHostStack = triggerHostStack;
+	}
+
+	/**
+	 * Copies every stack.
+	 *
+	 * @return Stacks that can be modified without affecting these.
+	 */
+	public EnvironmentStacks getCopy() {
+		return new EnvironmentStacks(
+				damageStack.getCopy(),
+				eventTargetStack.getCopy(),
+				summonReferenceStack.getCopy(),
+				spellValueStack.getCopy(),
+				eventValueStack.getCopy(),
+				spellTargetStack.getCopy(),
+				outputStack.getCopy(),
+				attackerReferenceStack.getCopy(),
+				eventSourceStack.getCopy(),
+				triggerHostStack.getCopy());
+	}
+}
@@ -0,0 +1,101 @@
+package net.demilich.metastone.game.environment;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A stack of {@code int} values backed by a preallocated array, used by the {@link
+ * net.demilich.metastone.game.GameContext} for the damage, event value and spell value stacks.
+ * <p>
+ * Unlike a {@link java.util.Deque} of {@link Integer}, pushing and peeking doesn't box values.
+ */
+public final class IntStack implements EnvironmentValue, Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final int INITIAL_CAPACITY = 8;
+
+	private int[] values;
+	private int size;
+
+	public IntStack() {
+		values = new int[INITIAL_CAPACITY];
+	}
+
+	private IntStack(IntStack other) {
+		values = Arrays.copyOf(other.values, Math.max(INITIAL_CAPACITY, other.size));
+		size = other.size;
+	}
+
+	/**
+	 * Pushes a value onto the top of the stack.
+	 *
+	 * @param value The value.
+	 */
+	public void push(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * Removes the value at the top of the stack.
+	 *
+	 * @return The value.
+	 * @throws NoSuchElementException if the stack is empty.
+	 */
+	public int pop() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return values[--size];
+	}
+
+	/**
+	 * Gets the value at the top of the stack.
+	 *
+	 * @return The value most recently pushed.
+	 * @throws NoSuchElementException if the stack is empty.
+	 */
+	public int peek() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return values[size - 1];
+	}
+
+	/**
+	 * Gets the value at the bottom of the stack.
+	 *
+	 * @return The value that was pushed first of the values currently on the stack.
+	 * @throws NoSuchElementException if the stack is empty.
+	 */
+	public int peekBottom() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return values[0];
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	@Override
+	public IntStack getCopy() {
+		return new IntStack(this);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(Arrays.copyOf(values, size));
+	}
+}
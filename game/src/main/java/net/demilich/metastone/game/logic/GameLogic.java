@@ -63,6 +63,7 @@ import static java.util.stream.Collectors.toList;
 public class GameLogic implements Cloneable, Serializable, IdFactory {
 	public static final int END_OF_SEQUENCE_MAX_DEPTH = 14;
 	protected static Logger logger = LoggerFactory.getLogger(GameLogic.class);
+	private static final SpellDesc FREEZE_TARGET = AddAttributeSpell.create(Attribute.FROZEN).intern();
 	/**
 	 * The maximum number of {@link Minion} entities that can be on a {@link Zones#BATTLEFIELD}.
 	 */
@@ -678,7 +679,7 @@ public class GameLogic implements Cloneable, Serializable, IdFactory {
 		if (sourceAction instanceof HeroPowerAction
 				&& targetSelection != TargetSelection.NONE
 				&& hasAttribute(player, Attribute.HERO_POWER_FREEZES_TARGET)) {
-			spellDesc = SpellDesc.join(spellDesc, AddAttributeSpell.create(Attribute.FROZEN));
+			spellDesc = SpellDesc.join(spellDesc, FREEZE_TARGET);
 		}
 
 		// This implements a more durable tracking of spells that were casted
@@ -2,12 +2,16 @@ package net.demilich.metastone.game.logic;
 
 import com.hiddenswitch.spellsource.common.GameState;
 import com.hiddenswitch.spellsource.util.Serialization;
+import com.hiddenswitch.spellsource.util.Varint;
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.actions.GameAction;
 import net.demilich.metastone.game.cards.CardCatalogue;
 import net.demilich.metastone.game.targeting.IdFactoryImpl;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -15,15 +19,81 @@ import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * A trace records the initial state, the random seed, the mulligans and every action taken in a game, so that the game
+ * can be replayed exactly.
+ * <p>
+ * Actions are stored as a {@link Varint}-encoded log. When a checkpoint interval is set with {@link
+ * #setCheckpointInterval(int)}, the trace also stores a {@link Checkpoint} of the game state and the state of the game's
+ * random number generator at the start of every that many turns. Replaying to a point in the game seeks (with a binary
+ * search) to the nearest checkpoint at or before that point and only re-simulates the actions that follow it.
+ * Checkpoints are off by default, because every one is a complete copy of the game state.
+ * <p>
+ * Traces serialized before the action log was encoded are still readable.
+ *
+ * @see #replayContext(boolean) to replay the complete game.
+ * @see #replayToTurn(int) to replay to the start of a specific turn.
+ * @see #replayToAction(int) to replay a specific number of actions.
+ */
 public class Trace implements Serializable, Cloneable {
 	private static final long serialVersionUID = 1L;
 	private GameState gameState;
 	private long seed;
 	private int catalogueVersion;
 	private int[][] mulligans;
-	private List<Integer> actions = new ArrayList<>();
+	private int checkpointInterval;
+	private byte[] actionLog = new byte[64];
+	private int actionLogLength;
+	private int actionCount;
+	private int[] turnStarts = new int[0];
+	private List<Checkpoint> checkpoints = new ArrayList<>();
+	// Only set in traces serialized before the action log was encoded
+	private List<Integer> actions;
 	private transient List<GameAction> rawActions = new ArrayList<>();
 
+	/**
+	 * A snapshot of the game taken immediately before a turn was started.
+	 */
+	public static class Checkpoint implements Serializable, Cloneable {
+		private static final long serialVersionUID = 1L;
+		private final int turn;
+		private final int actionIndex;
+		private final int actionOffset;
+		private final GameState state;
+		private final byte[] random;
+
+		private Checkpoint(int turn, int actionIndex, int actionOffset, GameState state, byte[] random) {
+			this.turn = turn;
+			this.actionIndex = actionIndex;
+			this.actionOffset = actionOffset;
+			this.state = state;
+			this.random = random;
+		}
+
+		/**
+		 * The value of {@link GameContext#getTurn()} when this checkpoint was taken. The next turn to start is this value
+		 * plus one.
+		 *
+		 * @return The turn.
+		 */
+		public int getTurn() {
+			return turn;
+		}
+
+		/**
+		 * The number of actions that were taken in the game before this checkpoint.
+		 *
+		 * @return The index into the action log of the next action.
+		 */
+		public int getActionIndex() {
+			return actionIndex;
+		}
+
+		public GameState getState() {
+			return state;
+		}
+	}
+
 	public void setStartState(GameState gameState) {
 		this.gameState = gameState;
 	}
@@ -48,27 +118,174 @@ public class Trace implements Serializable, Cloneable {
 		return catalogueVersion;
 	}
 
+	/**
+	 * Decodes the action log.
+	 *
+	 * @return A list of action IDs in the order they were taken.
+	 */
 	public List<Integer> getActions() {
+		int[] decoded = decodeActions(0, 0, actionCount);
+		List<Integer> actions = new ArrayList<>(decoded.length);
+		for (int action : decoded) {
+			actions.add(action);
+		}
 		return actions;
 	}
 
+	/**
+	 * Gets the number of actions recorded in this trace.
+	 *
+	 * @return The action count.
+	 */
+	public int getActionCount() {
+		return actionCount;
+	}
+
 	public void addAction(int actionId, GameAction action) {
-		actions.add(actionId);
+		appendAction(actionId);
 		rawActions.add(action);
 	}
 
+	private void appendAction(int actionId) {
+		byte[] encoded = Varint.writeUnsignedVarInt(actionId);
+		if (actionLogLength + encoded.length > actionLog.length) {
+			actionLog = Arrays.copyOf(actionLog, Math.max(actionLog.length * 2, actionLogLength + encoded.length));
+		}
+		System.arraycopy(encoded, 0, actionLog, actionLogLength, encoded.length);
+		actionLogLength += encoded.length;
+		actionCount++;
+	}
+
+	/**
+	 * Sets how often checkpoints are stored. Set it before the game starts to checkpoint the whole game.
+	 *
+	 * @param checkpointInterval The number of turns between checkpoints, or {@code 0} (the default) to disable
+	 *                           checkpoints and only record the action log.
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	public List<Checkpoint> getCheckpoints() {
+		return checkpoints;
+	}
+
+	/**
+	 * Records the start of a turn, storing a {@link Checkpoint} if this turn falls on the checkpoint interval.
+	 * <p>
+	 * Called by the {@link GameContext} immediately before it starts a turn. Contexts whose trace was never started (like
+	 * clones used by AI search) are ignored.
+	 *
+	 * @param context The context whose turn is about to start.
+	 */
+	public void onTurnWillStart(GameContext context) {
+		if (gameState == null) {
+			return;
+		}
+		int turn = context.getTurn();
+		if (turnStarts.length <= turn) {
+			int oldLength = turnStarts.length;
+			turnStarts = Arrays.copyOf(turnStarts, Math.max(turn + 1, oldLength * 2));
+			Arrays.fill(turnStarts, oldLength, turnStarts.length, -1);
+		}
+		turnStarts[turn] = actionCount;
+
+		if (checkpointInterval <= 0
+				|| turn % checkpointInterval != 0) {
+			return;
+		}
 
+		byte[] random;
+		try {
+			random = Serialization.serializeBytes(context.getLogic().getRandom());
+		} catch (IOException ex) {
+			return;
+		}
+		checkpoints.add(new Checkpoint(turn, actionCount, actionLogLength, context.getGameStateCopy(), random));
+	}
+
+	/**
+	 * Replays the complete game.
+	 *
+	 * @param skipLastAction When {@code true}, the last recorded action is not replayed.
+	 * @return The context as of the last replayed action.
+	 */
 	public GameContext replayContext(boolean skipLastAction) {
-		AtomicInteger nextAction = new AtomicInteger();
+		return replayToAction(skipLastAction ? actionCount - 1 : actionCount);
+	}
+
+	/**
+	 * Replays the game to the start of the specified turn, i.e., until {@link GameContext#getTurn()} equals {@code turn}
+	 * and the active player is requested their first action.
+	 *
+	 * @param turn The turn to replay to.
+	 * @return The context as of the start of that turn.
+	 */
+	public GameContext replayToTurn(int turn) {
+		if (turn < 1 || turn > turnStarts.length || turnStarts[turn - 1] == -1) {
+			throw new IllegalArgumentException("turn");
+		}
+		return replayToAction(turnStarts[turn - 1]);
+	}
+
+	/**
+	 * Replays the game until the specified number of actions have been performed.
+	 * <p>
+	 * Restores the latest checkpoint taken before the action, then re-simulates only the remaining actions. If no such
+	 * checkpoint exists, the game is replayed from its initial state.
+	 *
+	 * @param actionCount The number of actions to perform.
+	 * @return The context as of the next action request.
+	 */
+	public GameContext replayToAction(int actionCount) {
+		if (actionCount < 0 || actionCount > this.actionCount) {
+			throw new IllegalArgumentException("actionCount");
+		}
+
 		int originalCatalogueVersion = CardCatalogue.getVersion();
 		CardCatalogue.setVersion(1);
-		GameContext stateRestored = GameContext.fromState(gameState);
-		List<Integer> behaviourActions = actions;
-		if (skipLastAction) {
-			behaviourActions = behaviourActions.subList(0, behaviourActions.size() - 1);
+		try {
+			Checkpoint checkpoint = seek(actionCount);
+			if (checkpoint == null) {
+				return replayFromStart(actionCount);
+			}
+			return replayFromCheckpoint(checkpoint, actionCount);
+		} finally {
+			CardCatalogue.setVersion(originalCatalogueVersion);
+		}
+	}
+
+	/**
+	 * Finds the latest checkpoint taken at or before the specified action.
+	 *
+	 * @param actionCount The number of actions.
+	 * @return The checkpoint, or {@code null} if the action occurred before the first checkpoint.
+	 */
+	protected Checkpoint seek(int actionCount) {
+		int low = 0;
+		int high = checkpoints.size() - 1;
+		Checkpoint found = null;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			Checkpoint candidate = checkpoints.get(mid);
+			if (candidate.actionIndex <= actionCount) {
+				found = candidate;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
 		}
-		stateRestored.setBehaviour(0, new TraceBehaviour(0, mulligans, nextAction, behaviourActions));
-		stateRestored.setBehaviour(1, new TraceBehaviour(1, mulligans, nextAction, behaviourActions));
+		return found;
+	}
+
+	private GameContext replayFromStart(int actionCount) {
+		int[] actions = decodeActions(0, 0, actionCount);
+		GameContext stateRestored = GameContext.fromState(gameState);
+		setTraceBehaviours(stateRestored, actions);
 		GameLogic logic = new GameLogic((IdFactoryImpl) stateRestored.getLogic().getIdFactory(), getSeed());
 		logic.setContext(stateRestored);
 		stateRestored.setLogic(logic);
@@ -77,10 +294,68 @@ public class Trace implements Serializable, Cloneable {
 			stateRestored.resume();
 		} catch (CancellationException ex) {
 		}
-		CardCatalogue.setVersion(originalCatalogueVersion);
 		return stateRestored;
 	}
 
+	private GameContext replayFromCheckpoint(Checkpoint checkpoint, int actionCount) {
+		int[] actions = decodeActions(checkpoint.actionIndex, checkpoint.actionOffset, actionCount);
+		// The checkpoint's state must not be mutated by the replay
+		GameContext stateRestored = GameContext.fromState(checkpoint.state).clone();
+		setTraceBehaviours(stateRestored, actions);
+		GameLogic logic = new GameLogic((IdFactoryImpl) stateRestored.getLogic().getIdFactory(), getSeed());
+		try {
+			logic.setRandom(Serialization.deserialize(checkpoint.random));
+		} catch (IOException | ClassNotFoundException ex) {
+			throw new RuntimeException(ex);
+		}
+		logic.setContext(stateRestored);
+		stateRestored.setLogic(logic);
+		try {
+			stateRestored.resume();
+		} catch (CancellationException ex) {
+		}
+		return stateRestored;
+	}
+
+	private void setTraceBehaviours(GameContext context, int[] actions) {
+		AtomicInteger nextAction = new AtomicInteger();
+		context.setBehaviour(0, new TraceBehaviour(0, mulligans, nextAction, actions));
+		context.setBehaviour(1, new TraceBehaviour(1, mulligans, nextAction, actions));
+	}
+
+	private int[] decodeActions(int fromIndex, int fromOffset, int toIndex) {
+		int[] actions = new int[Math.max(toIndex - fromIndex, 0)];
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(actionLog, fromOffset, actionLogLength - fromOffset));
+		try {
+			for (int i = 0; i < actions.length; i++) {
+				actions[i] = Varint.readUnsignedVarInt(input);
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException(ex);
+		}
+		return actions;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		rawActions = new ArrayList<>();
+		if (actionLog == null) {
+			actionLog = new byte[64];
+		}
+		if (turnStarts == null) {
+			turnStarts = new int[0];
+		}
+		if (checkpoints == null) {
+			checkpoints = new ArrayList<>();
+		}
+		if (actions != null) {
+			for (int action : actions) {
+				appendAction(action);
+			}
+			actions = null;
+		}
+	}
+
 	public String dump() {
 		return Serialization.serializeBase64(this);
 
@@ -108,7 +383,11 @@ public class Trace implements Serializable, Cloneable {
 				}
 				clone.mulligans = mulliganCopy;
 			}
-			clone.actions = new ArrayList<>(actions);
+			clone.actionLog = Arrays.copyOf(actionLog, actionLog.length);
+			clone.turnStarts = Arrays.copyOf(turnStarts, turnStarts.length);
+			// Checkpoints are never mutated after they are recorded
+			clone.checkpoints = new ArrayList<>(checkpoints);
+			clone.rawActions = new ArrayList<>();
 			return clone;
 		} catch (Exception ex) {
 			return null;
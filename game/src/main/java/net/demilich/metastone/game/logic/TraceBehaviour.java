@@ -17,9 +17,9 @@ class TraceBehaviour extends UtilityBehaviour {
 	private int playerId;
 	private int[][] mulligans;
 	private AtomicInteger nextAction;
-	private List<Integer> actions;
+	private int[] actions;
 
-	TraceBehaviour(int playerId, int[][] mulligans, AtomicInteger nextAction, List<Integer> actions) {
+	TraceBehaviour(int playerId, int[][] mulligans, AtomicInteger nextAction, int[] actions) {
 		this.playerId = playerId;
 		this.mulligans = mulligans;
 		this.nextAction = nextAction;
@@ -48,10 +48,10 @@ class TraceBehaviour extends UtilityBehaviour {
 			return null;
 		}
 		int i = nextAction.getAndIncrement();
-		if (i >= actions.size()) {
+		if (i >= actions.length) {
 			throw new CancellationException();
 		}
-		Integer j = actions.get(i);
+		int j = actions[i];
 		return validActions.stream().filter(f -> f.getId() == j).findFirst().orElseThrow(NullPointerException::new);
 	}
 }
@@ -1,6 +1,7 @@
 package net.demilich.metastone.game.shared.threat;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.Map;
 
@@ -62,43 +63,59 @@ public class FeatureVector implements Cloneable, Serializable {
 		return defaultVector;
 	}
 
-	private final Map<WeightedFeature, Double> values = new EnumMap<WeightedFeature, Double>(WeightedFeature.class);
+	private static final WeightedFeature[] FEATURES = WeightedFeature.values();
+
+	private final double[] weights = new double[FEATURES.length];
 
 	public FeatureVector() {
-		for (WeightedFeature feature : WeightedFeature.values()) {
-			set(feature, 0);
-		}
 	}
 
 	@Override
 	public FeatureVector clone() {
 		FeatureVector clone = new FeatureVector();
-		for (WeightedFeature feature : getValues().keySet()) {
-			clone.set(feature, get(feature));
-		}
+		System.arraycopy(weights, 0, clone.weights, 0, weights.length);
 		return clone;
 	}
 
 	public double get(WeightedFeature param) {
-		return values.get(param);
+		return weights[param.ordinal()];
 	}
 
+	/**
+	 * Gets the weights as a map.
+	 *
+	 * @return A new, unmodifiable map of every feature to its weight.
+	 */
 	public Map<WeightedFeature, Double> getValues() {
-		return values;
+		Map<WeightedFeature, Double> values = new EnumMap<>(WeightedFeature.class);
+		for (WeightedFeature feature : FEATURES) {
+			values.put(feature, weights[feature.ordinal()]);
+		}
+		return Collections.unmodifiableMap(values);
 	}
 
 	public void set(WeightedFeature param, double value) {
-		getValues().put(param, value);
+		weights[param.ordinal()] = value;
+	}
+
+	/**
+	 * Compiles the weights into an array indexed by {@link WeightedFeature#ordinal()}, which is the layout of the rows
+	 * written by {@link ThreatBasedHeuristic#extract(net.demilich.metastone.game.GameContext, int, double[])}.
+	 *
+	 * @return A new array of weights.
+	 */
+	public double[] toArray() {
+		return weights.clone();
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder("[FeatureVector] Values:\n");
-		for (WeightedFeature feature : getValues().keySet()) {
+		for (WeightedFeature feature : FEATURES) {
 			builder.append("\t");
 			builder.append(feature.toString());
 			builder.append(": ");
-			builder.append(String.valueOf(getValues().get(feature)));
+			builder.append(String.valueOf(get(feature)));
 			builder.append("\n");
 		}
 		return builder.toString();
@@ -2,6 +2,7 @@ package net.demilich.metastone.game.shared.threat;
 
 import ch.qos.logback.classic.Level;
 import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.util.ComputeBudget;
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.actions.GameAction;
@@ -364,11 +365,8 @@ public class GameStateValueBehaviour extends IntelligentBehaviour {
 				continue;
 			}
 
-			// Parallelize the expansion of nodes.
-			edges
-					.parallelStream()
-					.unordered()
-					.forEach(edge -> rollout(contextStack, playerId, v, edge, depth));
+			// Parallelize the expansion of nodes, unless an enclosing simulation or search is already parallelized
+			ComputeBudget.forEach(edges, edge -> rollout(contextStack, playerId, v, edge, depth));
 
 			/*
 			// Non-parallel expansion of nodes
@@ -379,11 +377,21 @@ public class GameStateValueBehaviour extends IntelligentBehaviour {
 		}
 
 		// Score the terminal nodes, find the highest score
-		Optional<Node> maxScore = terminalNodes
-				.parallelStream()
-				.peek(bc -> postProcess(playerId, bc.context))
-				.peek(bc -> bc.setScore(heuristic.getScore(bc.context, playerId)))
-				.max(Comparator.comparingDouble(Node::getScore));
+		ComputeBudget.forEach(terminalNodes, bc -> postProcess(playerId, bc.context));
+		List<GameContext> terminalContexts = new ArrayList<>(terminalNodes.size());
+		for (Node terminalNode : terminalNodes) {
+			terminalContexts.add(terminalNode.context);
+		}
+		double[] scores = new double[terminalNodes.size()];
+		heuristic.getScores(terminalContexts, playerId, scores);
+		Optional<Node> maxScore = Optional.empty();
+		for (int i = 0; i < scores.length; i++) {
+			Node terminalNode = terminalNodes.get(i);
+			terminalNode.setScore(scores[i]);
+			if (!maxScore.isPresent() || scores[i] > maxScore.get().getScore()) {
+				maxScore = Optional.of(terminalNode);
+			}
+		}
 
 		if (!maxScore.isPresent()) {
 			logger.error("requestAction {} {}: A problem occurred while trying to find the max score in the terminal nodes {}", gameId, player, terminalNodes);
@@ -2,7 +2,10 @@ package net.demilich.metastone.game.shared.threat;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.demilich.metastone.game.entities.Entity;
 import net.demilich.metastone.game.spells.DestroySpell;
@@ -13,6 +16,8 @@ import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.behaviour.heuristic.Heuristic;
 import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.cards.CardZone;
+import net.demilich.metastone.game.entities.EntityZone;
 import net.demilich.metastone.game.entities.heroes.Hero;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
 import net.demilich.metastone.game.entities.minions.Minion;
@@ -39,11 +44,17 @@ public class ThreatBasedHeuristic implements Heuristic, Serializable {
 		hardRemoval.add("minion_big_game_hunter");
 	}
 
+	private static final int FEATURES = WeightedFeature.values().length;
+	private static final Map<String, Boolean> destroysByCardId = new ConcurrentHashMap<>();
+	private static final ThreadLocal<double[]> row = ThreadLocal.withInitial(() -> new double[FEATURES]);
+
 	private static ThreatLevel calcuateThreatLevel(GameContext context, int playerId) {
 		int damageOnBoard = 0;
 		Player player = context.getPlayer(playerId);
 		Player opponent = context.getOpponent(player);
-		for (Minion minion : opponent.getMinions()) {
+		EntityZone<Minion> minions = opponent.getMinions();
+		for (int i = 0; i < minions.size(); i++) {
+			Minion minion = minions.get(i);
 			damageOnBoard += minion.getAttack() * minion.getAttributeValue(Attribute.NUMBER_OF_ATTACKS);
 		}
 		damageOnBoard += getHeroDamage(opponent.getHero());
@@ -76,8 +87,13 @@ public class ThreatBasedHeuristic implements Heuristic, Serializable {
 	}
 
 	private static boolean isHardRemoval(Card card) {
-		boolean isPoisonous = card.hasAttribute(Attribute.POISONOUS)
-				|| card.hasAttribute(Attribute.AURA_POISONOUS);
+		return card.hasAttribute(Attribute.POISONOUS)
+				|| card.hasAttribute(Attribute.AURA_POISONOUS)
+				// Card descs are immutable, so whether a card destroys is computed once per card ID
+				|| destroysByCardId.computeIfAbsent(card.getCardId(), k -> destroys(card));
+	}
+
+	private static boolean destroys(Card card) {
 		boolean destroySpell = false;
 		if (card.getDesc().getBattlecry() != null
 				&& card.getDesc().getBattlecry().getSpell() != null) {
@@ -91,61 +107,68 @@ public class ThreatBasedHeuristic implements Heuristic, Serializable {
 					|| spell.subSpells().stream().anyMatch(sd -> DestroySpell.class.isAssignableFrom(sd.getDescClass()));
 		}
 		return hardRemoval.contains(card.getCardId())
-				|| isPoisonous
 				|| destroySpell;
 	}
 
-	private final FeatureVector weights;
+	private final double[] weights;
 
 	public ThreatBasedHeuristic(FeatureVector vector) {
-		this.weights = vector;
+		this.weights = vector.toArray();
 	}
 
-	private double calculateMinionScore(Minion minion, ThreatLevel threatLevel) {
-		double minionScore = weights.get(WeightedFeature.MINION_INTRINSIC_VALUE);
-		minionScore += weights.get(WeightedFeature.MINION_ATTACK_FACTOR)
+	/**
+	 * Adds a minion's features to a row, with the specified sign.
+	 */
+	private static void extractMinion(Minion minion, ThreatLevel threatLevel, double sign, double[] row) {
+		row[WeightedFeature.MINION_INTRINSIC_VALUE.ordinal()] += sign;
+		row[WeightedFeature.MINION_ATTACK_FACTOR.ordinal()] += sign
 				* (minion.getAttack() - minion.getAttributeValue(Attribute.TEMPORARY_ATTACK_BONUS));
-		minionScore += weights.get(WeightedFeature.MINION_HP_FACTOR) * minion.getHp();
+		row[WeightedFeature.MINION_HP_FACTOR.ordinal()] += sign * minion.getHp();
 
 		if (minion.hasAttribute(Attribute.TAUNT) || minion.hasAttribute(Attribute.AURA_TAUNT)) {
 			switch (threatLevel) {
 				case RED:
-					minionScore += weights.get(WeightedFeature.MINION_RED_TAUNT_MODIFIER);
+					row[WeightedFeature.MINION_RED_TAUNT_MODIFIER.ordinal()] += sign;
 					break;
 				case YELLOW:
-					minionScore += weights.get(WeightedFeature.MINION_YELLOW_TAUNT_MODIFIER);
+					row[WeightedFeature.MINION_YELLOW_TAUNT_MODIFIER.ordinal()] += sign;
 					break;
 				default:
-					minionScore += weights.get(WeightedFeature.MINION_DEFAULT_TAUNT_MODIFIER);
+					row[WeightedFeature.MINION_DEFAULT_TAUNT_MODIFIER.ordinal()] += sign;
 					break;
 			}
 		}
 
 		if (minion.hasAttribute(Attribute.WINDFURY) || minion.hasAttribute(Attribute.AURA_WINDFURY)) {
-			minionScore += weights.get(WeightedFeature.MINION_WINDFURY_MODIFIER);
+			row[WeightedFeature.MINION_WINDFURY_MODIFIER.ordinal()] += sign;
 		} else if (minion.hasAttribute(Attribute.MEGA_WINDFURY)) {
-			minionScore += 2 * weights.get(WeightedFeature.MINION_WINDFURY_MODIFIER);
+			row[WeightedFeature.MINION_WINDFURY_MODIFIER.ordinal()] += 2 * sign;
 		}
 
 		if (minion.hasAttribute(Attribute.DIVINE_SHIELD)) {
-			minionScore += weights.get(WeightedFeature.MINION_DIVINE_SHIELD_MODIFIER);
+			row[WeightedFeature.MINION_DIVINE_SHIELD_MODIFIER.ordinal()] += sign;
 		}
 		if (minion.hasAttribute(Attribute.SPELL_DAMAGE)) {
-			minionScore += minion.getAttributeValue(Attribute.SPELL_DAMAGE) * weights.get(WeightedFeature.MINION_SPELL_POWER_MODIFIER);
+			row[WeightedFeature.MINION_SPELL_POWER_MODIFIER.ordinal()] += sign * minion.getAttributeValue(Attribute.SPELL_DAMAGE);
 		}
 
 		if (minion.hasAttribute(Attribute.STEALTH) || minion.hasAttribute(Attribute.AURA_STEALTH)) {
-			minionScore += weights.get(WeightedFeature.MINION_STEALTHED_MODIFIER);
+			row[WeightedFeature.MINION_STEALTHED_MODIFIER.ordinal()] += sign;
 		}
 		if (minion.hasAttribute(Attribute.UNTARGETABLE_BY_SPELLS)) {
-			minionScore += weights.get(WeightedFeature.MINION_UNTARGETABLE_BY_SPELLS_MODIFIER);
+			row[WeightedFeature.MINION_UNTARGETABLE_BY_SPELLS_MODIFIER.ordinal()] += sign;
 		}
-
-		return minionScore;
 	}
 
-	@Override
-	public double getScore(GameContext context, int playerId) {
+	/**
+	 * Gets the score of a game that has been decided.
+	 *
+	 * @param context  The game.
+	 * @param playerId The player whose position is scored.
+	 * @return Infinity if the player won, negative infinity if the player lost, or {@link Double#NaN} if the game is
+	 * still undecided and should be scored by its features.
+	 */
+	public static double getDecidedScore(GameContext context, int playerId) {
 		Player player = context.getPlayer(playerId);
 		Player opponent = context.getOpponent(player);
 		if (player.getHero().isDestroyed()) {
@@ -154,40 +177,59 @@ public class ThreatBasedHeuristic implements Heuristic, Serializable {
 		if (opponent.getHero().isDestroyed()) {
 			return Float.POSITIVE_INFINITY;
 		}
-		double score = 0;
+		return Double.NaN;
+	}
+
+	/**
+	 * Writes the features of a game state into a row, so that its score is the dot product of the row and the
+	 * {@link FeatureVector#toArray() weights}.
+	 *
+	 * @param context  The game.
+	 * @param playerId The player whose position is scored.
+	 * @param row      A row of at least as many elements as there are {@link WeightedFeature}s, which is overwritten.
+	 */
+	public static void extract(GameContext context, int playerId, double[] row) {
+		Arrays.fill(row, 0, FEATURES, 0.0);
+		Player player = context.getPlayer(playerId);
+		Player opponent = context.getOpponent(player);
 
 		ThreatLevel threatLevel = calcuateThreatLevel(context, playerId);
 		switch (threatLevel) {
 			case RED:
-				score += weights.get(WeightedFeature.RED_MODIFIER);
+				row[WeightedFeature.RED_MODIFIER.ordinal()] = 1;
 				break;
 			case YELLOW:
-				score += weights.get(WeightedFeature.YELLOW_MODIFIER);
+				row[WeightedFeature.YELLOW_MODIFIER.ordinal()] = 1;
 				break;
 			default:
 				break;
 		}
-		score += player.getHero().getEffectiveHp() * weights.get(WeightedFeature.OWN_HP_FACTOR);
-		score += opponent.getHero().getEffectiveHp() * weights.get(WeightedFeature.OPPONENT_HP_FACTOR);
-		for (Card card : player.getHand()) {
+		row[WeightedFeature.OWN_HP_FACTOR.ordinal()] = player.getHero().getEffectiveHp();
+		row[WeightedFeature.OPPONENT_HP_FACTOR.ordinal()] = opponent.getHero().getEffectiveHp();
+
+		CardZone hand = player.getHand();
+		for (int i = 0; i < hand.getCount(); i++) {
+			Card card = hand.get(i);
 			if (isHardRemoval(card)) {
-				score += weights.get(WeightedFeature.HARD_REMOVAL_VALUE);
+				row[WeightedFeature.HARD_REMOVAL_VALUE.ordinal()]++;
 			}
 
 			if (card.getCardId().equals("spell_cursed")) {
-				score += weights.get(WeightedFeature.CURSED_FACTOR);
+				row[WeightedFeature.CURSED_FACTOR.ordinal()]++;
 			}
 		}
 
-		score += player.getHand().getCount() * weights.get(WeightedFeature.OWN_CARD_COUNT);
-		score += opponent.getHand().getCount() * weights.get(WeightedFeature.OPPONENT_CARD_COUNT);
+		row[WeightedFeature.OWN_CARD_COUNT.ordinal()] = hand.getCount();
+		row[WeightedFeature.OPPONENT_CARD_COUNT.ordinal()] = opponent.getHand().getCount();
 
-		for (Minion minion : player.getMinions()) {
-			score += calculateMinionScore(minion, threatLevel);
+		EntityZone<Minion> minions = player.getMinions();
+		for (int i = 0; i < minions.size(); i++) {
+			extractMinion(minions.get(i), threatLevel, 1.0, row);
 		}
 
-		for (Minion minion : opponent.getMinions()) {
-			score -= calculateMinionScore(minion, threatLevel);
+		minions = opponent.getMinions();
+		for (int i = 0; i < minions.size(); i++) {
+			extractMinion(minions.get(i), threatLevel, -1.0, row);
 		}
 
 		int questCount = player.getQuests().size();
@@ -197,7 +239,9 @@ public class ThreatBasedHeuristic implements Heuristic, Serializable {
 
 		// Count triggered quests
 		long questRewards = 0L;
-		for (Entity e : player.getRemovedFromPlay()) {
+		EntityZone<Entity> removedFromPlay = player.getRemovedFromPlay();
+		for (int i = 0; i < removedFromPlay.size(); i++) {
+			Entity e = removedFromPlay.get(i);
 			if (e instanceof Quest) {
 				Quest quest = (Quest) e;
 				if (quest.isExpired()
@@ -207,15 +251,50 @@ public class ThreatBasedHeuristic implements Heuristic, Serializable {
 			}
 		}
 
-		score += questCount * weights.get(WeightedFeature.QUEST_COUNTER_VALUE);
-		score += questRewards * weights.get(WeightedFeature.QUEST_REWARD_VALUE);
+		row[WeightedFeature.QUEST_COUNTER_VALUE.ordinal()] = questCount;
+		row[WeightedFeature.QUEST_REWARD_VALUE.ordinal()] = questRewards;
 
-		score += player.getMaxMana() * weights.get(WeightedFeature.EMPTY_MANA_CRYSTAL_VALUE);
-		score += opponent.getMaxMana() * weights.get(WeightedFeature.OPPOSING_EMPTY_MANA_CRYSTAL_VALUE);
+		row[WeightedFeature.EMPTY_MANA_CRYSTAL_VALUE.ordinal()] = player.getMaxMana();
+		row[WeightedFeature.OPPOSING_EMPTY_MANA_CRYSTAL_VALUE.ordinal()] = opponent.getMaxMana();
+	}
 
+	private double dot(double[] row) {
+		double score = 0;
+		for (int i = 0; i < FEATURES; i++) {
+			score += weights[i] * row[i];
+		}
 		return score;
 	}
 
+	@Override
+	public double getScore(GameContext context, int playerId) {
+		double decided = getDecidedScore(context, playerId);
+		if (!Double.isNaN(decided)) {
+			return decided;
+		}
+		double[] row = ThreatBasedHeuristic.row.get();
+		extract(context, playerId, row);
+		return dot(row);
+	}
+
+	/**
+	 * Scores every game in a single pass, reusing one row of features for all of them.
+	 */
+	@Override
+	public void getScores(List<GameContext> contexts, int playerId, double[] scores) {
+		double[] row = ThreatBasedHeuristic.row.get();
+		for (int i = 0; i < contexts.size(); i++) {
+			GameContext context = contexts.get(i);
+			double decided = getDecidedScore(context, playerId);
+			if (!Double.isNaN(decided)) {
+				scores[i] = decided;
+				continue;
+			}
+			extract(context, playerId, row);
+			scores[i] = dot(row);
+		}
+	}
+
 	@Override
 	public void onActionSelected(GameContext context, int playerId) {
 
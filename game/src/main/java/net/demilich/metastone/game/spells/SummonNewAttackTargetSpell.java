@@ -17,7 +17,6 @@ public class SummonNewAttackTargetSpell extends Spell {
 		SummonSpell summonSpell = new SummonSpell();
 		SpellDesc overrideTargetSpell = OverrideTargetSpell.create();
 		overrideTargetSpell.setTarget(EntityReference.OUTPUT);
-		desc.put(SpellArg.SPELL, overrideTargetSpell);
-		summonSpell.onCast(context, player, desc, source, target);
+		summonSpell.onCast(context, player, desc.addArg(SpellArg.SPELL, overrideTargetSpell), source, target);
 	}
 }
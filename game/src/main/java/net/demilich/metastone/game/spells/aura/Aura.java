@@ -56,6 +56,14 @@ import net.demilich.metastone.game.targeting.Zones;
  * The {@link #onGameEvent(GameEvent)} method actually implements the evaluation of the condition, the filter, the
  * target and the add/remove effects. Observe that unlike an {@link Enchantment}, which it inherits, auras do not
  * respect configuration features like {@link #maxFires}. It is unclear how such features should be interpreted.
+ * <p>
+ * Most auras have no filter and no condition, and target entities by the zones they are in, like {@link
+ * EntityReference#OTHER_FRIENDLY_MINIONS}. Which entities these auras affect only changes when an entity enters, leaves
+ * or moves within a zone, or when a minion or hero becomes or stops being {@link
+ * net.demilich.metastone.game.utils.Attribute#PERMANENT}, since target references omit permanents. They remember the
+ * {@link GameContext#getZonesVersions(long[])}, which cover both, they were last evaluated against and skip the
+ * evaluation when neither has changed since. See {@link #dependsOnlyOnZones()}. Auras with a filter or a condition are
+ * always evaluated, because those can depend on any state.
  *
  * @see BuffAura for an aura that increases stats.
  * @see AttributeAura for an aura that adds an attribute
@@ -69,6 +77,39 @@ public class Aura extends Enchantment implements HasDesc<AuraDesc> {
 	private Condition condition;
 	private SortedSet<Integer> affectedEntities = new TreeSet<>();
 	private AuraDesc desc;
+	private long[] zonesVersions;
+
+	/**
+	 * Target references that are resolved only from the contents of zones and the location of the aura's host, without
+	 * consulting the environment, the event stacks or randomness.
+	 */
+	private static final Set<EntityReference> ZONE_REFERENCES = new HashSet<>(Arrays.asList(
+			EntityReference.ENEMY_CHARACTERS,
+			EntityReference.ENEMY_MINIONS,
+			EntityReference.ENEMY_HERO,
+			EntityReference.FRIENDLY_CHARACTERS,
+			EntityReference.FRIENDLY_MINIONS,
+			EntityReference.OTHER_FRIENDLY_MINIONS,
+			EntityReference.ADJACENT_MINIONS,
+			EntityReference.FRIENDLY_HERO,
+			EntityReference.ALL_MINIONS,
+			EntityReference.ALL_CHARACTERS,
+			EntityReference.ALL_OTHER_CHARACTERS,
+			EntityReference.ALL_OTHER_MINIONS,
+			EntityReference.OTHER_ENEMY_MINIONS,
+			EntityReference.OPPOSITE_MINIONS,
+			EntityReference.MINIONS_TO_LEFT,
+			EntityReference.MINIONS_TO_RIGHT,
+			EntityReference.FRIENDLY_WEAPON,
+			EntityReference.ENEMY_WEAPON,
+			EntityReference.FRIENDLY_HAND,
+			EntityReference.ENEMY_HAND,
+			EntityReference.FRIENDLY_HERO_POWER,
+			EntityReference.ENEMY_HERO_POWER,
+			EntityReference.FRIENDLY_PLAYER,
+			EntityReference.ENEMY_PLAYER,
+			EntityReference.SELF
+	));
 
 	public Aura(AuraDesc desc) {
 		this(desc.getSecondaryTrigger() == null ? new WillEndSequenceTrigger() : desc.getSecondaryTrigger().create(), desc.getApplyEffect(), desc.getRemoveEffect(), desc.getTarget());
@@ -102,29 +143,60 @@ public class Aura extends Enchantment implements HasDesc<AuraDesc> {
 		super(primaryTrigger, secondaryTrigger, spell, false);
 	}
 
-	protected boolean affects(GameContext context, Player player, Entity target, List<Entity> resolvedTargets) {
-		Entity source = context.resolveSingleTarget(getHostReference());
+	/**
+	 * Determines whether the target should be affected by this aura.
+	 *
+	 * @param context         The game context.
+	 * @param player          The owner of this aura.
+	 * @param source          The host of this aura.
+	 * @param target          The candidate.
+	 * @param resolvedTargets The entities resolved from this aura's target reference, by ID.
+	 * @return {@code true} if the target should be affected.
+	 */
+	protected boolean affects(GameContext context, Player player, Entity source, Entity target, Map<Integer, Entity> resolvedTargets) {
 		if (getEntityFilter() != null && !getEntityFilter().matches(context, player, target, source)) {
 			return false;
 		}
 
 		boolean conditionFulfilled = getCondition() == null || getCondition().isFulfilled(context, player, target, source);
-		return conditionFulfilled && resolvedTargets.contains(target);
+		return conditionFulfilled && target.equals(resolvedTargets.get(target.getId()));
+	}
+
+	/**
+	 * Indicates whether the entities this aura affects can only change when the contents of a zone change. When this is
+	 * {@code true}, the aura isn't reevaluated until one of the {@link GameContext#getZonesVersions(long[])} changes.
+	 * <p>
+	 * Subclasses that affect entities based on other state must override this method to return {@code false}.
+	 *
+	 * @return {@code true} if this aura has no filter, no condition and a target that is resolved only from zones.
+	 */
+	protected boolean dependsOnlyOnZones() {
+		return getEntityFilter() == null
+				&& getCondition() == null
+				&& targets != null
+				&& (!targets.isTargetGroup() || ZONE_REFERENCES.contains(targets))
+				&& (getDesc() == null || !getDesc().getBool(AuraArg.ALWAYS_APPLY));
 	}
 
 	@Override
 	public Aura clone() {
 		Aura clone = (Aura) super.clone();
 		clone.targets = this.targets;
-		if (applyAuraEffect != null) {
+		// Frozen effects are shared
+		if (applyAuraEffect != null
+				&& !applyAuraEffect.isFrozen()) {
 			clone.applyAuraEffect = this.applyAuraEffect.clone();
 		}
-		if (removeAuraEffect != null) {
+		if (removeAuraEffect != null
+				&& !removeAuraEffect.isFrozen()) {
 			clone.removeAuraEffect = this.removeAuraEffect.clone();
 		}
 		if (affectedEntities != null) {
 			clone.affectedEntities = new TreeSet<>(this.affectedEntities);
 		}
+		if (zonesVersions != null) {
+			clone.zonesVersions = zonesVersions.clone();
+		}
 		return clone;
 	}
 
@@ -132,20 +204,40 @@ public class Aura extends Enchantment implements HasDesc<AuraDesc> {
 	public void onAdd(GameContext context) {
 		super.onAdd(context);
 		affectedEntities.clear();
+		zonesVersions = null;
 	}
 
 	@Suspendable
 	public void onGameEvent(GameEvent event) {
 		GameContext context = event.getGameContext();
+		if (dependsOnlyOnZones()) {
+			if (context.zonesVersionsEqual(zonesVersions)) {
+				return;
+			}
+			// Record the versions before applying effects, so that changes made by the effects cause another evaluation
+			zonesVersions = context.getZonesVersions(zonesVersions);
+		} else {
+			zonesVersions = null;
+		}
+
 		Player owner = context.getPlayer(getOwner());
 		Entity source = context.resolveSingleTarget(getHostReference());
 		List<Entity> resolvedTargets = context.resolveTarget(owner, source, targets);
-		List<Entity> relevantTargets = new ArrayList<Entity>(resolvedTargets);
+		Map<Integer, Entity> resolvedTargetsById = new HashMap<>(resolvedTargets.size() * 2);
+		for (Entity target : resolvedTargets) {
+			resolvedTargetsById.put(target.getId(), target);
+		}
+		List<Entity> relevantTargets = new ArrayList<Entity>(resolvedTargets.size() + affectedEntities.size());
+		relevantTargets.addAll(resolvedTargets);
 		for (Iterator<Integer> iterator = affectedEntities.iterator(); iterator.hasNext(); ) {
 			int entityId = iterator.next();
 
-			EntityReference entityReference = new EntityReference(entityId);
-			Entity affectedEntity = context.tryFind(entityReference);
+			// Affected entities that are still targeted don't have to be looked up again
+			Entity affectedEntity = resolvedTargetsById.get(entityId);
+			if (affectedEntity == null
+					|| affectedEntity.getZone() == Zones.REMOVED_FROM_PLAY) {
+				affectedEntity = context.tryFind(new EntityReference(entityId));
+			}
 			if (affectedEntity == null) {
 				// It was removed from play or otherwise could not be found.
 				iterator.remove();
@@ -157,11 +249,12 @@ public class Aura extends Enchantment implements HasDesc<AuraDesc> {
 		boolean alwaysApply = getDesc() != null && getDesc().getBool(AuraArg.ALWAYS_APPLY);
 
 		for (Entity target : relevantTargets) {
-			if (affects(context, owner, target, resolvedTargets) && (!affectedEntities.contains(target.getId()) || alwaysApply)) {
+			boolean affects = affects(context, owner, source, target, resolvedTargetsById);
+			if (affects && (!affectedEntities.contains(target.getId()) || alwaysApply)) {
 				affectedEntities.add(target.getId());
 				context.getLogic().castSpell(getOwner(), applyAuraEffect, getHostReference(), target.getReference(), true);
 				// target is not affected anymore, remove effect
-			} else if (!affects(context, owner, target, resolvedTargets) && affectedEntities.contains(target.getId())) {
+			} else if (!affects && affectedEntities.contains(target.getId())) {
 				affectedEntities.remove(target.getId());
 				if (target.getZone().equals(Zones.REMOVED_FROM_PLAY)) {
 					continue;
@@ -1,6 +1,6 @@
 package net.demilich.metastone.game.spells.aura;
 
-import java.util.List;
+import java.util.Map;
 
 import co.paralleluniverse.fibers.Suspendable;
 import net.demilich.metastone.game.utils.Attribute;
@@ -28,8 +28,14 @@ public class EnrageAura extends Aura {
 	}
 
 	@Override
-	protected boolean affects(GameContext context, Player player, Entity target, List<Entity> resolvedTargets) {
-		return active && super.affects(context, player, target, resolvedTargets);
+	protected boolean affects(GameContext context, Player player, Entity source, Entity target, Map<Integer, Entity> resolvedTargets) {
+		return active && super.affects(context, player, source, target, resolvedTargets);
+	}
+
+	@Override
+	protected boolean dependsOnlyOnZones() {
+		// Whether the host is enraged is not part of any zone
+		return false;
 	}
 
 	@Override
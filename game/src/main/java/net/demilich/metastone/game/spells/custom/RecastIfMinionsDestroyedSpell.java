@@ -6,7 +6,6 @@ import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.entities.Entity;
 import net.demilich.metastone.game.entities.minions.Minion;
 import net.demilich.metastone.game.spells.RecastWhileSpell;
-import net.demilich.metastone.game.spells.desc.SpellArg;
 import net.demilich.metastone.game.spells.desc.SpellDesc;
 import net.demilich.metastone.game.spells.desc.condition.Condition;
 
@@ -18,14 +17,16 @@ public class RecastIfMinionsDestroyedSpell extends RecastWhileSpell {
 				.count();
 	}
 
+	private int destroyedMinionsCount;
+
 	@Override
 	protected void afterCast(GameContext context, SpellDesc desc) {
-		desc.put(SpellArg.SECONDARY_VALUE, getDestroyedMinionsCount(context));
+		destroyedMinionsCount = getDestroyedMinionsCount(context);
 	}
 
 	@Override
 	@Suspendable
 	protected boolean isFulfilled(GameContext context, Player player, Entity source, Entity target, Condition condition, SpellDesc desc) {
-		return (int) desc.getOrDefault(SpellArg.SECONDARY_VALUE, 0) > 0;
+		return destroyedMinionsCount > 0;
 	}
 }
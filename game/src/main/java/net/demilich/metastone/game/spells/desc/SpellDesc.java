@@ -2,6 +2,8 @@ package net.demilich.metastone.game.spells.desc;
 
 import co.paralleluniverse.fibers.Suspendable;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.Player;
 import net.demilich.metastone.game.cards.CardList;
@@ -20,6 +22,7 @@ import net.demilich.metastone.game.utils.Attribute;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -75,6 +78,8 @@ import static java.util.stream.Collectors.toList;
  */
 @JsonDeserialize(using = SpellDescDeserializer.class)
 public class SpellDesc extends Desc<SpellArg, Spell> {
+	private static final Cache<List<SpellDesc>, SpellDesc> joins = CacheBuilder.newBuilder().weakValues().build();
+	private transient Map<SpellArg, SpellDesc> withoutArg;
 
 	public SpellDesc() {
 		super(SpellArg.class);
@@ -104,12 +109,47 @@ public class SpellDesc extends Desc<SpellArg, Spell> {
 		return clone;
 	}
 
+	/**
+	 * Creates a copy of this desc without the specified argument.
+	 * <p>
+	 * When this desc is {@link #isFrozen()}, the result is frozen too, and the same instance is returned every time.
+	 *
+	 * @param spellArg The argument to remove.
+	 * @return A desc without the argument.
+	 */
 	public SpellDesc removeArg(SpellArg spellArg) {
+		if (isFrozen()) {
+			if (!containsKey(spellArg)) {
+				return this;
+			}
+			Map<SpellArg, SpellDesc> withoutArg = this.withoutArg;
+			if (withoutArg == null) {
+				withoutArg = new ConcurrentHashMap<>();
+				this.withoutArg = withoutArg;
+			}
+			return withoutArg.computeIfAbsent(spellArg, this::removeArgAndIntern);
+		}
 		SpellDesc clone = clone();
 		clone.remove(spellArg);
 		return clone;
 	}
 
+	private SpellDesc removeArgAndIntern(SpellArg spellArg) {
+		SpellDesc clone = clone();
+		clone.remove(spellArg);
+		return clone.intern();
+	}
+
+	@Override
+	protected boolean isInternable() {
+		return true;
+	}
+
+	@Override
+	public SpellDesc intern() {
+		return (SpellDesc) super.intern();
+	}
+
 	@Override
 	public SpellDesc clone() {
 		return (SpellDesc) copyTo(new SpellDesc(getDescClass()));
@@ -199,12 +239,36 @@ public class SpellDesc extends Desc<SpellArg, Spell> {
 	 *                    SpellArg#TARGET} and {@link SpellArg#RANDOM_TARGET} attributes to put into the {@link
 	 *                    MetaSpell}.
 	 * @param childSpells The spells that will occur after the {@code masterSpell} is casted.
-	 * @return A new {@link SpellDesc}.
+	 * @return A new {@link SpellDesc}, or a shared frozen one when all the spells are {@link #isFrozen()}.
 	 */
 	public static SpellDesc join(SpellDesc masterSpell, SpellDesc... childSpells) {
 		// Remove nulls
 		childSpells = Arrays.stream(childSpells).filter(Objects::nonNull).toArray(SpellDesc[]::new);
 
+		// Joins of frozen descs are frozen and cached for as long as something still references the join
+		if (masterSpell != null
+				&& masterSpell.isFrozen()
+				&& childSpells.length > 0
+				&& Arrays.stream(childSpells).allMatch(SpellDesc::isFrozen)) {
+			List<SpellDesc> key = new ArrayList<>(childSpells.length + 1);
+			key.add(masterSpell);
+			key.addAll(Arrays.asList(childSpells));
+			SpellDesc joined = joins.getIfPresent(key);
+			if (joined == null) {
+				joined = joinUncached(masterSpell, childSpells).intern();
+				SpellDesc existing = joins.asMap().putIfAbsent(key, joined);
+				if (existing != null) {
+					joined = existing;
+				}
+			}
+			return joined;
+		}
+
+		return joinUncached(masterSpell, childSpells);
+	}
+
+	private static SpellDesc joinUncached(SpellDesc masterSpell, SpellDesc[] childSpells) {
+
 		if (masterSpell == null) {
 			if (childSpells == null || childSpells.length == 0) {
 				return null;
@@ -40,6 +40,11 @@ public class AuraDesc extends Desc<AuraArg, Aura> {
 		return AuraArg.CLASS;
 	}
 
+	@Override
+	protected boolean isInternable() {
+		return true;
+	}
+
 	@Override
 	public AuraDesc clone() {
 		return (AuraDesc) copyTo(new AuraDesc(getDescClass()));
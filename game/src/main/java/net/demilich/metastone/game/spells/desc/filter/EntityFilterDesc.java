@@ -33,6 +33,11 @@ public class EntityFilterDesc extends Desc<EntityFilterArg, EntityFilter> {
 		return EntityFilterArg.CLASS;
 	}
 
+	@Override
+	protected boolean isInternable() {
+		return true;
+	}
+
 	@Override
 	public EntityFilterDesc clone() {
 		return (EntityFilterDesc) copyTo(new EntityFilterDesc(getDescClass()));
@@ -7,6 +7,8 @@ import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import net.demilich.metastone.game.GameContext;
@@ -17,6 +19,8 @@ import net.demilich.metastone.game.entities.minions.Minion;
 import net.demilich.metastone.game.events.GameEvent;
 import net.demilich.metastone.game.spells.desc.SpellDesc;
 import net.demilich.metastone.game.spells.trigger.Enchantment;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import static com.google.common.collect.Maps.immutableEntry;
 
@@ -63,6 +67,9 @@ import static com.google.common.collect.Maps.immutableEntry;
  */
 @JsonInclude(value = JsonInclude.Include.NON_DEFAULT)
 public final class EnchantmentDesc /*extends AbstractMap<EnchantmentDescArg, Object>*/ implements Serializable, Cloneable {
+	private static final Interner<EnchantmentDesc> interned = Interners.newWeakInterner();
+	private transient boolean frozen;
+	private transient int hashCode;
 
 	public EnchantmentDesc() {
 	}
@@ -133,6 +140,78 @@ public final class EnchantmentDesc /*extends AbstractMap<EnchantmentDescArg, Obj
 		);
 	}
 
+	/**
+	 * Indicates whether this enchantment desc was returned by {@link #intern()}. Its fields must not be modified, because
+	 * it is shared by every card that has an equal enchantment.
+	 *
+	 * @return {@code true} if this desc is shared.
+	 */
+	@JsonIgnore
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * Interns the {@link #spell} of this enchantment, then returns the canonical instance of an equal enchantment desc.
+	 * <p>
+	 * The {@link #eventTrigger} is not interned, because event triggers may modify their desc when they are created.
+	 *
+	 * @return The canonical enchantment desc.
+	 * @see net.demilich.metastone.game.cards.desc.Desc#intern()
+	 */
+	public EnchantmentDesc intern() {
+		if (frozen) {
+			return this;
+		}
+		if (spell != null) {
+			spell = spell.intern();
+		}
+		frozen = true;
+		return interned.intern(this);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof EnchantmentDesc)) {
+			return false;
+		}
+		EnchantmentDesc rhs = (EnchantmentDesc) other;
+		return new EqualsBuilder()
+				.append(eventTrigger, rhs.eventTrigger)
+				.append(spell, rhs.spell)
+				.append(oneTurn, rhs.oneTurn)
+				.append(persistentOwner, rhs.persistentOwner)
+				.append(keepAfterTransform, rhs.keepAfterTransform)
+				.append(maxFires, rhs.maxFires)
+				.append(countUntilCast, rhs.countUntilCast)
+				.append(countByValue, rhs.countByValue)
+				.isEquals();
+	}
+
+	@Override
+	public int hashCode() {
+		if (frozen && hashCode != 0) {
+			return hashCode;
+		}
+		int hashCode = new HashCodeBuilder(113, 71)
+				.append(eventTrigger)
+				.append(spell)
+				.append(oneTurn)
+				.append(persistentOwner)
+				.append(keepAfterTransform)
+				.append(maxFires)
+				.append(countUntilCast)
+				.append(countByValue)
+				.toHashCode();
+		if (frozen) {
+			this.hashCode = hashCode;
+		}
+		return hashCode;
+	}
+
 	/**
 	 * Creates an enchantment represented by this configuration.
 	 * <p>
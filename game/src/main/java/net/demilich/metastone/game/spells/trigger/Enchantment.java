@@ -107,7 +107,9 @@ public class Enchantment extends Entity implements Trigger {
 		for (EventTrigger trigger : this.triggers) {
 			clone.triggers.add(trigger.clone());
 		}
-		if (getSpell() != null) {
+		// Frozen spells are shared
+		if (getSpell() != null
+				&& !getSpell().isFrozen()) {
 			clone.spell = getSpell().clone();
 		}
 		return clone;
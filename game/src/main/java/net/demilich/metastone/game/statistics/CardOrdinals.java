@@ -0,0 +1,70 @@
+package net.demilich.metastone.game.statistics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns small, dense ordinals to card IDs so that per-card statistics can be stored in arrays.
+ * <p>
+ * Ordinals are assigned in the order cards are first seen by this JVM, so they are meaningless in any other JVM. {@link
+ * CardStatistics} serializes card IDs instead of ordinals for this reason.
+ */
+final class CardOrdinals {
+	private static final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+	private static volatile String[] cardIds = new String[256];
+	private static int size;
+
+	private CardOrdinals() {
+	}
+
+	/**
+	 * Gets the ordinal of a card ID, assigning the next one if the card hasn't been seen before.
+	 *
+	 * @param cardId The card ID.
+	 * @return The ordinal.
+	 */
+	static int of(String cardId) {
+		Integer ordinal = ordinals.get(cardId);
+		if (ordinal != null) {
+			return ordinal;
+		}
+
+		synchronized (CardOrdinals.class) {
+			ordinal = ordinals.get(cardId);
+			if (ordinal != null) {
+				return ordinal;
+			}
+
+			if (size == cardIds.length) {
+				cardIds = Arrays.copyOf(cardIds, size * 2);
+			}
+			cardIds[size] = cardId;
+			ordinal = size++;
+			// Publish the ordinal only after its card ID is visible
+			ordinals.put(cardId, ordinal);
+			return ordinal;
+		}
+	}
+
+	/**
+	 * Gets the ordinal of a card ID without assigning one.
+	 *
+	 * @param cardId The card ID.
+	 * @return The ordinal, or {@code -1} if the card hasn't been seen before.
+	 */
+	static int find(String cardId) {
+		Integer ordinal = ordinals.get(cardId);
+		return ordinal == null ? -1 : ordinal;
+	}
+
+	/**
+	 * Gets the card ID of an ordinal returned by {@link #of(String)}.
+	 *
+	 * @param ordinal The ordinal.
+	 * @return The card ID.
+	 */
+	static String cardId(int ordinal) {
+		return cardIds[ordinal];
+	}
+}
@@ -0,0 +1,129 @@
+package net.demilich.metastone.game.statistics;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Per-card play and win counts stored in arrays indexed by {@link CardOrdinals card ordinal}.
+ * <p>
+ * Merging adds the arrays element by element. Since ordinals are local to a JVM, this class serializes card IDs and
+ * maps them back to the receiving JVM's ordinals.
+ */
+public final class CardStatistics implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final long[] EMPTY = new long[0];
+
+	private transient long[] plays = EMPTY;
+	private transient long[] games = EMPTY;
+	private transient long[] wins = EMPTY;
+
+	void add(int ordinal, long plays, long games, long wins) {
+		ensureCapacity(ordinal + 1);
+		this.plays[ordinal] += plays;
+		this.games[ordinal] += games;
+		this.wins[ordinal] += wins;
+	}
+
+	void merge(CardStatistics other) {
+		ensureCapacity(other.plays.length);
+		for (int i = 0; i < other.plays.length; i++) {
+			plays[i] += other.plays[i];
+			games[i] += other.games[i];
+			wins[i] += other.wins[i];
+		}
+	}
+
+	CardStatistics copy() {
+		CardStatistics copy = new CardStatistics();
+		copy.plays = plays.clone();
+		copy.games = games.clone();
+		copy.wins = wins.clone();
+		return copy;
+	}
+
+	/**
+	 * Gets the number of times a card was played.
+	 *
+	 * @param cardId The card ID.
+	 * @return The number of plays.
+	 */
+	public long getPlays(String cardId) {
+		int ordinal = CardOrdinals.find(cardId);
+		return ordinal >= 0 && ordinal < plays.length ? plays[ordinal] : 0L;
+	}
+
+	/**
+	 * Gets the number of finished games in which a card was played at least once.
+	 *
+	 * @param cardId The card ID.
+	 * @return The number of games.
+	 */
+	public long getGames(String cardId) {
+		int ordinal = CardOrdinals.find(cardId);
+		return ordinal >= 0 && ordinal < games.length ? games[ordinal] : 0L;
+	}
+
+	/**
+	 * Gets the number of games won in which a card was played at least once.
+	 *
+	 * @param cardId The card ID.
+	 * @return The number of games won.
+	 */
+	public long getWins(String cardId) {
+		int ordinal = CardOrdinals.find(cardId);
+		return ordinal >= 0 && ordinal < wins.length ? wins[ordinal] : 0L;
+	}
+
+	void writeTo(StatisticsSink sink) {
+		for (int i = 0; i < plays.length; i++) {
+			if (plays[i] != 0L) {
+				sink.card(CardOrdinals.cardId(i), plays[i], games[i], wins[i]);
+			}
+		}
+	}
+
+	private void ensureCapacity(int length) {
+		if (plays.length >= length) {
+			return;
+		}
+		// Leave room for the cards that are likely to be seen next
+		int newLength = Math.max(length, plays.length * 2);
+		plays = Arrays.copyOf(plays, newLength);
+		games = Arrays.copyOf(games, newLength);
+		wins = Arrays.copyOf(wins, newLength);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		int count = 0;
+		for (long play : plays) {
+			if (play != 0L) {
+				count++;
+			}
+		}
+		out.writeInt(count);
+		for (int i = 0; i < plays.length; i++) {
+			if (plays[i] != 0L) {
+				out.writeUTF(CardOrdinals.cardId(i));
+				out.writeLong(plays[i]);
+				out.writeLong(games[i]);
+				out.writeLong(wins[i]);
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		plays = EMPTY;
+		games = EMPTY;
+		wins = EMPTY;
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String cardId = in.readUTF();
+			add(CardOrdinals.of(cardId), in.readLong(), in.readLong(), in.readLong());
+		}
+	}
+}
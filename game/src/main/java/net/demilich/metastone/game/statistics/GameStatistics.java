@@ -11,17 +11,40 @@ import net.demilich.metastone.game.cards.CardType;
 import net.demilich.metastone.game.entities.minions.Minion;
 import net.demilich.metastone.game.entities.weapons.Weapon;
 
+/**
+ * The statistics of a player in a game, or the aggregate statistics of many games.
+ * <p>
+ * Counters are stored in a primitive array indexed by {@link Statistic}, so recording and merging them doesn't box.
+ * {@link Statistic#WIN_RATE} is derived from the games won and lost whenever it's read.
+ * <p>
+ * A player's statistics also record which cards were played on which turn, which some cards' effects inspect. When
+ * statistics are first {@link #merge(GameStatistics) merged}, they become an aggregate: every game's record is folded
+ * into per-card arrays (see {@link CardStatistics}), a histogram of game lengths and a mana curve, which merge by
+ * addition. Aggregates are written one value at a time with {@link #writeTo(StatisticsSink)}.
+ */
 public class GameStatistics implements Cloneable, Serializable {
-	private final Map<Statistic, Object> stats = new EnumMap<Statistic, Object>(Statistic.class);
+	/**
+	 * The last bucket of the game length histogram, which counts games of at least this many turns.
+	 */
+	public static final int MAX_TURNS = 63;
+	/**
+	 * The last bucket of the mana curve, which counts cards costing at least this much.
+	 */
+	public static final int MAX_MANA_COST = 10;
+	private static final Statistic[] STATISTICS = Statistic.values();
+
+	private final long[] values = new long[STATISTICS.length];
+	private final long[] manaCurve = new long[MAX_MANA_COST + 1];
 	private final Map<String, Map<Integer, Integer>> cardsPlayed = new HashMap<>();
 	private final Map<String, Integer> minionsSummoned = new HashMap<String, Integer>();
+	private long present;
+	private boolean aggregate;
+	private long[] gameLengths;
+	private CardStatistics cards;
 
 	private void add(Statistic key, long value) {
-		if (!stats.containsKey(key)) {
-			stats.put(key, 0L);
-		}
-		long newValue = getLong(key) + value;
-		stats.put(key, newValue);
+		values[key.ordinal()] += value;
+		present |= 1L << key.ordinal();
 	}
 
 	public void armorGained(int armor) {
@@ -62,14 +85,24 @@ public class GameStatistics implements Cloneable, Serializable {
 
 	public GameStatistics clone() {
 		GameStatistics clone = new GameStatistics();
-		clone.stats.putAll(stats);
-		clone.getCardsPlayed().putAll(getCardsPlayed());
+		System.arraycopy(values, 0, clone.values, 0, values.length);
+		System.arraycopy(manaCurve, 0, clone.manaCurve, 0, manaCurve.length);
+		clone.present = present;
+		clone.aggregate = aggregate;
+		clone.gameLengths = gameLengths == null ? null : gameLengths.clone();
+		clone.cards = cards == null ? null : cards.copy();
+		for (Map.Entry<String, Map<Integer, Integer>> entry : getCardsPlayed().entrySet()) {
+			clone.getCardsPlayed().put(entry.getKey(), new HashMap<>(entry.getValue()));
+		}
 		clone.getMinionsSummoned().putAll(getMinionsSummoned());
 		return clone;
 	}
 
 	public boolean contains(Statistic key) {
-		return stats.containsKey(key);
+		if (key == Statistic.WIN_RATE) {
+			return contains(Statistic.GAMES_WON) || contains(Statistic.GAMES_LOST);
+		}
+		return (present & (1L << key.ordinal())) != 0L;
 	}
 
 	public void damageDealt(int damage) {
@@ -86,16 +119,27 @@ public class GameStatistics implements Cloneable, Serializable {
 
 	public void gameLost() {
 		add(Statistic.GAMES_LOST, 1);
-		updateWinRate();
 	}
 
 	public void gameWon() {
 		add(Statistic.GAMES_WON, 1);
-		updateWinRate();
 	}
 
+	/**
+	 * Gets the value of a statistic.
+	 *
+	 * @param key The statistic.
+	 * @return A {@link Double} for {@link Statistic#WIN_RATE}, a {@link Long} otherwise, or {@code null} if the statistic
+	 * was never recorded.
+	 */
 	public Object get(Statistic key) {
-		return stats.get(key);
+		if (!contains(key)) {
+			return null;
+		}
+		if (key == Statistic.WIN_RATE) {
+			return getDouble(key);
+		}
+		return values[key.ordinal()];
 	}
 
 	public Map<String, Map<Integer, Integer>> getCardsPlayed() {
@@ -107,11 +151,18 @@ public class GameStatistics implements Cloneable, Serializable {
 	}
 
 	public double getDouble(Statistic key) {
-		return stats.containsKey(key) ? (double) stats.get(key) : 0.0;
+		if (key != Statistic.WIN_RATE) {
+			return getLong(key);
+		}
+		if (!contains(key)) {
+			return 0.0;
+		}
+		long won = getLong(Statistic.GAMES_WON);
+		return won / (double) (won + getLong(Statistic.GAMES_LOST));
 	}
 
 	public long getLong(Statistic key) {
-		return stats.containsKey(key) ? (long) stats.get(key) : 0L;
+		return values[key.ordinal()];
 	}
 
 	public void heal(int healing) {
@@ -122,86 +173,151 @@ public class GameStatistics implements Cloneable, Serializable {
 		if (card.getCardType().isCardType(CardType.HERO_POWER)) {
 			return;
 		}
+		manaCurve[Math.max(0, Math.min(MAX_MANA_COST, card.getBaseManaCost()))]++;
 		String cardId = card.getCardId();
-		if (!getCardsPlayed().containsKey(cardId)) {
-			getCardsPlayed().put(cardId, new HashMap<Integer, Integer>());
-		}
-		if (!getCardsPlayed().get(cardId).containsKey(turn)) {
-			getCardsPlayed().get(cardId).put(turn, 0);
-		}
-		getCardsPlayed().get(cardId).put(turn, getCardsPlayed().get(cardId).get(turn) + 1);
+		getCardsPlayed().computeIfAbsent(cardId, k -> new HashMap<>()).merge(turn, 1, Integer::sum);
 	}
-	
+
 	private void increaseMinionCount(Minion minion) {
 		String cardId = minion.getSourceCard().getCardId();
-		if (!getMinionsSummoned().containsKey(cardId)) {
-			getMinionsSummoned().put(cardId, 0);
-		}
-		getMinionsSummoned().put(cardId, getMinionsSummoned().get(cardId) + 1);
+		getMinionsSummoned().merge(cardId, 1, Integer::sum);
 	}
 
 	public void manaSpent(int mana) {
 		add(Statistic.MANA_SPENT, mana);
 	}
 
+	/**
+	 * Adds another player's or aggregate's statistics to these, making these statistics an aggregate.
+	 * <p>
+	 * Merging is associative and costs time proportional to the number of distinct cards, not the number of games.
+	 *
+	 * @param otherStatistics The statistics to add.
+	 * @return These statistics.
+	 */
 	public GameStatistics merge(GameStatistics otherStatistics) {
-		for (Statistic stat : otherStatistics.stats.keySet()) {
-			Object value = get(stat);
-			if (value != null) {
-				if (value instanceof Long) {
-					add(stat, otherStatistics.getLong(stat));
-				}
-			} else {
-				stats.put(stat, otherStatistics.get(stat));
-			}
+		if (!aggregate) {
+			aggregate = true;
+			gameLengths = new long[MAX_TURNS + 1];
+			cards = new CardStatistics();
+			fold(this);
 		}
-		for (String cardId : otherStatistics.getCardsPlayed().keySet()) {
-			if (!getCardsPlayed().containsKey(cardId)) {
-				getCardsPlayed().put(cardId, new HashMap<Integer, Integer>());
-			}
-			for (int turn : otherStatistics.getCardsPlayed().get(cardId).keySet()) {
-				if (!getCardsPlayed().get(cardId).containsKey(turn)) {
-					getCardsPlayed().get(cardId).put(turn, 0);
-				}
-				getCardsPlayed().get(cardId).put(turn, getCardsPlayed().get(cardId).get(turn) + otherStatistics.getCardsPlayed().get(cardId).get(turn));
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] += otherStatistics.values[i];
+		}
+		present |= otherStatistics.present;
+		for (int i = 0; i < manaCurve.length; i++) {
+			manaCurve[i] += otherStatistics.manaCurve[i];
+		}
+
+		if (otherStatistics.aggregate) {
+			for (int i = 0; i < gameLengths.length; i++) {
+				gameLengths[i] += otherStatistics.gameLengths[i];
 			}
+			cards.merge(otherStatistics.cards);
+		} else {
+			fold(otherStatistics);
 		}
-		updateWinRate();
 		return this;
 	}
-	
+
+	/**
+	 * Adds a single game's record of cards played and its length to this aggregate.
+	 */
+	private void fold(GameStatistics game) {
+		long won = game.getLong(Statistic.GAMES_WON);
+		long finished = won + game.getLong(Statistic.GAMES_LOST);
+		if (finished > 0L) {
+			gameLengths[(int) Math.min(MAX_TURNS, game.getLong(Statistic.TURNS_TAKEN))] += finished;
+		}
+
+		for (Map.Entry<String, Map<Integer, Integer>> entry : game.getCardsPlayed().entrySet()) {
+			long plays = 0L;
+			for (int count : entry.getValue().values()) {
+				plays += count;
+			}
+			cards.add(CardOrdinals.of(entry.getKey()), plays, finished, won);
+		}
+	}
+
 	public void minionSummoned(Minion minion) {
 		add(Statistic.MINIONS_PLAYED, 1);
 
 		increaseMinionCount(minion);
 	}
 
-	public void set(Statistic key, Object value) {
-		stats.put(key, value);
+	public void set(Statistic key, long value) {
+		if (key == Statistic.WIN_RATE) {
+			throw new IllegalArgumentException("WIN_RATE is derived from GAMES_WON and GAMES_LOST");
+		}
+		values[key.ordinal()] = value;
+		present |= 1L << key.ordinal();
 	}
 
 	public void startTurn() {
 		add(Statistic.TURNS_TAKEN, 1);
 	}
 
+	/**
+	 * Gets the per-card play and win counts.
+	 *
+	 * @return The counts, including this game's if these statistics aren't an aggregate.
+	 */
+	public CardStatistics getCardStatistics() {
+		return aggregate ? cards : new GameStatistics().merge(this).cards;
+	}
+
+	/**
+	 * Writes the counters, per-card statistics, game length histogram and mana curve to a sink.
+	 *
+	 * @param sink The sink.
+	 */
+	public void writeTo(StatisticsSink sink) {
+		GameStatistics aggregate = this.aggregate ? this : new GameStatistics().merge(this);
+		for (Statistic statistic : STATISTICS) {
+			if (statistic != Statistic.WIN_RATE && aggregate.contains(statistic)) {
+				sink.statistic(statistic, aggregate.getLong(statistic));
+			}
+		}
+		aggregate.cards.writeTo(sink);
+		for (int i = 0; i < aggregate.gameLengths.length; i++) {
+			if (aggregate.gameLengths[i] != 0L) {
+				sink.gameLength(i, aggregate.gameLengths[i]);
+			}
+		}
+		for (int i = 0; i < aggregate.manaCurve.length; i++) {
+			if (aggregate.manaCurve[i] != 0L) {
+				sink.manaCost(i, aggregate.manaCurve[i]);
+			}
+		}
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder("[GameStatistics]\n");
-		for (Statistic stat : stats.keySet()) {
-			builder.append(stat);
+		for (Map.Entry<Statistic, Object> entry : getStats().entrySet()) {
+			builder.append(entry.getKey());
 			builder.append(": ");
-			builder.append(stats.get(stat));
+			builder.append(entry.getValue());
 			builder.append("\n");
 		}
 		return builder.toString();
 	}
 
-	private void updateWinRate() {
-		double winRate = getLong(Statistic.GAMES_WON) / (double) (getLong(Statistic.GAMES_WON) + getLong(Statistic.GAMES_LOST));
-		set(Statistic.WIN_RATE, winRate);
-	}
-
+	/**
+	 * Gets the recorded statistics.
+	 *
+	 * @return A new, unmodifiable map of each recorded statistic to its value, as returned by {@link #get(Statistic)}.
+	 */
 	public Map<Statistic, Object> getStats() {
+		Map<Statistic, Object> stats = new EnumMap<>(Statistic.class);
+		for (Statistic statistic : STATISTICS) {
+			Object value = get(statistic);
+			if (value != null) {
+				stats.put(statistic, value);
+			}
+		}
 		return Collections.unmodifiableMap(stats);
 	}
 }
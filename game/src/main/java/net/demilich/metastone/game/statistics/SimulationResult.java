@@ -4,15 +4,35 @@ package net.demilich.metastone.game.statistics;
 import java.io.Serializable;
 
 public class SimulationResult implements Cloneable, Serializable {
-	private final GameStatistics player1Stats = new GameStatistics();
-	private final GameStatistics player2Stats = new GameStatistics();
+	private final GameStatistics player1Stats;
+	private final GameStatistics player2Stats;
 	private final long startTimestamp;
 	private long duration;
 	private int numberOfGames;
 
 	public SimulationResult(int numberOfGames) {
-		this.startTimestamp = System.currentTimeMillis();
+		this(numberOfGames, new GameStatistics(), new GameStatistics(), System.currentTimeMillis());
+	}
+
+	/**
+	 * Creates the result of a single game from its players' statistics.
+	 * <p>
+	 * The statistics are adopted rather than copied, so that a game's record is folded into per-card arrays only once,
+	 * when it's merged into an aggregate result.
+	 *
+	 * @param player1Stats   The first player's statistics.
+	 * @param player2Stats   The second player's statistics.
+	 * @param startTimestamp When the game started, in milliseconds since the epoch.
+	 */
+	public SimulationResult(GameStatistics player1Stats, GameStatistics player2Stats, long startTimestamp) {
+		this(1, player1Stats, player2Stats, startTimestamp);
+	}
+
+	private SimulationResult(int numberOfGames, GameStatistics player1Stats, GameStatistics player2Stats, long startTimestamp) {
+		this.startTimestamp = startTimestamp;
 		this.numberOfGames = numberOfGames;
+		this.player1Stats = player1Stats;
+		this.player2Stats = player2Stats;
 	}
 
 	public SimulationResult merge(SimulationResult other) {
@@ -45,6 +65,18 @@ public class SimulationResult implements Cloneable, Serializable {
 		return player2Stats;
 	}
 
+	/**
+	 * Writes the aggregate statistics of both players to sinks.
+	 *
+	 * @param player1Sink The sink for the first player's statistics.
+	 * @param player2Sink The sink for the second player's statistics.
+	 * @see GameStatistics#writeTo(StatisticsSink)
+	 */
+	public void writeTo(StatisticsSink player1Sink, StatisticsSink player2Sink) {
+		getPlayer1Stats().writeTo(player1Sink);
+		getPlayer2Stats().writeTo(player2Sink);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
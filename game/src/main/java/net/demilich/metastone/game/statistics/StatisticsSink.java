@@ -0,0 +1,49 @@
+package net.demilich.metastone.game.statistics;
+
+/**
+ * Receives the aggregates of a {@link GameStatistics}, one value at a time, so that they can be written to a file or a
+ * database without building intermediate collections.
+ * <p>
+ * Only nonzero values are written.
+ *
+ * @see GameStatistics#writeTo(StatisticsSink)
+ */
+public interface StatisticsSink {
+
+	/**
+	 * Receives a counter.
+	 *
+	 * @param statistic The statistic. {@link Statistic#WIN_RATE} is derived from the games won and lost and isn't
+	 *                  written.
+	 * @param value     Its total.
+	 */
+	void statistic(Statistic statistic, long value);
+
+	/**
+	 * Receives the statistics of a card the player played. Comparing {@code gamesWon / games} between cards correlates
+	 * playing the card with winning.
+	 *
+	 * @param cardId The card ID.
+	 * @param plays  The number of times the card was played.
+	 * @param games  The number of finished games in which the card was played at least once.
+	 * @param wins   The number of those games the player won.
+	 */
+	void card(String cardId, long plays, long games, long wins);
+
+	/**
+	 * Receives a bucket of the histogram of the number of turns the player took in finished games.
+	 *
+	 * @param turns The number of turns, or at least this many turns for the last bucket, {@link
+	 *              GameStatistics#MAX_TURNS}.
+	 * @param games The number of games.
+	 */
+	void gameLength(int turns, long games);
+
+	/**
+	 * Receives a bucket of the player's mana curve, the histogram of the base mana costs of the cards they played.
+	 *
+	 * @param manaCost The base mana cost, or at least this cost for the last bucket, {@link GameStatistics#MAX_MANA_COST}.
+	 * @param plays    The number of cards played.
+	 */
+	void manaCost(int manaCost, long plays);
+}
@@ -8,17 +8,22 @@ import io.vertx.core.Handler;
 import net.demilich.metastone.game.cards.CardCatalogue;
 import net.demilich.metastone.game.cards.CardParseException;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by bberman on 12/14/16.
  */
 public class DraftContextTest {
+	private static final Logger logger = LoggerFactory.getLogger(DraftContextTest.class);
+
 	@Test
 	public void testDraftComplete() throws SuspendExecution, CardParseException, IOException, URISyntaxException {
 		CardCatalogue.loadCardsFromPackage();
@@ -49,4 +54,48 @@ public class DraftContextTest {
 		Assert.assertEquals(context.getPublicState().getSelectedCards().size(), DraftLogic.DRAFTS);
 		Assert.assertEquals(context.getPublicState().getStatus(), DraftStatus.COMPLETE);
 	}
+
+	@Test
+	public void testAliasTableDistribution() {
+		AliasTable<String> table = new AliasTable<>(Arrays.asList("class", "neutral", "never"), new double[]{5.0, 1.0, 0.0});
+		Random random = new Random(101L);
+		Map<String, Integer> counts = new HashMap<>();
+		int samples = 60000;
+		for (int i = 0; i < samples; i++) {
+			counts.merge(table.sample(random), 1, Integer::sum);
+		}
+		Assert.assertEquals(counts.get("class") / (double) samples, 5.0 / 6.0, 0.01);
+		Assert.assertEquals(counts.get("neutral") / (double) samples, 1.0 / 6.0, 0.01);
+		Assert.assertFalse(counts.containsKey("never"));
+		Assert.assertNull(new AliasTable<String>(Collections.emptyList(), new double[0]).sample(random));
+	}
+
+	@Test
+	public void testDraftCardsMicrobenchmark() {
+		CardCatalogue.loadCardsFromPackage();
+		// Warm up the sampling tables and the JIT
+		for (int i = 0; i < 20; i++) {
+			draft();
+		}
+
+		int drafts = 200;
+		long start = System.nanoTime();
+		for (int i = 0; i < drafts; i++) {
+			PrivateDraftState state = draft();
+			Assert.assertEquals(state.getCards().size(), DraftLogic.DRAFTS);
+			for (List<String> choices : state.getCards()) {
+				Assert.assertEquals(new HashSet<>(choices).size(), DraftLogic.CARDS_PER_DRAFT);
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		logger.info("testDraftCardsMicrobenchmark: {} drafts in {}ms, {}us per draft", drafts,
+				TimeUnit.NANOSECONDS.toMillis(elapsed), TimeUnit.NANOSECONDS.toMicros(elapsed) / drafts);
+	}
+
+	private static PrivateDraftState draft() {
+		DraftContext context = new DraftContext();
+		context.getLogic().initializeDraft();
+		context.getLogic().startDraft(context.getPublicState().getHeroClassChoices().get(0));
+		return context.getPrivateState();
+	}
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.hiddenswitch.spellsource;
 
+import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.actions.ActionType;
 import net.demilich.metastone.game.actions.GameAction;
 import net.demilich.metastone.game.actions.PlayCardAction;
@@ -7,13 +8,16 @@ import net.demilich.metastone.game.behaviour.Behaviour;
 import net.demilich.metastone.game.cards.Card;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
 import net.demilich.metastone.game.entities.minions.Minion;
+import net.demilich.metastone.game.shared.threat.FeatureVector;
 import net.demilich.metastone.game.shared.threat.GameStateValueBehaviour;
+import net.demilich.metastone.game.shared.threat.ThreatBasedHeuristic;
 import net.demilich.metastone.tests.util.TestBase;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.testng.Assert.*;
@@ -231,4 +235,27 @@ public class GameStateValueBehaviourTest extends TestBase implements Serializabl
 			Assert.assertEquals(action.getSourceReference(), wolfrider.getReference());
 		});
 	}
+
+	@Test
+	public void testBatchedScoresMatchScores() {
+		runGym((context, player, opponent) -> {
+			playMinionCard(context, player, "minion_wolfrider");
+			playMinionCard(context, opponent, "minion_target_dummy");
+			receiveCard(context, player, "spell_assassinate");
+			receiveCard(context, player, "minion_bloodfen_raptor");
+
+			ThreatBasedHeuristic heuristic = new ThreatBasedHeuristic(FeatureVector.getFittest());
+			GameContext destroyed = context.clone();
+			destroyed.getOpponent(destroyed.getPlayer(player.getId())).getHero().setHp(0);
+			List<GameContext> contexts = Arrays.asList(context, context.clone(), destroyed);
+			double[] scores = new double[contexts.size()];
+			heuristic.getScores(contexts, player.getId(), scores);
+			for (int i = 0; i < contexts.size(); i++) {
+				Assert.assertEquals(scores[i], heuristic.getScore(contexts.get(i), player.getId()));
+			}
+			Assert.assertEquals(scores[0], scores[1]);
+			Assert.assertEquals(scores[2], (double) Float.POSITIVE_INFINITY);
+			Assert.assertTrue(Double.isFinite(scores[0]));
+		});
+	}
 }
@@ -86,6 +86,45 @@ public class TraceTests {
 		Assert.assertEquals(context1.getTurn(), context2.getTurn());
 	}
 
+	@Test
+	public void testTraceCheckpointsOffByDefault() {
+		Player player1 = new Player(new RandomDeck(HeroClass.BLACK, DeckFormat.STANDARD), "Player 1");
+		Player player2 = new Player(new RandomDeck(HeroClass.BLACK, DeckFormat.STANDARD), "Player 2");
+		GameContext context1 = new GameContext(player1, player2, new GameLogic(), DeckFormat.STANDARD);
+		context1.play();
+		Assert.assertTrue(context1.getTrace().getCheckpoints().isEmpty());
+	}
+
+	@Test
+	public void testTraceCheckpointsSeek() {
+		Player player1 = new Player(new RandomDeck(HeroClass.BLACK, DeckFormat.STANDARD), "Player 1");
+		Player player2 = new Player(new RandomDeck(HeroClass.BLACK, DeckFormat.STANDARD), "Player 2");
+		GameContext context1 = new GameContext(player1, player2, new GameLogic(), DeckFormat.STANDARD);
+		context1.getTrace().setCheckpointInterval(1);
+		context1.play();
+		Trace trace = context1.getTrace();
+		Assert.assertTrue(trace.getCheckpoints().size() > 0);
+		Assert.assertEquals(trace.getActions().size(), trace.getActionCount());
+
+		// Seeking to the middle of the game should agree with a replay from the initial state
+		int turn = Math.max(1, context1.getTurn() / 2);
+		GameContext fromCheckpoint = trace.replayToTurn(turn);
+		Trace withoutCheckpoints = trace.clone();
+		withoutCheckpoints.getCheckpoints().clear();
+		GameContext fromStart = withoutCheckpoints.replayToTurn(turn);
+		Assert.assertEquals(fromCheckpoint.getTurn(), turn);
+		Assert.assertEquals(fromCheckpoint.getTurn(), fromStart.getTurn());
+		Assert.assertEquals(fromCheckpoint.getActivePlayerId(), fromStart.getActivePlayerId());
+		for (int i = 0; i < 2; i++) {
+			Assert.assertEquals(fromCheckpoint.getPlayer(i).getHero().getHp(), fromStart.getPlayer(i).getHero().getHp());
+			Assert.assertEquals(fromCheckpoint.getPlayer(i).getHand().size(), fromStart.getPlayer(i).getHand().size());
+			Assert.assertEquals(fromCheckpoint.getPlayer(i).getMinions().size(), fromStart.getPlayer(i).getMinions().size());
+		}
+
+		GameContext context2 = trace.replayContext(false);
+		Assert.assertEquals(context1.getTurn(), context2.getTurn());
+	}
+
 	@Test
 	@Ignore
 	public void testDiagnoseTraces() {
@@ -0,0 +1,36 @@
+package com.hiddenswitch.spellsource.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ComputeBudgetTest {
+
+	@Test
+	public void testComputeBudgetParallelizesOutermostLevel() {
+		int parallelism = ComputeBudget.getParallelism();
+		List<Integer> outer = IntStream.range(0, parallelism * 2).boxed().collect(Collectors.toList());
+		List<Integer> innerShares = ComputeBudget.map(outer, i -> {
+			// The outer level has enough work for every worker, so inner levels run sequentially
+			Assert.assertFalse(ComputeBudget.shouldParallelize(100));
+			return ComputeBudget.map(Arrays.asList(1, 2, 3), j -> ComputeBudget.getShare()).get(0);
+		});
+		Assert.assertEquals(innerShares.size(), outer.size());
+		innerShares.forEach(share -> Assert.assertEquals((int) share, 1));
+		Assert.assertEquals((int) ComputeBudget.sequentially(ComputeBudget::getShare), 1);
+		Assert.assertEquals(ComputeBudget.getShare(), parallelism);
+	}
+
+	@Test
+	public void testMapReduceSkipsNullResults() {
+		List<Integer> items = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+		Assert.assertEquals((int) ComputeBudget.mapReduce(items, i -> i % 2 == 0 ? null : i, Integer::sum).get(), 250000);
+		Assert.assertEquals((int) ComputeBudget.sequentially(() -> ComputeBudget.mapReduce(items, i -> i, Integer::sum)).get(), 499500);
+		Assert.assertFalse(ComputeBudget.mapReduce(Collections.<Integer>emptyList(), i -> i, Integer::sum).isPresent());
+	}
+}
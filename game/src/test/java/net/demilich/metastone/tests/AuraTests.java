@@ -188,4 +188,51 @@ public class AuraTests extends TestBase {
 		Assert.assertEquals(facelessCopy.getAttack(), 0);
 	}
 
+	@Test
+	public void testZonesVersionTracksAuraInputs() {
+		GameContext context = createContext(HeroClass.BLUE, HeroClass.RED);
+		Player player = context.getPlayer1();
+
+		Minion direWolf = playMinionCard(context, player, CardCatalogue.getCardById("minion_dire_wolf_alpha"));
+		long[] versions = context.getZonesVersions(null);
+		Assert.assertTrue(context.zonesVersionsEqual(versions), "Reading the versions should not change them");
+		Assert.assertTrue(context.clone().zonesVersionsEqual(versions), "Clones should have the same versions");
+
+		Minion testMinion = playMinionCard(context, player, new TestMinionCard(1, 1));
+		Assert.assertFalse(context.zonesVersionsEqual(versions));
+		Assert.assertEquals(testMinion.getAttack(), 2);
+
+		// Damage doesn't change a zone, and the aura doesn't depend on it
+		versions = context.getZonesVersions(versions);
+		context.getLogic().damage(player, direWolf, 1, direWolf);
+		Assert.assertTrue(context.zonesVersionsEqual(versions));
+		Assert.assertEquals(testMinion.getAttack(), 2);
+
+		context.getLogic().markAsDestroyed(direWolf);
+		context.getLogic().endOfSequence();
+		Assert.assertEquals(testMinion.getAttack(), 1);
+	}
+
+	@Test
+	public void testZonesVersionTracksPermanents() {
+		GameContext context = createContext(HeroClass.BLUE, HeroClass.RED);
+		Player player = context.getPlayer1();
+
+		Minion testMinion = playMinionCard(context, player, new TestMinionCard(1, 1));
+		TestMinionCard auraCard = new TestMinionCard(1, 1);
+		auraCard.getMinion().addEnchantment(new BuffAura(1, 1, EntityReference.OTHER_FRIENDLY_MINIONS, null));
+		playMinionCard(context, player, auraCard);
+		Assert.assertEquals(testMinion.getAttack(), 2);
+
+		// Target references omit permanents, so a minion that becomes permanent is no longer affected
+		long[] versions = context.getZonesVersions(null);
+		testMinion.setAttribute(Attribute.PERMANENT);
+		Assert.assertFalse(context.zonesVersionsEqual(versions));
+		context.getLogic().endOfSequence();
+		Assert.assertEquals(testMinion.getAttack(), 1);
+
+		testMinion.getAttributes().remove(Attribute.PERMANENT);
+		context.getLogic().endOfSequence();
+		Assert.assertEquals(testMinion.getAttack(), 2);
+	}
 }
@@ -10,8 +10,10 @@ import org.testng.annotations.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class DiffTests {
 	@Test
@@ -26,6 +28,18 @@ public class DiffTests {
 
 	}
 
+	@Test
+	public void testDiffSequenceRandomPermutations() {
+		Random random = new Random(101L);
+		for (int i = 0; i < 20; i++) {
+			List<Integer> a = IntStream.range(0, 300).boxed().collect(Collectors.toList());
+			List<Integer> b = IntStream.range(150, 450).boxed().collect(Collectors.toList());
+			Collections.shuffle(a, random);
+			Collections.shuffle(b, random);
+			testBothWays(a, b);
+		}
+	}
+
 	<M extends Comparable<M>> void testMutation(List<M> a, List<M> b) {
 		List<JsonObject> aa = makeDocs(a);
 		List<JsonObject> bb = makeDocs(b);
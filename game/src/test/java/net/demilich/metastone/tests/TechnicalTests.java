@@ -1,8 +1,11 @@
 package net.demilich.metastone.tests;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.hiddenswitch.spellsource.common.GameState;
 import net.demilich.metastone.tests.util.TestBase;
 import net.demilich.metastone.tests.util.TestMinionCard;
 import net.demilich.metastone.tests.util.TestSpellCard;
@@ -18,6 +21,13 @@ import net.demilich.metastone.game.entities.Entity;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
 import net.demilich.metastone.game.entities.minions.Minion;
 import net.demilich.metastone.game.spells.DamageSpell;
+import net.demilich.metastone.game.spells.desc.SpellArg;
+import net.demilich.metastone.game.spells.desc.SpellDesc;
+import net.demilich.metastone.game.spells.desc.trigger.EnchantmentDesc;
+import net.demilich.metastone.game.statistics.CardStatistics;
+import net.demilich.metastone.game.statistics.GameStatistics;
+import net.demilich.metastone.game.statistics.Statistic;
+import net.demilich.metastone.game.statistics.StatisticsSink;
 import net.demilich.metastone.game.targeting.EntityReference;
 
 public class TechnicalTests extends TestBase {
@@ -82,4 +92,128 @@ public class TechnicalTests extends TestBase {
 			Assert.assertEquals(minion.getHp(), -1);
 		}
 	}
+
+	@Test
+	public void testCatalogueDescsAreInterned() {
+		Card fireball = CardCatalogue.getCardById("spell_fireball");
+		SpellDesc spell = fireball.getDesc().getSpell();
+		Assert.assertTrue(spell.isFrozen());
+		Assert.assertSame(spell.intern(), spell);
+		Assert.assertSame(spell.clone().intern(), spell, "Equal descs should be interned to the same instance");
+		Assert.assertFalse(spell.clone().isFrozen(), "Clones of frozen descs should be modifiable");
+		Assert.assertSame(spell.removeArg(SpellArg.TARGET), spell.removeArg(SpellArg.TARGET), "Derived descs should be cached");
+		Assert.assertFalse(spell.removeArg(SpellArg.TARGET).containsKey(SpellArg.TARGET));
+		Assert.assertThrows(UnsupportedOperationException.class, () -> spell.put(SpellArg.VALUE, 1));
+		Assert.assertThrows(UnsupportedOperationException.class, () -> spell.keySet().remove(SpellArg.CLASS));
+		Assert.assertThrows(UnsupportedOperationException.class, () -> spell.values().clear());
+		Assert.assertThrows(UnsupportedOperationException.class, () -> spell.entrySet().iterator().next().setValue(null));
+
+		EnchantmentDesc trigger = CardCatalogue.getCardById("minion_acolyte_of_pain").getDesc().getTrigger();
+		Assert.assertTrue(trigger.isFrozen());
+		Assert.assertTrue(trigger.spell.isFrozen());
+		Assert.assertSame(trigger.intern(), trigger);
+	}
+
+	@Test
+	public void testCloneCopiesEnvironmentStacks() {
+		GameContext context = createContext(HeroClass.RED, HeroClass.RED);
+		context.getDamageStack().push(3);
+		context.getSpellValueStack().push(1);
+		context.getSpellValueStack().push(2);
+		context.getEventTargetStack().push(EntityReference.FRIENDLY_HERO);
+
+		GameContext clone = context.clone();
+		clone.getDamageStack().push(5);
+		clone.getEventTargetStack().pop();
+
+		Assert.assertEquals(context.getDamageStack().size(), 1);
+		Assert.assertEquals(context.getDamageStack().peek(), 3);
+		Assert.assertEquals(clone.getDamageStack().peek(), 5);
+		Assert.assertEquals(clone.getSpellValueStack().peek(), 2);
+		Assert.assertEquals(clone.getSpellValueStack().peekBottom(), 1);
+		Assert.assertTrue(clone.getEventTargetStack().isEmpty());
+		Assert.assertTrue(context.getEventTargetStack().contains(EntityReference.FRIENDLY_HERO));
+	}
+
+	@Test
+	public void testGameStateRestoresEnvironmentStacks() {
+		GameContext context = createContext(HeroClass.RED, HeroClass.RED);
+		context.getDamageStack().push(3);
+		context.getSpellValueStack().push(1);
+		context.getSpellValueStack().push(2);
+		context.getEventTargetStack().push(EntityReference.FRIENDLY_HERO);
+
+		GameState state = context.getGameStateCopy();
+		context.getDamageStack().push(5);
+
+		GameContext restored = new GameContext();
+		restored.setGameState(state);
+		Assert.assertEquals(restored.getDamageStack().size(), 1);
+		Assert.assertEquals(restored.getDamageStack().peek(), 3);
+		Assert.assertEquals(restored.getSpellValueStack().peek(), 2);
+		Assert.assertEquals(restored.getSpellValueStack().peekBottom(), 1);
+		Assert.assertTrue(restored.getEventTargetStack().contains(EntityReference.FRIENDLY_HERO));
+		Assert.assertTrue(restored.getSummonReferenceStack().isEmpty());
+	}
+
+	@Test
+	public void testStatisticsMergeIntoCardAggregates() {
+		Card fireball = CardCatalogue.getCardById("spell_fireball");
+		Card raptor = CardCatalogue.getCardById("minion_bloodfen_raptor");
+
+		GameStatistics won = new GameStatistics();
+		won.startTurn();
+		won.cardPlayed(fireball, 1);
+		won.cardPlayed(fireball, 2);
+		won.cardPlayed(raptor, 2);
+		won.gameWon();
+
+		GameStatistics lost = new GameStatistics();
+		lost.startTurn();
+		lost.startTurn();
+		lost.cardPlayed(fireball, 1);
+		lost.gameLost();
+
+		// Cards' effects still see the game's record
+		Assert.assertEquals((int) won.getCardsPlayed().get(fireball.getCardId()).get(2), 1);
+
+		GameStatistics left = won.clone().merge(lost.clone()).merge(new GameStatistics());
+		GameStatistics right = new GameStatistics().merge(won.clone().merge(lost.clone()));
+		for (GameStatistics aggregate : new GameStatistics[]{left, right}) {
+			Assert.assertEquals(aggregate.getLong(Statistic.CARDS_PLAYED), 4L);
+			Assert.assertEquals(aggregate.getDouble(Statistic.WIN_RATE), 0.5);
+			CardStatistics cards = aggregate.getCardStatistics();
+			Assert.assertEquals(cards.getPlays(fireball.getCardId()), 3L);
+			Assert.assertEquals(cards.getGames(fireball.getCardId()), 2L);
+			Assert.assertEquals(cards.getWins(fireball.getCardId()), 1L);
+			Assert.assertEquals(cards.getGames(raptor.getCardId()), 1L);
+			Assert.assertEquals(cards.getWins(raptor.getCardId()), 1L);
+		}
+
+		Map<Integer, Long> gameLengths = new HashMap<>();
+		Map<Integer, Long> manaCurve = new HashMap<>();
+		left.writeTo(new StatisticsSink() {
+			@Override
+			public void statistic(Statistic statistic, long value) {
+			}
+
+			@Override
+			public void card(String cardId, long plays, long games, long wins) {
+			}
+
+			@Override
+			public void gameLength(int turns, long games) {
+				gameLengths.put(turns, games);
+			}
+
+			@Override
+			public void manaCost(int manaCost, long plays) {
+				manaCurve.put(manaCost, plays);
+			}
+		});
+		Assert.assertEquals(gameLengths.get(1), (Long) 1L);
+		Assert.assertEquals(gameLengths.get(2), (Long) 1L);
+		Assert.assertEquals(manaCurve.get(fireball.getBaseManaCost()), (Long) 3L);
+		Assert.assertEquals(manaCurve.get(raptor.getBaseManaCost()), (Long) 1L);
+	}
 }
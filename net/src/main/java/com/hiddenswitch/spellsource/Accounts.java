@@ -2,11 +2,16 @@ package com.hiddenswitch.spellsource;
 
 import co.paralleluniverse.fibers.SuspendExecution;
 import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.client.models.Account;
+import com.hiddenswitch.spellsource.impl.CollectionCache;
 import com.hiddenswitch.spellsource.impl.UserId;
 import com.hiddenswitch.spellsource.impl.util.*;
 import com.hiddenswitch.spellsource.models.*;
 import com.hiddenswitch.spellsource.util.QuickJson;
+import com.hiddenswitch.spellsource.util.Sync;
 import com.lambdaworks.crypto.SCryptUtil;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.*;
@@ -23,6 +28,7 @@ import java.security.NoSuchAlgorithmException;
 import java.sql.Date;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
@@ -118,6 +124,32 @@ public interface Accounts {
 		return findOne(userId.toString());
 	}
 
+	/**
+	 * Gets a user's username, using the node-local {@link CollectionCache} when possible.
+	 *
+	 * @param userId The user's ID
+	 * @return The username, or {@code null} if the user doesn't exist.
+	 */
+	@Suspendable
+	static String getUsername(String userId) {
+		CollectionCache cache = CollectionCache.get();
+		String username = cache == null ? null : cache.getUsername(userId);
+		if (username != null) {
+			return username;
+		}
+
+		long generation = cache == null ? 0L : cache.generation();
+		JsonObject record = mongo().findOne(USERS, json("_id", userId), json("username", 1));
+		if (record == null) {
+			return null;
+		}
+		username = record.getString("username");
+		if (cache != null && username != null) {
+			cache.putUsername(userId, username, generation);
+		}
+		return username;
+	}
+
 	/**
 	 * Finds user accounts with the given options.
 	 *
@@ -420,6 +452,54 @@ public interface Accounts {
 		return mongo().findOne(USERS, json("_id", userId), UserRecord.class);
 	}
 
+	/**
+	 * Assembles a user's account, including their collection, their decks and whether they are in a match.
+	 * <p>
+	 * The reads are issued concurrently on separate fibers. The account, except for whether the user is in a match, is
+	 * cached in the {@link CollectionCache} under the version of the user record it was assembled from, so a user whose
+	 * record, collection and decks haven't changed only costs a read of their record and of the current matches.
+	 *
+	 * @param userId The user's ID
+	 * @return The account, or {@code null} if the user doesn't exist.
+	 */
+	@Suspendable
+	static Account getAccount(String userId) {
+		CollectionCache cache = CollectionCache.get();
+		long generation = cache == null ? 0L : cache.generation();
+		Future<UserRecord> record = Sync.fork(() -> get(userId));
+		Future<CurrentMatchResponse> currentMatch = Sync.fork(() -> Matchmaking.getCurrentMatch(CurrentMatchRequest.request(userId)));
+		awaitResult(h -> CompositeFuture.all(record, currentMatch).setHandler(h));
+		if (record.result() == null) {
+			return null;
+		}
+
+		UserRecord userRecord = record.result();
+		boolean inMatch = currentMatch.result().getGameId() != null;
+		List<Object> version = Arrays.asList(userRecord.getDecks(), userRecord.getUsername(), userRecord.getPrivacyToken(),
+				userRecord.getEmails().get(0).getAddress());
+		Account cached = cache == null ? null : cache.getAccount(userId, version);
+		if (cached != null) {
+			return cached.inMatch(inMatch);
+		}
+
+		Future<GetCollectionResponse> personalCollection = Sync.fork(() -> Inventory.getCollection(GetCollectionRequest.user(userId)));
+		Future<GetCollectionResponse> deckCollections = Sync.fork(() -> Inventory.getCollection(GetCollectionRequest.decks(userId, userRecord.getDecks())));
+		awaitResult(h -> CompositeFuture.all(personalCollection, deckCollections).setHandler(h));
+
+		List<GetCollectionResponse> responses = deckCollections.result().getResponses();
+		Account account = new Account()
+				.id(userRecord.getId())
+				.decks((responses != null && responses.size() > 0) ? responses.stream()
+						.filter(response -> !response.getTrashed()).map(GetCollectionResponse::asInventoryCollection).collect(Collectors.toList()) : Collections.emptyList())
+				.personalCollection(personalCollection.result().asInventoryCollection())
+				.email(userRecord.getEmails().get(0).getAddress())
+				.name(userRecord.getUsername() + "#" + userRecord.getPrivacyToken());
+		if (cache != null) {
+			cache.putAccount(userId, version, account, generation);
+		}
+		return account.inMatch(inMatch);
+	}
+
 	@Suspendable
 	static ChangePasswordResponse changePassword(ChangePasswordRequest request) throws SuspendExecution, InterruptedException {
 		if (request.getUserId() == null) {
@@ -461,8 +541,10 @@ public interface Accounts {
 		mongo().removeDocuments(Inventory.COLLECTIONS, json("userId", record.getId()));
 		// Remove all inventory records
 		mongo().removeDocuments(Inventory.INVENTORY, json("userId", record.getId()));
+		mongo().removeDocument(Inventory.COUNTS, json("_id", record.getId()));
 		// Remove the user document
 		mongo().removeDocument(Accounts.USERS, json("_id", record.getId()));
+		CollectionCache.invalidate(Collections.singletonList(record.getId()));
 
 		return true;
 	}
@@ -473,8 +555,10 @@ public interface Accounts {
 		mongo().removeDocuments(Inventory.COLLECTIONS, json("userId", json("$in", userIds)));
 		// Remove all inventory records
 		mongo().removeDocuments(Inventory.INVENTORY, json("userId", json("$in", userIds)));
+		mongo().removeDocuments(Inventory.COUNTS, json("_id", json("$in", userIds)));
 		// Remove the user document
 		MongoClientDeleteResult result = mongo().removeDocuments(Accounts.USERS, json("_id", json("$in", userIds)));
+		CollectionCache.invalidate(ids.stream().map(UserId::toString).collect(Collectors.toList()));
 		return result.getRemovedCount();
 	}
 }
@@ -4,6 +4,7 @@ import co.paralleluniverse.fibers.SuspendExecution;
 import co.paralleluniverse.fibers.Suspendable;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.hiddenswitch.spellsource.impl.GameId;
+import com.hiddenswitch.spellsource.impl.GameSessionPlacement;
 import com.hiddenswitch.spellsource.impl.UserId;
 import com.hiddenswitch.spellsource.impl.util.UserRecord;
 import com.hiddenswitch.spellsource.models.*;
@@ -23,6 +24,8 @@ import org.apache.commons.lang3.RandomUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -102,11 +105,16 @@ public interface Bots {
 
 		try {
 			GameAction result = awaitResult(res -> Vertx.currentContext().executeBlocking(fut -> {
+				final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+				final long cpuStart = threads.getCurrentThreadCpuTime();
 				try {
 					final GameAction res1 = behaviour.requestAction(context, context.getPlayer(request.playerId), request.validActions);
 					fut.complete(res1);
 				} catch (Throwable t) {
 					fut.fail(t);
+				} finally {
+					// Reported as a load signal for game session placement
+					GameSessionPlacement.recordBotCpuTime(threads.getCurrentThreadCpuTime() - cpuStart);
 				}
 			}, false, res));
 
@@ -13,6 +13,8 @@ import net.demilich.metastone.game.decks.DeckFormat;
 
 import java.util.*;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
@@ -94,6 +96,16 @@ public interface Cards {
 	 * @return The cards
 	 */
 	static List<CardRecord> getCards() {
+		return getCardsBySet().values().stream().flatMap(List::stream).collect(toList());
+	}
+
+	/**
+	 * Retrieves the freshly computed cards of {@link #getCards()}, grouped by card set and sorted by card ID, so that
+	 * their serialized form is the same in every process that has the same card catalogue.
+	 *
+	 * @return The cards of each card set
+	 */
+	static Map<CardSet, List<CardRecord>> getCardsBySet() {
 		GameContext workingContext = GameContext.uninitialized();
 		return CardCatalogue.getRecords().values()
 				.stream()
@@ -102,9 +114,8 @@ public interface Cards {
 						&& cd.type != CardType.GROUP
 						&& cd.type != CardType.HERO_POWER
 						&& cd.type != CardType.ENCHANTMENT)
-				.map(CardDesc::create)
-				.map(card -> Games.getEntity(workingContext, card, 0))
-				.map(entity -> new CardRecord().entity(entity))
-				.collect(toList());
+				.sorted(Comparator.comparing(CardDesc::getId))
+				.collect(groupingBy(CardDesc::getSet, () -> new EnumMap<>(CardSet.class), mapping(cd ->
+						new CardRecord().entity(Games.getEntity(workingContext, cd.create(), 0)), toList())));
 	}
 }
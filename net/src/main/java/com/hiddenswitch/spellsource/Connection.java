@@ -2,9 +2,14 @@ package com.hiddenswitch.spellsource;
 
 import co.paralleluniverse.fibers.SuspendExecution;
 import co.paralleluniverse.fibers.Suspendable;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.hiddenswitch.spellsource.client.models.Envelope;
+import com.hiddenswitch.spellsource.client.models.EnvelopeMethod;
 import com.hiddenswitch.spellsource.impl.ConnectionImpl;
+import com.hiddenswitch.spellsource.impl.ConnectionNearCache;
+import com.hiddenswitch.spellsource.impl.SessionBootstrap;
 import com.hiddenswitch.spellsource.impl.UserId;
+import com.hiddenswitch.spellsource.impl.util.UserRecord;
 import com.hiddenswitch.spellsource.util.Hazelcast;
 import com.hiddenswitch.spellsource.concurrent.SuspendableLock;
 import com.hiddenswitch.spellsource.concurrent.SuspendableMap;
@@ -15,6 +20,7 @@ import io.vertx.core.eventbus.MessageCodec;
 import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.eventbus.MessageProducer;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.json.EncodeException;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.shareddata.AsyncMap;
@@ -27,70 +33,55 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Deque;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Consumer;
 
 public interface Connection extends ReadStream<Envelope>, WriteStream<Envelope>, Closeable {
 	Logger logger = LoggerFactory.getLogger(Hazelcast.class);
 
+	String CONNECTIONS = "Connection::connections";
+	String SUPERSEDED = "Connection::superseded";
+
 	static SuspendableMap<UserId, String> getConnections() throws SuspendExecution {
-		return SuspendableMap.getOrCreate("Connection::connections");
+		return SuspendableMap.getOrCreate(CONNECTIONS);
 	}
 
 	static void getConnections(Handler<AsyncResult<AsyncMap<UserId, String>>> handler) {
-		SuspendableMap.getOrCreate("Connection::connections", handler);
+		SuspendableMap.getOrCreate(CONNECTIONS, handler);
 	}
 
 	/**
 	 * Retrieves a valid reference to write to a connection from anywhere, as long as the event bus on the other node is
 	 * shared/clustered with this one.
+	 * <p>
+	 * Routes are read through a {@link ConnectionNearCache} when clustered, so most calls do not perform a distributed
+	 * map lookup. The caller should end the returned stream once it is done writing to it, which releases its pooled
+	 * publisher.
 	 *
 	 * @param userId The user ID whose connection should be retrieved
 	 * @return A connection object.
 	 */
 	static WriteStream<Envelope> writeStream(String userId) throws SuspendExecution {
-		SuspendableMap<UserId, String> connections = getConnections();
-		String handlerId = connections.get(new UserId(userId));
-		if (handlerId == null) {
-			return null;
-		}
-
-		MessageProducer<Envelope> producer = Vertx.currentContext().owner().eventBus().publisher(handlerId);
-		return producer;
-		/*
-		return new WriteStream<Envelope>() {
-			@Override
-			public WriteStream<Envelope> exceptionHandler(Handler<Throwable> handler) {
-				producer.exceptionHandler(handler);
-				return this;
-			}
-
-			@Override
-			public WriteStream<Envelope> write(Envelope data) {
-				producer.write(Buffer.buffer(Json.encode(data)));
-				return this;
-			}
-
-			@Override
-			public void end() {
-				producer.end();
+		ConnectionNearCache nearCache = ConnectionNearCache.get(CONNECTIONS);
+		if (nearCache == null) {
+			String handlerId = getConnections().get(new UserId(userId));
+			if (handlerId == null) {
+				return null;
 			}
+			return Vertx.currentContext().owner().eventBus().publisher(handlerId);
+		}
 
-			@Override
-			public WriteStream<Envelope> setWriteQueueMaxSize(int maxSize) {
-				producer.setWriteQueueMaxSize(maxSize);
-				return this;
-			}
+		String route = nearCache.getRoute(userId);
+		if (route == null) {
+			long version = nearCache.version(userId);
+			route = getConnections().get(new UserId(userId));
+			nearCache.putRoute(userId, route, version);
+		}
 
-			@Override
-			public boolean writeQueueFull() {
-				return producer.writeQueueFull();
-			}
+		if (!ConnectionNearCache.isConnected(route)) {
+			return null;
+		}
 
-			@Override
-			public WriteStream<Envelope> drainHandler(Handler<Void> handler) {
-				producer.drainHandler(handler);
-				return this;
-			}
-		};*/
+		return nearCache.publisher(route);
 	}
 
 	static WriteStream<Envelope> writeStream(UserId userId) throws SuspendExecution {
@@ -98,6 +89,16 @@ public interface Connection extends ReadStream<Envelope>, WriteStream<Envelope>,
 	}
 
 	static void writeStream(String userId, Handler<AsyncResult<WriteStream<Envelope>>> handler) {
+		ConnectionNearCache nearCache = ConnectionNearCache.get(CONNECTIONS);
+		if (nearCache != null) {
+			String route = nearCache.getRoute(userId);
+			if (route != null) {
+				handler.handle(Future.succeededFuture(ConnectionNearCache.isConnected(route) ? nearCache.publisher(route) : null));
+				return;
+			}
+		}
+		long version = nearCache == null ? 0L : nearCache.version(userId);
+
 		getConnections(r1 -> {
 			if (r1.failed()) {
 				handler.handle(Future.failedFuture(r1.cause()));
@@ -107,10 +108,15 @@ public interface Connection extends ReadStream<Envelope>, WriteStream<Envelope>,
 						handler.handle(Future.failedFuture(r2.cause()));
 					} else {
 						String handlerId = r2.result();
-						if (handlerId != null) {
-							handler.handle(Future.succeededFuture(Vertx.currentContext().owner().eventBus().publisher(handlerId)));
-						} else {
+						if (nearCache != null) {
+							nearCache.putRoute(userId, handlerId, version);
+						}
+						if (handlerId == null) {
 							handler.handle(Future.succeededFuture());
+						} else if (nearCache != null) {
+							handler.handle(Future.succeededFuture(nearCache.publisher(handlerId)));
+						} else {
+							handler.handle(Future.succeededFuture(Vertx.currentContext().owner().eventBus().publisher(handlerId)));
 						}
 					}
 				});
@@ -118,19 +124,60 @@ public interface Connection extends ReadStream<Envelope>, WriteStream<Envelope>,
 		});
 	}
 
-	static Connection create(ServerWebSocket socket, String userId) throws SuspendExecution {
+	/**
+	 * Creates a connection for a socket and registers it as its user's connection.
+	 * <p>
+	 * The route is written to the clustered map with an atomic replace, which also serves as the lock on the user's
+	 * realtime data: the connection whose route it replaced is the one that is ended. Whichever of two simultaneous
+	 * connections writes last survives, and the map always points to it. A superseded connection on this node is ended
+	 * directly, and one on another node learns it was superseded from {@link #SUPERSEDED}.
+	 *
+	 * @param socket    The socket.
+	 * @param userId    The user.
+	 * @param bootstrap The data the connection's handlers need, read when the user connected.
+	 * @return The connection.
+	 * @throws SuspendExecution
+	 */
+	static Connection create(ServerWebSocket socket, String userId, SessionBootstrap bootstrap) throws SuspendExecution {
 		final ConnectionImpl connection = new ConnectionImpl(socket, userId);
 		final SuspendableMap<UserId, String> connections = getConnections();
 		final UserId key = new UserId(userId);
 		String id = "Connection::clusteredConsumer[" + socket.binaryHandlerID() + "]";
+		Vertx vertx = Vertx.currentContext().owner();
+		connection.setHandlerId(id).setBootstrap(bootstrap);
+		ConnectionImpl.listenForSuperseded(vertx);
+
+		// The envelope codec delivers the JSON it serialized on the sending side, which is relayed as is. The consumer is
+		// never paused, because a paused consumer silently drops what it can't buffer. The flow control's queue limit
+		// disconnects a client that can't keep up instead.
+		MessageConsumer<Buffer> consumer = vertx.eventBus().consumer(id);
+		consumer.handler(msg -> connection.getFlowControl().write(msg.body()));
+
+		connection.registerLocally();
+
+		// The previous value of the route is the connection this one supersedes
+		String superseded;
+		while (true) {
+			superseded = connections.replace(key, id);
+			if (superseded != null) {
+				break;
+			}
+			superseded = connections.putIfAbsent(key, id);
+			if (superseded == null) {
+				break;
+			}
+		}
+		if (superseded != null && !superseded.equals(id)) {
+			ConnectionImpl.supersede(vertx, superseded);
+		}
 
-		MessageConsumer<Envelope> consumer = Vertx.currentContext().owner().eventBus().consumer(id);
-		consumer.handler(msg -> {
-			socket.write(Buffer.buffer(Json.encode(msg.body())));
-		});
+		ConnectionNearCache nearCache = ConnectionNearCache.get(CONNECTIONS);
+		if (nearCache != null) {
+			nearCache.putRoute(userId, id, nearCache.version(userId));
+		}
 
-		connections.put(key, id);
 		connection.endHandler(Sync.suspendableHandler(v -> {
+			connection.unregisterLocally();
 			connections.remove(key, id);
 			consumer.unregister();
 		}));
@@ -180,19 +227,13 @@ public interface Connection extends ReadStream<Envelope>, WriteStream<Envelope>,
 			return;
 		}
 
-		SuspendableLock lock;
-
-		try {
-			lock = SuspendableLock.lock("Connection::realtime-data-lock[" + userId + "]", 1000L);
-		} catch (VertxException ex) {
-			routingContext.fail(ex);
-			routingContext.next();
-			return;
-		}
+		// Gather what every handler needs in one read, reusing the user record that authentication already read
+		UserRecord authenticated = routingContext.user() instanceof UserRecord ? (UserRecord) routingContext.user() : null;
+		SessionBootstrap bootstrap = SessionBootstrap.load(userId, authenticated);
 
 		ServerWebSocket socket = routingContext.request().upgrade();
 		Deque<Handler<Connection>> handlers = getHandlers();
-		Connection connection = create(socket, userId);
+		Connection connection = create(socket, userId, bootstrap);
 
 		// All handlers should run simultaneously
 		for (Handler<Connection> handler : handlers) {
@@ -205,9 +246,6 @@ public interface Connection extends ReadStream<Envelope>, WriteStream<Envelope>,
 				}
 			});
 		}
-
-		// The lock gets released when the user disconnects
-		connection.endHandler(v -> lock.release());
 	}
 
 	static void registerCodecs() {
@@ -269,25 +307,98 @@ public interface Connection extends ReadStream<Envelope>, WriteStream<Envelope>,
 
 	String userId();
 
+	/**
+	 * Gets the data this connection's user needs, read once when the user connected.
+	 *
+	 * @return The bootstrap.
+	 */
+	SessionBootstrap bootstrap();
+
 	Connection removeHandler(Handler<JsonObject> handler);
 
-	class EnvelopeMessageCodec implements MessageCodec<Envelope, Envelope> {
+	/**
+	 * Registers a handler that is only called for envelopes on the specified route.
+	 * <p>
+	 * Inbound envelopes are decoded once and dispatched through a table of routes, so a handler doesn't run for (or
+	 * need to null-check) envelopes it isn't interested in.
+	 *
+	 * @param route   The route.
+	 * @param handler The handler.
+	 * @return This connection.
+	 */
+	Connection handler(Route route, Handler<Envelope> handler);
+
+	/**
+	 * The kinds of inbound envelopes handlers can be routed by, keyed by the envelope's method or subscription.
+	 */
+	enum Route {
+		ENQUEUE,
+		DEQUEUE,
+		SEND_MESSAGE,
+		SUB_CONVERSATION,
+		SUB_LIVE_QUERY,
+		UNSUB_LIVE_QUERY;
+
+		/**
+		 * Calls the consumer with every route the envelope belongs to, in declaration order.
+		 *
+		 * @param envelope The envelope.
+		 * @param consumer The consumer.
+		 */
+		public static void forEach(Envelope envelope, Consumer<Route> consumer) {
+			EnvelopeMethod method = envelope.getMethod();
+			if (method != null) {
+				if (method.getEnqueue() != null) {
+					consumer.accept(ENQUEUE);
+				}
+				if (method.getDequeue() != null) {
+					consumer.accept(DEQUEUE);
+				}
+				if (method.getSendMessage() != null) {
+					consumer.accept(SEND_MESSAGE);
+				}
+			}
+			if (envelope.getSub() != null && envelope.getSub().getConversation() != null) {
+				consumer.accept(SUB_CONVERSATION);
+			}
+			if (envelope.getSub() != null && envelope.getSub().getLiveQuery() != null) {
+				consumer.accept(SUB_LIVE_QUERY);
+			}
+			if (envelope.getUnsub() != null && envelope.getUnsub().getLiveQuery() != null) {
+				consumer.accept(UNSUB_LIVE_QUERY);
+			}
+		}
+	}
+
+	/**
+	 * Serializes an {@link Envelope} once, straight to the JSON bytes a client receives.
+	 * <p>
+	 * Consumers receive those bytes as a {@link Buffer}, so a connection on another node relays them to its socket
+	 * without decoding and re-encoding the envelope. Local deliveries are serialized the same way.
+	 */
+	class EnvelopeMessageCodec implements MessageCodec<Envelope, Buffer> {
 
 		@Override
 		public void encodeToWire(Buffer buffer, Envelope envelope) {
-			JsonObject.mapFrom(envelope).writeToBuffer(buffer);
+			Buffer encoded = transform(envelope);
+			buffer.appendInt(encoded.length());
+			buffer.appendBuffer(encoded);
 		}
 
 		@Override
-		public Envelope decodeFromWire(int pos, Buffer buffer) {
-			JsonObject obj = new JsonObject();
-			obj.readFromBuffer(pos, buffer);
-			return obj.mapTo(Envelope.class);
+		public Buffer decodeFromWire(int pos, Buffer buffer) {
+			int length = buffer.getInt(pos);
+			pos += 4;
+			return buffer.slice(pos, pos + length);
 		}
 
 		@Override
-		public Envelope transform(Envelope envelope) {
-			return envelope;
+		public Buffer transform(Envelope envelope) {
+			try {
+				return Buffer.buffer(Json.mapper.writeValueAsBytes(envelope));
+			} catch (JsonProcessingException e) {
+				throw new EncodeException("Failed to encode as JSON: " + e.getMessage());
+			}
 		}
 
 		@Override
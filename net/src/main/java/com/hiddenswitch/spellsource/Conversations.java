@@ -2,66 +2,80 @@ package com.hiddenswitch.spellsource;
 
 import co.paralleluniverse.fibers.SuspendExecution;
 import com.hiddenswitch.spellsource.client.models.*;
-import com.hiddenswitch.spellsource.concurrent.SuspendableMultimap;
-import com.hiddenswitch.spellsource.impl.util.UserRecord;
+import com.hiddenswitch.spellsource.impl.ChatHistory;
 import com.hiddenswitch.spellsource.util.*;
 import io.reactivex.disposables.Disposable;
-import org.apache.commons.lang3.RandomStringUtils;
 
+/**
+ * Realtime chat between users.
+ * <p>
+ * Messages are stored in the {@link #CHAT_MESSAGES} collection, and each node keeps a bounded window of every active
+ * conversation's latest messages in its {@link ChatHistory}. Subscribing to a conversation sends its latest page of
+ * messages and then any new ones. Because a message can arrive between the page being read and the subscription
+ * starting, clients should ignore messages whose IDs they already received.
+ */
 public interface Conversations {
+	String CHAT_MESSAGES = "chatMessages";
+	int DEFAULT_PAGE_SIZE = 50;
+	int MAX_PAGE_SIZE = 200;
 
 	static void handleConnections() throws SuspendExecution {
-		SuspendableMultimap<ConversationId, ChatMessage> conversations = SuspendableMultimap.getOrCreate("conversations");
+		ChatHistory history = ChatHistory.get();
 
 		Connection.connected(connection -> {
-			connection.handler(Sync.suspendableHandler(msg -> {
-				// Send a message
-				if (msg.getMethod() != null && msg.getMethod().getSendMessage() != null) {
-					EnvelopeMethodSendMessage sendMessage = msg.getMethod().getSendMessage();
-					// Sending a chat message
-					UserRecord sender = Accounts.findOne(connection.userId());
-					String conversationId = sendMessage.getConversationId();
-					if (!conversationId.contains(connection.userId())) {
-						throw new SecurityException(String.format("User %s attempted to subscribe to unauthorized conversationId %s",
-										connection.userId(),
-										conversationId));
-					}
-					// Conversation IDs should be of the form userId1,userId2
-					// TODO: Assert that it's two valid user IDs.
-					ChatMessage message = new ChatMessage()
-									.messageId("c:" + Integer.toString(conversations.size()) + ":" + RandomStringUtils.randomAlphanumeric(6))
-									.conversationId(conversationId)
-									.message(sendMessage.getMessage())
-									.senderUserId(sender.getId())
-									.senderName(sender.getUsername());
-
-					conversations.put(new ConversationId(conversationId), message);
-					connection.write(new Envelope().result(new EnvelopeResult().sendMessage(new EnvelopeResultSendMessage().messageId(message.getMessageId()))));
+			// Send a message
+			connection.handler(Connection.Route.SEND_MESSAGE, Sync.suspendableHandler(msg -> {
+				EnvelopeMethodSendMessage sendMessage = msg.getMethod().getSendMessage();
+				// Sending a chat message
+				String conversationId = sendMessage.getConversationId();
+				if (!conversationId.contains(connection.userId())) {
+					throw new SecurityException(String.format("User %s attempted to subscribe to unauthorized conversationId %s",
+									connection.userId(),
+									conversationId));
 				}
+				// Conversation IDs should be of the form userId1,userId2
+				// TODO: Assert that it's two valid user IDs.
+				ChatMessage message = new ChatMessage()
+								.messageId(history.nextMessageId())
+								.conversationId(conversationId)
+								.message(sendMessage.getMessage())
+								.senderUserId(connection.userId())
+								.senderName(Accounts.getUsername(connection.userId()))
+								.timestamp(System.currentTimeMillis());
 
-				if (msg.getSub() != null && msg.getSub().getConversation() != null) {
-					// Subscribe to conversation
-					EnvelopeSubConversation request = msg.getSub().getConversation();
-					String conversationId = request.getConversationId();
-					ConversationId key = new ConversationId(conversationId);
+				history.send(message);
+				connection.write(new Envelope().result(new EnvelopeResult().sendMessage(new EnvelopeResultSendMessage().messageId(message.getMessageId()))));
+			}));
 
-					AddedChangedRemoved<ConversationId, ChatMessage> observer =
-									SuspendableMultimap.subscribeToKeyInMultimap("conversations", key);
+			// Subscribe to conversation
+			connection.handler(Connection.Route.SUB_CONVERSATION, Sync.suspendableHandler(msg -> {
+				EnvelopeSubConversation request = msg.getSub().getConversation();
+				String conversationId = request.getConversationId();
+				if (!conversationId.contains(connection.userId())) {
+					throw new SecurityException(String.format("User %s attempted to subscribe to unauthorized conversationId %s",
+									connection.userId(),
+									conversationId));
+				}
+				int limit = request.getLimit() == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(MAX_PAGE_SIZE, request.getLimit()));
 
-					for (ChatMessage message : conversations.get(key)) {
+				// An older page of messages
+				if (request.getBeforeMessageId() != null) {
+					for (ChatMessage message : history.page(conversationId, request.getBeforeMessageId(), limit)) {
 						connection.write(new Envelope().added(new EnvelopeAdded().chatMessage(message)));
 					}
+					return;
+				}
 
-					Disposable sub = observer.added().subscribe(next -> {
-						connection.write(new Envelope().added(new EnvelopeAdded().chatMessage(next.getValue())));
-					});
+				Disposable sub = history.subscribe(conversationId, next -> {
+					connection.write(new Envelope().added(new EnvelopeAdded().chatMessage(next)));
+				});
 
-					connection.endHandler(v -> {
-						sub.dispose();
-						observer.dispose();
-					});
+				for (ChatMessage message : history.page(conversationId, null, limit)) {
+					connection.write(new Envelope().added(new EnvelopeAdded().chatMessage(message)));
 				}
+
+				connection.endHandler(v -> sub.dispose());
 			}));
 		});
 	}
-}
\ No newline at end of file
+}
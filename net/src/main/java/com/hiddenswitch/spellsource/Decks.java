@@ -13,6 +13,7 @@ import io.vertx.ext.mongo.MongoClientUpdateResult;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
@@ -57,16 +58,27 @@ public interface Decks {
 			GetCollectionResponse userCollection = Inventory.getCollection(GetCollectionRequest.user(request.getUserId()));
 			Map<String, List<String>> cards = userCollection.getInventoryRecords().stream().collect(groupingBy(InventoryRecord::getCardId, mapping(InventoryRecord::getId, toList())));
 
+			// Create the copies the user is missing on the fly, all in one write
+			Map<String, Integer> available = new HashMap<>();
+			cards.forEach((cardId, copies) -> available.put(cardId, copies.size()));
+			List<String> missingCardIds = new ArrayList<>();
+			for (String cardId : request.getCardIds()) {
+				if (available.merge(cardId, -1, Integer::sum) < 0) {
+					missingCardIds.add(cardId);
+				}
+			}
+
+			if (!missingCardIds.isEmpty()) {
+				List<String> created = Inventory.createCardsForUser(missingCardIds, request.getUserId());
+				for (int i = 0; i < created.size(); i++) {
+					cards.computeIfAbsent(missingCardIds.get(i), k -> new ArrayList<>()).add(created.get(i));
+				}
+			}
+
 			for (String cardId : request.getCardIds()) {
 				List<String> entry = cards.getOrDefault(cardId, Collections.emptyList());
 				if (entry.size() == 0) {
-					// TODO: Create a copy of the card on the fly for now.
-					cards.put(cardId, Inventory.addToCollection(new AddToCollectionRequest()
-							.withCardIds(Collections.singletonList(cardId))
-							.withUserId(request.getUserId())
-							// Add just one copy for now (add cards on demand)
-							.withCopies(1)).getInventoryIds());
-					entry = cards.get(cardId);
+					throw new RuntimeException(String.format("Cannot create a deck containing the unknown cardId=%s", cardId));
 				}
 				String record = entry.remove(0);
 				inventoryIds.add(record);
@@ -93,6 +105,7 @@ public interface Decks {
 		// Update the user document with this deck ID
 		final String deckId = createCollectionResponse.getCollectionId();
 		Accounts.update(mongo().client(), userId, json("$addToSet", json("decks", deckId)));
+		LiveQueries.invalidate(Collections.singletonList(userId));
 
 		// Get the collection
 		GetCollectionResponse getCollectionResponse = Inventory
@@ -127,6 +140,7 @@ public interface Decks {
 
 		if (!collectionUpdate.isEmpty()) {
 			MongoClientUpdateResult result = mongo().updateCollection(Inventory.COLLECTIONS, json("_id", deckId), collectionUpdate);
+			Inventory.invalidate(Collections.emptyList(), Collections.singletonList(deckId));
 		}
 
 		if (updateCommand.getPullAllInventoryIds() != null
@@ -187,6 +201,7 @@ public interface Decks {
 
 		// Remove the deckId from the user's decks
 		Accounts.update(mongo().client(), userId, json("$pull", json("decks", deckId)));
+		LiveQueries.invalidate(Collections.singletonList(userId));
 
 		return DeckDeleteResponse.create(response);
 	}
@@ -8,6 +8,8 @@ import com.hiddenswitch.spellsource.impl.util.FriendRecord;
 import com.hiddenswitch.spellsource.impl.util.UserRecord;
 import com.hiddenswitch.spellsource.util.Mongo;
 
+import java.util.Arrays;
+
 import static com.hiddenswitch.spellsource.util.QuickJson.json;
 
 public interface Friends {
@@ -64,10 +66,10 @@ public interface Friends {
 		Accounts.update(userId, json("$push", json("friends", json(friendRecord))));
 		Accounts.update(friendId, json("$push", json("friends", json(friendOfFriendRecord))));
 
-		// Update presence for both users
-		Presence.setPresence(userId);
-		Presence.setPresence(friendId);
-		return new FriendPutResponse().friend(friendRecord.toFriendDto());
+		// Subscribe both users to each other's presence
+		Presence.friended(userId, friendId);
+		LiveQueries.invalidate(Arrays.asList(userId, friendId));
+		return new FriendPutResponse().friend(friendRecord.toFriendDto(Presence.presence(friendId)));
 	}
 
 	static UnfriendResponse unfriend(UserRecord myAccount, String friendId) throws SuspendExecution, InterruptedException {
@@ -98,6 +100,8 @@ public interface Friends {
 		Accounts.update(Mongo.mongo().client(), friendId, json("$pull",
 				json("friends", json("friendId", userId))));
 
-		return new UnfriendResponse().deletedFriend(friendRecord.toFriendDto());
+		Presence.unfriended(userId, friendId);
+		LiveQueries.invalidate(Arrays.asList(userId, friendId));
+		return new UnfriendResponse().deletedFriend(friendRecord.toFriendDto(Presence.presence(friendId)));
 	}
 }
@@ -6,6 +6,7 @@ import com.hiddenswitch.spellsource.client.models.*;
 import com.hiddenswitch.spellsource.common.SuspendablePump;
 import com.hiddenswitch.spellsource.impl.ClusteredGamesImpl;
 import com.hiddenswitch.spellsource.impl.GameId;
+import com.hiddenswitch.spellsource.impl.SocketFlowControl;
 import com.hiddenswitch.spellsource.impl.UserId;
 import com.hiddenswitch.spellsource.impl.server.EventBusWriter;
 import com.hiddenswitch.spellsource.models.*;
@@ -1204,12 +1205,15 @@ public interface Games extends Verticle {
 				final MessageConsumer<Buffer> consumer = bus.consumer(EventBusWriter.WRITER_ADDRESS_PREFIX + userId);
 				final MessageProducer<Buffer> publisher = bus.publisher(ClusteredGamesImpl.READER_ADDRESS_PREFIX + userId);
 				final Pump pump1 = new SuspendablePump<>(socket, publisher, Integer.MAX_VALUE).start();
-				final Pump pump2 = new SuspendablePump<>(consumer.bodyStream(), socket, Integer.MAX_VALUE).start();
+				// Game traffic to the client waits in the flow control's queue while its socket is backed up, and a client
+				// that doesn't catch up is disconnected. The consumer isn't paused, since a paused consumer silently drops
+				// what it can't buffer.
+				final SocketFlowControl flowControl = new SocketFlowControl(vertx, socket);
+				consumer.handler(msg -> flowControl.write(msg.body()));
 
 				socket.closeHandler(fiberHandler(disconnected -> {
 					try {
-						// Include a reference in this lambda to ensure the pump lasts
-						pump2.numberPumped();
+						flowControl.close();
 						publisher.close();
 						consumer.unregister();
 						pump1.stop();
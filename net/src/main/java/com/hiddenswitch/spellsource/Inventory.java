@@ -4,11 +4,14 @@ import co.paralleluniverse.fibers.SuspendExecution;
 import co.paralleluniverse.fibers.Suspendable;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
+import com.hiddenswitch.spellsource.impl.CollectionCache;
 import com.hiddenswitch.spellsource.impl.UserId;
+import com.hiddenswitch.spellsource.impl.util.CardCountsRecord;
 import com.hiddenswitch.spellsource.impl.util.CollectionRecord;
 import com.hiddenswitch.spellsource.impl.util.InventoryRecord;
 import com.hiddenswitch.spellsource.models.*;
 import com.hiddenswitch.spellsource.util.QuickJson;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.mongo.*;
 import io.vertx.ext.sync.Sync;
@@ -16,7 +19,6 @@ import net.demilich.metastone.game.cards.CardCatalogueRecord;
 import net.demilich.metastone.game.cards.CardSet;
 import net.demilich.metastone.game.cards.Rarity;
 import net.demilich.metastone.game.cards.desc.CardDesc;
-import org.apache.commons.lang3.RandomStringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
@@ -28,6 +30,7 @@ import static io.vertx.ext.sync.Sync.awaitResult;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 /**
  * Provides methods to manage a player's persistent inventory.
@@ -35,6 +38,12 @@ import static java.util.stream.Collectors.toMap;
 public interface Inventory {
 	String INVENTORY = "inventory.cards";
 	String COLLECTIONS = "inventory.collections";
+	/**
+	 * Per-user documents counting the copies of each card a user owns.
+	 *
+	 * @see CardCountsRecord for how copies are represented.
+	 */
+	String COUNTS = "inventory.counts";
 
 	/**
 	 * Opens a card pack for the specified user.
@@ -103,11 +112,13 @@ public interface Inventory {
 
 				if (request.getInventoryIds() != null
 						&& request.getInventoryIds().size() > 0) {
+					materialize(request.getInventoryIds());
 					MongoClientUpdateResult update = mongo()
 							.updateCollectionWithOptions(INVENTORY,
 									json("_id", json("$in", request.getInventoryIds())),
 									json("$addToSet", json("collectionIds", deckId)),
 									new UpdateOptions().setMulti(true));
+					CollectionCache.invalidate(Collections.singletonList(userId));
 				}
 
 				return CreateCollectionResponse.deck(deckId);
@@ -121,24 +132,143 @@ public interface Inventory {
 		}
 	}
 
+	/**
+	 * Adds copies of cards to a user's collection by incrementing the user's {@link #COUNTS} in a single write.
+	 *
+	 * @param userId     The user.
+	 * @param cardsToAdd The cards to add. Duplicates are interpreted as multiple copies.
+	 * @param copies     The number of copies of each card in {@code cardsToAdd} to add.
+	 * @return The inventory IDs of the new copies, in the order the cards were specified.
+	 * @throws InterruptedException
+	 * @throws SuspendExecution
+	 */
+	@Suspendable
 	static List<String> createCardsForUser(String userId, List<CardDesc> cardsToAdd, int copies) throws InterruptedException, SuspendExecution {
 		if (userId == null) {
 			throw new NullPointerException();
 		}
 
-		List<String> userIdCollection = Collections.singletonList(userId);
-		List<JsonObject> documents = Collections.nCopies(copies, cardsToAdd)
+		List<String> cardIds = Collections.nCopies(copies, cardsToAdd)
 				.stream()
 				.flatMap(Collection::stream)
-				.map(card -> new InventoryRecord(RandomStringUtils.randomAlphanumeric(36), new JsonObject().put("id", card.getId()))
-						.withUserId(userId)
-						.withCollectionIds(userIdCollection))
-				.map(QuickJson::toJson)
+				.map(CardDesc::getId)
 				.collect(toList());
 
-		mongo().insertManyWithOptions(INVENTORY, documents, new BulkWriteOptions().setOrdered(false).setWriteOption(WriteOption.ACKNOWLEDGED));
+		if (cardIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		Map<String, Integer> added = new LinkedHashMap<>();
+		for (String cardId : cardIds) {
+			added.merge(cardId, 1, Integer::sum);
+		}
 
-		return documents.stream().map(o -> o.getString("_id")).collect(toList());
+		JsonObject inc = new JsonObject();
+		added.forEach((cardId, count) -> inc.put(CardCountsRecord.COUNTS + "." + cardId, count));
+		JsonObject updated = awaitResult(h -> mongo().client().findOneAndUpdateWithOptions(COUNTS,
+				json("_id", userId),
+				json("$inc", inc),
+				new FindOptions(),
+				new UpdateOptions().setUpsert(true).setReturningNewDocument(true), h));
+		CardCountsRecord counts = QuickJson.fromJson(updated, CardCountsRecord.class);
+		CollectionCache.invalidate(Collections.singletonList(userId));
+
+		// The new copies of each card are the ones with the highest indices
+		Map<String, Integer> nextIndex = new HashMap<>();
+		added.forEach((cardId, count) -> nextIndex.put(cardId, counts.getCount(cardId) - count));
+		List<String> inventoryIds = new ArrayList<>(cardIds.size());
+		for (String cardId : cardIds) {
+			int index = nextIndex.merge(cardId, 1, Integer::sum) - 1;
+			inventoryIds.add(CardCountsRecord.inventoryId(userId, cardId, index));
+		}
+		return inventoryIds;
+	}
+
+	/**
+	 * Retrieves the copies in a user's {@link #COUNTS} that haven't been materialized into their own inventory records.
+	 * These copies belong only to the user's collection.
+	 *
+	 * @param userId  The user.
+	 * @param cardIds The card IDs to retrieve, or {@code null} to retrieve all of them.
+	 * @return Inventory records synthesized from the counts.
+	 */
+	@Suspendable
+	static List<InventoryRecord> getCompactInventory(String userId, Collection<String> cardIds) {
+		CardCountsRecord counts = mongo().findOne(COUNTS, json("_id", userId), CardCountsRecord.class);
+		if (counts == null
+				|| counts.getCounts().isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		JsonObject materializedQuery = json("userId", userId);
+		if (cardIds != null) {
+			materializedQuery.put("cardDesc.id", json("$in", new ArrayList<>(new HashSet<>(cardIds))));
+		}
+		Set<String> materialized = mongo().findWithOptions(INVENTORY, materializedQuery, new FindOptions().setFields(json("_id", 1)))
+				.stream()
+				.map(jo -> jo.getString("_id"))
+				.collect(toSet());
+
+		List<InventoryRecord> records = new ArrayList<>();
+		for (Map.Entry<String, Integer> entry : counts.getCounts().entrySet()) {
+			String cardId = entry.getKey();
+			if (cardIds != null && !cardIds.contains(cardId)) {
+				continue;
+			}
+			for (int i = 0; i < entry.getValue(); i++) {
+				if (!materialized.contains(CardCountsRecord.inventoryId(userId, cardId, i))) {
+					records.add(CardCountsRecord.toInventoryRecord(userId, cardId, i));
+				}
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Materializes the copies referred to by compact inventory IDs into their own inventory records, so that they can be
+	 * put into other collections or given facts. Inventory IDs that were already materialized, that aren't compact or
+	 * that refer to copies the user doesn't own are ignored.
+	 * <p>
+	 * Call this before updating inventory records by ID.
+	 *
+	 * @param inventoryIds The inventory IDs.
+	 */
+	@Suspendable
+	static void materialize(List<String> inventoryIds) {
+		if (inventoryIds == null) {
+			return;
+		}
+
+		List<String> compactIds = inventoryIds.stream().filter(CardCountsRecord::isCompact).distinct().collect(toList());
+		if (compactIds.isEmpty()) {
+			return;
+		}
+
+		List<String> userIds = compactIds.stream().map(CardCountsRecord::userId).distinct().collect(toList());
+		Map<String, CardCountsRecord> counts = mongo().find(COUNTS, json("_id", json("$in", userIds)), CardCountsRecord.class)
+				.stream()
+				.collect(toMap(CardCountsRecord::getId, Function.identity()));
+
+		List<BulkOperation> inserts = new ArrayList<>();
+		for (String inventoryId : compactIds) {
+			String userId = CardCountsRecord.userId(inventoryId);
+			String cardId = CardCountsRecord.cardId(inventoryId);
+			int index = CardCountsRecord.index(inventoryId);
+			CardCountsRecord userCounts = counts.get(userId);
+			if (userCounts == null
+					|| index < 0
+					|| index >= userCounts.getCount(cardId)) {
+				continue;
+			}
+
+			JsonObject document = QuickJson.toJson(CardCountsRecord.toInventoryRecord(userId, cardId, index));
+			document.remove("_id");
+			inserts.add(BulkOperation.createUpdate(json("_id", inventoryId), json("$setOnInsert", document), true, false));
+		}
+
+		if (!inserts.isEmpty()) {
+			mongo().bulkWriteWithOptions(INVENTORY, inserts, new BulkWriteOptions().setOrdered(false).setWriteOption(WriteOption.ACKNOWLEDGED));
+		}
 	}
 
 	static List<String> createCardsForUser(String userId, List<CardDesc> cardsToAdd) throws InterruptedException, SuspendExecution {
@@ -189,6 +319,13 @@ public interface Inventory {
 					cardIds.remove(cardId);
 				}
 			}
+			// Copies that are only counted aren't in any other collection yet
+			for (InventoryRecord unusedInventory : getCompactInventory(request.getUserId(), cardIds.elementSet())) {
+				if (cardIds.contains(unusedInventory.getCardId())) {
+					inventoryIds.add(unusedInventory.getId());
+					cardIds.remove(unusedInventory.getCardId());
+				}
+			}
 
 			final ArrayList<String> cardIds1 = new ArrayList<>(cardIds);
 			if (!cardIds1.isEmpty()) {
@@ -198,10 +335,12 @@ public interface Inventory {
 			throw new RuntimeException();
 		}
 
+		materialize(inventoryIds);
 		MongoClientUpdateResult result = mongo().updateCollectionWithOptions(Inventory.INVENTORY,
 				json("_id", json("$in", inventoryIds)),
 				json("$addToSet", json("collectionIds", collectionId)),
 				new UpdateOptions().setMulti(true));
+		invalidate(inventoryIds, Collections.singletonList(collectionId));
 
 		return AddToCollectionResponse.create(result, inventoryIds);
 	}
@@ -226,6 +365,10 @@ public interface Inventory {
 					new FindOptions().setFields(json("_id", 1, "cardDesc.id", 1)));
 
 			Map<String, List<JsonObject>> cardsInCollection = existingInventoryIds.stream().collect(groupingBy(jo -> jo.getJsonObject("cardDesc").getString("id")));
+			// If this is a user collection, it may also contain copies that are only counted
+			for (InventoryRecord counted : getCompactInventory(request.getCollectionId(), request.getCardIds())) {
+				cardsInCollection.computeIfAbsent(counted.getCardId(), k -> new ArrayList<>()).add(json("_id", counted.getId()));
+			}
 			for (String cardId : request.getCardIds()) {
 				final List<JsonObject> inventoryItemsForId = cardsInCollection.getOrDefault(cardId, Collections.emptyList());
 				if (inventoryItemsForId.size() == 0) {
@@ -236,10 +379,12 @@ public interface Inventory {
 			}
 		}
 
+		materialize(inventoryIds);
 		result = mongo().updateCollectionWithOptions(Inventory.INVENTORY,
 				json("_id", json("$in", inventoryIds)),
 				json("$pull", json("collectionIds", request.getCollectionId())),
 				new UpdateOptions().setMulti(true));
+		invalidate(inventoryIds, Collections.singletonList(request.getCollectionId()));
 
 		if (result.getDocMatched() != inventoryIds.size()) {
 			throw new ArrayStoreException(String.format("Could not find the correct number of inventoryIds=%s to remove from collectionId=%s.", request.getInventoryIds().toString(), request.getCollectionId()));
@@ -250,15 +395,26 @@ public interface Inventory {
 
 
 	static DonateToCollectionResponse donateToCollection(DonateToCollectionRequest request) throws SuspendExecution, InterruptedException {
+		materialize(request.getInventoryIds());
 		mongo().updateCollection(
 				Inventory.INVENTORY,
 				json("_id", json("$in", request.getInventoryIds())),
 				json("$set", json("allianceId", request.getAllianceId()),
 						"$addToSet", json("collectionIds", request.getAllianceId())));
+		invalidate(request.getInventoryIds(), Collections.emptyList());
 
 		return new DonateToCollectionResponse();
 	}
 
+	/**
+	 * Marks the cards in the specified collections as borrowed.
+	 * <p>
+	 * Doesn't invalidate the {@link CollectionCache}, since whether a record is borrowed isn't part of the read model
+	 * and this is called on every game start.
+	 *
+	 * @param request The collections to borrow.
+	 * @return The number of records borrowed.
+	 */
 	@Suspendable
 	static BorrowFromCollectionResponse borrowFromCollection(BorrowFromCollectionRequest request) throws SuspendExecution, InterruptedException {
 		List<String> collectionIds;
@@ -322,28 +478,49 @@ public interface Inventory {
 				}
 			}
 
-			// Bulk retrieve deck inventory records and collection information
-			final List<String> deckIds = deckRequests.stream().map(GetCollectionRequest::getDeckId).collect(toList());
-			final Map<String, CollectionRecord> deckRecords = mongo().find(COLLECTIONS, json("_id", json("$in", deckIds)), CollectionRecord.class)
-					.stream().collect(toMap(CollectionRecord::getId, Function.identity()));
+			// Serve cached decks, then bulk retrieve deck inventory records and collection information for the rest
+			CollectionCache cache = CollectionCache.get();
+			long generation = cache == null ? 0L : cache.generation();
+			final Map<String, GetCollectionResponse> deckResponses = new HashMap<>();
+			final List<String> deckIds = new ArrayList<>();
+			for (GetCollectionRequest deckRequest : deckRequests) {
+				GetCollectionResponse cached = cache == null ? null : cache.getDeck(deckRequest.getDeckId());
+				if (cached != null) {
+					deckResponses.put(deckRequest.getDeckId(), cached);
+				} else {
+					deckIds.add(deckRequest.getDeckId());
+				}
+			}
 
+			final Map<String, CollectionRecord> deckRecords = new HashMap<>();
 			final Map<String, List<InventoryRecord>> deckInventories = new HashMap<>();
-			for (String deckId : deckIds) {
-				deckInventories.put(deckId, new Vector<>());
+			if (!deckIds.isEmpty()) {
+				// Join the decks with their inventory records in a single round trip
+				List<JsonObject> decks = mongo().aggregate(COLLECTIONS, new JsonArray()
+						.add(json("$match", json("_id", json("$in", deckIds))))
+						.add(json("$lookup", json("from", INVENTORY, "localField", "_id", "foreignField", "collectionIds", "as", "inventoryRecords"))));
+				for (JsonObject deck : decks) {
+					JsonArray inventory = (JsonArray) deck.remove("inventoryRecords");
+					CollectionRecord record = QuickJson.fromJson(deck, CollectionRecord.class);
+					List<InventoryRecord> inventoryRecords = new ArrayList<>(inventory.size());
+					for (Object inventoryRecord : inventory) {
+						inventoryRecords.add(QuickJson.fromJson((JsonObject) inventoryRecord, InventoryRecord.class));
+					}
+					deckRecords.put(record.getId(), record);
+					deckInventories.put(record.getId(), inventoryRecords);
+				}
 			}
 
-			mongo().find(INVENTORY, json("collectionIds", json("$in", deckIds)), InventoryRecord.class)
-					.forEach(ir -> ir.getCollectionIds().forEach(cid -> {
-						if (deckInventories.containsKey(cid)) {
-							deckInventories.get(cid).add(ir);
-						}
-					}));
-
 			deckIds.forEach(deckId -> {
 				CollectionRecord record = deckRecords.get(deckId);
-				responses.add(GetCollectionResponse.deck(record.getUserId(), deckId, record.getName(), record.getHeroClass(), record.getHeroCardId(), record.getFormat(), record.getDeckType(), deckInventories.get(deckId), record.isTrashed()));
+				GetCollectionResponse response = GetCollectionResponse.deck(record.getUserId(), deckId, record.getName(), record.getHeroClass(), record.getHeroCardId(), record.getFormat(), record.getDeckType(), deckInventories.get(deckId), record.isTrashed());
+				if (cache != null) {
+					cache.putDeck(response, generation);
+				}
+				deckResponses.put(deckId, response);
 			});
 
+			deckRequests.forEach(deckRequest -> responses.add(deckResponses.get(deckRequest.getDeckId())));
 			return GetCollectionResponse.batch(responses);
 		}
 
@@ -366,14 +543,34 @@ public interface Inventory {
 			throw new NullPointerException("No collection was specified");
 		}
 
+		CollectionCache cache = CollectionCache.get();
+		if (cache != null) {
+			GetCollectionResponse cached = type == CollectionTypes.DECK ? cache.getDeck(collectionId) : cache.getUserCollection(userId);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		long generation = cache == null ? 0L : cache.generation();
+
 		List<JsonObject> results = awaitResult(h -> mongo().client().find(INVENTORY, json("collectionIds", collectionId), h));
 		final List<InventoryRecord> inventoryRecords = results.stream().map(r -> QuickJson.fromJson(r, InventoryRecord.class)).collect(toList());
+		if (type == CollectionTypes.USER) {
+			inventoryRecords.addAll(getCompactInventory(userId, null));
+		}
 
 		if (type == CollectionTypes.DECK) {
 			CollectionRecord deck = mongo().findOne(COLLECTIONS, json("_id", collectionId), CollectionRecord.class);
-			return GetCollectionResponse.deck(deck.getUserId(), request.getDeckId(), deck.getName(), deck.getHeroClass(), deck.getHeroCardId(), deck.getFormat(), deck.getDeckType(), inventoryRecords, deck.isTrashed());
+			GetCollectionResponse response = GetCollectionResponse.deck(deck.getUserId(), request.getDeckId(), deck.getName(), deck.getHeroClass(), deck.getHeroCardId(), deck.getFormat(), deck.getDeckType(), inventoryRecords, deck.isTrashed());
+			if (cache != null) {
+				cache.putDeck(response, generation);
+			}
+			return response;
 		} else /* if (type == CollectionTypes.USER) */ {
-			return GetCollectionResponse.user(userId, inventoryRecords);
+			GetCollectionResponse response = GetCollectionResponse.user(userId, inventoryRecords);
+			if (cache != null) {
+				cache.putUserCollection(response, generation);
+			}
+			return response;
 		} /*  else {
 			return new GetCollectionResponse()
 					.withCardRecords(cardRecords);
@@ -394,11 +591,13 @@ public interface Inventory {
 						json("$pull", json("collectionIds", collectionId)),
 						new UpdateOptions().setMulti(true), h));
 
+		invalidate(Collections.emptyList(), Collections.singletonList(collectionId));
 		return new TrashCollectionResponse(result1.getDocModified() == 1, result2.getDocModified());
 	}
 
 	static SetCollectionResponse setCollection(SetCollectionRequest setCollectionRequest) throws SuspendExecution, InterruptedException {
 		String collectionId = setCollectionRequest.getCollectionId();
+		materialize(setCollectionRequest.getInventoryIds());
 		MongoClientUpdateResult r = awaitResult(h -> mongo().client()
 				.updateCollectionWithOptions(Inventory.INVENTORY,
 						json("collectionId", collectionId, "_id", json("$nin", setCollectionRequest.getInventoryIds())),
@@ -411,22 +610,72 @@ public interface Inventory {
 						json("$addToSet", json("collectionIds", collectionId)),
 						new UpdateOptions().setMulti(true), h));
 
+		invalidate(setCollectionRequest.getInventoryIds(), Collections.singletonList(collectionId));
 		return new SetCollectionResponse(r2, r);
 	}
 
 	@Suspendable
 	static MongoClientUpdateResult update(MongoClient client, JsonObject query, JsonObject update) {
-		return Sync.awaitResult(h -> client.updateCollectionWithOptions(INVENTORY, query, update, new UpdateOptions().setMulti(true), h));
+		Set<String> owners = owners(query);
+		MongoClientUpdateResult result = Sync.awaitResult(h -> client.updateCollectionWithOptions(INVENTORY, query, update, new UpdateOptions().setMulti(true), h));
+		CollectionCache.invalidate(owners);
+		return result;
 	}
 
 	@Suspendable
 	static MongoClientUpdateResult update(MongoClient client, String inventoryId, JsonObject update) {
-		return Sync.awaitResult(h -> client.updateCollectionWithOptions(INVENTORY, json("_id", inventoryId), update, new UpdateOptions().setMulti(true), h));
+		return update(client, Collections.singletonList(inventoryId), update);
 	}
 
 	@Suspendable
 	static MongoClientUpdateResult update(MongoClient client, List<String> inventoryIds, JsonObject update) {
-		return Sync.awaitResult(h -> client.updateCollectionWithOptions(INVENTORY, json("_id", json("$in", inventoryIds)), update, new UpdateOptions().setMulti(true), h));
+		materialize(inventoryIds);
+		MongoClientUpdateResult result = Sync.awaitResult(h -> client.updateCollectionWithOptions(INVENTORY, json("_id", json("$in", inventoryIds)), update, new UpdateOptions().setMulti(true), h));
+		invalidate(inventoryIds, Collections.emptyList());
+		return result;
+	}
+
+	/**
+	 * Invalidates the cached collections and decks of the owners of the specified inventory records and collections on
+	 * every node.
+	 *
+	 * @param inventoryIds  The inventory records that were written.
+	 * @param collectionIds The collections that were written.
+	 * @see CollectionCache for more about the read model.
+	 */
+	@Suspendable
+	static void invalidate(List<String> inventoryIds, List<String> collectionIds) {
+		Set<String> owners = new HashSet<>();
+		if (inventoryIds != null && !inventoryIds.isEmpty()) {
+			owners.addAll(owners(json("_id", json("$in", inventoryIds))));
+		}
+
+		List<String> unknownCollectionIds = new ArrayList<>();
+		CollectionCache cache = CollectionCache.get();
+		for (String collectionId : collectionIds) {
+			String owner = cache == null ? null : cache.getDeckOwner(collectionId);
+			if (owner != null) {
+				owners.add(owner);
+			} else {
+				unknownCollectionIds.add(collectionId);
+			}
+		}
+		if (!unknownCollectionIds.isEmpty()) {
+			mongo().findWithOptions(COLLECTIONS, json("_id", json("$in", unknownCollectionIds)), new FindOptions().setFields(json("userId", 1)))
+					.forEach(jo -> owners.add(jo.getString("userId")));
+		}
+
+		owners.remove(null);
+		CollectionCache.invalidate(owners);
+	}
+
+	@Suspendable
+	static Set<String> owners(JsonObject inventoryQuery) {
+		return mongo().findWithOptions(INVENTORY, inventoryQuery, new FindOptions().setFields(json("userId", 1)))
+				.stream()
+				.map(jo -> jo.getString("userId"))
+				.filter(Objects::nonNull)
+				.collect(toSet());
 	}
 
 	@Suspendable
@@ -16,6 +16,7 @@ import io.vertx.core.streams.WriteStream;
 import io.vertx.ext.mongo.UpdateOptions;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -32,15 +33,23 @@ public interface Invites {
 
 	static void handleConnections() throws SuspendExecution {
 		Connection.connected(Sync.suspendableHandler(connection -> {
-			// Notify recipients of all pending invites.
-			List<Invite> invites = mongo().find(INVITES, json("toUserId", connection.userId(), "status", json("$in", PENDING_STATUSES)), Invite.class);
+			// Notify recipients of all pending invites, which were read when the user connected
+			List<Invite> invites = connection.bootstrap().getPendingInvites();
+			List<String> undelivered = invites.stream()
+					.filter(invite -> invite.getStatus() == Invite.StatusEnum.UNDELIVERED)
+					.map(Invite::getId)
+					.collect(Collectors.toList());
 			for (Invite invite : invites) {
 				invite.status(Invite.StatusEnum.PENDING);
 				connection.write(new Envelope().added(new EnvelopeAdded().invite(invite)));
 			}
 
+			if (undelivered.isEmpty()) {
+				return;
+			}
+
 			// Set undelivered to pending
-			JsonArray ids = new JsonArray(invites.stream().map(Invite::getId).collect(Collectors.toList()));
+			JsonArray ids = new JsonArray(undelivered);
 			mongo().updateCollectionWithOptions(INVITES,
 					json("_id", json("$in", ids)),
 					json("$set",
@@ -79,6 +88,7 @@ public interface Invites {
 		expiryTime.add(Calendar.MINUTE, 15);
 
 		Vertx vertx = Vertx.currentContext().owner();
+		List<String> userIds = Arrays.asList(user.getId(), toUser.getId());
 
 		// Set timer to expire the invite after 15 minutes
 		vertx.setTimer(15 * 60 * 1000L, Sync.suspendableHandler(timerId -> {
@@ -86,6 +96,7 @@ public interface Invites {
 			mongo().updateCollection(INVITES,
 					json("_id", inviteId.toString(), "status", json("$in", PENDING_STATUSES)),
 					json("$set", json("status", Invite.StatusEnum.TIMEOUT.getValue())));
+			LiveQueries.invalidate(userIds);
 		}));
 
 		Invite invite = new Invite()
@@ -117,6 +128,8 @@ public interface Invites {
 	}
 
 	static void updateInvite(@NotNull Invite invite) throws SuspendExecution {
+		LiveQueries.invalidate(Arrays.asList(invite.getFromUserId(), invite.getToUserId()));
+
 		// Notify both users of the new invite, but only wait to see if the recipient is around to actually receive it right
 		// now. We'll update the record immediately and only insert it into the db with the proper status
 		WriteStream<Envelope> toUserConnection = Connection.writeStream(invite.getToUserId());
@@ -127,6 +140,7 @@ public interface Invites {
 			toUserConnection.write(
 					new Envelope().added(new EnvelopeAdded().invite(invite))
 			);
+			toUserConnection.end();
 		}
 
 		// The sender can receive this invite at any time through the channel since they will receive it in their post
@@ -140,6 +154,7 @@ public interface Invites {
 			conn.write(
 					new Envelope().added(new EnvelopeAdded().invite(invite))
 			);
+			conn.end();
 		});
 	}
 
@@ -0,0 +1,204 @@
+package com.hiddenswitch.spellsource;
+
+import co.paralleluniverse.fibers.SuspendExecution;
+import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.client.models.*;
+import com.hiddenswitch.spellsource.impl.CollectionCache;
+import com.hiddenswitch.spellsource.impl.LiveQuery;
+import com.hiddenswitch.spellsource.impl.util.FriendRecord;
+import com.hiddenswitch.spellsource.impl.util.UserRecord;
+import com.hiddenswitch.spellsource.util.Sync;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.hiddenswitch.spellsource.util.Mongo.mongo;
+import static com.hiddenswitch.spellsource.util.QuickJson.json;
+
+/**
+ * Live queries of a user's own data, kept up to date over their realtime connection.
+ * <p>
+ * A client subscribes with an envelope whose {@code sub.liveQuery} is one of {@link #DECKS}, {@link #COLLECTION},
+ * {@link #INVITES} or {@link #FRIENDS}, and unsubscribes with {@code unsub.liveQuery}. Each connection is subscribed to
+ * a query at most once. The server runs the query, sends an added delta for every document in its results and
+ * remembers them. Whenever one of the user's decks, cards, invites or friends is written, the query is run
+ * again and the old and new results are diffed with {@link com.hiddenswitch.spellsource.util.DiffSequence}, so only
+ * the documents that were added, changed, moved or removed are sent.
+ * <p>
+ * Writers call {@link #invalidate(Collection)} after their write completes. Writes to inventory records and
+ * collections already call {@link CollectionCache#invalidate(Collection)}, which reruns the queries once the cache has
+ * dropped the user's entries, so they never read the account as it was before the write.
+ */
+public interface LiveQueries {
+	String INVALIDATIONS = "LiveQueries::invalidations";
+	String DECKS = "decks";
+	String COLLECTION = "collection";
+	String INVITES = "invites";
+	String FRIENDS = "friends";
+
+	/**
+	 * Registers the {@link Connection.Route#SUB_LIVE_QUERY} and {@link Connection.Route#UNSUB_LIVE_QUERY} handlers, and
+	 * listens for invalidations on this node.
+	 */
+	static void handleConnections() {
+		Vertx vertx = Vertx.currentContext().owner();
+		if (LiveQuery.subscribed().add(vertx)) {
+			vertx.eventBus().<JsonArray>consumer(INVALIDATIONS, LiveQueries::onInvalidation);
+			LiveQuery.listen(CollectionCache.get());
+		}
+
+		Connection.connected(connection -> {
+			connection.endHandler(v -> LiveQuery.unsubscribe(connection, null));
+			connection.handler(Connection.Route.SUB_LIVE_QUERY, Sync.suspendableHandler(msg -> {
+				String name = msg.getSub().getLiveQuery();
+				Query query = queries().get(name);
+				if (query == null) {
+					throw new IllegalArgumentException(String.format("Unknown live query %s", name));
+				}
+
+				LiveQuery subscription = LiveQuery.subscribe(connection, name, query);
+				if (subscription != null) {
+					subscription.refresh();
+				}
+			}));
+			connection.handler(Connection.Route.UNSUB_LIVE_QUERY, msg -> LiveQuery.unsubscribe(connection, msg.getUnsub().getLiveQuery()));
+		});
+	}
+
+	/**
+	 * Reruns the live queries of the specified users on every node. Call this after a write to any of the users' invites
+	 * or friends has completed.
+	 *
+	 * @param userIds The users whose data was written.
+	 */
+	static void invalidate(Collection<String> userIds) {
+		if (userIds == null || userIds.isEmpty()) {
+			return;
+		}
+
+		Context context = Vertx.currentContext();
+		if (context != null) {
+			context.owner().eventBus().publish(INVALIDATIONS, new JsonArray(new ArrayList<>(userIds)));
+		}
+	}
+
+	static void onInvalidation(Message<JsonArray> message) {
+		List<String> userIds = new ArrayList<>();
+		for (Object userId : message.body()) {
+			userIds.add((String) userId);
+		}
+		LiveQuery.refreshUsers(userIds);
+	}
+
+	/**
+	 * Gets the queries clients can subscribe to, by name.
+	 *
+	 * @return The queries.
+	 */
+	static Map<String, Query> queries() {
+		Map<String, Query> queries = new HashMap<>();
+		queries.put(DECKS, new Query(LiveQueries::decks, document -> ((InventoryCollection) document).getId()));
+		queries.put(COLLECTION, new Query(LiveQueries::collection, document -> ((CardRecord) document).getId()));
+		queries.put(INVITES, new Query(LiveQueries::invites, document -> ((Invite) document).getId()));
+		queries.put(FRIENDS, new Query(LiveQueries::friends, document -> ((Friend) document).getFriendId()));
+		return queries;
+	}
+
+	@Suspendable
+	static List<Object> decks(Reads reads) {
+		Account account = reads.account();
+		return account == null ? Collections.emptyList() : new ArrayList<>(account.getDecks());
+	}
+
+	@Suspendable
+	static List<Object> collection(Reads reads) {
+		Account account = reads.account();
+		return account == null ? Collections.emptyList() : new ArrayList<>(account.getPersonalCollection().getInventory());
+	}
+
+	@Suspendable
+	static List<Object> invites(Reads reads) throws SuspendExecution {
+		String userId = reads.getUserId();
+		List<Invite> invites = mongo().find(Invites.INVITES, json("$or", new JsonArray()
+						.add(json("toUserId", userId))
+						.add(json("fromUserId", userId)),
+				"status", json("$in", Invites.PENDING_STATUSES)), Invite.class);
+		return new ArrayList<>(invites);
+	}
+
+	@Suspendable
+	static List<Object> friends(Reads reads) {
+		UserRecord record = Accounts.get(reads.getUserId());
+		if (record == null || record.getFriends() == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<>(record.getFriends().stream()
+				.map(friend -> friend.toFriendDto(Presence.presence(friend.getFriendId())))
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * A named live query, which computes a user's ordered results and keys its documents.
+	 */
+	class Query {
+		private final Fetcher fetcher;
+		private final Function<Object, String> keyer;
+
+		public Query(Fetcher fetcher, Function<Object, String> keyer) {
+			this.fetcher = fetcher;
+			this.keyer = keyer;
+		}
+
+		@Suspendable
+		public List<Object> fetch(Reads reads) throws SuspendExecution, InterruptedException {
+			return fetcher.fetch(reads);
+		}
+
+		public Function<Object, String> getKeyer() {
+			return keyer;
+		}
+	}
+
+	/**
+	 * The data of a user read for one refresh of their queries. Queries refreshed one after another with the same reads
+	 * share them instead of reading the data again.
+	 */
+	class Reads {
+		private final String userId;
+		private boolean accountRead;
+		private Account account;
+
+		public Reads(String userId) {
+			this.userId = userId;
+		}
+
+		public String getUserId() {
+			return userId;
+		}
+
+		/**
+		 * Gets the user's account, assembling it the first time it's requested.
+		 *
+		 * @return The account, or {@code null} if the user doesn't exist.
+		 */
+		@Suspendable
+		public Account account() {
+			if (!accountRead) {
+				account = Accounts.getAccount(userId);
+				accountRead = true;
+			}
+			return account;
+		}
+	}
+
+	@FunctionalInterface
+	interface Fetcher {
+		@Suspendable
+		List<Object> fetch(Reads reads) throws SuspendExecution, InterruptedException;
+	}
+}
@@ -208,7 +208,7 @@ public interface Logic {
 			GetCollectionResponse deckCollection = Inventory.getCollection(new GetCollectionRequest()
 					.withUserId(player.getUserId()).withDeckId(player.getDeckId()));
 
-			String name = Accounts.findOne(player.getUserId()).getUsername();
+			String name = Accounts.getUsername(player.getUserId());
 
 			// TODO: Get more attributes from database
 			AttributeMap playerAttributes = new AttributeMap();
@@ -521,6 +521,7 @@ public interface Matchmaking extends Verticle {
 
 						if (connection != null) {
 							connection.write(gameReadyMessage());
+							connection.end();
 						}
 
 						thisMatchRequests.clear();
@@ -545,6 +546,7 @@ public interface Matchmaking extends Verticle {
 						for (WriteStream<Envelope> connection : new WriteStream[]{Connection.writeStream(user1.getUserId()), Connection.writeStream(user2.getUserId())}) {
 							if (connection != null) {
 								connection.write(gameReadyMessage());
+								connection.end();
 							}
 						}
 						/*
@@ -627,84 +629,80 @@ public interface Matchmaking extends Verticle {
 				dequeue(new UserId(connection.userId()));
 			}));
 
-			connection.handler(suspendableHandler(msg -> {
+			connection.handler(Connection.Route.ENQUEUE, suspendableHandler(msg -> {
 				EnvelopeMethod method = msg.getMethod();
 
-				if (method != null) {
-					if (method.getEnqueue() != null) {
-						/*
-						// Always dequeue the user first, silently succeeds regardless if they're currently enqueued.
-						for (Fiber fiber : new Fiber[]{isAlive.getAndSet(null), gameReady.getAndSet(null)}) {
-							if (fiber != null) {
-								fiber.interrupt();
-							}
-						}
-						*/
-
-						dequeue(new UserId(connection.userId()));
+				/*
+				// Always dequeue the user first, silently succeeds regardless if they're currently enqueued.
+				for (Fiber fiber : new Fiber[]{isAlive.getAndSet(null), gameReady.getAndSet(null)}) {
+					if (fiber != null) {
+						fiber.interrupt();
+					}
+				}
+				*/
 
-						/*
-						isAlive.set(getContextScheduler().newFiber(() -> {
-							SuspendableCondition ping = pingCondition(connection.userId());
-							SuspendableCondition pong = pongCondition(connection.userId());
-							if (!ping.await()) {
-								// Cancelled
-								return null;
-							}
-							pong.signalAll();
-							return null;
-						}));
-
-						gameReady.set(getContextScheduler().newFiber(() -> {
-							boolean ready = getGameReadyCondition(connection.userId()).await();
-
-							if (ready) {
-								// TODO: Message the user that their game is ready
-								String id = Matchmaking.getCurrentMatch(CurrentMatchRequest.request(connection.userId())).getGameId();
-
-								if (id == null) {
-									throw new AssertionError("Current match ID should not be null if the game is ready.");
-								}
-
-								connection.write(new Envelope()
-										.result(new EnvelopeResult()
-												.enqueue(new MatchmakingQueuePutResponse()
-														.unityConnection(new MatchmakingQueuePutResponseUnityConnection().firstMessage(new ClientToServerMessage()
-																.messageType(MessageType.FIRST_MESSAGE)
-																.firstMessage(new ClientToServerMessageFirstMessage()))))));
-							}
+				dequeue(new UserId(connection.userId()));
 
-							return null;
-						}));
+				/*
+				isAlive.set(getContextScheduler().newFiber(() -> {
+					SuspendableCondition ping = pingCondition(connection.userId());
+					SuspendableCondition pong = pongCondition(connection.userId());
+					if (!ping.await()) {
+						// Cancelled
+						return null;
+					}
+					pong.signalAll();
+					return null;
+				}));
 
-						isAlive.get().start();
-						gameReady.get().start();
+				gameReady.set(getContextScheduler().newFiber(() -> {
+					boolean ready = getGameReadyCondition(connection.userId()).await();
 
-						*/
-						enqueue(new MatchmakingRequest()
-								.withUserId(connection.userId())
-								.setQueueId(method.getEnqueue().getQueueId())
-								.withDeckId(method.getEnqueue().getDeckId())
-								.withBotDeckId(method.getEnqueue().getBotDeckId()));
-					}
+					if (ready) {
+						// TODO: Message the user that their game is ready
+						String id = Matchmaking.getCurrentMatch(CurrentMatchRequest.request(connection.userId())).getGameId();
 
-					if (method.getDequeue() != null) {
-						/*
-						// Interrupt the notifications
-						for (Fiber fiber : new Fiber[]{isAlive.getAndSet(null), gameReady.getAndSet(null)}) {
-							if (fiber != null) {
-								fiber.interrupt();
-							}
+						if (id == null) {
+							throw new AssertionError("Current match ID should not be null if the game is ready.");
 						}
-						*/
-
-						dequeue(new UserId(connection.userId()));
 
 						connection.write(new Envelope()
 								.result(new EnvelopeResult()
-										.dequeue(new DefaultMethodResponse())));
+										.enqueue(new MatchmakingQueuePutResponse()
+												.unityConnection(new MatchmakingQueuePutResponseUnityConnection().firstMessage(new ClientToServerMessage()
+														.messageType(MessageType.FIRST_MESSAGE)
+														.firstMessage(new ClientToServerMessageFirstMessage()))))));
+					}
+
+					return null;
+				}));
+
+				isAlive.get().start();
+				gameReady.get().start();
+
+				*/
+				enqueue(new MatchmakingRequest()
+						.withUserId(connection.userId())
+						.setQueueId(method.getEnqueue().getQueueId())
+						.withDeckId(method.getEnqueue().getDeckId())
+						.withBotDeckId(method.getEnqueue().getBotDeckId()));
+			}));
+
+			connection.handler(Connection.Route.DEQUEUE, suspendableHandler(msg -> {
+				/*
+				// Interrupt the notifications
+				for (Fiber fiber : new Fiber[]{isAlive.getAndSet(null), gameReady.getAndSet(null)}) {
+					if (fiber != null) {
+						fiber.interrupt();
 					}
 				}
+				*/
+
+				dequeue(new UserId(connection.userId()));
+
+				connection.write(new Envelope()
+						.result(new EnvelopeResult()
+								.dequeue(new DefaultMethodResponse())));
 			}));
 		}));
 	}
@@ -2,6 +2,7 @@ package com.hiddenswitch.spellsource;
 
 import co.paralleluniverse.fibers.SuspendExecution;
 import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.impl.MigrationsImpl;
 import com.hiddenswitch.spellsource.impl.MigratorImpl;
 import com.hiddenswitch.spellsource.models.MigrateToRequest;
 import com.hiddenswitch.spellsource.models.MigrationRequest;
@@ -9,15 +10,46 @@ import com.hiddenswitch.spellsource.models.MigrationResponse;
 import com.hiddenswitch.spellsource.models.MigrationToResponse;
 import com.hiddenswitch.spellsource.util.Migrator;
 import com.hiddenswitch.spellsource.util.RpcOptions;
+import com.hiddenswitch.spellsource.util.Sync;
+import io.vertx.core.Future;
 import io.vertx.core.Verticle;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.hiddenswitch.spellsource.util.Mongo.mongo;
+import static com.hiddenswitch.spellsource.util.QuickJson.json;
+import static io.vertx.ext.sync.Sync.awaitResult;
 
 /**
  * The migrations service performs database migrations on Mongo, using a mongo document as a lock.
+ * <p>
+ * Migrations that touch every document of a large collection, like every user, should use {@link
+ * #forEachBatch(String, String, JsonObject, JsonObject, String, Function)}. It streams the collection in batches instead
+ * of loading it into memory, writes each batch with a single bulk write and records its progress in the control
+ * document, so that a migration that failed resumes where it stopped.
  */
 public interface Migrations extends Verticle {
+	/**
+	 * The number of documents read and written per batch.
+	 */
+	int BATCH_SIZE = 500;
+	/**
+	 * The number of bulk writes a migration has in flight at once.
+	 */
+	int CONCURRENCY = 4;
+
 	/**
 	 * Adds a given up and down function to a specific version.
 	 *
@@ -58,4 +90,74 @@ public interface Migrations extends Verticle {
 	static Migrator migrate(Vertx vertx) {
 		return new MigratorImpl(vertx);
 	}
+
+	/**
+	 * Streams the documents of a collection in batches ordered by {@code _id}, and writes the bulk operations computed
+	 * from each batch.
+	 * <p>
+	 * The next batch is read while the writes of the previous ones are in flight, up to {@link #CONCURRENCY} of them.
+	 * Whenever the oldest write completes, the {@code _id} of the last document in its batch is saved as the checkpoint's
+	 * progress in the control document. If the migration fails and is run again, the documents up to and including that
+	 * {@code _id} are skipped. Writes that were in flight when it failed are repeated, so the operations should be
+	 * idempotent. The checkpoints of a migration are cleared once it succeeds.
+	 *
+	 * @param checkpoint       A name for this pass over the collection that is unique among the migrations.
+	 * @param collection       The collection to read.
+	 * @param query            The documents to read.
+	 * @param fields           The fields to read, or an empty object for all of them.
+	 * @param targetCollection The collection to write the operations to.
+	 * @param operation        Computes the operation for a document, or {@code null} to skip it.
+	 * @return The number of documents read.
+	 * @throws SuspendExecution
+	 * @throws InterruptedException
+	 */
+	@Suspendable
+	static long forEachBatch(String checkpoint, String collection, JsonObject query, JsonObject fields, String targetCollection, Function<JsonObject, BulkOperation> operation) throws SuspendExecution, InterruptedException {
+		return forEachBatch(checkpoint, collection, query, fields, targetCollection, operation, BATCH_SIZE);
+	}
+
+	@Suspendable
+	static long forEachBatch(String checkpoint, String collection, JsonObject query, JsonObject fields, String targetCollection, Function<JsonObject, BulkOperation> operation, int batchSize) throws SuspendExecution, InterruptedException {
+		Object lastId = MigrationsImpl.getCheckpoint(checkpoint);
+		Deque<Future<Object>> writes = new ArrayDeque<>();
+		long count = 0L;
+		while (true) {
+			JsonObject page = lastId == null ? query : json("$and", new JsonArray()
+					.add(query)
+					.add(json("_id", json("$gt", lastId))));
+			List<JsonObject> documents = mongo().findWithOptions(collection, page, new FindOptions()
+					.setFields(fields)
+					.setSort(json("_id", 1))
+					.setLimit(batchSize));
+			if (documents.isEmpty()) {
+				break;
+			}
+
+			count += documents.size();
+			lastId = documents.get(documents.size() - 1).getValue("_id");
+			List<BulkOperation> operations = documents.stream().map(operation).filter(Objects::nonNull).collect(Collectors.toList());
+			Object batchLastId = lastId;
+			writes.add(Sync.fork(() -> {
+				if (!operations.isEmpty()) {
+					mongo().bulkWriteWithOptions(targetCollection, operations, new BulkWriteOptions().setOrdered(false));
+				}
+				return batchLastId;
+			}));
+
+			if (writes.size() >= CONCURRENCY) {
+				Future<Object> oldest = writes.poll();
+				MigrationsImpl.putCheckpoint(checkpoint, awaitResult(h -> oldest.setHandler(h)));
+			}
+
+			if (documents.size() < batchSize) {
+				break;
+			}
+		}
+
+		while (!writes.isEmpty()) {
+			Future<Object> oldest = writes.poll();
+			MigrationsImpl.putCheckpoint(checkpoint, awaitResult(h -> oldest.setHandler(h)));
+		}
+		return count;
+	}
 }
@@ -1,62 +1,66 @@
 package com.hiddenswitch.spellsource;
 
-import com.hiddenswitch.spellsource.client.models.Envelope;
-import com.hiddenswitch.spellsource.client.models.EnvelopeChanged;
-import com.hiddenswitch.spellsource.client.models.Friend;
 import com.hiddenswitch.spellsource.client.models.PresenceEnum;
-import com.hiddenswitch.spellsource.impl.UserId;
-import com.hiddenswitch.spellsource.util.Sync;
-import io.vertx.core.Future;
-import io.vertx.core.json.Json;
-import io.vertx.core.json.JsonObject;
-import io.vertx.ext.mongo.FindOptions;
-import io.vertx.ext.mongo.UpdateOptions;
-
-import static com.hiddenswitch.spellsource.util.Mongo.mongo;
-import static com.hiddenswitch.spellsource.util.QuickJson.json;
+import com.hiddenswitch.spellsource.impl.PresenceRegistry;
+import io.vertx.core.Closeable;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
 
+/**
+ * Tracks which users are online and notifies their connected friends.
+ * <p>
+ * Online state lives in memory in a {@link PresenceRegistry} for each gateway. Presence is no longer stored in the
+ * {@code friends} of a user's document; only the time a user was last seen is written to Mongo.
+ *
+ * @see PresenceRegistry for more about how presence changes are batched and fanned out.
+ */
 public interface Presence {
-	static void handleConnections() {
-		// A node that is updating presences may not be the same node that has a user that needs to be notified
-		Connection.connected(Sync.suspendableHandler(connection -> {
-			final UserId key = new UserId(connection.userId());
-			connection.endHandler(Sync.suspendableHandler(ignored -> {
-				setPresence(key, PresenceEnum.OFFLINE);
-			}));
-
-			// Once the user is connected, set their status to online
-			setPresence(key, PresenceEnum.ONLINE);
-		}));
+	/**
+	 * Starts tracking the presence of users who connect to this gateway.
+	 *
+	 * @return A handle that stops tracking presence, marks this gateway's users offline and flushes their last seen
+	 * times when closed.
+	 */
+	static Closeable handleConnections() {
+		PresenceRegistry registry = new PresenceRegistry();
+		Connection.connected(connection -> {
+			// Mark the user online before any other work so that the end handler is guaranteed to be registered
+			registry.connect(connection);
+			// The friends were read when the user connected
+			registry.subscribe(connection, connection.bootstrap().getFriendIds());
+		});
+		return registry;
 	}
 
-	static void setPresence(UserId userId, PresenceEnum presence) {
-		// This doesn't need to be blocking.
-		mongo().client().updateCollectionWithOptions(Accounts.USERS,
-						json("friends.friendId", userId.toString()),
-						json("$set", json("friends.$.presence", presence.name())), new UpdateOptions().setMulti(true), Future.future());
+	/**
+	 * Gets whether a user is connected to any gateway, according to the registry of the gateway on this Vertx instance.
+	 *
+	 * @param userId The user.
+	 * @return The user's presence, or {@link PresenceEnum#OFFLINE} if presence isn't tracked on this instance.
+	 */
+	static PresenceEnum presence(String userId) {
+		Context context = Vertx.currentContext();
+		PresenceRegistry registry = context == null ? null : PresenceRegistry.get(context.owner());
+		return registry == null ? PresenceEnum.OFFLINE : registry.presence(userId);
+	}
 
-		FindOptions findOptions = new FindOptions()
-						.setFields(json("_id", 1, "friends.friendId", 1, "friends.presence", 1));
-		mongo().client().findWithOptions(Accounts.USERS, json("friends.friendId", userId.toString()), findOptions, res -> {
-			for (JsonObject user : res.result()) {
-				Connection.writeStream(user.getString("_id"), otherUser -> {
-					if (otherUser.failed() || otherUser.result() == null) {
-						return;
-					}
-					otherUser.result().write(new Envelope().changed(new EnvelopeChanged().friend(new Friend().friendId(userId.toString()).presence(presence))));
-				});
-			}
-		});
+	/**
+	 * Notifies connected users that they have become friends, subscribing each to the other's presence.
+	 *
+	 * @param userId   A user.
+	 * @param friendId The user's new friend.
+	 */
+	static void friended(String userId, String friendId) {
+		PresenceRegistry.publishFriendship(userId, friendId, true);
 	}
 
-	static void setPresence(String userId) {
-		final UserId key = new UserId(userId);
-		Connection.writeStream(userId, res -> {
-			if (res.failed() || res.result() == null) {
-				setPresence(key, PresenceEnum.OFFLINE);
-			} else {
-				setPresence(key, PresenceEnum.ONLINE);
-			}
-		});
+	/**
+	 * Notifies connected users that they are no longer friends.
+	 *
+	 * @param userId   A user.
+	 * @param friendId The user's former friend.
+	 */
+	static void unfriended(String userId, String friendId) {
+		PresenceRegistry.publishFriendship(userId, friendId, false);
 	}
-}
\ No newline at end of file
+}
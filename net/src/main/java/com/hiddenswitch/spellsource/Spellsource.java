@@ -167,10 +167,10 @@ public class Spellsource {
 							Mongo.mongo().updateCollectionWithOptions(COLLECTIONS, json("heroClass", json("$eq", null)),
 									json("$unset", json("deckType", 1), "$set", json("trashed", false)), new UpdateOptions().setMulti(true));
 
-							for (JsonObject record : Mongo.mongo().findWithOptions(Accounts.USERS, json(), new FindOptions().setFields(json("_id", 1)))) {
+							Migrations.forEachBatch("4-user-collection-ids", Accounts.USERS, json(), json("_id", 1), INVENTORY, record -> {
 								final String userId = record.getString("_id");
-								Mongo.mongo().updateCollectionWithOptions(INVENTORY, json("userId", userId), json("$addToSet", json("collectionIds", userId)), new UpdateOptions().setMulti(true));
-							}
+								return BulkOperation.createUpdate(json("userId", userId), json("$addToSet", json("collectionIds", userId)), false, true);
+							});
 
 							// Remove all inventory records that are in just one collection, the user collection
 							Mongo.mongo().removeDocuments(INVENTORY, json("collectionIds", json("$size", 1)));
@@ -195,13 +195,7 @@ public class Spellsource {
 						.withVersion(6)
 						.withUp(thisVertx -> {
 							// Shuffle around the location of user record data
-							List<JsonObject> users = Mongo.mongo().find(Accounts.USERS, json());
-							for (JsonObject jo : users) {
-								if (!jo.containsKey("profile")
-										|| !jo.getJsonObject("profile").containsKey("emailAddress")) {
-									continue;
-								}
-
+							Migrations.forEachBatch("6-user-records", Accounts.USERS, json("profile.emailAddress", json("$exists", true)), json(), Accounts.USERS, jo -> {
 								String email = jo.getJsonObject("profile").getString("emailAddress");
 								String username = jo.getJsonObject("profile").getString("displayName");
 								String passwordScrypt = jo.getJsonObject("auth").getString("scrypt");
@@ -236,9 +230,8 @@ public class Spellsource {
 								String userId = jo.getString("_id");
 								logger.debug("add MigrationRequest 5: Migrating passwords and emails for userId {}", userId);
 
-								Mongo.mongo().updateCollection(Accounts.USERS, json("_id", userId),
-										updateCommand);
-							}
+								return BulkOperation.createUpdate(json("_id", userId), updateCommand, false, false);
+							});
 						}))
 				.add(new MigrationRequest()
 						.withVersion(7)
@@ -330,10 +323,9 @@ public class Spellsource {
 						.withVersion(12)
 						.withUp(thisVertx -> {
 							// Give all users a privacy token
-							for (JsonObject userRecord : mongo().find(Accounts.USERS, json())) {
-								mongo().updateCollection(Accounts.USERS, json("_id", userRecord.getString("_id")),
-										json("$set", json("privacyToken", RandomStringUtils.randomNumeric(4))));
-							}
+							Migrations.forEachBatch("12-privacy-tokens", Accounts.USERS, json(), json("_id", 1), Accounts.USERS, userRecord ->
+									BulkOperation.createUpdate(json("_id", userRecord.getString("_id")),
+											json("$set", json("privacyToken", RandomStringUtils.randomNumeric(4))), false, false));
 
 
 							// Add an index for invites
@@ -396,7 +388,16 @@ public class Spellsource {
 									"wins", 0, "totalGames", 0
 							)), new UpdateOptions().setMulti(true));
 						}))
-				.migrateTo(20, then2 ->
+				.add(new MigrationRequest()
+						.withVersion(21)
+						.withUp(thisVertx -> {
+							// Chat history moved from the cluster into Mongo, paged by conversation
+							if (!mongo().getCollections().contains(Conversations.CHAT_MESSAGES)) {
+								mongo().createCollection(Conversations.CHAT_MESSAGES);
+							}
+							mongo().createIndex(Conversations.CHAT_MESSAGES, json("conversationId", 1, "_id", -1));
+						}))
+				.migrateTo(21, then2 ->
 						then.handle(then2.succeeded() ? Future.succeededFuture() : Future.failedFuture(then2.cause())));
 		return this;
 	}
@@ -551,12 +552,50 @@ public class Spellsource {
 			return new MongoClientUpdateResult();
 		}
 
+		String oldCount = CardCountsRecord.COUNTS + "." + oldId;
+		String newCount = CardCountsRecord.COUNTS + "." + newId;
+		List<JsonObject> owners = Mongo.mongo().findWithOptions(Inventory.COUNTS, json(oldCount, json("$exists", true)),
+				new FindOptions().setFields(json(oldCount, 1, newCount, 1)));
+		for (JsonObject owner : owners) {
+			String userId = owner.getString("_id");
+			JsonObject counts = owner.getJsonObject(CardCountsRecord.COUNTS);
+			int copies = counts.getInteger(oldId, 0);
+			int existing = counts.getInteger(newId, 0);
+
+			// The old copies become the copies after the ones the user already owns of the new card, so materialized records
+			// must be re-keyed to the IDs the counts synthesize for them
+			List<String> oldInventoryIds = new ArrayList<>(copies);
+			for (int i = 0; i < copies; i++) {
+				oldInventoryIds.add(CardCountsRecord.inventoryId(userId, oldId, i));
+			}
+			List<JsonObject> materialized = Mongo.mongo().find(INVENTORY, json("_id", json("$in", oldInventoryIds)));
+			if (!materialized.isEmpty()) {
+				for (JsonObject record : materialized) {
+					int index = CardCountsRecord.index(record.getString("_id"));
+					record.put("_id", CardCountsRecord.inventoryId(userId, newId, existing + index));
+					record.getJsonObject("cardDesc").put("id", newId);
+				}
+				Mongo.mongo().insertMany(INVENTORY, materialized);
+				Mongo.mongo().removeDocuments(INVENTORY, json("_id", json("$in", oldInventoryIds)));
+			}
+
+			Mongo.mongo().updateCollection(Inventory.COUNTS,
+					json("_id", userId),
+					json("$inc", json(newCount, copies), "$unset", json(oldCount, 1)));
+		}
+
+		// Records that aren't copies stored in the counts keep their IDs
 		return Mongo.mongo().updateCollectionWithOptions(INVENTORY,
 				json("cardDesc.id", oldId), json("$set", json("cardDesc.id", newId)), new UpdateOptions().setMulti(true));
 	}
 
 	@Suspendable
 	protected static MongoClientDeleteResult removeCards(String... ids) {
+		JsonObject unset = new JsonObject();
+		for (String id : ids) {
+			unset.put(CardCountsRecord.COUNTS + "." + id, 1);
+		}
+		Mongo.mongo().updateCollectionWithOptions(Inventory.COUNTS, json(), json("$unset", unset), new UpdateOptions().setMulti(true));
 		return Mongo.mongo().removeDocuments(INVENTORY, json("cardDesc.id",
 				json("$in", array(ids))));
 	}
@@ -1,7 +1,10 @@
 package com.hiddenswitch.spellsource.applications;
 
 import ch.qos.logback.classic.Level;
+import com.hiddenswitch.spellsource.common.DeckCreateRequest;
+import com.hiddenswitch.spellsource.common.DeckListParsingException;
 import com.hiddenswitch.spellsource.impl.util.SimulationResultGenerator;
+import com.hiddenswitch.spellsource.util.ColumnarSimulation;
 import com.hiddenswitch.spellsource.util.Logging;
 import com.hiddenswitch.spellsource.util.Serialization;
 import com.hiddenswitch.spellsource.util.Simulation;
@@ -11,6 +14,7 @@ import io.vertx.core.json.JsonObject;
 import jdk.nashorn.internal.scripts.JO;
 import net.demilich.metastone.game.GameContext;
 import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.behaviour.PlayRandomBehaviour;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.statistics.SimulationResult;
 import org.slf4j.Logger;
@@ -18,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import py4j.GatewayServer;
 import py4j.Py4JNetworkException;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -93,6 +98,55 @@ public class PythonBridge {
 		return job.getId();
 	}
 
+	/**
+	 * Plays games between two decks entirely in Java and writes every decision into a memory-mapped columnar file, so
+	 * that only this call and its row count cross the bridge.
+	 *
+	 * @param deckLists  The community deck lists of the first and second player.
+	 * @param games      The number of games to play.
+	 * @param behaviours Up to two behaviours. Missing behaviours play randomly.
+	 * @param path       The file to write.
+	 * @return The number of rows written.
+	 * @throws IOException if the file could not be written.
+	 * @see ColumnarSimulation for the layout of the file.
+	 */
+	public static long simulateColumnar(List<String> deckLists, int games, List<Supplier<Behaviour>> behaviours, String path) throws IOException {
+		Map<String, Deck> decks = Simulation.getDecks(deckLists);
+		List<Deck> deckPair = deckLists.stream()
+				.map(deckList -> {
+					try {
+						return decks.get(DeckCreateRequest.fromDeckList(deckList).getName());
+					} catch (DeckListParsingException e) {
+						throw new IllegalArgumentException(e);
+					}
+				})
+				.collect(Collectors.toList());
+		return ColumnarSimulation.simulate(deckPair, getBehaviour(behaviours, 0), getBehaviour(behaviours, 1), games, path);
+	}
+
+	/**
+	 * Plays a game to completion many times from the specified state and writes every decision into a memory-mapped
+	 * columnar file.
+	 *
+	 * @param state      The state to roll out. It is not modified.
+	 * @param rollouts   The number of rollouts.
+	 * @param behaviours Up to two behaviours. Missing behaviours play randomly.
+	 * @param path       The file to write.
+	 * @return The number of rows written.
+	 * @throws IOException if the file could not be written.
+	 * @see ColumnarSimulation for the layout of the file.
+	 */
+	public static long rolloutColumnar(GameContext state, int rollouts, List<Supplier<Behaviour>> behaviours, String path) throws IOException {
+		return ColumnarSimulation.rollout(state, getBehaviour(behaviours, 0), getBehaviour(behaviours, 1), rollouts, path);
+	}
+
+	private static Supplier<Behaviour> getBehaviour(List<Supplier<Behaviour>> behaviours, int i) {
+		if (behaviours == null || behaviours.size() <= i) {
+			return PlayRandomBehaviour::new;
+		}
+		return behaviours.get(i);
+	}
+
 	public static void terminate(long jobId) {
 		JOBS.get(jobId).interrupt();
 	}
@@ -0,0 +1,257 @@
+package com.hiddenswitch.spellsource.impl;
+
+import com.hiddenswitch.spellsource.Cards;
+import com.hiddenswitch.spellsource.client.models.CardRecord;
+import com.hiddenswitch.spellsource.client.models.GetCardsResponse;
+import com.hiddenswitch.spellsource.util.Serialization;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.impl.Utils;
+import net.demilich.metastone.game.cards.CardCatalogue;
+import net.demilich.metastone.game.cards.CardSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The {@code /cards} response, computed once per process from the card catalogue.
+ * <p>
+ * The JSON body is serialized once and stored as identity, gzip and deflate byte arrays, so a request only chooses
+ * the encoding the client accepts and writes it. Its ETag is a hash of the JSON, so every gateway serving the same
+ * cards agrees on the version without coordinating through the cluster, and a deploy that doesn't change the cards
+ * doesn't invalidate clients' caches.
+ * <p>
+ * Each {@link CardSet} also gets its own payload and version. Every response lists the set versions in the {@link
+ * #CARD_SET_VERSIONS_HEADER} header as {@code SET=version} pairs, and {@code GET /cards?set=SET} returns only that set's
+ * cards, so a client that cached the cards can fetch just the sets whose versions changed.
+ */
+public class CardsPayload {
+	public static final String CARD_SET_VERSIONS_HEADER = "X-Card-Set-Versions";
+	public static final String SET_PARAM = "set";
+	private static volatile CardsPayload instance;
+
+	private final Encoded all;
+	private final Map<CardSet, Encoded> sets = new EnumMap<>(CardSet.class);
+	private final String setVersions;
+	private final String lastModified;
+
+	/**
+	 * Gets the payload, building it the first time it is needed. Building it creates every card, so prefer calling
+	 * this off the event loop when the server starts.
+	 *
+	 * @return The payload.
+	 */
+	public static CardsPayload get() {
+		if (instance == null) {
+			synchronized (CardsPayload.class) {
+				if (instance == null) {
+					instance = new CardsPayload();
+				}
+			}
+		}
+		return instance;
+	}
+
+	private CardsPayload() {
+		CardCatalogue.loadCardsFromPackage();
+		Map<CardSet, List<CardRecord>> cardsBySet = Cards.getCardsBySet();
+		List<CardRecord> cards = cardsBySet.values().stream().flatMap(List::stream).collect(Collectors.toList());
+		all = new Encoded(cards);
+		cardsBySet.forEach((set, records) -> sets.put(set, new Encoded(records)));
+		setVersions = sets.entrySet().stream()
+				.map(entry -> entry.getKey().name() + "=" + entry.getValue().version)
+				.collect(Collectors.joining(","));
+		lastModified = Utils.formatRFC1123DateTime(System.currentTimeMillis());
+	}
+
+	/**
+	 * Gets the version of all the cards, which is the hash of their JSON.
+	 *
+	 * @return The version.
+	 */
+	public String getVersion() {
+		return all.version;
+	}
+
+	/**
+	 * Gets the response as an object, for callers that don't write it to an HTTP response.
+	 *
+	 * @return The response.
+	 */
+	public GetCardsResponse getResponse() {
+		return all.response;
+	}
+
+	/**
+	 * Indicates whether an {@code If-None-Match} header matches the version of all the cards.
+	 *
+	 * @param ifNoneMatch The header's value, which may be {@code null}.
+	 * @return {@code true} if the client already has these cards.
+	 */
+	public boolean matches(String ifNoneMatch) {
+		return all.matches(ifNoneMatch);
+	}
+
+	/**
+	 * Writes the response to {@code GET} and {@code HEAD /cards}, or to {@code /cards?set=SET} for a single set.
+	 *
+	 * @param context The routing context.
+	 */
+	public void handle(RoutingContext context) {
+		HttpServerRequest request = context.request();
+		HttpServerResponse response = context.response();
+
+		Encoded encoded = all;
+		String set = request.getParam(SET_PARAM);
+		if (set != null) {
+			CardSet cardSet;
+			try {
+				cardSet = CardSet.valueOf(set);
+			} catch (IllegalArgumentException notACardSet) {
+				cardSet = null;
+			}
+			encoded = cardSet == null ? null : sets.get(cardSet);
+			if (encoded == null) {
+				response.setStatusCode(404).end();
+				return;
+			}
+		}
+
+		response.putHeader(HttpHeaders.ETAG, encoded.etag);
+		response.putHeader(CARD_SET_VERSIONS_HEADER, setVersions);
+		response.putHeader("Vary", HttpHeaders.ACCEPT_ENCODING);
+		if (encoded.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+			response.setStatusCode(304).end();
+			return;
+		}
+
+		response.putHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000");
+		response.putHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+		response.putHeader(HttpHeaders.CONTENT_TYPE, "application/json");
+
+		Buffer body;
+		String contentEncoding = contentEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+		if ("gzip".equals(contentEncoding)) {
+			body = encoded.gzip;
+		} else if ("deflate".equals(contentEncoding)) {
+			body = encoded.deflate;
+		} else {
+			body = encoded.identity;
+		}
+		if (contentEncoding != null) {
+			// The server doesn't compress responses that already have an encoding
+			response.putHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+		}
+
+		if (request.method() == HttpMethod.HEAD) {
+			response.putHeader(HttpHeaders.CONTENT_LENGTH, Integer.toString(body.length()));
+			response.end();
+			return;
+		}
+
+		response.end(body);
+	}
+
+	/**
+	 * Chooses gzip, deflate or no encoding from an {@code Accept-Encoding} header.
+	 *
+	 * @param acceptEncoding The header's value, which may be {@code null}.
+	 * @return {@code "gzip"}, {@code "deflate"} or {@code null} for the identity encoding.
+	 */
+	static String contentEncoding(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		boolean deflate = false;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			String name = parts[0].trim().toLowerCase(Locale.ROOT);
+			if (parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+				continue;
+			}
+			if (name.equals("gzip") || name.equals("*")) {
+				return "gzip";
+			}
+			deflate |= name.equals("deflate");
+		}
+		return deflate ? "deflate" : null;
+	}
+
+	/**
+	 * A JSON response and its precompressed encodings.
+	 */
+	private static class Encoded {
+		private final String version;
+		private final String etag;
+		private final GetCardsResponse response;
+		private final Buffer identity;
+		private final Buffer gzip;
+		private final Buffer deflate;
+
+		private Encoded(List<CardRecord> cards) {
+			byte[] cardsJson = Serialization.serialize(cards).getBytes(StandardCharsets.UTF_8);
+			version = hash(cardsJson);
+			etag = "\"" + version + "\"";
+			response = new GetCardsResponse().cards(cards).version(version);
+			byte[] json = Serialization.serialize(response).getBytes(StandardCharsets.UTF_8);
+			identity = Buffer.buffer(json);
+			try {
+				ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream(json.length / 4);
+				try (GZIPOutputStream stream = new GZIPOutputStream(gzipBytes)) {
+					stream.write(json);
+				}
+				gzip = Buffer.buffer(gzipBytes.toByteArray());
+
+				ByteArrayOutputStream deflateBytes = new ByteArrayOutputStream(json.length / 4);
+				try (DeflaterOutputStream stream = new DeflaterOutputStream(deflateBytes)) {
+					stream.write(json);
+				}
+				deflate = Buffer.buffer(deflateBytes.toByteArray());
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		private boolean matches(String ifNoneMatch) {
+			if (ifNoneMatch == null) {
+				return false;
+			}
+			for (String tag : ifNoneMatch.split(",")) {
+				String trimmed = tag.trim();
+				if (trimmed.startsWith("W/")) {
+					trimmed = trimmed.substring(2);
+				}
+				if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals(version)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static String hash(byte[] json) {
+			try {
+				byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+				StringBuilder hex = new StringBuilder(32);
+				// Half of the digest is plenty to tell card catalogues apart
+				for (int i = 0; i < 16; i++) {
+					hex.append(String.format("%02x", digest[i]));
+				}
+				return hex.toString();
+			} catch (NoSuchAlgorithmException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package com.hiddenswitch.spellsource.impl;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.Conversations;
+import com.hiddenswitch.spellsource.client.models.ChatMessage;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.FindOptions;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hiddenswitch.spellsource.util.Mongo.mongo;
+import static com.hiddenswitch.spellsource.util.QuickJson.json;
+
+/**
+ * A node-local, bounded window of the latest messages of each conversation, in front of the complete history in the
+ * {@link Conversations#CHAT_MESSAGES} collection.
+ * <p>
+ * Every conversation is its own ring buffer of at most {@link #HOT_WINDOW} messages, so a conversation's history never
+ * grows in memory, and the least recently used conversations are evicted once more than {@link #MAX_CONVERSATIONS} are
+ * held. Older pages are read from Mongo.
+ * <p>
+ * A sent message is inserted into Mongo and then published on {@link #MESSAGES}. Every node appends it to its window of
+ * the conversation, if it holds one, and delivers it to its local subscribers of the conversation. No cluster-wide data
+ * structure is involved.
+ * <p>
+ * Message IDs sort in the order a node created them. They are made of the time and a node-local sequence number, so
+ * creating one doesn't require a cluster-wide count.
+ */
+public class ChatHistory {
+	private static final Logger logger = LoggerFactory.getLogger(ChatHistory.class);
+	public static final String MESSAGES = "Conversations::messages";
+	public static final int HOT_WINDOW = 64;
+	public static final int MAX_CONVERSATIONS = 10000;
+	private static final ChatHistory instance = new ChatHistory();
+
+	private final Set<Vertx> subscribed = ConcurrentHashMap.newKeySet();
+	private final Map<String, Window> windows = Collections.synchronizedMap(new LinkedHashMap<String, Window>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+			return size() > MAX_CONVERSATIONS;
+		}
+	});
+	private final Map<String, Set<Handler<ChatMessage>>> subscribers = new ConcurrentHashMap<>();
+	private final AtomicLong lastId = new AtomicLong();
+	private final String nodeId = RandomStringUtils.randomAlphanumeric(6);
+
+	private ChatHistory() {
+	}
+
+	/**
+	 * Gets the history, subscribing the current Vertx instance to messages sent on other nodes if necessary.
+	 *
+	 * @return The history.
+	 */
+	public static ChatHistory get() {
+		Context context = Vertx.currentContext();
+		if (context != null) {
+			Vertx vertx = context.owner();
+			if (instance.subscribed.add(vertx)) {
+				vertx.eventBus().<JsonObject>consumer(MESSAGES, instance::onMessage);
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Creates a message ID that is greater than every ID this node created before it.
+	 *
+	 * @return The ID.
+	 */
+	public String nextMessageId() {
+		// The time in the upper bits and a sequence number in the lower 12, which never goes backwards
+		long id = lastId.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis() << 12));
+		return String.format("c:%016x:%s", id, nodeId);
+	}
+
+	/**
+	 * Saves a message and delivers it to the subscribers of its conversation on every node.
+	 *
+	 * @param message The message, with its ID and conversation ID set.
+	 */
+	@Suspendable
+	public void send(ChatMessage message) {
+		mongo().insert(Conversations.CHAT_MESSAGES, JsonObject.mapFrom(message).put("_id", message.getMessageId()));
+		Vertx.currentContext().owner().eventBus().publish(MESSAGES, JsonObject.mapFrom(message));
+	}
+
+	/**
+	 * Gets a page of a conversation's messages, oldest first.
+	 *
+	 * @param conversationId  The conversation.
+	 * @param beforeMessageId Only messages sent before this one, or {@code null} for the latest messages.
+	 * @param limit           The maximum number of messages.
+	 * @return The messages.
+	 */
+	@Suspendable
+	public List<ChatMessage> page(String conversationId, String beforeMessageId, int limit) {
+		if (beforeMessageId != null) {
+			return find(conversationId, beforeMessageId, limit);
+		}
+
+		Window window = new Window();
+		Window existing = windows.putIfAbsent(conversationId, window);
+		if (existing != null) {
+			List<ChatMessage> latest = existing.latest(limit);
+			return latest != null ? latest : find(conversationId, null, limit);
+		}
+
+		// This fiber fills the new window. Messages that arrive in the meantime are kept and merged
+		List<ChatMessage> loaded;
+		try {
+			loaded = find(conversationId, null, Math.max(limit, HOT_WINDOW));
+		} catch (RuntimeException ex) {
+			windows.remove(conversationId, window);
+			throw ex;
+		}
+		window.load(loaded, loaded.size() >= Math.max(limit, HOT_WINDOW));
+		List<ChatMessage> latest = window.latest(limit);
+		return latest != null ? latest : loaded.subList(Math.max(0, loaded.size() - limit), loaded.size());
+	}
+
+	/**
+	 * Calls the handler with every message sent to a conversation from now on, until the subscription is disposed.
+	 *
+	 * @param conversationId The conversation.
+	 * @param handler        The handler, called on the context that receives messages on this node.
+	 * @return The subscription.
+	 */
+	public Disposable subscribe(String conversationId, Handler<ChatMessage> handler) {
+		subscribers.computeIfAbsent(conversationId, k -> ConcurrentHashMap.newKeySet()).add(handler);
+		return Disposables.fromAction(() -> subscribers.computeIfPresent(conversationId, (k, handlers) -> {
+			handlers.remove(handler);
+			return handlers.isEmpty() ? null : handlers;
+		}));
+	}
+
+	private void onMessage(Message<JsonObject> message) {
+		ChatMessage chatMessage = message.body().mapTo(ChatMessage.class);
+		String conversationId = chatMessage.getConversationId();
+		Window window = windows.get(conversationId);
+		if (window != null) {
+			window.add(chatMessage);
+		}
+
+		for (Handler<ChatMessage> handler : subscribers.getOrDefault(conversationId, Collections.emptySet())) {
+			try {
+				handler.handle(chatMessage);
+			} catch (RuntimeException ex) {
+				logger.error("onMessage: A subscriber to {} threw", conversationId, ex);
+			}
+		}
+	}
+
+	@Suspendable
+	private static List<ChatMessage> find(String conversationId, String beforeMessageId, int limit) {
+		JsonObject query = json("conversationId", conversationId);
+		if (beforeMessageId != null) {
+			query.put("_id", json("$lt", beforeMessageId));
+		}
+		List<JsonObject> documents = mongo().findWithOptions(Conversations.CHAT_MESSAGES, query, new FindOptions()
+				.setFields(json("_id", 0))
+				.setSort(json("_id", -1))
+				.setLimit(limit));
+		List<ChatMessage> messages = new ArrayList<>(documents.size());
+		for (int i = documents.size() - 1; i >= 0; i--) {
+			messages.add(documents.get(i).mapTo(ChatMessage.class));
+		}
+		return messages;
+	}
+
+	/**
+	 * A ring buffer of the latest {@link #HOT_WINDOW} messages of a conversation.
+	 */
+	private static class Window {
+		private final ChatMessage[] ring = new ChatMessage[HOT_WINDOW];
+		private int head;
+		private int size;
+		private boolean loaded;
+		private boolean truncated;
+		private List<ChatMessage> pending = new ArrayList<>();
+
+		private synchronized void add(ChatMessage message) {
+			if (!loaded) {
+				pending.add(message);
+				return;
+			}
+
+			if (size == ring.length) {
+				truncated = true;
+			} else {
+				size++;
+			}
+			ring[head] = message;
+			head = (head + 1) % ring.length;
+		}
+
+		private synchronized void load(List<ChatMessage> messages, boolean olderExist) {
+			Set<String> loadedIds = new HashSet<>();
+			for (ChatMessage message : messages) {
+				loadedIds.add(message.getMessageId());
+			}
+			List<ChatMessage> arrived = pending;
+			pending = null;
+			loaded = true;
+			truncated = olderExist;
+			for (ChatMessage message : messages) {
+				add(message);
+			}
+			for (ChatMessage message : arrived) {
+				if (!loadedIds.contains(message.getMessageId())) {
+					add(message);
+				}
+			}
+		}
+
+		/**
+		 * Gets the latest messages, oldest first.
+		 *
+		 * @param limit The maximum number of messages.
+		 * @return The messages, or {@code null} if the window is still loading or older messages that would be in the page
+		 * aren't in the window.
+		 */
+		private synchronized List<ChatMessage> latest(int limit) {
+			if (!loaded || (limit > size && truncated)) {
+				return null;
+			}
+
+			int count = Math.min(limit, size);
+			List<ChatMessage> messages = new ArrayList<>(count);
+			for (int i = count; i > 0; i--) {
+				messages.add(ring[Math.floorMod(head - i, ring.length)]);
+			}
+			return messages;
+		}
+	}
+}
@@ -10,6 +10,7 @@ import com.hiddenswitch.spellsource.impl.server.GameSession;
 import com.hiddenswitch.spellsource.impl.server.GameSessionImpl;
 import com.hiddenswitch.spellsource.impl.server.SessionWriter;
 import com.hiddenswitch.spellsource.impl.util.ActivityMonitor;
+import com.hiddenswitch.spellsource.impl.util.TimingWheel;
 import com.hiddenswitch.spellsource.impl.util.DeckType;
 import com.hiddenswitch.spellsource.models.*;
 import com.hiddenswitch.spellsource.util.*;
@@ -30,10 +31,12 @@ import static com.hiddenswitch.spellsource.util.QuickJson.json;
 public class ClusteredGamesImpl extends SyncVerticle implements Games {
 	public static final String READER_ADDRESS_PREFIX = "Games::reader-";
 	private Registration registration;
+	private GameSessionPlacement placement;
 	private SuspendableMap<GameId, CreateGameSessionResponse> connections;
 	private Map<GameId, GameSession> sessions = new ConcurrentHashMap<>();
 	private Map<GameId, List<Runnable>> pipeClosers = new ConcurrentHashMap<>();
 	private ListMultimap<GameId, ActivityMonitor> gameActivityMonitors = Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+	private TimingWheel timingWheel;
 
 	@Override
 	public void start() throws SuspendExecution {
@@ -41,6 +44,10 @@ public class ClusteredGamesImpl extends SyncVerticle implements Games {
 
 		connections = Games.getConnections();
 		registration = Rpc.register(this, Games.class);
+		placement = new GameSessionPlacement(vertx, deploymentID(), sessions::size);
+		placement.start();
+		// Activity monitors and turn timers of every game on this verticle share one wheel
+		timingWheel = new TimingWheel(vertx);
 	}
 
 	@Override
@@ -54,6 +61,20 @@ public class ClusteredGamesImpl extends SyncVerticle implements Games {
 			throw new IllegalArgumentException("Cannot create a game session without specifying a gameId.");
 		}
 
+		// Place the session on the least-loaded node, unless the session was already placed on this one
+		if (!request.isPlaced()) {
+			String placedDeploymentId = placement.choose();
+			request.setPlaced(true);
+			if (!placedDeploymentId.equals(deploymentID())) {
+				Games.LOGGER.debug("createGameSession: Placing gameId " + gameId + " on deploymentId " + placedDeploymentId);
+				try {
+					return Rpc.connect(Games.class).sync(placedDeploymentId).createGameSession(request);
+				} catch (VertxException noHandlerFound) {
+					Games.LOGGER.warn("createGameSession: Could not place gameId " + gameId + " on deploymentId " + placedDeploymentId + ", creating it locally instead: " + noHandlerFound.getMessage());
+				}
+			}
+		}
+
 		final GameId key = new GameId(gameId);
 		final CreateGameSessionResponse pending = CreateGameSessionResponse.pending(deploymentID());
 		CreateGameSessionResponse connection = connections.putIfAbsent(key, pending);
@@ -65,15 +86,16 @@ public class ClusteredGamesImpl extends SyncVerticle implements Games {
 					request.getPregame1(),
 					request.getPregame2(),
 					gameId,
-					vertx);
+					vertx,
+					timingWheel);
 
 			// Deal with ending the game
 			session.handleGameOver(this::onGameOver);
 
 			// Listen for messages from the clients
 			final EventBus eventBus = vertx.eventBus();
-			final ActivityMonitor activityMonitor = new ActivityMonitor(vertx, gameId, request.getNoActivityTimeout(), this::kill);
-			final ActivityMonitor connectionTimeout = new ActivityMonitor(vertx, gameId, 10000L, this::connectionTimedOut);
+			final ActivityMonitor activityMonitor = new ActivityMonitor(timingWheel, gameId, request.getNoActivityTimeout(), this::kill);
+			final ActivityMonitor connectionTimeout = new ActivityMonitor(timingWheel, gameId, 10000L, this::connectionTimedOut);
 			final ArrayList<Runnable> closers = new ArrayList<>();
 			closers.add(connect(session, 0, request.getPregame1().getUserId(), eventBus, Arrays.asList(activityMonitor, connectionTimeout)));
 			closers.add(connect(session, 1, request.getPregame2().getUserId(), eventBus, Arrays.asList(activityMonitor, connectionTimeout)));
@@ -291,6 +313,9 @@ public class ClusteredGamesImpl extends SyncVerticle implements Games {
 		Games.LOGGER.debug("stop: Stopping the ClusteredGamesImpl.");
 		super.stop();
 		Rpc.unregister(registration);
+		if (placement != null) {
+			placement.stop();
+		}
 		for (ActivityMonitor monitor : gameActivityMonitors.values()) {
 			monitor.cancel();
 		}
@@ -300,5 +325,8 @@ public class ClusteredGamesImpl extends SyncVerticle implements Games {
 			kill(gameId.toString());
 		}
 		Games.LOGGER.debug("stop: Sessions killed");
+		if (timingWheel != null) {
+			timingWheel.close();
+		}
 	}
 }
@@ -0,0 +1,328 @@
+package com.hiddenswitch.spellsource.impl;
+
+import com.hiddenswitch.spellsource.client.models.Account;
+import com.hiddenswitch.spellsource.impl.util.InventoryRecord;
+import com.hiddenswitch.spellsource.models.CollectionTypes;
+import com.hiddenswitch.spellsource.models.GetCollectionResponse;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A node-local, bounded read model of users' collections, decks, usernames and assembled accounts.
+ * <p>
+ * Entries are grouped by user, so that a write to any of a user's inventory records invalidates the user's collection
+ * and all of their decks at once. Writers call {@link #invalidate(Collection)} after their write completes. This
+ * invalidates the entries on this node immediately and publishes the user IDs on {@link #INVALIDATIONS}, so that every
+ * other node in the cluster drops them too.
+ * <p>
+ * A read that raced with an invalidation of its user must not be cached, because it may have observed the database
+ * before the write. Every invalidation stamps its users with the next generation. Callers read {@link #generation()}
+ * before querying the database and pass it to the {@code put} methods, which ignore the value if its user was stamped
+ * since. Invalidations of other users don't affect the read.
+ * <p>
+ * Writes to a user's record don't invalidate the cache, so an account is cached along with the version of the record
+ * it was assembled from, and a reader only uses it if its own copy of the record has the same version.
+ * <p>
+ * The least recently used users are evicted once more than {@link #MAX_USERS} are cached.
+ * <p>
+ * Code that reads through the cache in response to an invalidation registers an {@link
+ * #addInvalidationHandler(Handler)}, which is called after the invalidated entries were dropped.
+ */
+public class CollectionCache {
+	public static final String INVALIDATIONS = "Inventory::invalidations";
+	public static final int MAX_USERS = 10000;
+	private static final int MAX_DECK_OWNERS = 8 * MAX_USERS;
+	private static final int MAX_INVALIDATED_USERS = 8 * MAX_USERS;
+	private static final CollectionCache instance = new CollectionCache();
+
+	private final Set<Vertx> subscribed = ConcurrentHashMap.newKeySet();
+	private final Map<String, Entry> users = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_USERS;
+		}
+	});
+	private final Map<String, String> deckOwners = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_DECK_OWNERS;
+		}
+	});
+	private final Map<String, Long> invalidatedAt = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+			if (size() > MAX_INVALIDATED_USERS) {
+				// Users whose generation was forgotten are treated as invalidated as late as this one
+				evictedAt = Math.max(evictedAt, eldest.getValue());
+				return true;
+			}
+			return false;
+		}
+	};
+	private final AtomicLong generation = new AtomicLong();
+	private long evictedAt;
+	private final Set<Handler<List<String>>> invalidationHandlers = ConcurrentHashMap.newKeySet();
+
+	private CollectionCache() {
+	}
+
+	/**
+	 * Gets the cache, subscribing the current Vertx instance to invalidations from the rest of the cluster if necessary.
+	 *
+	 * @return The cache, or {@code null} when called outside of a Vertx context, where invalidations can't be received.
+	 */
+	public static CollectionCache get() {
+		Context context = Vertx.currentContext();
+		if (context == null) {
+			return null;
+		}
+		Vertx vertx = context.owner();
+		if (instance.subscribed.add(vertx)) {
+			vertx.eventBus().<JsonArray>consumer(INVALIDATIONS, CollectionCache::onInvalidation);
+		}
+		return instance;
+	}
+
+	/**
+	 * Invalidates the cached collections, decks and usernames of the specified users on every node. Call this after a
+	 * write to any of the users' inventory records or collections has completed.
+	 *
+	 * @param userIds The owners of the records and collections that were written.
+	 */
+	public static void invalidate(Collection<String> userIds) {
+		if (userIds == null || userIds.isEmpty()) {
+			return;
+		}
+
+		instance.invalidateLocally(userIds);
+		Context context = Vertx.currentContext();
+		if (context != null) {
+			context.owner().eventBus().publish(INVALIDATIONS, new JsonArray(new ArrayList<>(userIds)));
+		}
+	}
+
+	/**
+	 * Calls the handler with the users of every invalidation this node receives, after their entries were dropped, so
+	 * that reads the handler starts don't observe the invalidated entries.
+	 *
+	 * @param handler The handler, called on the context that received the invalidation.
+	 */
+	public void addInvalidationHandler(Handler<List<String>> handler) {
+		invalidationHandlers.add(handler);
+	}
+
+	/**
+	 * Gets the current generation of the cache, which changes whenever a user is invalidated.
+	 *
+	 * @return The generation to pass to the {@code put} methods.
+	 */
+	public long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * Gets a user's cached collection.
+	 *
+	 * @param userId The user.
+	 * @return A copy of the cached response, or {@code null} if it isn't cached.
+	 */
+	public GetCollectionResponse getUserCollection(String userId) {
+		Entry entry = users.get(userId);
+		if (entry == null || entry.collection == null) {
+			return null;
+		}
+		return copy(entry.collection);
+	}
+
+	/**
+	 * Caches a user's collection retrieved from the database.
+	 *
+	 * @param response   The response.
+	 * @param generation The value of {@link #generation()} before the database was read.
+	 */
+	public void putUserCollection(GetCollectionResponse response, long generation) {
+		Entry entry = entry(response.getUserId(), generation);
+		if (entry != null) {
+			entry.collection = copy(response);
+		}
+	}
+
+	/**
+	 * Gets a cached deck.
+	 *
+	 * @param deckId The deck ID.
+	 * @return A copy of the cached response, or {@code null} if it isn't cached.
+	 */
+	public GetCollectionResponse getDeck(String deckId) {
+		String userId = deckOwners.get(deckId);
+		if (userId == null) {
+			return null;
+		}
+		Entry entry = users.get(userId);
+		if (entry == null) {
+			return null;
+		}
+		GetCollectionResponse deck = entry.decks.get(deckId);
+		return deck == null ? null : copy(deck);
+	}
+
+	/**
+	 * Caches a deck retrieved from the database.
+	 *
+	 * @param response   The response.
+	 * @param generation The value of {@link #generation()} before the database was read.
+	 */
+	public void putDeck(GetCollectionResponse response, long generation) {
+		if (response.getUserId() == null) {
+			return;
+		}
+		// The owner of a deck never changes
+		deckOwners.put(response.getCollectionId(), response.getUserId());
+		Entry entry = entry(response.getUserId(), generation);
+		if (entry != null) {
+			entry.decks.put(response.getCollectionId(), copy(response));
+		}
+	}
+
+	/**
+	 * Gets the owner of a deck whose owner was seen by this cache.
+	 *
+	 * @param deckId The deck ID.
+	 * @return The user ID of the owner, or {@code null} if it isn't known.
+	 */
+	public String getDeckOwner(String deckId) {
+		return deckOwners.get(deckId);
+	}
+
+	/**
+	 * Gets a user's cached username.
+	 *
+	 * @param userId The user.
+	 * @return The username, or {@code null} if it isn't cached.
+	 */
+	public String getUsername(String userId) {
+		Entry entry = users.get(userId);
+		return entry == null ? null : entry.username;
+	}
+
+	/**
+	 * Caches a user's username retrieved from the database.
+	 *
+	 * @param userId     The user.
+	 * @param username   The username.
+	 * @param generation The value of {@link #generation()} before the database was read.
+	 */
+	public void putUsername(String userId, String username, long generation) {
+		Entry entry = entry(userId, generation);
+		if (entry != null) {
+			entry.username = username;
+		}
+	}
+
+	/**
+	 * Gets a user's cached account, without whether the user is in a match.
+	 *
+	 * @param userId  The user.
+	 * @param version The version of the parts of the user's record the account was assembled from.
+	 * @return A copy of the cached account, or {@code null} if it isn't cached or was assembled from an older version.
+	 */
+	public Account getAccount(String userId, Object version) {
+		Entry entry = users.get(userId);
+		if (entry == null) {
+			return null;
+		}
+		VersionedAccount account = entry.account;
+		if (account == null || !account.version.equals(version)) {
+			return null;
+		}
+		return copy(account.account);
+	}
+
+	/**
+	 * Caches a user's account assembled from the database.
+	 *
+	 * @param userId     The user.
+	 * @param version    The version of the parts of the user's record the account was assembled from.
+	 * @param account    The account.
+	 * @param generation The value of {@link #generation()} before the database was read.
+	 */
+	public void putAccount(String userId, Object version, Account account, long generation) {
+		Entry entry = entry(userId, generation);
+		if (entry != null) {
+			entry.account = new VersionedAccount(version, copy(account));
+		}
+	}
+
+	private Entry entry(String userId, long generation) {
+		synchronized (users) {
+			if (invalidatedAt.getOrDefault(userId, evictedAt) > generation) {
+				return null;
+			}
+			return users.computeIfAbsent(userId, k -> new Entry());
+		}
+	}
+
+	private void invalidateLocally(Collection<String> userIds) {
+		synchronized (users) {
+			long stamp = generation.incrementAndGet();
+			for (String userId : userIds) {
+				users.remove(userId);
+				invalidatedAt.put(userId, stamp);
+			}
+		}
+	}
+
+	private static void onInvalidation(Message<JsonArray> message) {
+		List<String> userIds = new ArrayList<>();
+		for (Object userId : message.body()) {
+			userIds.add((String) userId);
+		}
+		instance.invalidateLocally(userIds);
+		for (Handler<List<String>> handler : instance.invalidationHandlers) {
+			handler.handle(userIds);
+		}
+	}
+
+	private static GetCollectionResponse copy(GetCollectionResponse response) {
+		List<InventoryRecord> records = new ArrayList<>(response.getInventoryRecords());
+		if (response.getCollectionType() == CollectionTypes.DECK) {
+			return GetCollectionResponse.deck(response.getUserId(), response.getCollectionId(), response.getName(),
+					response.getHeroClass(), response.getHeroCardId(), response.getFormat(), response.getDeckType(), records,
+					response.isTrashed());
+		}
+		return GetCollectionResponse.user(response.getUserId(), records);
+	}
+
+	private static Account copy(Account account) {
+		return new Account()
+				.id(account.getId())
+				.name(account.getName())
+				.email(account.getEmail())
+				.decks(new ArrayList<>(account.getDecks()))
+				.personalCollection(account.getPersonalCollection());
+	}
+
+	private static class VersionedAccount {
+		private final Object version;
+		private final Account account;
+
+		private VersionedAccount(Object version, Account account) {
+			this.version = version;
+			this.account = account;
+		}
+	}
+
+	private static class Entry {
+		private volatile GetCollectionResponse collection;
+		private volatile String username;
+		private volatile VersionedAccount account;
+		private final Map<String, GetCollectionResponse> decks = new ConcurrentHashMap<>();
+	}
+}
@@ -1,36 +1,60 @@
 package com.hiddenswitch.spellsource.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.hiddenswitch.spellsource.Connection;
 import com.hiddenswitch.spellsource.client.models.Envelope;
 import com.hiddenswitch.spellsource.util.Sync;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.json.EncodeException;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ConnectionImpl implements Connection {
+	private static final Map<String, ConnectionImpl> local = new ConcurrentHashMap<>();
+	private static final Set<Vertx> listening = ConcurrentHashMap.newKeySet();
+
 	private final ServerWebSocket socket;
 	private final String userId;
+	private String handlerId;
+	private SessionBootstrap bootstrap = SessionBootstrap.empty();
 	private final List<Handler<Throwable>> exceptionHandlers = new ArrayList<>();
 	private final List<Handler<Void>> drainHandlers = new ArrayList<>();
 	private final List<Handler<Envelope>> handlers = new ArrayList<>();
+	private final Map<Route, List<Handler<Envelope>>> routes = new EnumMap<>(Route.class);
 	private final List<Handler<Void>> endHandlers = new ArrayList<>();
+	private final SocketFlowControl flowControl;
 
 	public ConnectionImpl(ServerWebSocket socket, String userId) {
 		this.socket = socket;
 		this.userId = userId;
+		this.flowControl = new SocketFlowControl(Vertx.currentContext().owner(), socket);
 
 		socket.handler(Sync.suspendableHandler(buf -> {
 			Envelope decoded = Json.decodeValue(buf, Envelope.class);
 			for (Handler<Envelope> handler : handlers) {
 				handler.handle(decoded);
 			}
+			Route.forEach(decoded, route -> {
+				List<Handler<Envelope>> routed = routes.get(route);
+				if (routed == null) {
+					return;
+				}
+				for (Handler<Envelope> handler : routed) {
+					handler.handle(decoded);
+				}
+			});
 		}));
 
 		socket.exceptionHandler(Sync.suspendableHandler(t -> {
@@ -39,19 +63,24 @@ public class ConnectionImpl implements Connection {
 			}
 		}));
 
-		socket.drainHandler(Sync.suspendableHandler(v -> {
+		flowControl.backpressureHandler(Sync.suspendableHandler(backedUp -> {
+			if (backedUp) {
+				return;
+			}
 			for (Handler<Void> handler : drainHandlers) {
-				handler.handle(v);
+				handler.handle(null);
 			}
 		}));
 
 		socket.endHandler(Sync.suspendableHandler(v -> {
+			flowControl.close();
 			for (Handler<Void> handler : endHandlers) {
 				handler.handle(v);
 			}
 			exceptionHandlers.clear();
 			drainHandlers.clear();
 			handlers.clear();
+			routes.clear();
 			endHandlers.clear();
 		}));
 	}
@@ -64,10 +93,100 @@ public class ConnectionImpl implements Connection {
 
 	@Override
 	public Connection write(Envelope data) {
-		socket.write(Buffer.buffer(Json.encode(data)));
+		Buffer buffer;
+		try {
+			buffer = Buffer.buffer(Json.mapper.writeValueAsBytes(data));
+		} catch (JsonProcessingException e) {
+			throw new EncodeException("Failed to encode as JSON: " + e.getMessage());
+		}
+
+		// Only a friend's latest presence matters, and chat can be fetched again from the conversation's history
+		if (data.getChanged() != null && data.getChanged().getFriend() != null) {
+			flowControl.write(buffer, SocketFlowControl.Traffic.LATEST, data.getChanged().getFriend().getFriendId());
+		} else if (data.getAdded() != null && data.getAdded().getChatMessage() != null) {
+			flowControl.write(buffer, SocketFlowControl.Traffic.DROPPABLE, null);
+		} else {
+			flowControl.write(buffer);
+		}
+		return this;
+	}
+
+	/**
+	 * Registers this connection on this node, so that it can be ended by its handler ID once it's superseded.
+	 */
+	public void registerLocally() {
+		local.put(handlerId, this);
+	}
+
+	/**
+	 * Removes this connection from the connections on this node.
+	 */
+	public void unregisterLocally() {
+		local.remove(handlerId, this);
+	}
+
+	/**
+	 * Ends a connection that was superseded by its user's newer connection. A connection on this node is ended
+	 * directly; otherwise, the node that has it is told on {@link Connection#SUPERSEDED}.
+	 *
+	 * @param vertx     The Vertx instance whose event bus should announce the superseded connection.
+	 * @param handlerId The handler ID of the connection that was replaced in the clustered map of routes.
+	 */
+	public static void supersede(Vertx vertx, String handlerId) {
+		ConnectionImpl connection = local.get(handlerId);
+		if (connection != null) {
+			connection.end();
+			return;
+		}
+		vertx.eventBus().publish(Connection.SUPERSEDED, handlerId);
+	}
+
+	/**
+	 * Ends the connections on this node that were superseded by a user's newer connection on any node, as announced on
+	 * {@link Connection#SUPERSEDED}.
+	 *
+	 * @param vertx The Vertx instance whose event bus receives the announcements.
+	 */
+	public static void listenForSuperseded(Vertx vertx) {
+		if (!listening.add(vertx)) {
+			return;
+		}
+		vertx.eventBus().<String>consumer(Connection.SUPERSEDED, msg -> {
+			ConnectionImpl connection = local.get(msg.body());
+			if (connection != null) {
+				connection.end();
+			}
+		});
+	}
+
+	public String getHandlerId() {
+		return handlerId;
+	}
+
+	public ConnectionImpl setHandlerId(String handlerId) {
+		this.handlerId = handlerId;
 		return this;
 	}
 
+	@Override
+	public SessionBootstrap bootstrap() {
+		return bootstrap;
+	}
+
+	public ConnectionImpl setBootstrap(SessionBootstrap bootstrap) {
+		this.bootstrap = bootstrap;
+		return this;
+	}
+
+	/**
+	 * Gets the flow control of this connection's socket, which everything written to the socket should go through.
+	 *
+	 * @return The flow control.
+	 */
+	public SocketFlowControl getFlowControl() {
+		return flowControl;
+	}
+
 	@Override
 	public void end() {
 		socket.end();
@@ -81,7 +200,7 @@ public class ConnectionImpl implements Connection {
 
 	@Override
 	public boolean writeQueueFull() {
-		return socket.writeQueueFull();
+		return flowControl.isBackedUp();
 	}
 
 	@Override
@@ -96,6 +215,12 @@ public class ConnectionImpl implements Connection {
 		return this;
 	}
 
+	@Override
+	public Connection handler(Route route, Handler<Envelope> handler) {
+		routes.computeIfAbsent(route, k -> new ArrayList<>()).add(handler);
+		return this;
+	}
+
 	@Override
 	public Connection pause() {
 		socket.pause();
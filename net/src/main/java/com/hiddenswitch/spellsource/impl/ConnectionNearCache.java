@@ -0,0 +1,303 @@
+package com.hiddenswitch.spellsource.impl;
+
+import com.hazelcast.core.IMap;
+import com.hiddenswitch.spellsource.client.models.Envelope;
+import com.hiddenswitch.spellsource.concurrent.impl.RxEntryListenerAdaptor;
+import com.hiddenswitch.spellsource.util.Hazelcast;
+import io.reactivex.disposables.CompositeDisposable;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Closeable;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageProducer;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.spi.cluster.hazelcast.impl.ConversionUtils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A node-local cache of which event bus address (the "handler ID") delivers messages to a user's realtime connection.
+ * <p>
+ * The cache is kept coherent with the clustered {@code Connection::connections} map by a Hazelcast entry listener,
+ * adapted by a {@link RxEntryListenerAdaptor}. Users who are not connected are cached too, so notifying an offline
+ * user doesn't cost a distributed map lookup either, for up to {@link #NOT_CONNECTED_TTL_MILLIS}. Event bus publishers
+ * are pooled per handler ID. A publisher is closed once its route is removed or evicted and every stream leased from it
+ * by {@link #publisher(String)} has been ended.
+ * <p>
+ * The least recently used routes are evicted once more than {@link #MAX_ROUTES} are cached. A cache is closed, and its
+ * listener removed, when its Vertx instance closes.
+ * <p>
+ * Only clustered Vertx instances have a near cache; local instances already read a local map.
+ */
+public class ConnectionNearCache implements Closeable {
+	public static final int MAX_ROUTES = 100000;
+	public static final long NOT_CONNECTED_TTL_MILLIS = 60000L;
+	private static final int VERSION_STRIPES = 1024;
+	private static final String NOT_CONNECTED = "";
+	private static final Map<Vertx, ConnectionNearCache> caches = new ConcurrentHashMap<>();
+
+	private final Vertx vertx;
+	private final IMap<Object, Object> map;
+	private final String listenerId;
+	private final Map<String, Route> routes = Collections.synchronizedMap(new LinkedHashMap<String, Route>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Route> eldest) {
+			if (size() <= MAX_ROUTES) {
+				return false;
+			}
+			release(eldest.getValue().handlerId);
+			return true;
+		}
+	});
+	private final Map<String, Publisher> publishers = new ConcurrentHashMap<>();
+	private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+	private final CompositeDisposable subscriptions = new CompositeDisposable();
+
+	private ConnectionNearCache(Vertx vertx, String mapName) {
+		this.vertx = vertx;
+		RxEntryListenerAdaptor<Object, Object> adaptor = new RxEntryListenerAdaptor<>();
+		subscriptions.add(adaptor.added().subscribe(entry -> onRouteChanged(entry.getKey(), entry.getValue())));
+		subscriptions.add(adaptor.changed().subscribe(entry -> onRouteChanged(entry.getKey(), entry.getValue())));
+		subscriptions.add(adaptor.removed().subscribe(entry -> onRouteChanged(entry.getKey(), null)));
+		map = Hazelcast.getHazelcastInstance().getMap(mapName);
+		listenerId = map.addEntryListener(adaptor, true);
+	}
+
+	/**
+	 * A cached route.
+	 */
+	private static class Route {
+		private final String handlerId;
+		private final long expiresAt;
+
+		private Route(String handlerId) {
+			this.handlerId = handlerId;
+			this.expiresAt = handlerId == null ? System.currentTimeMillis() + NOT_CONNECTED_TTL_MILLIS : Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * A pooled publisher, which counts the streams leased from it that haven't been ended yet.
+	 */
+	private static class Publisher {
+		private final MessageProducer<Envelope> producer;
+		private int holders;
+		private boolean retired;
+
+		private Publisher(MessageProducer<Envelope> producer) {
+			this.producer = producer;
+		}
+
+		private synchronized boolean acquire() {
+			if (retired) {
+				return false;
+			}
+			holders++;
+			return true;
+		}
+
+		private synchronized void release() {
+			holders--;
+			closeIfUnused();
+		}
+
+		private synchronized void retire() {
+			retired = true;
+			closeIfUnused();
+		}
+
+		private void closeIfUnused() {
+			if (retired && holders == 0) {
+				producer.close();
+			}
+		}
+	}
+
+	/**
+	 * A stream leased from a {@link Publisher}. Ending it releases the lease instead of closing the pooled publisher.
+	 */
+	private static class Lease implements WriteStream<Envelope> {
+		private final Publisher publisher;
+		private final AtomicBoolean ended = new AtomicBoolean();
+
+		private Lease(Publisher publisher) {
+			this.publisher = publisher;
+		}
+
+		@Override
+		public WriteStream<Envelope> exceptionHandler(Handler<Throwable> handler) {
+			publisher.producer.exceptionHandler(handler);
+			return this;
+		}
+
+		@Override
+		public WriteStream<Envelope> write(Envelope data) {
+			publisher.producer.write(data);
+			return this;
+		}
+
+		@Override
+		public void end() {
+			if (ended.compareAndSet(false, true)) {
+				publisher.release();
+			}
+		}
+
+		@Override
+		public WriteStream<Envelope> setWriteQueueMaxSize(int maxSize) {
+			publisher.producer.setWriteQueueMaxSize(maxSize);
+			return this;
+		}
+
+		@Override
+		public boolean writeQueueFull() {
+			return publisher.producer.writeQueueFull();
+		}
+
+		@Override
+		public WriteStream<Envelope> drainHandler(Handler<Void> handler) {
+			publisher.producer.drainHandler(handler);
+			return this;
+		}
+	}
+
+	/**
+	 * Gets the near cache for the current clustered Vertx instance, creating it if necessary.
+	 *
+	 * @param mapName The name of the clustered map of routes to cache.
+	 * @return The near cache, or {@code null} if this Vertx instance isn't clustered.
+	 */
+	public static ConnectionNearCache get(String mapName) {
+		Vertx vertx = Vertx.currentContext().owner();
+		if (!vertx.isClustered()) {
+			return null;
+		}
+		return caches.computeIfAbsent(vertx, v -> {
+			ConnectionNearCache cache = new ConnectionNearCache(v, mapName);
+			((VertxInternal) v).addCloseHook(cache);
+			return cache;
+		});
+	}
+
+	/**
+	 * Gets a cached handler ID.
+	 *
+	 * @param userId The user whose connection's handler ID should be retrieved.
+	 * @return {@code null} if the route isn't cached; {@link #isConnected(String)} returns {@code false} for the value
+	 * when the user is known not to be connected.
+	 */
+	public String getRoute(String userId) {
+		Route route = routes.get(userId);
+		if (route == null) {
+			return null;
+		}
+		if (route.handlerId == null) {
+			if (route.expiresAt < System.currentTimeMillis()) {
+				routes.remove(userId, route);
+				return null;
+			}
+			return NOT_CONNECTED;
+		}
+		return route.handlerId;
+	}
+
+	/**
+	 * Gets the current version of a user's route, which changes whenever the route changes.
+	 * <p>
+	 * Versions are striped by user ID, so a change to another user's route only rarely changes this one.
+	 *
+	 * @param userId The user.
+	 * @return The version to pass to {@link #putRoute(String, String, long)}.
+	 */
+	public long version(String userId) {
+		return versions.get(stripe(userId));
+	}
+
+	/**
+	 * Caches a route retrieved from the clustered map, unless the user's route changed since {@code version} was read
+	 * and the retrieved value could therefore be stale.
+	 *
+	 * @param userId    The user.
+	 * @param handlerId The handler ID retrieved from the clustered map, or {@code null} if the user isn't connected.
+	 * @param version   The value of {@link #version(String)} before the clustered map was read.
+	 */
+	public void putRoute(String userId, String handlerId, long version) {
+		if (versions.get(stripe(userId)) != version) {
+			return;
+		}
+		routes.putIfAbsent(userId, new Route(handlerId));
+	}
+
+	private static int stripe(String userId) {
+		return (userId.hashCode() & 0x7fffffff) % VERSION_STRIPES;
+	}
+
+	/**
+	 * Indicates whether a value returned by {@link #getRoute(String)} points to a connection.
+	 *
+	 * @param route The cached route.
+	 * @return {@code true} if messages can be written to this route.
+	 */
+	public static boolean isConnected(String route) {
+		return route != null && !NOT_CONNECTED.equals(route);
+	}
+
+	/**
+	 * Leases a pooled publisher for the specified handler ID.
+	 *
+	 * @param handlerId The handler ID.
+	 * @return A stream that the caller should end when it is done writing. Ending it does not close the pooled
+	 * publisher.
+	 */
+	public WriteStream<Envelope> publisher(String handlerId) {
+		while (true) {
+			Publisher publisher = publishers.computeIfAbsent(handlerId, id -> new Publisher(vertx.eventBus().publisher(id)));
+			if (publisher.acquire()) {
+				return new Lease(publisher);
+			}
+			// The publisher was retired after it was read from the pool
+			publishers.remove(handlerId, publisher);
+		}
+	}
+
+	private void onRouteChanged(Object key, Object value) {
+		String userId = ConversionUtils.convertReturn(key).toString();
+		versions.incrementAndGet(stripe(userId));
+		String handlerId = value == null ? null : ConversionUtils.convertReturn(value).toString();
+		Route previous = routes.put(userId, new Route(handlerId));
+		if (previous != null && previous.handlerId != null && !previous.handlerId.equals(handlerId)) {
+			release(previous.handlerId);
+		}
+	}
+
+	private void release(String handlerId) {
+		if (handlerId == null) {
+			return;
+		}
+		Publisher publisher = publishers.remove(handlerId);
+		if (publisher != null) {
+			publisher.retire();
+		}
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> completionHandler) {
+		caches.remove(vertx, this);
+		subscriptions.dispose();
+		try {
+			map.removeEntryListener(listenerId);
+		} catch (RuntimeException ex) {
+			// The Hazelcast instance may already be shut down
+		}
+		routes.clear();
+		publishers.clear();
+		completionHandler.handle(Future.succeededFuture());
+	}
+}
@@ -0,0 +1,154 @@
+package com.hiddenswitch.spellsource.impl;
+
+import co.paralleluniverse.fibers.SuspendExecution;
+import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.Games;
+import com.hiddenswitch.spellsource.concurrent.SuspendableMap;
+import com.hiddenswitch.spellsource.models.NodeLoad;
+import io.vertx.core.Vertx;
+import io.vertx.ext.sync.Sync;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Publishes the load of a games deployment and chooses the least-loaded deployment for new game sessions.
+ * <p>
+ * Every {@link #PUBLISH_INTERVAL_MILLIS}, the owning deployment writes a {@link NodeLoad} containing its number of
+ * active games, the bot CPU time spent in this process and its event loop lag into the clustered {@code Games::loads}
+ * map, then reads back the loads of every other deployment. Placement decisions are made against this local snapshot,
+ * so choosing a node doesn't cost a distributed read. A placement optimistically counts one more active game against
+ * the chosen node until the next snapshot, so a burst of matches isn't all sent to the same node.
+ * <p>
+ * Bot CPU time is recorded by {@link #recordBotCpuTime(long)} into a single counter for the whole process, because bots
+ * don't know which deployment they are playing for. When several games deployments run in one JVM, each of them
+ * therefore publishes the bot CPU load of the whole process, which is the CPU they are all competing for.
+ * <p>
+ * Loads that haven't been refreshed within {@link #STALE_AFTER_MILLIS} belong to deployments that have stopped and are
+ * ignored.
+ */
+public class GameSessionPlacement {
+	public static final long PUBLISH_INTERVAL_MILLIS = 1000L;
+	public static final long STALE_AFTER_MILLIS = 5 * PUBLISH_INTERVAL_MILLIS;
+	private static final String LOADS = "Games::loads";
+	private static final LongAdder botCpuNanos = new LongAdder();
+
+	private final Vertx vertx;
+	private final String deploymentId;
+	private final IntSupplier activeGames;
+	private final Map<String, NodeLoad> snapshot = new HashMap<>();
+	private SuspendableMap<String, NodeLoad> loads;
+	private long publishTimer = -1L;
+	private long lastTick;
+	private long lastPublish;
+	private long lastBotCpuNanos;
+	private long eventLoopLagMillis;
+
+	public GameSessionPlacement(Vertx vertx, String deploymentId, IntSupplier activeGames) {
+		this.vertx = vertx;
+		this.deploymentId = deploymentId;
+		this.activeGames = activeGames;
+	}
+
+	/**
+	 * Records CPU time spent by a bot choosing an action in this process. The time counts towards every deployment in
+	 * the process.
+	 *
+	 * @param nanos The CPU time in nanoseconds.
+	 */
+	public static void recordBotCpuTime(long nanos) {
+		botCpuNanos.add(nanos);
+	}
+
+	/**
+	 * Publishes this deployment's load and starts the periodic publishing.
+	 * <p>
+	 * Must be called from the owning verticle's context, so that the measured timer drift is the lag of its event loop.
+	 *
+	 * @throws SuspendExecution
+	 */
+	@Suspendable
+	public void start() throws SuspendExecution {
+		loads = SuspendableMap.getOrCreate(LOADS);
+		lastTick = System.currentTimeMillis();
+		lastPublish = lastTick;
+		lastBotCpuNanos = botCpuNanos.sum();
+		publish();
+		publishTimer = vertx.setPeriodic(PUBLISH_INTERVAL_MILLIS, Sync.suspendableHandler(t -> {
+			long now = System.currentTimeMillis();
+			eventLoopLagMillis = Math.max(0L, now - lastTick - PUBLISH_INTERVAL_MILLIS);
+			lastTick = now;
+			publish();
+		}));
+	}
+
+	/**
+	 * Chooses the deployment that should host a new game session.
+	 *
+	 * @return The deployment ID of the least-loaded node, which is this deployment when no other node is known.
+	 */
+	public synchronized String choose() {
+		long now = System.currentTimeMillis();
+		NodeLoad best = null;
+		for (NodeLoad load : snapshot.values()) {
+			if (now - load.timestamp > STALE_AFTER_MILLIS) {
+				continue;
+			}
+			if (best == null || load.score() < best.score()) {
+				best = load;
+			}
+		}
+
+		if (best == null) {
+			return deploymentId;
+		}
+
+		best.activeGames++;
+		return best.deploymentId;
+	}
+
+	/**
+	 * Stops publishing and removes this deployment from the clustered map of loads.
+	 *
+	 * @throws SuspendExecution
+	 */
+	@Suspendable
+	public void stop() throws SuspendExecution {
+		if (publishTimer != -1L) {
+			vertx.cancelTimer(publishTimer);
+			publishTimer = -1L;
+		}
+		if (loads != null) {
+			loads.remove(deploymentId);
+		}
+	}
+
+	@Suspendable
+	private void publish() {
+		long now = System.currentTimeMillis();
+		long botCpu = botCpuNanos.sum();
+		long elapsedMillis = now - lastPublish;
+		long botCpuNanosPerSecond = elapsedMillis <= 0L ? 0L : (botCpu - lastBotCpuNanos) * 1000L / elapsedMillis;
+		lastBotCpuNanos = botCpu;
+		lastPublish = now;
+
+		NodeLoad load = new NodeLoad(deploymentId, activeGames.getAsInt(), botCpuNanosPerSecond, eventLoopLagMillis, now);
+		try {
+			loads.put(deploymentId, load);
+			Map<String, NodeLoad> refreshed = new HashMap<>();
+			for (NodeLoad other : loads.values()) {
+				refreshed.put(other.deploymentId, other);
+			}
+			// Our own entry is always current, even if the clustered read raced with the write
+			refreshed.put(deploymentId, load);
+			synchronized (this) {
+				snapshot.clear();
+				snapshot.putAll(refreshed);
+			}
+		} catch (RuntimeException ex) {
+			Games.LOGGER.warn("publish: Could not publish the load for deploymentId {}", deploymentId, ex);
+		}
+	}
+}
@@ -10,7 +10,6 @@ import com.hiddenswitch.spellsource.client.models.CreateAccountResponse;
 import com.hiddenswitch.spellsource.client.models.LoginRequest;
 import com.hiddenswitch.spellsource.client.models.LoginResponse;
 import com.hiddenswitch.spellsource.common.DeckCreateRequest;
-import com.hiddenswitch.spellsource.concurrent.SuspendableMap;
 import com.hiddenswitch.spellsource.impl.util.DraftRecord;
 import com.hiddenswitch.spellsource.impl.util.HandlerFactory;
 import com.hiddenswitch.spellsource.impl.util.UserRecord;
@@ -30,20 +29,16 @@ import io.vertx.ext.sync.SyncVerticle;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.*;
-import io.vertx.ext.web.impl.Utils;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.List;
 
 import static io.vertx.ext.sync.Sync.awaitResult;
-import static java.util.stream.Collectors.toList;
 
 /**
  * An implementation of an <a href="https://www.linkedin.com/pulse/api-gateway-pattern-subhash-chandran">API gateway</a>
@@ -53,10 +48,11 @@ import static java.util.stream.Collectors.toList;
  */
 public class GatewayImpl extends SyncVerticle implements Gateway {
 	private static Logger logger = LoggerFactory.getLogger(Gateway.class);
-	private static final DateFormat dateTimeFormatter = Utils.createRFC1123DateTimeFormatter();
 	private final int port;
 	private HttpServer server;
 	private Closeable queues;
+	private Closeable presence;
+	private CardsPayload cardsPayload;
 
 	public GatewayImpl(int port) {
 		this.port = port;
@@ -73,6 +69,9 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 
 		logger.info("start: Configuring router on instance {}", this.deploymentID());
 
+		// Build the cards payload off the event loop before serving any requests
+		cardsPayload = Sync.invoke(CardsPayload::get);
+
 		final AuthHandler authHandler = SpellsourceAuthHandler.create();
 		final BodyHandler bodyHandler = BodyHandler.create();
 
@@ -98,7 +97,7 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 				.handler(Connection.handler());
 
 		// Enable presence
-		Presence.handleConnections();
+		presence = Presence.handleConnections();
 
 		// Enable realtime conversations
 		Conversations.handleConnections();
@@ -121,6 +120,9 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 		// Handle realtime notification of invitations
 		Invites.handleConnections();
 
+		// Handle subscriptions to live queries of decks, collections, invites and friends
+		LiveQueries.handleConnections();
+
 		// Health check comes first
 		router.route("/")
 				.handler(routingContext -> {
@@ -138,6 +140,7 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 				.allowedHeader("If-None-Match")
 				.exposedHeader("Content-Type")
 				.exposedHeader("ETag")
+				.exposedHeader(CardsPayload.CARD_SET_VERSIONS_HEADER)
 				.exposedHeader("Cache-Control")
 				.exposedHeader("Last-Modified")
 				.exposedHeader("Date")
@@ -214,13 +217,11 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 				.method(HttpMethod.POST)
 				.handler(HandlerFactory.handler(com.hiddenswitch.spellsource.client.models.ChangePasswordRequest.class, this::changePassword));
 
+		// The cards are served from bytes prepared when the gateway started
 		router.route("/cards")
 				.method(HttpMethod.GET)
-				.handler(HandlerFactory.handler(this::getCards));
-
-		router.route("/cards")
 				.method(HttpMethod.HEAD)
-				.handler(HandlerFactory.handler(this::getCards));
+				.handler(cardsPayload::handle);
 
 		router.route("/decks")
 				.handler(bodyHandler);
@@ -332,7 +333,7 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 		}
 
 		if (userId.equals(targetUserId)) {
-			final Account account = getAccount(userId);
+			final Account account = Accounts.getAccount(userId);
 			if (account == null) {
 				return WebResult.notFound("Unexpectedly, an account with your userId %s was not found", userId);
 			}
@@ -377,7 +378,7 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 		// Initialize the collection
 		final String userId = internalResponse.getUserId();
 		Logic.initializeUser(InitializeUserRequest.create(userId));
-		final Account account = getAccount(userId);
+		final Account account = Accounts.getAccount(userId);
 		return WebResult.succeeded(new CreateAccountResponse()
 				.loginToken(internalResponse.getLoginToken().getToken())
 				.account(account));
@@ -398,7 +399,7 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 		}
 
 		return WebResult.succeeded(new LoginResponse()
-				.account(getAccount(internalResponse.getToken().getAccessKey()))
+				.account(Accounts.getAccount(internalResponse.getToken().getAccessKey()))
 				.loginToken(internalResponse.getToken().getToken()));
 	}
 
@@ -621,62 +622,18 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 
 	@Override
 	public WebResult<GetCardsResponse> getCards(RoutingContext context) throws SuspendExecution, InterruptedException {
-		SuspendableMap<String, Object> cache = SuspendableMap.getOrCreate("Cards::cards");
-		// Our objective is to create a cards version ONCE for the entire cluster
-		final String thisCardsVersionId = deploymentID();
-		final String thisDate = dateTimeFormatter.format(new Date());
-		String cardsVersion = (String) cache.putIfAbsent("cards-version", thisCardsVersionId);
-		String lastModified = (String) cache.putIfAbsent("cards-last-modified", thisDate);
-		if (cardsVersion == null) {
-			cardsVersion = thisCardsVersionId;
-		}
-		if (lastModified == null) {
-			lastModified = thisDate;
-		}
-
-		context.response().putHeader("ETag", cardsVersion);
-		final String userVersion = context.request().getHeader("If-None-Match");
-		if (userVersion != null &&
-				userVersion.equals(cardsVersion)) {
+		context.response().putHeader("ETag", "\"" + cardsPayload.getVersion() + "\"");
+		if (cardsPayload.matches(context.request().getHeader("If-None-Match"))) {
 			return WebResult.succeeded(304, null);
 		}
 
-		context.response().putHeader("Cache-Control", "public, max-age=31536000");
-		context.response().putHeader("Last-Modified", lastModified);
-		context.response().putHeader("Date", thisDate);
-
 		if (context.request().method() == HttpMethod.HEAD) {
 			return WebResult.succeeded(null);
 		}
 
-		// We created the cache for the first time
-		// TODO: It's possible that there are multiple versions of Spellsource sharing a cluster, so version should be a hash
-		return WebResult.succeeded(new GetCardsResponse()
-				.cards(Cards.getCards())
-				.version(cardsVersion));
-	}
-
-	private Account getAccount(String userId) throws SuspendExecution, InterruptedException {
-		// Get the personal collection
-		UserRecord record = Accounts.get(userId);
-		GetCollectionResponse personalCollection = Inventory.getCollection(GetCollectionRequest.user(record.getId()));
-
-		// Get the decks
-		GetCollectionResponse deckCollections = Inventory.getCollection(GetCollectionRequest.decks(userId, record.getDecks()));
-
-		final String displayName = record.getUsername();
-		final List<GetCollectionResponse> responses = deckCollections.getResponses();
-		return new Account()
-				.id(record.getId())
-				.decks((responses != null && responses.size() > 0) ? responses.stream()
-						.filter(response -> !response.getTrashed()).map(GetCollectionResponse::asInventoryCollection).collect(toList()) : Collections.emptyList())
-				.personalCollection(personalCollection.asInventoryCollection())
-				.email(record.getEmails().get(0).getAddress())
-				.inMatch(Matchmaking.getCurrentMatch(CurrentMatchRequest.request(userId)).getGameId() != null)
-				.name(displayName + "#" + record.getPrivacyToken());
+		return WebResult.succeeded(cardsPayload.getResponse());
 	}
 
-
 	public Games getGames() throws InterruptedException, SuspendExecution {
 		return Rpc.connect(Games.class).sync();
 	}
@@ -690,6 +647,9 @@ public class GatewayImpl extends SyncVerticle implements Gateway {
 		if (queues != null) {
 			Sync.invoke1(queues::close);
 		}
+		if (presence != null) {
+			Sync.invoke1(presence::close);
+		}
 	}
 
 }
@@ -0,0 +1,269 @@
+package com.hiddenswitch.spellsource.impl;
+
+import co.paralleluniverse.fibers.SuspendExecution;
+import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.Connection;
+import com.hiddenswitch.spellsource.LiveQueries;
+import com.hiddenswitch.spellsource.client.models.*;
+import com.hiddenswitch.spellsource.util.DiffContext;
+import com.hiddenswitch.spellsource.util.DiffSequence;
+import com.hiddenswitch.spellsource.util.SubscriptionContext;
+import com.hiddenswitch.spellsource.util.Sync;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.vertx.core.Vertx;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * A connection's subscription to one of the {@link LiveQueries}.
+ * <p>
+ * The subscription remembers the results it last sent. {@link #refresh()} runs the query again and diffs the new
+ * results against them, writing a {@link LiveQueryDelta} to the connection for every command the diff produces.
+ * Refreshes of the same subscription never overlap: a refresh requested while another is running makes the running one
+ * go around again once it's done.
+ * <p>
+ * The subscriptions of a user refreshed by the same invalidation share one {@link LiveQueries.Reads}, so the decks and
+ * collection queries assemble the user's account once.
+ */
+public class LiveQuery implements SubscriptionContext<String, Object>, DiffContext<Object, String> {
+	private static final Logger logger = LoggerFactory.getLogger(LiveQuery.class);
+	private static final Set<Vertx> subscribed = ConcurrentHashMap.newKeySet();
+	private static final Map<String, Set<LiveQuery>> subscriptions = new ConcurrentHashMap<>();
+	private static final AtomicBoolean listening = new AtomicBoolean();
+
+	private final Connection connection;
+	private final UserId userId;
+	private final String name;
+	private final LiveQueries.Query query;
+	private final CompositeDisposable disposables = new CompositeDisposable();
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+	private volatile boolean dirty;
+	private volatile boolean closed;
+	private volatile LiveQueries.Reads pendingReads;
+	private List<Object> results = Collections.emptyList();
+
+	private LiveQuery(Connection connection, String name, LiveQueries.Query query) {
+		this.connection = connection;
+		this.userId = new UserId(connection.userId());
+		this.name = name;
+		this.query = query;
+	}
+
+	/**
+	 * Subscribes a connection to a live query. Subscribing a connection to a query it's already subscribed to has no
+	 * effect.
+	 *
+	 * @param connection The connection.
+	 * @param name       The name of the query.
+	 * @param query      The query.
+	 * @return The new subscription, which must be refreshed to send its initial results, or {@code null} if the
+	 * connection was already subscribed.
+	 */
+	public static LiveQuery subscribe(Connection connection, String name, LiveQueries.Query query) {
+		LiveQuery subscription = new LiveQuery(connection, name, query);
+		AtomicBoolean added = new AtomicBoolean();
+		subscriptions.compute(connection.userId(), (k, existing) -> {
+			Set<LiveQuery> userSubscriptions = existing == null ? ConcurrentHashMap.newKeySet() : existing;
+			if (userSubscriptions.stream().noneMatch(other -> other.connection == connection && other.name.equals(name))) {
+				userSubscriptions.add(subscription);
+				added.set(true);
+			}
+			return userSubscriptions;
+		});
+		return added.get() ? subscription : null;
+	}
+
+	/**
+	 * Closes a connection's subscriptions.
+	 *
+	 * @param connection The connection.
+	 * @param name       The name of the query to unsubscribe from, or {@code null} to close all of them.
+	 */
+	public static void unsubscribe(Connection connection, String name) {
+		for (LiveQuery subscription : subscriptions(connection.userId())) {
+			if (subscription.connection == connection
+					&& (name == null || subscription.name.equals(name))) {
+				subscription.close();
+			}
+		}
+	}
+
+	/**
+	 * Gets the Vert.x instances whose event buses already deliver invalidations to the subscriptions on this node.
+	 *
+	 * @return The instances.
+	 */
+	public static Set<Vertx> subscribed() {
+		return subscribed;
+	}
+
+	/**
+	 * Refreshes the subscriptions on this node whenever the {@link CollectionCache} is invalidated, once the invalidated
+	 * entries were dropped. Has no effect if this node already does.
+	 *
+	 * @param cache The cache.
+	 */
+	public static void listen(CollectionCache cache) {
+		if (listening.compareAndSet(false, true)) {
+			cache.addInvalidationHandler(LiveQuery::refreshUsers);
+		}
+	}
+
+	/**
+	 * Refreshes the subscriptions of the specified users on this node. Each user's subscriptions are refreshed one after
+	 * another on a fiber and share the reads of the user's data.
+	 *
+	 * @param userIds The users whose data was written.
+	 */
+	public static void refreshUsers(Collection<String> userIds) {
+		for (String userId : userIds) {
+			Set<LiveQuery> userSubscriptions = subscriptions(userId);
+			if (userSubscriptions.isEmpty()) {
+				continue;
+			}
+
+			Sync.suspendableHandler((Void v) -> {
+				LiveQueries.Reads reads = new LiveQueries.Reads(userId);
+				for (LiveQuery subscription : userSubscriptions) {
+					subscription.refresh(reads);
+				}
+			}).handle(null);
+		}
+	}
+
+	/**
+	 * Gets the open subscriptions of a user on this node.
+	 *
+	 * @param userId The user.
+	 * @return The subscriptions, or an empty set if the user has none.
+	 */
+	public static Set<LiveQuery> subscriptions(String userId) {
+		return subscriptions.getOrDefault(userId, Collections.emptySet());
+	}
+
+	/**
+	 * Runs the query and sends the differences from the results that were last sent.
+	 *
+	 * @throws SuspendExecution
+	 * @throws InterruptedException
+	 */
+	@Suspendable
+	public void refresh() throws SuspendExecution, InterruptedException {
+		refresh(null);
+	}
+
+	/**
+	 * Runs the query with reads shared with other subscriptions and sends the differences from the results that were
+	 * last sent.
+	 *
+	 * @param reads The reads of the user's data made after the write, or {@code null} to read it again.
+	 * @throws SuspendExecution
+	 * @throws InterruptedException
+	 */
+	@Suspendable
+	public void refresh(LiveQueries.Reads reads) throws SuspendExecution, InterruptedException {
+		pendingReads = reads;
+		dirty = true;
+		while (dirty && !closed) {
+			if (!refreshing.compareAndSet(false, true)) {
+				// The refresh that is running will see the flag and run the query again
+				return;
+			}
+
+			try {
+				dirty = false;
+				LiveQueries.Reads current = pendingReads;
+				pendingReads = null;
+				if (current == null) {
+					current = new LiveQueries.Reads(userId.toString());
+				}
+				List<Object> newResults = query.fetch(current);
+				DiffSequence.diffQueryOrderedChanges(results, newResults, this);
+				results = newResults;
+			} catch (RuntimeException ex) {
+				logger.error("refresh: Live query {} for {} failed", name, userId, ex);
+			} finally {
+				refreshing.set(false);
+			}
+		}
+	}
+
+	@Override
+	public UserId user() {
+		return userId;
+	}
+
+	@Override
+	public String request() {
+		return name;
+	}
+
+	@Override
+	public DiffContext<Object, String> client() {
+		return this;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		disposables.dispose();
+		subscriptions.computeIfPresent(userId.toString(), (k, v) -> {
+			v.remove(this);
+			return v.isEmpty() ? null : v;
+		});
+	}
+
+	@Override
+	public void addDisposable(Disposable disposable) {
+		disposables.add(disposable);
+	}
+
+	@Override
+	public void removed(String id) {
+		write(new Envelope().removed(new EnvelopeRemoved().liveQuery(delta(id))));
+	}
+
+	@Override
+	public void addedBefore(String newDocId, Object newDoc, @Nullable String beforeId) {
+		write(new Envelope().added(new EnvelopeAdded().liveQuery(delta(newDocId).beforeId(beforeId).document(newDoc))));
+	}
+
+	@Override
+	public void added(String newDocId, Object newDoc) {
+		// Ordered diffs only add documents at a position
+	}
+
+	@Override
+	public void possiblyChanged(String newDocId, Object oldDoc, Object newDoc) {
+		if (!Objects.equals(oldDoc, newDoc)) {
+			write(new Envelope().changed(new EnvelopeChanged().liveQuery(delta(newDocId).document(newDoc))));
+		}
+	}
+
+	@Override
+	public void movedBefore(String id, @Nullable String beforeId) {
+		write(new Envelope().changed(new EnvelopeChanged().liveQuery(delta(id).beforeId(beforeId).moved(true))));
+	}
+
+	@Override
+	public Function<Object, String> getKeyer() {
+		return query.getKeyer();
+	}
+
+	private LiveQueryDelta delta(String id) {
+		return new LiveQueryDelta().query(name).id(id);
+	}
+
+	private void write(Envelope envelope) {
+		if (!closed) {
+			connection.write(envelope);
+		}
+	}
+}
@@ -29,6 +29,7 @@ import static com.hiddenswitch.spellsource.util.QuickJson.json;
 
 public class MigrationsImpl extends SyncVerticle implements Migrations {
 	public static final String MIGRATIONS = "migrations";
+	public static final String CHECKPOINTS = "checkpoints";
 	private List<MigrationRequest> migrations = new ArrayList<>();
 	private static Logger logger = LoggerFactory.getLogger(Migrations.class);
 	private Registration registration;
@@ -104,7 +105,9 @@ public class MigrationsImpl extends SyncVerticle implements Migrations {
 		if (null != request.getRerun()
 				&& request.getRerun()) {
 			logger.info("Rerunning version " + Integer.toString(version));
+			clearCheckpoints();
 			migrateUp(findIndexByVersion(version));
+			clearCheckpoints();
 			logger.info("Finished migrating.");
 			unlock();
 			return MigrationToResponse.succeededMigration();
@@ -125,18 +128,23 @@ public class MigrationsImpl extends SyncVerticle implements Migrations {
 			try {
 				for (int i = startIndex; i < endIndex; i++) {
 					migrateUp(i + 1);
+					clearCheckpoints();
 					currentVersion = migrations.get(i + 1).getVersion();
 				}
 			} catch (Throwable e) {
+				// Record the migrations that completed, so that the next attempt resumes from the one that failed
+				unlock(currentVersion);
 				return MigrationToResponse.failedMigration(e);
 			}
 		} else {
 			try {
 				for (int i = startIndex; i > endIndex; i--) {
 					migrateDown(i);
+					clearCheckpoints();
 					currentVersion = migrations.get(i - 1).getVersion();
 				}
 			} catch (Throwable e) {
+				unlock(currentVersion);
 				return MigrationToResponse.failedMigration(e);
 			}
 		}
@@ -156,6 +164,42 @@ public class MigrationsImpl extends SyncVerticle implements Migrations {
 		return null;
 	}
 
+	/**
+	 * Gets the progress of a migration's pass over a collection.
+	 *
+	 * @param checkpoint The name of the pass.
+	 * @return The {@code _id} of the last document whose writes completed, or {@code null} if the pass hasn't started.
+	 * @throws SuspendExecution
+	 * @throws InterruptedException
+	 * @see Migrations#forEachBatch(String, String, JsonObject, JsonObject, String, java.util.function.Function)
+	 */
+	@Suspendable
+	public static Object getCheckpoint(String checkpoint) throws SuspendExecution, InterruptedException {
+		JsonObject control = Mongo.mongo().findOne(MIGRATIONS, json("_id", "control"), json(CHECKPOINTS, 1));
+		if (control == null || control.getJsonObject(CHECKPOINTS) == null) {
+			return null;
+		}
+		return control.getJsonObject(CHECKPOINTS).getValue(checkpoint);
+	}
+
+	/**
+	 * Records the progress of a migration's pass over a collection.
+	 *
+	 * @param checkpoint The name of the pass.
+	 * @param lastId     The {@code _id} of the last document whose writes completed.
+	 * @throws SuspendExecution
+	 * @throws InterruptedException
+	 */
+	@Suspendable
+	public static void putCheckpoint(String checkpoint, Object lastId) throws SuspendExecution, InterruptedException {
+		Mongo.mongo().updateCollectionWithOptions(MIGRATIONS, json("_id", "control"), json("$set", json(CHECKPOINTS + "." + checkpoint, lastId)),
+				new UpdateOptions().setUpsert(true));
+	}
+
+	private void clearCheckpoints() throws SuspendExecution, InterruptedException {
+		Mongo.mongo().updateCollection(MIGRATIONS, json("_id", "control"), json("$unset", json(CHECKPOINTS, 1)));
+	}
+
 	private void migrateUp(int indexByVersion) throws SuspendExecution, InterruptedException {
 		migrations.get(indexByVersion).getUp().call(vertx);
 	}
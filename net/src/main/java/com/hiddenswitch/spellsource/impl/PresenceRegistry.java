@@ -0,0 +1,408 @@
+package com.hiddenswitch.spellsource.impl;
+
+import com.hiddenswitch.spellsource.Accounts;
+import com.hiddenswitch.spellsource.Connection;
+import com.hiddenswitch.spellsource.client.models.Envelope;
+import com.hiddenswitch.spellsource.client.models.EnvelopeChanged;
+import com.hiddenswitch.spellsource.client.models.Friend;
+import com.hiddenswitch.spellsource.client.models.PresenceEnum;
+import com.hiddenswitch.spellsource.impl.util.UserRecord;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Closeable;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hiddenswitch.spellsource.util.Mongo.mongo;
+import static com.hiddenswitch.spellsource.util.QuickJson.json;
+
+/**
+ * An in-memory registry of which users are online, replicated between gateways over the event bus.
+ * <p>
+ * Each registry is a "node" that owns the connections made to its gateway. Connects and disconnects are coalesced and
+ * published as one batch per {@link #FAN_OUT_INTERVAL_MILLIS} on {@link #CHANGES_ADDRESS}. Every registry applies
+ * every batch to its own sharded view of who is online, and then notifies only the locally connected users whose
+ * cached friend lists contain a user whose presence changed.
+ * <p>
+ * Registries periodically publish a snapshot of their local users. A snapshot lets newly started gateways learn who is
+ * online, and lets a registry expire the users of a gateway it hasn't heard from in {@link #NODE_EXPIRY_MILLIS}.
+ * <p>
+ * Mongo is only written to record each user's {@link UserRecord#LAST_SEEN}, in bulk, every {@link
+ * #LAST_SEEN_INTERVAL_MILLIS}.
+ */
+public class PresenceRegistry implements Closeable {
+	public static final String CHANGES_ADDRESS = "Presence::changes";
+	public static final String SUBSCRIPTIONS_ADDRESS = "Presence::subscriptions";
+	static final long FAN_OUT_INTERVAL_MILLIS = 100L;
+	static final long SNAPSHOT_INTERVAL_MILLIS = 5000L;
+	static final long NODE_EXPIRY_MILLIS = SNAPSHOT_INTERVAL_MILLIS * 3;
+	static final long LAST_SEEN_INTERVAL_MILLIS = 30000L;
+	private static final int SHARDS = 16;
+	private static final Logger logger = LoggerFactory.getLogger(PresenceRegistry.class);
+	private static final Map<Vertx, PresenceRegistry> registries = new ConcurrentHashMap<>();
+
+	private final Vertx vertx;
+	private final String nodeId = UUID.randomUUID().toString();
+	private final Map<String, AtomicInteger> localConnections = new ConcurrentHashMap<>();
+	private final List<Map<String, Set<String>>> online = new ArrayList<>(SHARDS);
+	private final Map<String, Set<String>> nodeUsers = new ConcurrentHashMap<>();
+	private final Map<String, Long> nodeLastHeard = new ConcurrentHashMap<>();
+	private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> watchers = new ConcurrentHashMap<>();
+	private final Map<String, PresenceEnum> pendingChanges = new ConcurrentHashMap<>();
+	private final Map<String, Long> pendingLastSeen = new ConcurrentHashMap<>();
+	private final MessageConsumer<JsonObject> changesConsumer;
+	private final MessageConsumer<JsonObject> subscriptionsConsumer;
+	private final long fanOutTimer;
+	private final long snapshotTimer;
+	private final long lastSeenTimer;
+
+	/**
+	 * A connection whose user should be notified about the presence of their friends.
+	 */
+	private static class Subscriber {
+		private final Connection connection;
+		private final Context context;
+		private final Set<String> friendIds;
+
+		private Subscriber(Connection connection, Context context, Set<String> friendIds) {
+			this.connection = connection;
+			this.context = context;
+			this.friendIds = friendIds;
+		}
+
+		private void write(Envelope envelope) {
+			context.runOnContext(v -> connection.write(envelope));
+		}
+	}
+
+	/**
+	 * Creates a registry bound to the current Vertx context, typically the gateway's.
+	 */
+	public PresenceRegistry() {
+		vertx = Vertx.currentContext().owner();
+		for (int i = 0; i < SHARDS; i++) {
+			online.add(new ConcurrentHashMap<>());
+		}
+		changesConsumer = vertx.eventBus().consumer(CHANGES_ADDRESS, message -> apply(message.body()));
+		subscriptionsConsumer = vertx.eventBus().consumer(SUBSCRIPTIONS_ADDRESS, message -> applySubscription(message.body()));
+		fanOutTimer = vertx.setPeriodic(FAN_OUT_INTERVAL_MILLIS, t -> flushChanges());
+		snapshotTimer = vertx.setPeriodic(SNAPSHOT_INTERVAL_MILLIS, t -> {
+			publishSnapshot();
+			expireNodes();
+		});
+		lastSeenTimer = vertx.setPeriodic(LAST_SEEN_INTERVAL_MILLIS, t -> flushLastSeen(Future.future()));
+		registries.put(vertx, this);
+		// Announce this registry. The users of the other registries become known with their next snapshots.
+		publishSnapshot();
+	}
+
+	/**
+	 * Gets the registry of the gateway running on the specified Vertx instance.
+	 *
+	 * @param vertx The Vertx instance.
+	 * @return The registry, or {@code null} if this instance doesn't track presence.
+	 */
+	public static PresenceRegistry get(Vertx vertx) {
+		return registries.get(vertx);
+	}
+
+	/**
+	 * Indicates whether the specified user is connected to any gateway.
+	 *
+	 * @param userId The user.
+	 * @return {@code true} if the user is online.
+	 */
+	public boolean isOnline(String userId) {
+		return shard(userId).containsKey(userId) || localConnections.containsKey(userId);
+	}
+
+	public PresenceEnum presence(String userId) {
+		return isOnline(userId) ? PresenceEnum.ONLINE : PresenceEnum.OFFLINE;
+	}
+
+	/**
+	 * Registers a new connection. Its user is reported as online to the other registries with the next batch.
+	 *
+	 * @param connection The connection.
+	 */
+	public void connect(Connection connection) {
+		String userId = connection.userId();
+		Subscriber subscriber = new Subscriber(connection, Vertx.currentContext(), ConcurrentHashMap.newKeySet());
+		subscribers.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+		if (localConnections.computeIfAbsent(userId, k -> new AtomicInteger()).getAndIncrement() == 0) {
+			pendingChanges.put(userId, PresenceEnum.ONLINE);
+		}
+
+		connection.endHandler(v -> disconnect(subscriber));
+	}
+
+	/**
+	 * Caches the friend list of a connected user and sends it the presence of the friends that are currently online.
+	 *
+	 * @param connection A connection previously registered with {@link #connect(Connection)}.
+	 * @param friendIds  The IDs of the connection's user's friends.
+	 */
+	public void subscribe(Connection connection, Collection<String> friendIds) {
+		String userId = connection.userId();
+		for (Subscriber subscriber : subscribers.getOrDefault(userId, Collections.emptySet())) {
+			if (subscriber.connection != connection) {
+				continue;
+			}
+			for (String friendId : friendIds) {
+				if (!subscriber.friendIds.add(friendId)) {
+					continue;
+				}
+				watch(friendId, userId);
+				if (isOnline(friendId)) {
+					subscriber.write(presenceEnvelope(friendId, PresenceEnum.ONLINE));
+				}
+			}
+		}
+	}
+
+	private void disconnect(Subscriber subscriber) {
+		String userId = subscriber.connection.userId();
+		Set<Subscriber> userSubscribers = subscribers.get(userId);
+		if (userSubscribers != null) {
+			userSubscribers.remove(subscriber);
+			if (userSubscribers.isEmpty()) {
+				subscribers.remove(userId, userSubscribers);
+			}
+		}
+		for (String friendId : subscriber.friendIds) {
+			unwatch(friendId, userId);
+		}
+
+		AtomicInteger count = localConnections.get(userId);
+		if (count != null && count.decrementAndGet() <= 0) {
+			localConnections.remove(userId, count);
+			pendingChanges.put(userId, PresenceEnum.OFFLINE);
+			pendingLastSeen.put(userId, System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Notifies every registry that two users became friends or stopped being friends, so that the friend lists cached
+	 * for their connections are updated.
+	 *
+	 * @param userId   A user.
+	 * @param friendId The other user.
+	 * @param friended {@code true} if the users are now friends, {@code false} if they were unfriended.
+	 */
+	public static void publishFriendship(String userId, String friendId, boolean friended) {
+		Vertx.currentContext().owner().eventBus().publish(SUBSCRIPTIONS_ADDRESS, json("userId", userId, "friendId", friendId, "friended", friended));
+	}
+
+	private void applySubscription(JsonObject body) {
+		String userId = body.getString("userId");
+		String friendId = body.getString("friendId");
+		boolean friended = body.getBoolean("friended", true);
+		updateFriendship(userId, friendId, friended);
+		updateFriendship(friendId, userId, friended);
+	}
+
+	private void updateFriendship(String userId, String friendId, boolean friended) {
+		Set<Subscriber> userSubscribers = subscribers.get(userId);
+		if (userSubscribers == null) {
+			return;
+		}
+		PresenceEnum presence = presence(friendId);
+		for (Subscriber subscriber : userSubscribers) {
+			if (friended) {
+				if (subscriber.friendIds.add(friendId)) {
+					watch(friendId, userId);
+				}
+				subscriber.write(presenceEnvelope(friendId, presence));
+			} else if (subscriber.friendIds.remove(friendId)) {
+				unwatch(friendId, userId);
+			}
+		}
+	}
+
+	private void watch(String friendId, String userId) {
+		watchers.computeIfAbsent(friendId, k -> ConcurrentHashMap.newKeySet()).add(userId);
+	}
+
+	private void unwatch(String friendId, String userId) {
+		watchers.computeIfPresent(friendId, (k, users) -> {
+			// Another connection for the same user may still be watching
+			Set<Subscriber> userSubscribers = subscribers.get(userId);
+			if (userSubscribers == null
+					|| userSubscribers.stream().noneMatch(s -> s.friendIds.contains(friendId))) {
+				users.remove(userId);
+			}
+			return users.isEmpty() ? null : users;
+		});
+	}
+
+	private void flushChanges() {
+		if (pendingChanges.isEmpty()) {
+			return;
+		}
+		JsonArray onlineUsers = new JsonArray();
+		JsonArray offlineUsers = new JsonArray();
+		for (String userId : new ArrayList<>(pendingChanges.keySet())) {
+			PresenceEnum presence = pendingChanges.remove(userId);
+			if (presence == PresenceEnum.ONLINE) {
+				onlineUsers.add(userId);
+			} else if (presence != null) {
+				offlineUsers.add(userId);
+			}
+		}
+		vertx.eventBus().publish(CHANGES_ADDRESS, json("node", nodeId, "online", onlineUsers, "offline", offlineUsers));
+	}
+
+	private void publishSnapshot() {
+		vertx.eventBus().publish(CHANGES_ADDRESS, json("node", nodeId, "snapshot", true, "online", new JsonArray(new ArrayList<>(localConnections.keySet()))));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void apply(JsonObject batch) {
+		String node = batch.getString("node");
+		nodeLastHeard.put(node, System.currentTimeMillis());
+		List<String> onlineUsers = batch.getJsonArray("online", new JsonArray()).getList();
+		List<String> offlineUsers;
+		if (batch.getBoolean("snapshot", false)) {
+			Set<String> previous = new HashSet<>(nodeUsers.getOrDefault(node, Collections.emptySet()));
+			previous.removeAll(onlineUsers);
+			offlineUsers = new ArrayList<>(previous);
+		} else {
+			offlineUsers = batch.getJsonArray("offline", new JsonArray()).getList();
+		}
+
+		for (String userId : onlineUsers) {
+			if (addNode(userId, node)) {
+				notifyWatchers(userId, PresenceEnum.ONLINE);
+			}
+		}
+		for (String userId : offlineUsers) {
+			if (removeNode(userId, node)) {
+				notifyWatchers(userId, PresenceEnum.OFFLINE);
+			}
+		}
+	}
+
+	private void expireNodes() {
+		long expiry = System.currentTimeMillis() - NODE_EXPIRY_MILLIS;
+		for (Map.Entry<String, Long> entry : new ArrayList<>(nodeLastHeard.entrySet())) {
+			if (entry.getValue() >= expiry || entry.getKey().equals(nodeId)) {
+				continue;
+			}
+			logger.warn("expireNodes: Presence node {} expired", entry.getKey());
+			nodeLastHeard.remove(entry.getKey());
+			Set<String> users = nodeUsers.getOrDefault(entry.getKey(), Collections.emptySet());
+			for (String userId : new ArrayList<>(users)) {
+				if (removeNode(userId, entry.getKey())) {
+					notifyWatchers(userId, PresenceEnum.OFFLINE);
+				}
+			}
+			nodeUsers.remove(entry.getKey());
+		}
+	}
+
+	private boolean addNode(String userId, String node) {
+		boolean[] becameOnline = new boolean[1];
+		shard(userId).compute(userId, (k, nodes) -> {
+			if (nodes == null) {
+				nodes = new HashSet<>();
+				becameOnline[0] = true;
+			}
+			nodes.add(node);
+			return nodes;
+		});
+		nodeUsers.computeIfAbsent(node, k -> ConcurrentHashMap.newKeySet()).add(userId);
+		return becameOnline[0];
+	}
+
+	private boolean removeNode(String userId, String node) {
+		boolean[] becameOffline = new boolean[1];
+		shard(userId).computeIfPresent(userId, (k, nodes) -> {
+			nodes.remove(node);
+			if (nodes.isEmpty()) {
+				becameOffline[0] = true;
+				return null;
+			}
+			return nodes;
+		});
+		Set<String> users = nodeUsers.get(node);
+		if (users != null) {
+			users.remove(userId);
+		}
+		return becameOffline[0];
+	}
+
+	private void notifyWatchers(String userId, PresenceEnum presence) {
+		Set<String> userWatchers = watchers.get(userId);
+		if (userWatchers == null) {
+			return;
+		}
+		Envelope envelope = presenceEnvelope(userId, presence);
+		for (String watcher : userWatchers) {
+			for (Subscriber subscriber : subscribers.getOrDefault(watcher, Collections.emptySet())) {
+				subscriber.write(envelope);
+			}
+		}
+	}
+
+	private void flushLastSeen(Handler<AsyncResult<Void>> done) {
+		if (pendingLastSeen.isEmpty()) {
+			done.handle(Future.succeededFuture());
+			return;
+		}
+		List<BulkOperation> updates = new ArrayList<>();
+		for (String userId : new ArrayList<>(pendingLastSeen.keySet())) {
+			Long lastSeen = pendingLastSeen.remove(userId);
+			if (lastSeen == null) {
+				continue;
+			}
+			updates.add(BulkOperation.createUpdate(json("_id", userId), json("$set", json(UserRecord.LAST_SEEN, lastSeen))));
+		}
+		mongo().client().bulkWrite(Accounts.USERS, updates, res -> {
+			if (res.failed()) {
+				logger.error("flushLastSeen: Failed to write {} last seen times", updates.size(), res.cause());
+				done.handle(Future.failedFuture(res.cause()));
+			} else {
+				done.handle(Future.succeededFuture());
+			}
+		});
+	}
+
+	private Map<String, Set<String>> shard(String userId) {
+		return online.get((userId.hashCode() & Integer.MAX_VALUE) % SHARDS);
+	}
+
+	private static Envelope presenceEnvelope(String userId, PresenceEnum presence) {
+		return new Envelope().changed(new EnvelopeChanged().friend(new Friend().friendId(userId).presence(presence)));
+	}
+
+	@Override
+	public void close(Handler<AsyncResult<Void>> completionHandler) {
+		registries.remove(vertx, this);
+		vertx.cancelTimer(fanOutTimer);
+		vertx.cancelTimer(snapshotTimer);
+		vertx.cancelTimer(lastSeenTimer);
+		changesConsumer.unregister();
+		subscriptionsConsumer.unregister();
+		// The users on this node are going offline
+		for (String userId : localConnections.keySet()) {
+			pendingChanges.put(userId, PresenceEnum.OFFLINE);
+			pendingLastSeen.put(userId, System.currentTimeMillis());
+		}
+		localConnections.clear();
+		flushChanges();
+		flushLastSeen(completionHandler);
+	}
+}
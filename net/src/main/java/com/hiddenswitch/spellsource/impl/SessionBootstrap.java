@@ -0,0 +1,85 @@
+package com.hiddenswitch.spellsource.impl;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.Accounts;
+import com.hiddenswitch.spellsource.Invites;
+import com.hiddenswitch.spellsource.client.models.Invite;
+import com.hiddenswitch.spellsource.impl.util.FriendRecord;
+import com.hiddenswitch.spellsource.impl.util.UserRecord;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.hiddenswitch.spellsource.util.Mongo.mongo;
+import static com.hiddenswitch.spellsource.util.QuickJson.json;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Everything a newly connected user's handlers need, read once when the user connects.
+ * <p>
+ * The user record is the one the authentication handler already read to check the user's token, so loading a bootstrap
+ * only reads the user's pending invites. Handlers registered with {@link com.hiddenswitch.spellsource.Connection#connected(io.vertx.core.Handler)}
+ * get it from {@link com.hiddenswitch.spellsource.Connection#bootstrap()} instead of querying Mongo themselves.
+ */
+public class SessionBootstrap {
+	private final UserRecord user;
+	private final List<Invite> pendingInvites;
+
+	public SessionBootstrap(UserRecord user, List<Invite> pendingInvites) {
+		this.user = user;
+		this.pendingInvites = pendingInvites;
+	}
+
+	/**
+	 * Creates a bootstrap for a connection whose user's data wasn't read, with no friends and no pending invites.
+	 *
+	 * @return The bootstrap.
+	 */
+	public static SessionBootstrap empty() {
+		return new SessionBootstrap(null, Collections.emptyList());
+	}
+
+	/**
+	 * Loads the bootstrap of a user who is connecting.
+	 *
+	 * @param userId        The user.
+	 * @param authenticated The user's record, if the authentication handler already read it, or {@code null}.
+	 * @return The bootstrap.
+	 */
+	@Suspendable
+	public static SessionBootstrap load(String userId, UserRecord authenticated) {
+		UserRecord user = authenticated != null && userId.equals(authenticated.getId()) ? authenticated : Accounts.get(userId);
+		List<Invite> invites = mongo().find(Invites.INVITES, json("toUserId", userId, "status", json("$in", Invites.PENDING_STATUSES)), Invite.class);
+		return new SessionBootstrap(user, invites);
+	}
+
+	/**
+	 * Gets the user's record as it was when they connected.
+	 *
+	 * @return The record, or {@code null} if the user doesn't exist.
+	 */
+	public UserRecord getUser() {
+		return user;
+	}
+
+	/**
+	 * Gets the IDs of the user's friends when they connected.
+	 *
+	 * @return The friend IDs.
+	 */
+	public List<String> getFriendIds() {
+		if (user == null || user.getFriends() == null) {
+			return Collections.emptyList();
+		}
+		return user.getFriends().stream().map(FriendRecord::getFriendId).collect(toList());
+	}
+
+	/**
+	 * Gets the undelivered and pending invites sent to the user.
+	 *
+	 * @return The invites.
+	 */
+	public List<Invite> getPendingInvites() {
+		return pendingInvites;
+	}
+}
@@ -0,0 +1,246 @@
+package com.hiddenswitch.spellsource.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Flow control for the outbound side of a websocket.
+ * <p>
+ * Writes go straight to the socket while it keeps up. Once its write queue is full, messages wait in a bounded queue
+ * and the socket is considered backed up: {@link #backpressureHandler(Handler)}s are called so that producers that can
+ * hold back their own messages without losing them can wait until the queue drains. Event bus consumers must not be
+ * paused for this, because a paused consumer drops the messages it can't buffer without telling anyone. What happens
+ * to a message written while the socket is backed up depends on its {@link Traffic}.
+ * <p>
+ * A socket that stays backed up for longer than the slow consumer timeout, or that overflows the queue with messages
+ * that can't be dropped, is a slow consumer and is disconnected. The client is expected to reconnect and resynchronize.
+ * <p>
+ * The limits default to the system properties {@code spellsource.socket.maxQueuedMessages} (1024 messages), {@code
+ * spellsource.socket.writeQueueMaxBytes} (256 KiB of the socket's own write queue) and {@code
+ * spellsource.socket.slowConsumerMillis} (30 seconds).
+ */
+public class SocketFlowControl {
+	private static final Logger logger = LoggerFactory.getLogger(SocketFlowControl.class);
+	public static final int MAX_QUEUED_MESSAGES = Integer.getInteger("spellsource.socket.maxQueuedMessages", 1024);
+	public static final int WRITE_QUEUE_MAX_BYTES = Integer.getInteger("spellsource.socket.writeQueueMaxBytes", 256 * 1024);
+	public static final long SLOW_CONSUMER_MILLIS = Long.getLong("spellsource.socket.slowConsumerMillis", 30000L);
+
+	/**
+	 * How a message is treated when the socket is backed up.
+	 */
+	public enum Traffic {
+		/**
+		 * The message is queued. Overflowing the queue disconnects the socket.
+		 */
+		ESSENTIAL,
+		/**
+		 * Only the latest message for a key matters, like a friend's presence, so it replaces a queued message with the
+		 * same key. Otherwise it is queued like an essential message.
+		 */
+		LATEST,
+		/**
+		 * The message is queued if there's room and dropped otherwise, like chat that clients can fetch again from the
+		 * conversation's history.
+		 */
+		DROPPABLE
+	}
+
+	private final Vertx vertx;
+	private final WriteStream<Buffer> socket;
+	private final int maxQueuedMessages;
+	private final long slowConsumerMillis;
+	private final Deque<Pending> queue = new ArrayDeque<>();
+	private final Map<Object, Pending> latest = new HashMap<>();
+	private final List<Handler<Boolean>> backpressureHandlers = new ArrayList<>();
+	private boolean backedUp;
+	private boolean closed;
+	private long slowConsumerTimer = -1L;
+	private long dropped;
+
+	public SocketFlowControl(Vertx vertx, WriteStream<Buffer> socket) {
+		this(vertx, socket, MAX_QUEUED_MESSAGES, WRITE_QUEUE_MAX_BYTES, SLOW_CONSUMER_MILLIS);
+	}
+
+	public SocketFlowControl(Vertx vertx, WriteStream<Buffer> socket, int maxQueuedMessages, int writeQueueMaxBytes, long slowConsumerMillis) {
+		this.vertx = vertx;
+		this.socket = socket;
+		this.maxQueuedMessages = maxQueuedMessages;
+		this.slowConsumerMillis = slowConsumerMillis;
+		socket.setWriteQueueMaxSize(writeQueueMaxBytes);
+		socket.drainHandler(v -> drain());
+	}
+
+	/**
+	 * Writes an essential message.
+	 *
+	 * @param buffer The message.
+	 */
+	public void write(Buffer buffer) {
+		write(buffer, Traffic.ESSENTIAL, null);
+	}
+
+	/**
+	 * Writes a message, queueing, coalescing or dropping it according to its traffic if the socket is backed up.
+	 *
+	 * @param buffer  The message.
+	 * @param traffic How to treat the message when the socket is backed up.
+	 * @param key     For {@link Traffic#LATEST} messages, the key of the state the message carries.
+	 */
+	public synchronized void write(Buffer buffer, Traffic traffic, Object key) {
+		if (closed) {
+			return;
+		}
+
+		if (queue.isEmpty() && !socket.writeQueueFull()) {
+			socket.write(buffer);
+			if (socket.writeQueueFull()) {
+				onBackedUp();
+			}
+			return;
+		}
+
+		if (traffic == Traffic.LATEST && key != null) {
+			Pending queued = latest.get(key);
+			if (queued != null) {
+				queued.buffer = buffer;
+				return;
+			}
+		}
+
+		if (queue.size() >= maxQueuedMessages) {
+			if (traffic == Traffic.DROPPABLE) {
+				dropped++;
+				return;
+			}
+			disconnect("queue overflow");
+			return;
+		}
+
+		Pending pending = new Pending(buffer, traffic == Traffic.LATEST ? key : null);
+		queue.add(pending);
+		if (pending.key != null) {
+			latest.put(pending.key, pending);
+		}
+		onBackedUp();
+	}
+
+	/**
+	 * Adds a handler that is called with {@code true} when the socket becomes backed up and {@code false} once it has
+	 * drained.
+	 *
+	 * @param handler The handler.
+	 * @return This instance.
+	 */
+	public synchronized SocketFlowControl backpressureHandler(Handler<Boolean> handler) {
+		backpressureHandlers.add(handler);
+		return this;
+	}
+
+	/**
+	 * Indicates whether messages are waiting for the socket.
+	 *
+	 * @return {@code true} if the socket is backed up.
+	 */
+	public synchronized boolean isBackedUp() {
+		return backedUp;
+	}
+
+	/**
+	 * Gets the number of droppable messages that were dropped.
+	 *
+	 * @return The count.
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Indicates whether the socket was disconnected or this instance was closed.
+	 *
+	 * @return {@code true} if no more messages are written.
+	 */
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Discards the queued messages and stops writing to the socket, for example after it has closed.
+	 */
+	public synchronized void close() {
+		closed = true;
+		queue.clear();
+		latest.clear();
+		cancelSlowConsumerTimer();
+	}
+
+	private synchronized void drain() {
+		while (!closed && !queue.isEmpty() && !socket.writeQueueFull()) {
+			Pending pending = queue.poll();
+			if (pending.key != null) {
+				latest.remove(pending.key);
+			}
+			socket.write(pending.buffer);
+		}
+
+		if (closed || !backedUp || !queue.isEmpty() || socket.writeQueueFull()) {
+			return;
+		}
+
+		backedUp = false;
+		cancelSlowConsumerTimer();
+		for (Handler<Boolean> handler : backpressureHandlers) {
+			handler.handle(false);
+		}
+	}
+
+	private void onBackedUp() {
+		if (backedUp) {
+			return;
+		}
+		backedUp = true;
+		slowConsumerTimer = vertx.setTimer(slowConsumerMillis, t -> onSlowConsumerTimeout());
+		for (Handler<Boolean> handler : backpressureHandlers) {
+			handler.handle(true);
+		}
+	}
+
+	private synchronized void onSlowConsumerTimeout() {
+		slowConsumerTimer = -1L;
+		if (backedUp && !closed) {
+			disconnect("backed up for " + slowConsumerMillis + "ms");
+		}
+	}
+
+	private void disconnect(String reason) {
+		logger.warn("disconnect: Disconnecting slow consumer ({}, {} queued, {} dropped)", reason, queue.size(), dropped);
+		close();
+		try {
+			socket.end();
+		} catch (RuntimeException ignored) {
+			// Already closed
+		}
+	}
+
+	private void cancelSlowConsumerTimer() {
+		if (slowConsumerTimer != -1L) {
+			vertx.cancelTimer(slowConsumerTimer);
+			slowConsumerTimer = -1L;
+		}
+	}
+
+	private static class Pending {
+		private Buffer buffer;
+		private final Object key;
+
+		private Pending(Buffer buffer, Object key) {
+			this.buffer = buffer;
+			this.key = key;
+		}
+	}
+}
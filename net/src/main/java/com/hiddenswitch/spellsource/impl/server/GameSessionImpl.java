@@ -10,6 +10,7 @@ import com.hiddenswitch.spellsource.common.ClientConnectionConfiguration;
 import com.hiddenswitch.spellsource.common.ClientConnectionConfigurationImpl;
 import com.hiddenswitch.spellsource.common.NetworkBehaviour;
 import com.hiddenswitch.spellsource.common.Writer;
+import com.hiddenswitch.spellsource.impl.util.Scheduler;
 import com.hiddenswitch.spellsource.impl.util.ServerGameContext;
 import com.hiddenswitch.spellsource.models.MatchExpireRequest;
 import io.vertx.core.Vertx;
@@ -46,13 +47,23 @@ public class GameSessionImpl implements GameSession {
 	private Logger logger = LoggerFactory.getLogger(GameSessionImpl.class);
 	private final HashSet<SuspendableAction1<GameSessionImpl>> gameOverHandlers = new HashSet<>();
 	private final Vertx vertx;
+	private final Scheduler scheduler;
 
 	public GameSessionImpl(String host, int websocketPort, Configuration p1, Configuration p2, String gameId, Vertx vertx) {
+		this(host, websocketPort, p1, p2, gameId, vertx, new VertxScheduler(vertx));
+	}
+
+	/**
+	 * Creates a game session whose turn and mulligan timers are scheduled on the specified scheduler, like the {@link
+	 * com.hiddenswitch.spellsource.impl.util.TimingWheel} its verticle shares between games.
+	 */
+	public GameSessionImpl(String host, int websocketPort, Configuration p1, Configuration p2, String gameId, Vertx vertx, Scheduler scheduler) {
 		setHost(host);
 		this.configuration1 = p1;
 		this.configuration2 = p2;
 		this.gameId = gameId;
 		this.vertx = vertx;
+		this.scheduler = scheduler;
 		this.websocketPort = websocketPort;
 		if (p1.getUserId().equals(p2.getUserId())) {
 			throw new RuntimeException();
@@ -142,7 +153,7 @@ public class GameSessionImpl implements GameSession {
 		// Configure the network behaviours on the players
 		Player player1 = getPlayer(configuration1.getUserId());
 		Player player2 = getPlayer(configuration2.getUserId());
-		this.gameContext = new ServerGameContext(player1, player2, deckFormat, getGameId(), new VertxScheduler(vertx));
+		this.gameContext = new ServerGameContext(player1, player2, deckFormat, getGameId(), scheduler);
 		this.gameContext.setBehaviours(new Behaviour[]{new NetworkBehaviour(), new NetworkBehaviour()});
 		final Writer listener1;
 		final Writer listener2;
@@ -106,6 +106,11 @@ public class WebSocketWriter implements Writer {
 				return;
 			}
 
+			// Touches are cosmetic, so drop them instead of adding to a backed up socket
+			if (getPrivateSocket().writeQueueFull()) {
+				return;
+			}
+
 			// Build a touch event
 			final int id = touchingNotification.getEntityReference().getId();
 			final ServerToClientMessage message = new ServerToClientMessage()
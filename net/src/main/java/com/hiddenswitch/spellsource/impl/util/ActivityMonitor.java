@@ -3,27 +3,27 @@ package com.hiddenswitch.spellsource.impl.util;
 import co.paralleluniverse.fibers.SuspendExecution;
 import co.paralleluniverse.fibers.Suspendable;
 import co.paralleluniverse.strands.SuspendableAction1;
-import io.vertx.core.Vertx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.ref.WeakReference;
-
 import static com.hiddenswitch.spellsource.util.Sync.suspendableHandler;
 
 /**
- * Created by bberman on 12/6/16.
+ * Calls a handler when there has been no activity in a game for a timeout.
+ * <p>
+ * Monitors are scheduled on a {@link TimingWheel}. Since activity is recorded on every inbound game message, {@link
+ * #activity()} only postpones the monitor's pending timeout, and the wheel notices the new deadline when it sweeps.
  */
 public class ActivityMonitor {
 	private static Logger logger = LoggerFactory.getLogger(ActivityMonitor.class);
 	private final String gameId;
 	private final long noActivityTimeout;
-	private final WeakReference<Vertx> vertx;
-	private long lastTimerId = Long.MIN_VALUE;
+	private final TimingWheel wheel;
+	private volatile TimingWheel.Timeout timeout;
 	private final SuspendableAction1<ActivityMonitor> onTimeout;
 
-	public ActivityMonitor(Vertx vertx, String gameId, long noActivityTimeout, SuspendableAction1<ActivityMonitor> onTimeout) {
-		this.vertx = new WeakReference<>(vertx);
+	public ActivityMonitor(TimingWheel wheel, String gameId, long noActivityTimeout, SuspendableAction1<ActivityMonitor> onTimeout) {
+		this.wheel = wheel;
 		this.gameId = gameId;
 		this.noActivityTimeout = noActivityTimeout;
 		this.onTimeout = onTimeout;
@@ -35,26 +35,20 @@ public class ActivityMonitor {
 
 	@Suspendable
 	public void activity() {
-		final Vertx vertx = this.vertx.get();
-		if (vertx == null) {
+		TimingWheel.Timeout timeout = this.timeout;
+		if (timeout != null && timeout.postpone(noActivityTimeout)) {
 			return;
 		}
 
-		cancel();
-
-		lastTimerId = vertx.setTimer(noActivityTimeout, suspendableHandler(this::handleTimeout));
+		this.timeout = wheel.schedule(noActivityTimeout, suspendableHandler(this::handleTimeout));
 	}
 
 	@Suspendable
 	public void cancel() {
-		final Vertx vertx = this.vertx.get();
-
-		if (vertx == null) {
-			return;
-		}
-
-		if (lastTimerId != Long.MIN_VALUE) {
-			vertx.cancelTimer(lastTimerId);
+		TimingWheel.Timeout timeout = this.timeout;
+		if (timeout != null) {
+			timeout.cancel();
+			this.timeout = null;
 		}
 	}
 
@@ -0,0 +1,99 @@
+package com.hiddenswitch.spellsource.impl.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import net.demilich.metastone.game.cards.desc.CardDesc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compact representation of the cards a user owns, stored in {@link com.hiddenswitch.spellsource.Inventory#COUNTS}
+ * with the user's ID as its ID.
+ * <p>
+ * Copies of a card that carry no instance-specific facts are stored only as a count here. The {@code n}th copy of a
+ * card has the deterministic inventory ID {@code userId:cardId:n}. A copy is <b>materialized</b> into a full {@link
+ * InventoryRecord} with that ID the first time it's put in a deck, donated or given a persistent attribute. Copies that
+ * haven't been materialized are synthesized by {@link #toInventoryRecord(String, String, int)} when the user's
+ * collection is read.
+ */
+public class CardCountsRecord extends MongoRecord {
+	public static final String COUNTS = "counts";
+	private static final char SEPARATOR = ':';
+
+	@JsonProperty
+	private Map<String, Integer> counts = new HashMap<>();
+
+	protected CardCountsRecord() {
+	}
+
+	@JsonIgnore
+	public Map<String, Integer> getCounts() {
+		return counts;
+	}
+
+	@JsonIgnore
+	public int getCount(String cardId) {
+		return counts.getOrDefault(cardId, 0);
+	}
+
+	/**
+	 * Gets the inventory ID of a copy of a card stored in a user's counts.
+	 *
+	 * @param userId The owner.
+	 * @param cardId The card ID.
+	 * @param index  The zero-based index of the copy.
+	 * @return The inventory ID.
+	 */
+	public static String inventoryId(String userId, String cardId, int index) {
+		return userId + SEPARATOR + cardId + SEPARATOR + index;
+	}
+
+	/**
+	 * Indicates whether the specified inventory ID refers to a copy stored in a user's counts. Inventory IDs of
+	 * individually created records are alphanumeric and never are.
+	 *
+	 * @param inventoryId The inventory ID.
+	 * @return {@code true} if this ID was created by {@link #inventoryId(String, String, int)}.
+	 */
+	public static boolean isCompact(String inventoryId) {
+		int first = inventoryId.indexOf(SEPARATOR);
+		int last = inventoryId.lastIndexOf(SEPARATOR);
+		return first > 0 && last > first + 1 && last < inventoryId.length() - 1;
+	}
+
+	public static String userId(String inventoryId) {
+		return inventoryId.substring(0, inventoryId.indexOf(SEPARATOR));
+	}
+
+	public static String cardId(String inventoryId) {
+		return inventoryId.substring(inventoryId.indexOf(SEPARATOR) + 1, inventoryId.lastIndexOf(SEPARATOR));
+	}
+
+	public static int index(String inventoryId) {
+		try {
+			return Integer.parseInt(inventoryId.substring(inventoryId.lastIndexOf(SEPARATOR) + 1));
+		} catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Creates the inventory record for a copy stored in a user's counts, as it's stored when it's materialized.
+	 *
+	 * @param userId The owner.
+	 * @param cardId The card ID.
+	 * @param index  The zero-based index of the copy.
+	 * @return A record that belongs only to the user's collection and has no facts.
+	 */
+	public static InventoryRecord toInventoryRecord(String userId, String cardId, int index) {
+		CardDesc cardDesc = new CardDesc();
+		cardDesc.setId(cardId);
+		List<String> collectionIds = Collections.singletonList(userId);
+		return new InventoryRecord(inventoryId(userId, cardId, index), cardDesc)
+				.withUserId(userId)
+				.withCollectionIds(collectionIds);
+	}
+}
@@ -42,11 +42,25 @@ public class FriendRecord implements Serializable {
 	}
 
 
+	/**
+	 * Presence used to be stored with the friend. It's no longer written and is kept only so that existing documents can
+	 * still be read.
+	 *
+	 * @param presence The stored presence.
+	 * @see #toFriendDto(PresenceEnum) to send the friend with their current presence.
+	 */
+	@Deprecated
 	public void setPresence(PresenceEnum presence) {
 		this.presence = presence;
 	}
 
-	public Friend toFriendDto() {
+	/**
+	 * Creates the friend as it's sent to clients.
+	 *
+	 * @param presence The friend's current presence, which isn't stored with the record.
+	 * @return The friend.
+	 */
+	public Friend toFriendDto(PresenceEnum presence) {
 		return new Friend().friendId(this.friendId).since(this.since).friendName(this.displayName).presence(presence);
 	}
 
@@ -70,6 +84,7 @@ public class FriendRecord implements Serializable {
 		return result;
 	}
 
+	@Deprecated
 	public PresenceEnum getPresence() {
 		return presence;
 	}
@@ -0,0 +1,220 @@
+package com.hiddenswitch.spellsource.impl.util;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.impl.TimerId;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A hashed timing wheel that all of a verticle's game timeouts share, like its {@link ActivityMonitor}s and the turn
+ * and mulligan timers of its {@link ServerGameContext}s.
+ * <p>
+ * The wheel is a ring of buckets swept by a single periodic Vert.x timer, each bucket holding the timeouts due in one
+ * tick. Scheduling a timeout only enqueues it, and the sweep moves new timeouts into their buckets. A timeout's
+ * deadline can be postponed with {@link Timeout#postpone(long)}, which just records the new deadline: when the sweep
+ * reaches the bucket of the old deadline, the timeout is moved to the bucket of the new one instead of firing. Neither
+ * scheduling, postponing nor cancelling creates or cancels Vert.x timers.
+ * <p>
+ * Timeouts fire on the context that created the wheel, at most one tick late and never early.
+ */
+public class TimingWheel implements Scheduler {
+	private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+	public static final long DEFAULT_TICK_MILLIS = 100L;
+	public static final int DEFAULT_BUCKETS = 512;
+
+	private final Vertx vertx;
+	private final long tickMillis;
+	private final List<Timeout>[] buckets;
+	private final int mask;
+	private final long startMillis;
+	private final long periodicId;
+	private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+	private final Map<Long, Timeout> timeouts = new ConcurrentHashMap<>();
+	private final AtomicLong ids = new AtomicLong();
+	private long tick;
+
+	public TimingWheel(Vertx vertx) {
+		this(vertx, DEFAULT_TICK_MILLIS, DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * Creates a timing wheel and starts sweeping it.
+	 *
+	 * @param vertx      The Vert.x instance whose periodic timer sweeps the wheel.
+	 * @param tickMillis The resolution of the wheel.
+	 * @param buckets    The number of buckets, rounded up to a power of two. A timeout further away than one turn of the
+	 *                   wheel waits in its bucket for the turns in between.
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheel(Vertx vertx, long tickMillis, int buckets) {
+		this.vertx = vertx;
+		this.tickMillis = tickMillis;
+		int size = Integer.highestOneBit(Math.max(1, buckets - 1)) << 1;
+		this.buckets = new List[size];
+		for (int i = 0; i < size; i++) {
+			this.buckets[i] = new ArrayList<>();
+		}
+		this.mask = size - 1;
+		this.startMillis = now();
+		this.periodicId = vertx.setPeriodic(tickMillis, this::sweep);
+	}
+
+	/**
+	 * Schedules a timeout.
+	 *
+	 * @param delay   The delay in milliseconds.
+	 * @param handler The handler, called with the timeout's ID.
+	 * @return The timeout.
+	 */
+	public Timeout schedule(long delay, Handler<Long> handler) {
+		Timeout timeout = new Timeout(ids.incrementAndGet(), now() + delay, handler);
+		timeouts.put(timeout.id, timeout);
+		scheduled.add(timeout);
+		return timeout;
+	}
+
+	@Override
+	@Suspendable
+	public TimerId setTimer(long delay, Handler<Long> handler) {
+		return new TimerId(schedule(delay, handler).id);
+	}
+
+	@Override
+	@Suspendable
+	public boolean cancelTimer(TimerId id) {
+		Timeout timeout = timeouts.get(id.longValue());
+		return timeout != null && timeout.cancel();
+	}
+
+	/**
+	 * Gets the number of timeouts that haven't fired or been cancelled.
+	 *
+	 * @return The count.
+	 */
+	public int size() {
+		return timeouts.size();
+	}
+
+	/**
+	 * Stops sweeping the wheel. Pending timeouts never fire.
+	 */
+	public void close() {
+		vertx.cancelTimer(periodicId);
+		timeouts.clear();
+		scheduled.clear();
+	}
+
+	private void sweep(long ignored) {
+		Timeout added;
+		while ((added = scheduled.poll()) != null) {
+			if (!added.cancelled) {
+				buckets[(int) (Math.max(dueTick(added), tick) & mask)].add(added);
+			}
+		}
+
+		long currentTick = (now() - startMillis) / tickMillis;
+		for (; tick <= currentTick; tick++) {
+			int index = (int) (tick & mask);
+			List<Timeout> bucket = buckets[index];
+			int kept = 0;
+			for (int i = 0; i < bucket.size(); i++) {
+				Timeout timeout = bucket.get(i);
+				if (timeout.cancelled) {
+					continue;
+				}
+
+				long due = dueTick(timeout);
+				if (due <= tick) {
+					fire(timeout);
+				} else if ((due & mask) == index) {
+					// Due in a later turn of the wheel
+					bucket.set(kept++, timeout);
+				} else {
+					// Postponed since it was placed
+					buckets[(int) (due & mask)].add(timeout);
+				}
+			}
+			bucket.subList(kept, bucket.size()).clear();
+		}
+	}
+
+	private void fire(Timeout timeout) {
+		timeouts.remove(timeout.id);
+		timeout.cancelled = true;
+		try {
+			timeout.handler.handle(timeout.id);
+		} catch (RuntimeException ex) {
+			logger.error("fire: Timeout {} threw", timeout.id, ex);
+		}
+	}
+
+	private long dueTick(Timeout timeout) {
+		// Round up so that timeouts never fire early
+		return (timeout.deadline - startMillis + tickMillis - 1) / tickMillis;
+	}
+
+	private static long now() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+
+	/**
+	 * A timeout scheduled on a {@link TimingWheel}.
+	 */
+	public class Timeout {
+		private final long id;
+		private final Handler<Long> handler;
+		private volatile long deadline;
+		private volatile boolean cancelled;
+
+		private Timeout(long id, long deadline, Handler<Long> handler) {
+			this.id = id;
+			this.deadline = deadline;
+			this.handler = handler;
+		}
+
+		/**
+		 * Moves the deadline to the specified delay from now, if that's later than the current deadline. This only
+		 * records the deadline.
+		 *
+		 * @param delay The delay in milliseconds.
+		 * @return {@code false} if the timeout already fired or was cancelled, in which case a new one should be
+		 * scheduled.
+		 */
+		public boolean postpone(long delay) {
+			long deadline = now() + delay;
+			if (deadline > this.deadline) {
+				this.deadline = deadline;
+			}
+			return !cancelled;
+		}
+
+		/**
+		 * Cancels the timeout. It is removed from its bucket when the sweep reaches it.
+		 *
+		 * @return {@code true} if the timeout was pending.
+		 */
+		public boolean cancel() {
+			if (cancelled) {
+				return false;
+			}
+			cancelled = true;
+			timeouts.remove(id);
+			return true;
+		}
+
+		public long getId() {
+			return id;
+		}
+	}
+}
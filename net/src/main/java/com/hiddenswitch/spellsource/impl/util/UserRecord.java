@@ -34,6 +34,7 @@ public class UserRecord extends MongoRecord implements User, Serializable {
 	public static final String LOGIN_TOKENS = "loginTokens";
 	public static final String SERVICES_RESUME_LOGIN_TOKENS = SERVICES + "." + RESUME + "." + LOGIN_TOKENS;
 	public static final String SERVICES_PASSWORD_SCRYPT = "services.password.scrypt";
+	public static final String LAST_SEEN = "lastSeen";
 
 	private List<EmailRecord> emails = new ArrayList<>();
 	private String username;
@@ -43,6 +44,7 @@ public class UserRecord extends MongoRecord implements User, Serializable {
 	private ServicesRecord services = new ServicesRecord();
 	private boolean bot;
 	private String privacyToken;
+	private long lastSeen;
 
 	/**
 	 * A weak reference to the auth provider, automatically connected by Vertx.
@@ -205,4 +207,17 @@ public class UserRecord extends MongoRecord implements User, Serializable {
 	public void setPrivacyToken(String privacyToken) {
 		this.privacyToken = privacyToken;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * The time in milliseconds since the epoch when this user last disconnected.
+	 *
+	 * @return The time, or {@code 0} if the user has never disconnected.
+	 */
+	public long getLastSeen() {
+		return lastSeen;
+	}
+
+	public void setLastSeen(long lastSeen) {
+		this.lastSeen = lastSeen;
+	}
+}
@@ -15,6 +15,7 @@ public final class CreateGameSessionRequest implements Serializable {
 	private Configuration pregame2;
 	private Trigger customTriggers;
 	private long noActivityTimeout = Games.getDefaultNoActivityTimeout();
+	private boolean placed;
 
 	public CreateGameSessionRequest() {
 	}
@@ -87,6 +88,25 @@ public final class CreateGameSessionRequest implements Serializable {
 		return this;
 	}
 
+	/**
+	 * Indicates whether a deployment has already been chosen to host this game session, in which case the receiving
+	 * deployment must create the session itself instead of placing it on another node.
+	 *
+	 * @return {@code true} if the session has been placed
+	 */
+	public boolean isPlaced() {
+		return placed;
+	}
+
+	public void setPlaced(boolean placed) {
+		this.placed = placed;
+	}
+
+	public CreateGameSessionRequest withPlaced(boolean placed) {
+		setPlaced(placed);
+		return this;
+	}
+
 	public Trigger getCustomTriggers() {
 		return customTriggers;
 	}
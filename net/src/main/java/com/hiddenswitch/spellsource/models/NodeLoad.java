@@ -0,0 +1,51 @@
+package com.hiddenswitch.spellsource.models;
+
+import com.hiddenswitch.spellsource.util.DefaultClusterSerializable;
+
+import java.io.Serializable;
+
+/**
+ * The load signals a games deployment publishes so that new game sessions can be placed on the least-loaded node.
+ *
+ * @see com.hiddenswitch.spellsource.impl.GameSessionPlacement
+ */
+public final class NodeLoad implements Serializable, DefaultClusterSerializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * How many active games cost as much as one second per second of bot CPU time.
+	 */
+	private static final double BOT_CPU_WEIGHT = 4.0;
+	/**
+	 * How many milliseconds of event loop lag cost as much as one active game.
+	 */
+	private static final double LAG_MILLIS_PER_GAME = 10.0;
+
+	public String deploymentId;
+	public int activeGames;
+	public long botCpuNanosPerSecond;
+	public long eventLoopLagMillis;
+	public long timestamp;
+
+	public NodeLoad() {
+	}
+
+	public NodeLoad(String deploymentId, int activeGames, long botCpuNanosPerSecond, long eventLoopLagMillis, long timestamp) {
+		this.deploymentId = deploymentId;
+		this.activeGames = activeGames;
+		this.botCpuNanosPerSecond = botCpuNanosPerSecond;
+		this.eventLoopLagMillis = eventLoopLagMillis;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Combines the signals into a single comparable score, measured in equivalent active games.
+	 *
+	 * @return The score. Lower is less loaded.
+	 */
+	public double score() {
+		return activeGames
+				+ BOT_CPU_WEIGHT * botCpuNanosPerSecond / 1_000_000_000.0
+				+ eventLoopLagMillis / LAG_MILLIS_PER_GAME;
+	}
+}
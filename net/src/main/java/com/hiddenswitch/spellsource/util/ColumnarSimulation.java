@@ -0,0 +1,294 @@
+package com.hiddenswitch.spellsource.util;
+
+import net.demilich.metastone.game.GameContext;
+import net.demilich.metastone.game.Player;
+import net.demilich.metastone.game.actions.GameAction;
+import net.demilich.metastone.game.behaviour.Behaviour;
+import net.demilich.metastone.game.cards.Card;
+import net.demilich.metastone.game.decks.Deck;
+import net.demilich.metastone.game.shared.threat.ThreatBasedHeuristic;
+import net.demilich.metastone.game.shared.threat.WeightedFeature;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many games entirely in Java and writes every decision they contain into a columnar file, so that training data
+ * crosses the Python bridge as one memory-mapped file instead of one proxy per object.
+ * <p>
+ * Each row is a decision a behaviour made. The file is little-endian and laid out like a single Arrow record batch of
+ * fixed-width columns:
+ * <ul>
+ * <li>A header of the magic {@code SSCOLS01}, an {@code int32} version, an {@code int32} column count and an {@code
+ * int64} row count.</li>
+ * <li>One {@link #COLUMN_DESCRIPTOR_BYTES} descriptor per column: a {@link #COLUMN_NAME_BYTES} ASCII name padded with
+ * zeros, an {@code int32} type ({@link #TYPE_INT32} or {@link #TYPE_FLOAT64}), an {@code int32} element width and the
+ * {@code int64} file offset of the column's data.</li>
+ * <li>The data of each column, contiguous and aligned to 8 bytes.</li>
+ * </ul>
+ * The integer columns are {@code game}, {@code turn}, {@code player}, {@code action_type} (the {@link
+ * net.demilich.metastone.game.actions.ActionType} ordinal), {@code action_index} (the index of the chosen action in
+ * the valid actions), {@code action_count} and {@code outcome} (1 if the deciding player won the game, -1 if they lost
+ * and 0 for a draw). They are followed by one {@code float64} column per {@link WeightedFeature}, in lowercase, holding
+ * the state the decision was made in as seen by {@link ThreatBasedHeuristic#extract(GameContext, int, double[])}.
+ * <p>
+ * Games are played as a parallel level of the {@link ComputeBudget}. Each game buffers its rows in primitive arrays,
+ * and the file is mapped and written once the row count is known.
+ */
+public class ColumnarSimulation {
+	public static final int VERSION = 1;
+	public static final int TYPE_INT32 = 0;
+	public static final int TYPE_FLOAT64 = 1;
+	public static final int COLUMN_NAME_BYTES = 48;
+	public static final int COLUMN_DESCRIPTOR_BYTES = COLUMN_NAME_BYTES + 16;
+	private static final byte[] MAGIC = "SSCOLS01".getBytes(StandardCharsets.US_ASCII);
+	private static final int HEADER_BYTES = 24;
+	private static final String[] INT_COLUMNS = {"game", "turn", "player", "action_type", "action_index", "action_count", "outcome"};
+	private static final WeightedFeature[] FEATURES = WeightedFeature.values();
+
+	/**
+	 * Plays games between two decks and writes their decisions to a columnar file.
+	 *
+	 * @param deckPair   The decks of the first and second player.
+	 * @param behaviour1 The first player's behaviour.
+	 * @param behaviour2 The second player's behaviour.
+	 * @param games      The number of games to play.
+	 * @param path       The file to write, which is replaced.
+	 * @return The number of rows written.
+	 * @throws IOException if the file could not be written.
+	 */
+	public static long simulate(List<Deck> deckPair, Supplier<Behaviour> behaviour1, Supplier<Behaviour> behaviour2, int games, String path) throws IOException {
+		List<Integer> indices = IntStream.range(0, games).boxed().collect(Collectors.toList());
+		List<Steps> steps = ComputeBudget.map(indices, i -> play(i, GameContext.fromDecks(deckPair, behaviour1.get(), behaviour2.get()), false));
+		return write(steps, path);
+	}
+
+	/**
+	 * Plays a game to completion many times from the same state and writes their decisions to a columnar file.
+	 * <p>
+	 * Each rollout plays a clone of the state, so the state itself is not modified.
+	 *
+	 * @param state      The state to start from.
+	 * @param behaviour1 The first player's behaviour.
+	 * @param behaviour2 The second player's behaviour.
+	 * @param rollouts   The number of rollouts.
+	 * @param path       The file to write, which is replaced.
+	 * @return The number of rows written.
+	 * @throws IOException if the file could not be written.
+	 */
+	public static long rollout(GameContext state, Supplier<Behaviour> behaviour1, Supplier<Behaviour> behaviour2, int rollouts, String path) throws IOException {
+		List<GameContext> clones = new ArrayList<>(rollouts);
+		for (int i = 0; i < rollouts; i++) {
+			GameContext clone = state.clone();
+			clone.setBehaviours(new Behaviour[]{behaviour1.get(), behaviour2.get()});
+			clones.add(clone);
+		}
+		List<Integer> indices = IntStream.range(0, rollouts).boxed().collect(Collectors.toList());
+		List<Steps> steps = ComputeBudget.map(indices, i -> play(i, clones.get(i), true));
+		return write(steps, path);
+	}
+
+	private static Steps play(int game, GameContext context, boolean resume) {
+		Steps steps = new Steps(game);
+		for (int i = 0; i < 2; i++) {
+			context.setBehaviour(i, new RecordingBehaviour(context.getBehaviours().get(i), context, steps));
+		}
+		try {
+			if (resume) {
+				context.resume();
+			} else {
+				context.play();
+			}
+			steps.finish(context.getWinningPlayerId());
+		} finally {
+			context.dispose();
+		}
+		return steps;
+	}
+
+	private static long write(List<Steps> games, String path) throws IOException {
+		long rows = 0;
+		for (Steps steps : games) {
+			rows += steps.size;
+		}
+		int columns = INT_COLUMNS.length + FEATURES.length;
+		long dataStart = align(HEADER_BYTES + (long) columns * COLUMN_DESCRIPTOR_BYTES);
+		long intBytes = align(4L * rows);
+		long length = dataStart + INT_COLUMNS.length * intBytes + FEATURES.length * 8L * rows;
+		if (length > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(String.format("write: %d rows do not fit in a single mapped file, play fewer games per call", rows));
+		}
+
+		try (RandomAccessFile file = new RandomAccessFile(path, "rw");
+		     FileChannel channel = file.getChannel()) {
+			file.setLength(0);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.put(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(columns);
+			buffer.putLong(rows);
+
+			long offset = dataStart;
+			for (String name : INT_COLUMNS) {
+				putDescriptor(buffer, name, TYPE_INT32, 4, offset);
+				offset += intBytes;
+			}
+			for (WeightedFeature feature : FEATURES) {
+				putDescriptor(buffer, feature.name().toLowerCase(Locale.ROOT), TYPE_FLOAT64, 8, offset);
+				offset += 8L * rows;
+			}
+
+			offset = dataStart;
+			for (int column = 0; column < INT_COLUMNS.length; column++) {
+				buffer.position((int) offset);
+				for (Steps steps : games) {
+					buffer.asIntBuffer().put(steps.ints[column], 0, steps.size);
+					buffer.position(buffer.position() + 4 * steps.size);
+				}
+				offset += intBytes;
+			}
+			for (int feature = 0; feature < FEATURES.length; feature++) {
+				buffer.position((int) offset);
+				for (Steps steps : games) {
+					buffer.asDoubleBuffer().put(steps.features[feature], 0, steps.size);
+					buffer.position(buffer.position() + 8 * steps.size);
+				}
+				offset += 8L * rows;
+			}
+			buffer.force();
+		}
+		return rows;
+	}
+
+	private static void putDescriptor(MappedByteBuffer buffer, String name, int type, int width, long offset) {
+		byte[] bytes = Arrays.copyOf(name.getBytes(StandardCharsets.US_ASCII), COLUMN_NAME_BYTES);
+		buffer.put(bytes);
+		buffer.putInt(type);
+		buffer.putInt(width);
+		buffer.putLong(offset);
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * The rows of a single game, buffered column by column.
+	 */
+	private static class Steps {
+		private static final int GAME = 0;
+		private static final int TURN = 1;
+		private static final int PLAYER = 2;
+		private static final int ACTION_TYPE = 3;
+		private static final int ACTION_INDEX = 4;
+		private static final int ACTION_COUNT = 5;
+		private static final int OUTCOME = 6;
+
+		private final int game;
+		private final double[] row = new double[FEATURES.length];
+		private int[][] ints = new int[INT_COLUMNS.length][64];
+		private double[][] features = new double[FEATURES.length][64];
+		private int size;
+
+		private Steps(int game) {
+			this.game = game;
+		}
+
+		private void observe(GameContext context, int playerId) {
+			ThreatBasedHeuristic.extract(context, playerId, row);
+		}
+
+		private void add(GameContext context, int playerId, GameAction action, List<GameAction> validActions) {
+			if (size == ints[0].length) {
+				int capacity = size * 2;
+				for (int i = 0; i < ints.length; i++) {
+					ints[i] = Arrays.copyOf(ints[i], capacity);
+				}
+				for (int i = 0; i < features.length; i++) {
+					features[i] = Arrays.copyOf(features[i], capacity);
+				}
+			}
+
+			ints[GAME][size] = game;
+			ints[TURN][size] = context.getTurn();
+			ints[PLAYER][size] = playerId;
+			ints[ACTION_TYPE][size] = action.getActionType().ordinal();
+			ints[ACTION_INDEX][size] = validActions.indexOf(action);
+			ints[ACTION_COUNT][size] = validActions.size();
+			for (int i = 0; i < row.length; i++) {
+				features[i][size] = row[i];
+			}
+			size++;
+		}
+
+		private void finish(int winningPlayerId) {
+			for (int i = 0; i < size; i++) {
+				int playerId = ints[PLAYER][i];
+				ints[OUTCOME][i] = winningPlayerId < 0 ? 0 : (winningPlayerId == playerId ? 1 : -1);
+			}
+		}
+	}
+
+	/**
+	 * Records the decisions a behaviour makes in the game it was created for.
+	 * <p>
+	 * Clones, like the ones AI searches play out, get the wrapped behaviour without recording.
+	 */
+	private static class RecordingBehaviour implements Behaviour {
+		private final Behaviour behaviour;
+		private final GameContext game;
+		private final Steps steps;
+
+		private RecordingBehaviour(Behaviour behaviour, GameContext game, Steps steps) {
+			this.behaviour = behaviour;
+			this.game = game;
+			this.steps = steps;
+		}
+
+		@Override
+		public Behaviour clone() {
+			return behaviour.clone();
+		}
+
+		@Override
+		public String getName() {
+			return behaviour.getName();
+		}
+
+		@Override
+		public List<Card> mulligan(GameContext context, Player player, List<Card> cards) {
+			return behaviour.mulligan(context, player, cards);
+		}
+
+		@Override
+		public void onGameOver(GameContext context, int playerId, int winningPlayerId) {
+			behaviour.onGameOver(context, playerId, winningPlayerId);
+		}
+
+		@Override
+		public GameAction requestAction(GameContext context, Player player, List<GameAction> validActions) {
+			boolean recording = context == game;
+			if (recording) {
+				// Features describe the state the decision was made in
+				steps.observe(context, player.getId());
+			}
+			GameAction action = behaviour.requestAction(context, player, validActions);
+			if (recording && action != null) {
+				steps.add(context, player.getId(), action, validActions);
+			}
+			return action;
+		}
+	}
+}
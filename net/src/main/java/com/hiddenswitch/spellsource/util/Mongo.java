@@ -5,6 +5,7 @@ import co.paralleluniverse.fibers.Suspendable;
 import com.hiddenswitch.spellsource.impl.util.MongoRecord;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
@@ -12,6 +13,7 @@ import io.vertx.ext.mongo.*;
 
 import static io.vertx.ext.sync.Sync.awaitResult;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -194,6 +196,40 @@ public class Mongo {
 		return QuickJson.fromJson(obj, returnClass);
 	}
 
+	/**
+	 * Runs an aggregation pipeline and retrieves all of its results, following the cursor until it is exhausted.
+	 *
+	 * @param collection The collection to aggregate.
+	 * @param pipeline   The stages of the pipeline.
+	 * @return The resulting documents.
+	 */
+	@Suspendable
+	public List<JsonObject> aggregate(String collection, JsonArray pipeline) {
+		JsonObject command = new JsonObject()
+				.put("aggregate", collection)
+				.put("pipeline", pipeline)
+				.put("cursor", new JsonObject());
+		JsonObject reply = awaitResult(h -> getClient().runCommand("aggregate", command, h));
+		JsonObject cursor = reply.getJsonObject("cursor");
+		List<JsonObject> results = new ArrayList<>();
+		String batch = "firstBatch";
+		while (true) {
+			for (Object result : cursor.getJsonArray(batch)) {
+				results.add((JsonObject) result);
+			}
+			long cursorId = cursor.getLong("id", 0L);
+			if (cursorId == 0L) {
+				return results;
+			}
+			JsonObject getMore = new JsonObject()
+					.put("getMore", cursorId)
+					.put("collection", collection);
+			JsonObject nextReply = awaitResult(h -> getClient().runCommand("getMore", getMore, h));
+			cursor = nextReply.getJsonObject("cursor");
+			batch = "nextBatch";
+		}
+	}
+
 	@Suspendable
 	public Long count(String collection, JsonObject query) {
 		return awaitResult(h -> getClient().count(collection, query, h));
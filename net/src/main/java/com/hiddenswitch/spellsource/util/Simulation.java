@@ -7,6 +7,7 @@ import net.demilich.metastone.game.behaviour.Behaviour;
 import net.demilich.metastone.game.decks.Deck;
 import net.demilich.metastone.game.statistics.SimulationResult;
 import net.demilich.metastone.game.statistics.Statistic;
+import net.demilich.metastone.game.statistics.StatisticsSink;
 import org.jetbrains.annotations.NotNull;
 import org.reflections.Reflections;
 
@@ -134,6 +135,56 @@ public class Simulation {
 		out.close();
 	}
 
+	/**
+	 * Writes the per-card play and win counts of each player in each matchup as a TSV, so that card-level results can be
+	 * analyzed without rerunning the simulations.
+	 *
+	 * @param out     The output.
+	 * @param results The results of {@link #getResults(Supplier, Supplier, int, Map, List, AtomicInteger)}.
+	 */
+	public static void writeCardResults(PrintStream out, Map<String[], SimulationResult> results) {
+		out.println("Deck 1\tDeck 2\tPlayer\tCard ID\tPlays\tGames\tWins");
+		for (Map.Entry<String[], SimulationResult> result : results.entrySet()) {
+			String prefix = result.getKey()[0] + "\t" + result.getKey()[1] + "\t";
+			result.getValue().writeTo(new CardResultsSink(out, prefix + "1\t"), new CardResultsSink(out, prefix + "2\t"));
+		}
+		out.flush();
+	}
+
+	private static class CardResultsSink implements StatisticsSink {
+		private final PrintStream out;
+		private final String prefix;
+
+		private CardResultsSink(PrintStream out, String prefix) {
+			this.out = out;
+			this.prefix = prefix;
+		}
+
+		@Override
+		public void statistic(Statistic statistic, long value) {
+		}
+
+		@Override
+		public void card(String cardId, long plays, long games, long wins) {
+			out.print(prefix);
+			out.print(cardId);
+			out.print('\t');
+			out.print(plays);
+			out.print('\t');
+			out.print(games);
+			out.print('\t');
+			out.println(wins);
+		}
+
+		@Override
+		public void gameLength(int turns, long games) {
+		}
+
+		@Override
+		public void manaCost(int manaCost, long plays) {
+		}
+	}
+
 	@NotNull
 	public static Thread getMonitor(AtomicInteger counter, int total) {
 		return new Thread(() -> {
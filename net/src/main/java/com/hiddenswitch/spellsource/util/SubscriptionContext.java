@@ -8,7 +8,7 @@ public interface SubscriptionContext<TRequest, TDocument> {
 
 	TRequest request();
 
-	DiffContext<TDocument, Comparable<String>> client();
+	DiffContext<TDocument, String> client();
 
 	void close();
 
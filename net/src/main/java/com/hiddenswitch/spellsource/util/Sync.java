@@ -2,9 +2,12 @@ package com.hiddenswitch.spellsource.util;
 
 import co.paralleluniverse.fibers.Fiber;
 import co.paralleluniverse.fibers.FiberScheduler;
+import co.paralleluniverse.fibers.SuspendExecution;
 import co.paralleluniverse.fibers.Suspendable;
 import co.paralleluniverse.strands.SuspendableAction1;
+import co.paralleluniverse.strands.SuspendableCallable;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 
@@ -22,6 +25,35 @@ public class Sync {
 		return p -> new Fiber<Void>(scheduler, () -> handler.call(p)).start();
 	}
 
+	/**
+	 * Starts a call on a new fiber on the current context, so that several suspendable calls can wait on the network
+	 * concurrently. Await the future, or several of them with a {@link io.vertx.core.CompositeFuture}.
+	 *
+	 * @param callable The call.
+	 * @param <T>      The type of the result.
+	 * @return A future that completes with the call's result or fails with its exception.
+	 */
+	@Suspendable
+	public static <T> Future<T> fork(SuspendableCallable<T> callable) {
+		FiberScheduler scheduler = io.vertx.ext.sync.Sync.getContextScheduler();
+		Future<T> future = Future.future();
+		new Fiber<Void>(scheduler, () -> {
+			T result;
+			try {
+				result = callable.run();
+			} catch (SuspendExecution ex) {
+				// Quasar suspends the fiber by throwing this, so it must never be caught
+				throw ex;
+			} catch (Throwable ex) {
+				// Any error, even a StackOverflowError, must complete the future, or its waiters would never resume
+				future.fail(ex);
+				return;
+			}
+			future.complete(result);
+		}).start();
+		return future;
+	}
+
 	@Suspendable
 	public static <R> R invoke(Supplier<R> func0) {
 		return awaitResult(h -> Vertx.currentContext().executeBlocking(done -> {
@@ -2,13 +2,16 @@ package com.hiddenswitch.spellsource;
 
 import ch.qos.logback.classic.Level;
 import co.paralleluniverse.fibers.Suspendable;
+import com.hiddenswitch.spellsource.client.models.Account;
+import com.hiddenswitch.spellsource.client.models.DecksUpdateCommand;
+import com.hiddenswitch.spellsource.client.models.DecksUpdateCommandPushCardIds;
+import com.hiddenswitch.spellsource.common.DeckCreateRequest;
 import com.hiddenswitch.spellsource.impl.SpellsourceTestBase;
 import com.hiddenswitch.spellsource.impl.util.UserRecord;
-import com.hiddenswitch.spellsource.models.CreateAccountResponse;
-import com.hiddenswitch.spellsource.models.LoginRequest;
-import com.hiddenswitch.spellsource.models.LoginResponse;
+import com.hiddenswitch.spellsource.models.*;
 import com.hiddenswitch.spellsource.util.Logging;
 import io.vertx.ext.unit.TestContext;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
@@ -59,6 +62,35 @@ public class AccountsTest extends SpellsourceTestBase {
 		});
 	}
 
+	@Test
+	public void testGetAccountReflectsDeckChanges(TestContext context) throws Exception {
+		sync(() -> {
+			CreateAccountResponse response = Accounts.createAccount(getEmailAddress(), "password", getUsername());
+			String userId = response.getUserId();
+			Inventory.createCollection(CreateCollectionRequest.emptyUserCollection(userId));
+			Account account = Accounts.getAccount(userId);
+			assertEquals(userId, account.getId());
+			assertEquals(0, account.getDecks().size());
+			assertFalse(account.isInMatch());
+			// The cached account is used while nothing changed
+			assertEquals(account, Accounts.getAccount(userId));
+
+			DeckCreateResponse deck = Decks.createDeck(DeckCreateRequest.empty(userId, "name", HeroClass.BLACK));
+			account = Accounts.getAccount(userId);
+			assertEquals(1, account.getDecks().size());
+			assertEquals(deck.getDeckId(), account.getDecks().get(0).getId());
+			assertEquals(0, account.getDecks().get(0).getInventory().size());
+
+			Decks.updateDeck(DeckUpdateRequest.create(userId, deck.getDeckId(), new DecksUpdateCommand()
+					.pushCardIds(new DecksUpdateCommandPushCardIds()
+							.addEachItem("spell_mirror_image")
+							.addEachItem("minion_bloodfen_raptor"))));
+			account = Accounts.getAccount(userId);
+			assertEquals(2, account.getDecks().get(0).getInventory().size());
+			assertNull(Accounts.getAccount("not a user"));
+		});
+	}
+
 	@NotNull
 	public String getEmailAddress() {
 		return "a" + RandomStringUtils.randomAlphanumeric(32) + "test@test.com";
@@ -0,0 +1,133 @@
+package com.hiddenswitch.spellsource;
+
+import com.hiddenswitch.spellsource.client.models.*;
+import com.hiddenswitch.spellsource.impl.SocketFlowControl;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.streams.WriteStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ConnectionTest {
+
+	@Test
+	public void testEnvelopeCodecRelaysClientJson() {
+		Connection.EnvelopeMessageCodec codec = new Connection.EnvelopeMessageCodec();
+		Envelope envelope = new Envelope().result(new EnvelopeResult().sendMessage(new EnvelopeResultSendMessage().messageId("c:1:abcdef")));
+
+		// Bytes received over the wire are exactly what the client would have received from a local connection
+		Buffer wire = Buffer.buffer("prefix");
+		codec.encodeToWire(wire, envelope);
+		Buffer relayed = codec.decodeFromWire("prefix".length(), wire);
+		Assert.assertEquals(codec.transform(envelope), relayed);
+		Assert.assertEquals(envelope, Json.decodeValue(relayed, Envelope.class));
+	}
+
+	@Test
+	public void testRoutes() {
+		Assert.assertEquals(routes(new Envelope()), Collections.emptyList());
+		Assert.assertEquals(routes(new Envelope().method(new EnvelopeMethod().dequeue(new EnvelopeMethodDequeue()))),
+				Collections.singletonList(Connection.Route.DEQUEUE));
+		Assert.assertEquals(routes(new Envelope()
+						.method(new EnvelopeMethod().sendMessage(new EnvelopeMethodSendMessage()))
+						.sub(new EnvelopeSub().conversation(new EnvelopeSubConversation()))),
+				Arrays.asList(Connection.Route.SEND_MESSAGE, Connection.Route.SUB_CONVERSATION));
+		Assert.assertEquals(routes(new Envelope().sub(new EnvelopeSub().liveQuery(LiveQueries.DECKS))),
+				Collections.singletonList(Connection.Route.SUB_LIVE_QUERY));
+	}
+
+	private static List<Connection.Route> routes(Envelope envelope) {
+		List<Connection.Route> routes = new ArrayList<>();
+		Connection.Route.forEach(envelope, routes::add);
+		return routes;
+	}
+
+	@Test
+	public void testFlowControlQueuesCoalescesAndDisconnects() {
+		Vertx vertx = Vertx.vertx();
+		try {
+			FakeSocket socket = new FakeSocket();
+			SocketFlowControl flowControl = new SocketFlowControl(vertx, socket, 2, 1, 60000L);
+			List<Boolean> backpressure = new ArrayList<>();
+			flowControl.backpressureHandler(backpressure::add);
+
+			// Fills the socket's queue
+			flowControl.write(Buffer.buffer("a"));
+			Assert.assertTrue(flowControl.isBackedUp());
+			flowControl.write(Buffer.buffer("presence 1"), SocketFlowControl.Traffic.LATEST, "friend");
+			flowControl.write(Buffer.buffer("presence 2"), SocketFlowControl.Traffic.LATEST, "friend");
+			flowControl.write(Buffer.buffer("b"));
+			flowControl.write(Buffer.buffer("chat"), SocketFlowControl.Traffic.DROPPABLE, null);
+			Assert.assertEquals(flowControl.getDropped(), 1L);
+
+			socket.drain();
+			Assert.assertEquals(socket.written, Arrays.asList("a", "presence 2", "b"));
+			Assert.assertFalse(flowControl.isBackedUp());
+			Assert.assertEquals(backpressure, Arrays.asList(true, false));
+
+			// Overflowing the queue with essential messages disconnects the socket
+			socket.full = true;
+			flowControl.write(Buffer.buffer("c"));
+			flowControl.write(Buffer.buffer("d"));
+			flowControl.write(Buffer.buffer("e"));
+			Assert.assertTrue(flowControl.isClosed());
+			Assert.assertTrue(socket.ended);
+		} finally {
+			vertx.close();
+		}
+	}
+
+	private static class FakeSocket implements WriteStream<Buffer> {
+		private final List<String> written = new ArrayList<>();
+		private Handler<Void> drainHandler;
+		private boolean fillOnWrite = true;
+		private boolean full;
+		private boolean ended;
+
+		private void drain() {
+			fillOnWrite = false;
+			full = false;
+			drainHandler.handle(null);
+		}
+
+		@Override
+		public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+			return this;
+		}
+
+		@Override
+		public WriteStream<Buffer> write(Buffer data) {
+			written.add(data.toString());
+			full |= fillOnWrite;
+			return this;
+		}
+
+		@Override
+		public void end() {
+			ended = true;
+		}
+
+		@Override
+		public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+			return this;
+		}
+
+		@Override
+		public boolean writeQueueFull() {
+			return full;
+		}
+
+		@Override
+		public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+			drainHandler = handler;
+			return this;
+		}
+	}
+}
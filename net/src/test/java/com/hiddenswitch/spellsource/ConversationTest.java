@@ -1,6 +1,7 @@
 package com.hiddenswitch.spellsource;
 
 import com.hiddenswitch.spellsource.client.models.*;
+import com.hiddenswitch.spellsource.impl.ChatHistory;
 import com.hiddenswitch.spellsource.impl.SpellsourceTestBase;
 import com.hiddenswitch.spellsource.models.CreateAccountResponse;
 import io.vertx.core.buffer.Buffer;
@@ -8,8 +9,11 @@ import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.json.Json;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
+import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Test;
 
+import java.util.List;
+
 import static io.vertx.core.json.Json.decodeValue;
 
 public class ConversationTest extends SpellsourceTestBase {
@@ -48,4 +52,27 @@ public class ConversationTest extends SpellsourceTestBase {
 			});
 		});
 	}
+
+	@Test
+	public void testConversationHistoryPages(TestContext context) {
+		sync(() -> {
+			ChatHistory history = ChatHistory.get();
+			String conversationId = RandomStringUtils.randomAlphanumeric(10) + "," + RandomStringUtils.randomAlphanumeric(10);
+			String previousId = "";
+			for (int i = 0; i < ChatHistory.HOT_WINDOW + 6; i++) {
+				String messageId = history.nextMessageId();
+				context.assertTrue(messageId.compareTo(previousId) > 0, "Message IDs should increase");
+				previousId = messageId;
+				history.send(new ChatMessage().messageId(messageId).conversationId(conversationId).message(Integer.toString(i)));
+			}
+
+			List<ChatMessage> latest = history.page(conversationId, null, Conversations.DEFAULT_PAGE_SIZE);
+			context.assertEquals(latest.size(), Conversations.DEFAULT_PAGE_SIZE);
+			context.assertEquals(latest.get(latest.size() - 1).getMessage(), Integer.toString(ChatHistory.HOT_WINDOW + 5));
+
+			List<ChatMessage> older = history.page(conversationId, latest.get(0).getMessageId(), Conversations.DEFAULT_PAGE_SIZE);
+			context.assertEquals(older.size(), ChatHistory.HOT_WINDOW + 6 - Conversations.DEFAULT_PAGE_SIZE);
+			context.assertEquals(older.get(0).getMessage(), "0");
+		});
+	}
 }
@@ -4,8 +4,11 @@ import com.hiddenswitch.spellsource.client.ApiException;
 import com.hiddenswitch.spellsource.client.api.DefaultApi;
 import com.hiddenswitch.spellsource.client.models.*;
 import com.hiddenswitch.spellsource.impl.SpellsourceTestBase;
+import com.hiddenswitch.spellsource.impl.UserId;
 import com.hiddenswitch.spellsource.models.CreateAccountResponse;
 import com.hiddenswitch.spellsource.util.Sync;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.WebSocket;
 import io.vertx.core.json.Json;
@@ -16,6 +19,7 @@ import org.junit.Test;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.vertx.ext.sync.Sync.awaitEvent;
+import static io.vertx.ext.sync.Sync.awaitResult;
 
 public class FriendTest extends SpellsourceTestBase {
 
@@ -150,4 +154,46 @@ public class FriendTest extends SpellsourceTestBase {
 			ws1.close();
 		});
 	}
+
+	@Test
+	public void testReconnectSupersedesPreviousConnection(TestContext context) {
+		sync(() -> {
+			CreateAccountResponse account1 = createRandomAccount();
+			CreateAccountResponse account2 = createRandomAccount();
+			Friends.putFriend(Accounts.findOne(account1.getUserId()), new FriendPutRequest().usernameWithToken(account2.getRecord().getUsername() + "#" + account2.getRecord().getPrivacyToken()));
+			WebSocket ws1 = awaitEvent(h -> vertx.createHttpClient().websocket(8080, "localhost", "/realtime?X-Auth-Token=" + account1.getLoginToken().getToken(), h));
+			WebSocket oldWs = awaitEvent(h -> vertx.createHttpClient().websocket(8080, "localhost", "/realtime?X-Auth-Token=" + account2.getLoginToken().getToken(), h));
+			InviteResponse invite = Invites.invite(new InvitePostRequest().toUserId(account2.getUserId()).message("Reconnect"), Accounts.get(account1.getUserId()));
+
+			Future<Void> oldEnded = Future.future();
+			Future<Void> gotInvite = Future.future();
+			Future<Void> gotPresence = Future.future();
+			oldWs.closeHandler(v -> oldEnded.tryComplete());
+			WebSocket newWs = awaitEvent(h -> vertx.createHttpClient().websocket(8080, "localhost", "/realtime?X-Auth-Token=" + account2.getLoginToken().getToken(), ws -> {
+				ws.handler(buf -> {
+					Envelope msg = Json.decodeValue(buf, Envelope.class);
+					if (msg.getAdded() != null && msg.getAdded().getInvite() != null
+							&& invite.getInvite().getId().equals(msg.getAdded().getInvite().getId())) {
+						gotInvite.tryComplete();
+					}
+					if (msg.getChanged() != null && msg.getChanged().getFriend() != null
+							&& account1.getUserId().equals(msg.getChanged().getFriend().getFriendId())
+							&& msg.getChanged().getFriend().getPresence() == PresenceEnum.ONLINE) {
+						gotPresence.tryComplete();
+					}
+				});
+				h.handle(ws);
+			}));
+
+			// The new connection ends the old one and still receives what was read when it connected
+			awaitResult(h -> CompositeFuture.all(oldEnded, gotInvite, gotPresence).setHandler(h));
+
+			// The old connection's end handler must not remove the new connection's route
+			Long tick = awaitEvent(t -> vertx.setTimer(1000L, t));
+			context.assertNotNull(Connection.getConnections().get(new UserId(account2.getUserId())));
+
+			newWs.close();
+			ws1.close();
+		});
+	}
 }
@@ -9,6 +9,7 @@ import com.hiddenswitch.spellsource.client.api.DefaultApi;
 import com.hiddenswitch.spellsource.client.models.*;
 import com.hiddenswitch.spellsource.common.DeckCreateRequest;
 import com.hiddenswitch.spellsource.concurrent.SuspendableMap;
+import com.hiddenswitch.spellsource.impl.CardsPayload;
 import com.hiddenswitch.spellsource.impl.GameId;
 import com.hiddenswitch.spellsource.impl.SpellsourceTestBase;
 import com.hiddenswitch.spellsource.impl.UserId;
@@ -377,6 +378,17 @@ public class GatewayTest extends SpellsourceTestBase {
 		context.assertEquals(response3.getVersion(), response1.getVersion());
 	}
 
+	@Test
+	public void testCardsPayloadVersion(TestContext context) {
+		CardsPayload payload = CardsPayload.get();
+		context.assertEquals(payload.getResponse().getCards().size(), Cards.getCards().size());
+		context.assertEquals(payload.getResponse().getVersion(), payload.getVersion());
+		context.assertTrue(payload.matches(payload.getVersion()));
+		context.assertTrue(payload.matches("\"other\", W/\"" + payload.getVersion() + "\""));
+		context.assertFalse(payload.matches("\"other\""));
+		context.assertFalse(payload.matches(null));
+	}
+
 	@Test
 	public void testMatchmakingCancellation(TestContext context) throws ApiException, InterruptedException {
 		Logging.setLoggingLevel(Level.DEBUG);
@@ -3,6 +3,8 @@ package com.hiddenswitch.spellsource;
 import com.hiddenswitch.spellsource.impl.SpellsourceTestBase;
 import com.hiddenswitch.spellsource.impl.util.InventoryRecord;
 import com.hiddenswitch.spellsource.models.*;
+import com.hiddenswitch.spellsource.util.Mongo;
+import com.hiddenswitch.spellsource.util.QuickJson;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import net.demilich.metastone.game.entities.heroes.HeroClass;
@@ -127,4 +129,71 @@ public class InventoryTest extends SpellsourceTestBase {
 							&& record.getCollectionIds().stream().anyMatch(cid -> cid.equals(newDeck.getCollectionId()))).count());
 		});
 	}
+
+	@Test
+	public void testCountedCardsMaterializeOnDemand(TestContext context) {
+		sync(() -> {
+			final String userId = createRandomAccount().getUserId();
+			Inventory.createCollection(CreateCollectionRequest.emptyUserCollection(userId));
+			AddToCollectionResponse added = Inventory.addToCollection(AddToCollectionRequest.createWithCardIds(userId, userId, Arrays.asList("spell_fireball", "spell_fireball", "minion_bloodfen_raptor")));
+			context.assertEquals(3L, added.getInventoryIds().stream().distinct().count());
+			context.assertEquals(0L, Mongo.mongo().count(Inventory.INVENTORY, QuickJson.json("userId", userId)), "Cards only in the user collection should only be counted");
+
+			CreateCollectionResponse deck = Inventory.createCollection(CreateCollectionRequest.deck(userId, "name", HeroClass.BLACK, Collections.singletonList(added.getInventoryIds().get(0)), false));
+			context.assertEquals(1L, Mongo.mongo().count(Inventory.INVENTORY, QuickJson.json("userId", userId)), "Only the card put in a deck should be materialized");
+
+			GetCollectionResponse userCollection = Inventory.getCollection(GetCollectionRequest.user(userId));
+			GetCollectionResponse deckCollection = Inventory.getCollection(GetCollectionRequest.deck(deck.getCollectionId()));
+			context.assertEquals(3, userCollection.getInventoryRecords().size());
+			context.assertEquals(3L, userCollection.getInventoryRecords().stream().map(InventoryRecord::getId).distinct().count());
+			context.assertEquals(1, deckCollection.getInventoryRecords().size());
+			context.assertEquals(added.getInventoryIds().get(0), deckCollection.getInventoryRecords().get(0).getId());
+		});
+	}
+
+	@Test
+	public void testCachedCollectionsAreInvalidatedByWrites(TestContext context) {
+		sync(() -> {
+			final String userId = createRandomAccount().getUserId();
+			Inventory.createCollection(CreateCollectionRequest.emptyUserCollection(userId));
+			AddToCollectionResponse added = Inventory.addToCollection(AddToCollectionRequest.createWithCardIds(userId, userId, Collections.singletonList("spell_fireball")));
+			context.assertEquals(1, Inventory.getCollection(GetCollectionRequest.user(userId)).getInventoryRecords().size());
+			context.assertEquals(1, Inventory.getCollection(GetCollectionRequest.user(userId)).getInventoryRecords().size(), "The cached collection should match");
+
+			Inventory.addToCollection(AddToCollectionRequest.createWithCardIds(userId, userId, Collections.singletonList("minion_bloodfen_raptor")));
+			context.assertEquals(2, Inventory.getCollection(GetCollectionRequest.user(userId)).getInventoryRecords().size(), "Adding a card should invalidate the cached collection");
+
+			CreateCollectionResponse deck = Inventory.createCollection(CreateCollectionRequest.deck(userId, "name", HeroClass.BLACK, Collections.emptyList(), false));
+			context.assertEquals(0, Inventory.getCollection(GetCollectionRequest.deck(deck.getCollectionId())).getInventoryRecords().size());
+			Inventory.addToCollection(AddToCollectionRequest.createWithInventory(deck.getCollectionId(), added.getInventoryIds()));
+			GetCollectionResponse deckCollection = Inventory.getCollection(GetCollectionRequest.deck(deck.getCollectionId()));
+			context.assertEquals(1, deckCollection.getInventoryRecords().size(), "Adding a card to a deck should invalidate the cached deck");
+			context.assertTrue(Inventory.getCollection(GetCollectionRequest.user(userId)).getInventoryRecords().stream()
+					.filter(record -> record.getId().equals(added.getInventoryIds().get(0)))
+					.allMatch(record -> record.getCollectionIds().contains(deck.getCollectionId())), "The user's collection should be invalidated with their deck");
+		});
+	}
+
+	@Test
+	public void testChangeCardIdMergesCountedCards(TestContext context) {
+		sync(() -> {
+			final String userId = createRandomAccount().getUserId();
+			Inventory.createCollection(CreateCollectionRequest.emptyUserCollection(userId));
+			AddToCollectionResponse added = Inventory.addToCollection(AddToCollectionRequest.createWithCardIds(userId, userId, Arrays.asList("spell_arcane_explosion", "spell_arcane_explosion", "minion_river_crocolisk")));
+			String renamedId = added.getInventoryIds().get(1);
+			CreateCollectionResponse deck = Inventory.createCollection(CreateCollectionRequest.deck(userId, "name", HeroClass.BLUE, Collections.singletonList(renamedId), false));
+
+			Spellsource.changeCardId("spell_arcane_explosion", "minion_river_crocolisk");
+
+			GetCollectionResponse userCollection = Inventory.getCollection(GetCollectionRequest.user(userId));
+			context.assertEquals(3, userCollection.getInventoryRecords().size(), "No copies should be lost");
+			context.assertEquals(3L, userCollection.getInventoryRecords().stream().map(InventoryRecord::getId).distinct().count(), "No copies should be duplicated");
+			context.assertTrue(userCollection.getInventoryRecords().stream().allMatch(record -> record.getCardId().equals("minion_river_crocolisk")));
+			context.assertEquals(1L, Mongo.mongo().count(Inventory.INVENTORY, QuickJson.json("userId", userId)));
+
+			GetCollectionResponse deckCollection = Inventory.getCollection(GetCollectionRequest.deck(deck.getCollectionId()));
+			context.assertEquals(1, deckCollection.getInventoryRecords().size());
+			context.assertEquals(userId + ":minion_river_crocolisk:2", deckCollection.getInventoryRecords().get(0).getId());
+		});
+	}
 }
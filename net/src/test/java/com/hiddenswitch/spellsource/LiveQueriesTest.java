@@ -0,0 +1,117 @@
+package com.hiddenswitch.spellsource;
+
+import com.hiddenswitch.spellsource.client.models.*;
+import com.hiddenswitch.spellsource.common.DeckCreateRequest;
+import com.hiddenswitch.spellsource.impl.SpellsourceTestBase;
+import com.hiddenswitch.spellsource.models.CreateAccountResponse;
+import com.hiddenswitch.spellsource.models.DeckCreateResponse;
+import com.hiddenswitch.spellsource.models.DeckDeleteRequest;
+import com.hiddenswitch.spellsource.models.DeckUpdateRequest;
+import io.vertx.core.Future;
+import io.vertx.core.http.WebSocket;
+import io.vertx.core.json.Json;
+import io.vertx.ext.unit.TestContext;
+import net.demilich.metastone.game.entities.heroes.HeroClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import static io.vertx.ext.sync.Sync.awaitEvent;
+import static io.vertx.ext.sync.Sync.awaitResult;
+
+public class LiveQueriesTest extends SpellsourceTestBase {
+
+	@Test
+	public void testSubscriptionReceivesDeltas(TestContext context) {
+		sync(() -> {
+			CreateAccountResponse account1 = createRandomAccount();
+			CreateAccountResponse account2 = createRandomAccount();
+			String userId = account1.getUserId();
+
+			List<Envelope> received = new CopyOnWriteArrayList<>();
+			Map<Predicate<Envelope>, Future<Envelope>> expected = new ConcurrentHashMap<>();
+			WebSocket ws = awaitEvent(h -> vertx.createHttpClient().websocket(8080, "localhost", "/realtime?X-Auth-Token=" + account1.getLoginToken().getToken(), socket -> {
+				socket.handler(buf -> {
+					Envelope msg = Json.decodeValue(buf, Envelope.class);
+					received.add(msg);
+					expected.forEach((predicate, future) -> {
+						if (predicate.test(msg)) {
+							future.tryComplete(msg);
+						}
+					});
+				});
+				h.handle(socket);
+			}));
+
+			// Subscribing twice to the same query must not send its deltas twice
+			ws.write(Json.encodeToBuffer(new Envelope().sub(new EnvelopeSub().liveQuery(LiveQueries.DECKS))));
+			ws.write(Json.encodeToBuffer(new Envelope().sub(new EnvelopeSub().liveQuery(LiveQueries.DECKS))));
+			ws.write(Json.encodeToBuffer(new Envelope().sub(new EnvelopeSub().liveQuery(LiveQueries.INVITES))));
+			ws.write(Json.encodeToBuffer(new Envelope().sub(new EnvelopeSub().liveQuery(LiveQueries.FRIENDS))));
+			Long subscribed = awaitEvent(t -> vertx.setTimer(1000L, t));
+
+			Future<Envelope> deckAdded = expect(expected, added(LiveQueries.DECKS, null));
+			DeckCreateResponse deck = Decks.createDeck(DeckCreateRequest.empty(userId, "Live", HeroClass.BLACK));
+			String deckId = deck.getDeckId();
+			awaitResult(deckAdded::setHandler);
+			context.assertEquals(deckId, deckAdded.result().getAdded().getLiveQuery().getId());
+
+			Future<Envelope> deckChanged = expect(expected, changed(LiveQueries.DECKS, deckId));
+			Decks.updateDeck(DeckUpdateRequest.create(userId, deckId, new DecksUpdateCommand().setName("Renamed")));
+			awaitResult(deckChanged::setHandler);
+
+			Future<Envelope> deckRemoved = expect(expected, removed(LiveQueries.DECKS, deckId));
+			Decks.deleteDeck(DeckDeleteRequest.create(deckId));
+			awaitResult(deckRemoved::setHandler);
+			context.assertEquals(1L, received.stream().filter(added(LiveQueries.DECKS, deckId)).count());
+
+			Future<Envelope> friendAdded = expect(expected, added(LiveQueries.FRIENDS, account2.getUserId()));
+			Friends.putFriend(Accounts.findOne(userId), new FriendPutRequest().usernameWithToken(account2.getRecord().getUsername() + "#" + account2.getRecord().getPrivacyToken()));
+			awaitResult(friendAdded::setHandler);
+
+			Future<Envelope> inviteAdded = expect(expected, added(LiveQueries.INVITES, null));
+			InviteResponse invite = Invites.invite(new InvitePostRequest().toUserId(userId).message("Live"), Accounts.get(account2.getUserId()));
+			awaitResult(inviteAdded::setHandler);
+			context.assertEquals(invite.getInvite().getId(), inviteAdded.result().getAdded().getLiveQuery().getId());
+
+			Future<Envelope> friendRemoved = expect(expected, removed(LiveQueries.FRIENDS, account2.getUserId()));
+			Friends.unfriend(Accounts.findOne(userId), account2.getUserId());
+			awaitResult(friendRemoved::setHandler);
+
+			// After unsubscribing, writes to the user's friends aren't sent anymore
+			ws.write(Json.encodeToBuffer(new Envelope().unsub(new EnvelopeUnsub().liveQuery(LiveQueries.FRIENDS))));
+			Long unsubscribed = awaitEvent(t -> vertx.setTimer(1000L, t));
+			Friends.putFriend(Accounts.findOne(userId), new FriendPutRequest().usernameWithToken(account2.getRecord().getUsername() + "#" + account2.getRecord().getPrivacyToken()));
+			Long waited = awaitEvent(t -> vertx.setTimer(1000L, t));
+			context.assertEquals(1L, received.stream().filter(added(LiveQueries.FRIENDS, account2.getUserId())).count());
+
+			ws.close();
+		});
+	}
+
+	private static Future<Envelope> expect(Map<Predicate<Envelope>, Future<Envelope>> expected, Predicate<Envelope> predicate) {
+		Future<Envelope> future = Future.future();
+		expected.put(predicate, future);
+		return future;
+	}
+
+	private static Predicate<Envelope> added(String query, String id) {
+		return msg -> msg.getAdded() != null && matches(msg.getAdded().getLiveQuery(), query, id);
+	}
+
+	private static Predicate<Envelope> changed(String query, String id) {
+		return msg -> msg.getChanged() != null && matches(msg.getChanged().getLiveQuery(), query, id);
+	}
+
+	private static Predicate<Envelope> removed(String query, String id) {
+		return msg -> msg.getRemoved() != null && matches(msg.getRemoved().getLiveQuery(), query, id);
+	}
+
+	private static boolean matches(LiveQueryDelta delta, String query, String id) {
+		return delta != null && query.equals(delta.getQuery()) && (id == null || id.equals(delta.getId()));
+	}
+}
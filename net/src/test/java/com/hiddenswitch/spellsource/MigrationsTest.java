@@ -0,0 +1,45 @@
+package com.hiddenswitch.spellsource;
+
+import com.hiddenswitch.spellsource.impl.MigrationsImpl;
+import com.hiddenswitch.spellsource.impl.SpellsourceTestBase;
+import com.hiddenswitch.spellsource.util.Mongo;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.unit.TestContext;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hiddenswitch.spellsource.util.QuickJson.json;
+import static org.junit.Assert.assertEquals;
+
+public class MigrationsTest extends SpellsourceTestBase {
+
+	@Test
+	public void testForEachBatchResumesFromCheckpoint(TestContext context) {
+		sync(() -> {
+			String collection = "migrationsTest" + RandomStringUtils.randomAlphanumeric(8);
+			String checkpoint = "test-" + collection;
+			List<JsonObject> documents = new ArrayList<>();
+			for (int i = 0; i < 25; i++) {
+				documents.add(json("_id", String.format("doc-%02d", i), "migrated", false));
+			}
+			Mongo.mongo().insertMany(collection, documents);
+
+			// Pretend a previous attempt completed the first ten documents
+			MigrationsImpl.putCheckpoint(checkpoint, "doc-09");
+			long read = Migrations.forEachBatch(checkpoint, collection, json(), json("_id", 1), collection,
+					document -> BulkOperation.createUpdate(json("_id", document.getString("_id")), json("$set", json("migrated", true)), false, false), 4);
+
+			assertEquals(15L, read);
+			assertEquals(15L, (long) Mongo.mongo().count(collection, json("migrated", true)));
+			assertEquals(0L, (long) Mongo.mongo().count(collection, json("_id", json("$lte", "doc-09"), "migrated", true)));
+			assertEquals("doc-24", MigrationsImpl.getCheckpoint(checkpoint));
+
+			// A completed pass resumes past the end and does nothing
+			assertEquals(0L, Migrations.forEachBatch(checkpoint, collection, json(), json("_id", 1), collection, document -> null, 4));
+		});
+	}
+}
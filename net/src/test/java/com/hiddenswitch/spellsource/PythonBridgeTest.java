@@ -2,13 +2,23 @@ package com.hiddenswitch.spellsource;
 
 import com.hiddenswitch.spellsource.applications.PythonBridge;
 import com.hiddenswitch.spellsource.impl.util.SimulationResultGenerator;
+import com.hiddenswitch.spellsource.util.ColumnarSimulation;
 import net.demilich.metastone.game.behaviour.Behaviour;
 import net.demilich.metastone.game.cards.CardCatalogue;
 import net.demilich.metastone.game.shared.threat.GameStateValueBehaviour;
+import net.demilich.metastone.game.shared.threat.WeightedFeature;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -136,4 +146,32 @@ public class PythonBridgeTest {
 		latch.await();
 		Assert.assertTrue(counter.get() > 0);
 	}
+
+	@Test
+	public void testSimulateColumnar() throws IOException {
+		CardCatalogue.loadCardsFromPackage();
+		File file = File.createTempFile("columns", ".bin");
+		file.deleteOnExit();
+		long rows = PythonBridge.simulateColumnar(Arrays.asList(DECK_1, DECK_2), 4, Collections.emptyList(), file.getPath());
+		Assert.assertTrue(rows > 0);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+			byte[] magic = new byte[8];
+			buffer.get(magic);
+			Assert.assertEquals("SSCOLS01", new String(magic, StandardCharsets.US_ASCII));
+			Assert.assertEquals(ColumnarSimulation.VERSION, buffer.getInt());
+			int columns = buffer.getInt();
+			Assert.assertEquals(7 + WeightedFeature.values().length, columns);
+			Assert.assertEquals(rows, buffer.getLong());
+
+			// The outcome column is the seventh, and every decision belongs to a decided or drawn game
+			int descriptor = 24 + 6 * ColumnarSimulation.COLUMN_DESCRIPTOR_BYTES;
+			long outcomes = buffer.getLong(descriptor + ColumnarSimulation.COLUMN_NAME_BYTES + 8);
+			for (int i = 0; i < rows; i++) {
+				int outcome = buffer.getInt((int) outcomes + 4 * i);
+				Assert.assertTrue(outcome >= -1 && outcome <= 1);
+			}
+		}
+	}
 }
@@ -0,0 +1,53 @@
+package com.hiddenswitch.spellsource;
+
+import com.hiddenswitch.spellsource.impl.util.TimingWheel;
+import io.vertx.core.Vertx;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TimingWheelTest {
+
+	@Test
+	public void testPostponeCancelAndFire() throws InterruptedException {
+		Vertx vertx = Vertx.vertx();
+		try {
+			// A small wheel, so that timeouts wait for later turns of the wheel too
+			TimingWheel wheel = new TimingWheel(vertx, 10L, 4);
+			List<String> fired = new CopyOnWriteArrayList<>();
+			CountDownLatch latch = new CountDownLatch(2);
+			long start = System.nanoTime();
+
+			wheel.schedule(120L, id -> {
+				fired.add("late");
+				latch.countDown();
+			});
+			TimingWheel.Timeout postponed = wheel.schedule(30L, id -> {
+				fired.add("postponed");
+				Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200L);
+				latch.countDown();
+			});
+			TimingWheel.Timeout cancelled = wheel.schedule(20L, id -> fired.add("cancelled"));
+
+			Assert.assertTrue(postponed.postpone(200L));
+			Assert.assertTrue(cancelled.cancel());
+			Assert.assertFalse(cancelled.cancel());
+
+			Assert.assertTrue(latch.await(5L, TimeUnit.SECONDS));
+			Assert.assertEquals(fired.get(0), "late");
+			Assert.assertEquals(fired.get(1), "postponed");
+			Assert.assertEquals(fired.size(), 2);
+			Assert.assertEquals(wheel.size(), 0);
+
+			// Fired timeouts can't be postponed, a new one should be scheduled
+			Assert.assertFalse(postponed.postpone(10L));
+			wheel.close();
+		} finally {
+			vertx.close();
+		}
+	}
+}
@@ -1,5 +1,7 @@
 import abc
 import json
+import mmap
+import struct
 from collections import deque
 from math import factorial
 from multiprocessing import Queue
@@ -16,16 +18,6 @@ def simulate(context: Context, decks: Sequence[str] = (), number: int = 1,
     PythonBridge = ctx.PythonBridge
     ArrayList = ctx.ArrayList
     
-    behaviours = list(behaviours)
-    for i, behaviour in enumerate(behaviours):
-        if isinstance(behaviour, str):
-            behaviours[i] = PythonBridge.getBehaviourByName(behaviour)
-            assert behaviours[i] is not None
-        elif isinstance(behaviour, Behaviour):
-            behaviours[i] = _Supplier(lambda: behaviour.clone().wrap(ctx))
-        elif isinstance(behaviour, Callable):
-            behaviours[i] = _Supplier(lambda: behaviour().wrap(ctx))
-    
     f = factorial
     estimated_length = f(len(decks)) // f(2) // f(len(decks) - 2)
     if mirrors:
@@ -33,9 +25,7 @@ def simulate(context: Context, decks: Sequence[str] = (), number: int = 1,
     if not reduce:
         estimated_length *= number
     
-    behaviours_java = ArrayList()
-    for b in behaviours:
-        behaviours_java.add(b)
+    behaviours_java = _behaviours_java(ctx, behaviours)
     
     decks_java = ArrayList()
     for d in decks:
@@ -46,6 +36,81 @@ def simulate(context: Context, decks: Sequence[str] = (), number: int = 1,
     return generator
 
 
+def simulate_columnar(context: Context, path: str, decks: Sequence[str], number: int = 1,
+                      behaviours: Sequence[Union[str, Behaviour, Callable[[], Behaviour]]] = ()):
+    """
+    Plays games between two decks entirely in Java and maps the decisions they contain from a columnar file.
+    
+    Only this call crosses the bridge. Prefer behaviours specified by name, since Python behaviours are called back for
+    every decision.
+    
+    :return: A dict of column names to zero-copy memoryviews, as returned by :func:`read_columns`.
+    """
+    ctx = context
+    decks_java = ctx.ArrayList()
+    for d in decks:
+        decks_java.add(d)
+    ctx.PythonBridge.simulateColumnar(decks_java, number, _behaviours_java(ctx, behaviours), path)
+    return read_columns(path)
+
+
+def rollout_columnar(context: Context, path: str, game_context, number: int = 1,
+                     behaviours: Sequence[Union[str, Behaviour, Callable[[], Behaviour]]] = ()):
+    """
+    Plays the specified game context to completion ``number`` times entirely in Java and maps the decisions they
+    contain from a columnar file. The game context is not modified.
+    
+    :return: A dict of column names to zero-copy memoryviews, as returned by :func:`read_columns`.
+    """
+    ctx = context
+    ctx.PythonBridge.rolloutColumnar(game_context, number, _behaviours_java(ctx, behaviours), path)
+    return read_columns(path)
+
+
+_COLUMNAR_MAGIC = b'SSCOLS01'
+_COLUMNAR_HEADER = struct.Struct('<8siiq')
+_COLUMNAR_DESCRIPTOR = struct.Struct('<48siiq')
+_COLUMNAR_FORMATS = {0: 'i', 1: 'd'}
+
+
+def read_columns(path: str):
+    """
+    Maps a columnar file written by ``ColumnarSimulation`` without copying it.
+    
+    Each column is a ``memoryview`` of ints or doubles over the mapped file, which ``numpy.frombuffer`` also accepts
+    without a copy.
+    
+    :return: A dict of column names to memoryviews.
+    """
+    with open(path, 'rb') as f:
+        mapped = mmap.mmap(f.fileno(), 0, access=mmap.ACCESS_READ)
+    view = memoryview(mapped)
+    magic, version, column_count, rows = _COLUMNAR_HEADER.unpack_from(view, 0)
+    if magic != _COLUMNAR_MAGIC:
+        raise ValueError('%s is not a columnar simulation file' % path)
+    columns = {}
+    for i in range(column_count):
+        name, column_type, width, offset = _COLUMNAR_DESCRIPTOR.unpack_from(
+            view, _COLUMNAR_HEADER.size + i * _COLUMNAR_DESCRIPTOR.size)
+        name = name.rstrip(b'\0').decode('ascii')
+        columns[name] = view[offset:offset + width * rows].cast(_COLUMNAR_FORMATS[column_type])
+    return columns
+
+
+def _behaviours_java(ctx: Context, behaviours):
+    behaviours_java = ctx.ArrayList()
+    for behaviour in behaviours:
+        if isinstance(behaviour, str):
+            behaviour = ctx.PythonBridge.getBehaviourByName(behaviour)
+            assert behaviour is not None
+        elif isinstance(behaviour, Behaviour):
+            behaviour = _Supplier(lambda b=behaviour: b.clone().wrap(ctx))
+        elif isinstance(behaviour, Callable):
+            behaviour = _Supplier(lambda b=behaviour: b().wrap(ctx))
+        behaviours_java.add(behaviour)
+    return behaviours_java
+
+
 class _JavaSupplier(abc.ABC):
     @abc.abstractmethod
     def get(self):